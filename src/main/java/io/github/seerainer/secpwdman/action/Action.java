@@ -33,18 +33,26 @@ import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 import static org.eclipse.swt.events.SelectionListener.widgetSelectedAdapter;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.GeneralSecurityException;
 import java.text.Collator;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-
-import javax.crypto.IllegalBlockSizeException;
-import javax.crypto.NoSuchPaddingException;
-import javax.crypto.SealedObject;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+import java.util.function.UnaryOperator;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.SashForm;
@@ -55,10 +63,10 @@ import org.eclipse.swt.dnd.Transfer;
 import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.widgets.List;
 import org.eclipse.swt.widgets.Menu;
+import org.eclipse.swt.widgets.MessageBox;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.swt.widgets.Table;
 import org.eclipse.swt.widgets.TableColumn;
-import org.eclipse.swt.widgets.TableItem;
 import org.eclipse.swt.widgets.ToolBar;
 import org.slf4j.Logger;
 
@@ -68,17 +76,25 @@ import io.github.seerainer.secpwdman.config.StringConstants;
 import io.github.seerainer.secpwdman.crypto.Crypto;
 import io.github.seerainer.secpwdman.crypto.CryptoConstants;
 import io.github.seerainer.secpwdman.crypto.KeyStoreManager;
+import io.github.seerainer.secpwdman.crypto.PasswordBatch;
 import io.github.seerainer.secpwdman.csv.CSVConfiguration;
 import io.github.seerainer.secpwdman.csv.CSVParseException;
 import io.github.seerainer.secpwdman.csv.CSVParser;
 import io.github.seerainer.secpwdman.csv.CSVParsingOptions;
+import io.github.seerainer.secpwdman.csv.CSVSniffer;
+import io.github.seerainer.secpwdman.csv.CSVWriter;
 import io.github.seerainer.secpwdman.csv.CSVRecord;
-import io.github.seerainer.secpwdman.io.ByteContainer;
+import io.github.seerainer.secpwdman.io.History;
 import io.github.seerainer.secpwdman.io.IOUtil;
+import io.github.seerainer.secpwdman.io.VaultSegments;
+import io.github.seerainer.secpwdman.io.VaultSession;
+import io.github.seerainer.secpwdman.store.EntryMerge;
+import io.github.seerainer.secpwdman.store.EntryMerge.Choice;
+import io.github.seerainer.secpwdman.store.EntryStore;
 import io.github.seerainer.secpwdman.util.CharsetUtil;
 import io.github.seerainer.secpwdman.util.LogFactory;
 import io.github.seerainer.secpwdman.util.SWTUtil;
-import io.github.seerainer.secpwdman.util.SerializationUtils;
+import io.github.seerainer.secpwdman.util.Util;
 import io.github.seerainer.secpwdman.util.Win32Affinity;
 
 /**
@@ -90,12 +106,108 @@ public abstract class Action implements CryptoConstants, PrimitiveConstants, Str
 
     final ConfigData cData;
     final Shell shell;
+    final EntryStore store;
     final Table table;
+    private String group;
+    private Runnable importCancel;
+    private EntryMerge importMerge;
 
-    Action(final ConfigData cData, final Shell shell, final Table table) {
+    Action(final ConfigData cData, final Shell shell, final Table table, final EntryStore store) {
 	this.cData = cData;
 	this.shell = shell;
 	this.table = table;
+	this.store = store;
+    }
+
+    private String[] complete(final String[] row) {
+	final var columns = table.getColumnCount();
+	if (row.length == columns) {
+	    return row;
+	}
+	final var fields = Arrays.copyOf(row, columns);
+	Arrays.setAll(fields, i -> isNull(fields[i]) ? empty : fields[i]);
+	return fields;
+    }
+
+    private static String[] store(final CSVWriter writer, final String[] fields) {
+	try {
+	    writer.writeRecord(fields);
+	} catch (final IOException e) {
+	    throw new UncheckedIOException(e);
+	}
+	return fields;
+    }
+
+    /**
+     * Applies changed entries to the table. Entries are matched by their UUID, a
+     * null line removes the entry and unknown entries are added.
+     *
+     * @param changes the changed CSV lines by UUID, null for deleted entries
+     */
+    public void applyChanges(final Map<String, byte[]> changes) {
+	final var lines = new ByteArrayOutputStream(changes.size() * BUFFER_MIN);
+	changes.values().stream().filter(Objects::nonNull).forEach(line -> {
+	    lines.writeBytes(line);
+	    lines.write(LF);
+	});
+	final var config = CSVConfiguration.builder().delimiter(cData.getDivider()).build();
+	final var parser = new CSVParser(config, CSVParsingOptions.builder().build());
+	final var entries = new LinkedHashMap<String, String[]>();
+	try {
+	    parser.parseByteArray(lines.toByteArray()).forEach(record -> {
+		final var fields = record.getFields();
+		record.clear();
+		entries.put(fields[0], fields);
+	    });
+	} catch (final CSVParseException e) {
+	    LOG.error(ERROR, e);
+	    return;
+	}
+	resetGroupList();
+	table.setRedraw(false);
+	final var rows = new ArrayList<String[]>(changes.size() * 2);
+	for (final var uuid : changes.keySet()) {
+	    final var old = store.get(uuid);
+	    if (isNull(old)) {
+		continue;
+	    }
+	    rows.add(old);
+	    final var fields = entries.remove(uuid);
+	    if (isNull(fields)) {
+		store.remove(uuid);
+	    } else {
+		rows.add(complete(fields));
+		store.update(uuid, rows.getLast());
+	    }
+	}
+	entries.values().forEach(fields -> {
+	    rows.add(complete(fields));
+	    store.add(rows.getLast());
+	});
+	table.setRedraw(true);
+	storeTableData(extractData(false), getGroups(rows));
+	colorTable();
+	fillGroupList();
+	resizeColumns();
+	updateUI();
+	table.redraw();
+    }
+
+    /**
+     * Applies changed entries read from the vault file, as
+     * {@link #applyChanges(Map)} does. If the vault file was replaced, the values
+     * of its header are taken over first.
+     *
+     * @param changes the changed CSV lines by UUID, null for deleted entries
+     * @param header  the config data the vault file was read with
+     */
+    public void applyChanges(final Map<String, byte[]> changes, final ConfigData header) {
+	if (header.hasFileHeader()) {
+	    cData.setFileHeader(header);
+	}
+	if (!changes.isEmpty()) {
+	    applyChanges(changes);
+	}
     }
 
     /**
@@ -120,26 +232,31 @@ public abstract class Action implements CryptoConstants, PrimitiveConstants, Str
 	final var index = cData.getColumnMap().get(csvHeader[3]).intValue();
 	final var color = DARK ? TABL_BACK : DARK_FORE;
 	final var bgColor = getColor(color, color, color);
-	var count = 0;
-	for (final var item : table.getItems()) {
-	    item.setBackground(count++ % 2 == 0 ? bgColor : null);
-	    item.setForeground(index, isUrl(item.getText(index)) ? cData.getLinkColor() : cData.getTextColor());
-	}
-    }
-
-    private boolean containsSpecialChar(final char[] chars) {
-	for (final char c : chars) {
-	    if (c > ASCII_LENGTH || c == QUOTE_CHAR || Character.isWhitespace(c) || c == cData.getDivider()) {
-		return true;
-	    }
+	final var items = table.getItems();
+	final var rows = store.rows();
+	for (var i = 0; i < items.length; i++) {
+	    items[i].setBackground(i % 2 == 0 ? bgColor : null);
+	    items[i].setForeground(index, isUrl(rows.get(i)[index]) ? cData.getLinkColor() : cData.getTextColor());
 	}
-	return false;
     }
 
     private String convertHeaderArrayToString(final String[] s) {
 	return String.join(String.valueOf(cData.getDivider()), s);
     }
 
+    /**
+     * Copies the sealed table data if the table shows a single group. The table
+     * data is always stored with all entries, so the copy still holds the groups
+     * the table does not show.
+     *
+     * @return the copy, to be cleared by the caller, or null if the table shows
+     *         all entries
+     */
+    public VaultSegments copySegments() {
+	final var segments = cData.getSensitiveData().getSegments();
+	return isNull(group) || isNull(segments) ? null : segments.copy();
+    }
+
     private void createColumns(final String[] header) {
 	resetTable();
 	while (table.getColumnCount() > 0) {
@@ -191,20 +308,26 @@ public abstract class Action implements CryptoConstants, PrimitiveConstants, Str
 	    return data;
 	}
 	final var password = CharsetUtil.toChars(getPassword());
+	try {
+	    return decryptPassword(password, data);
+	} finally {
+	    clear(password);
+	}
+    }
+
+    private static char[] decryptPassword(final char[] password, final char[] data) {
 	final var bytes = CharsetUtil.toBytes(data);
 	final var keyData = getBase64Decode(bytes);
 	if (isNull(keyData)) {
-	    clear(password);
 	    return CharsetUtil.toChars(bytes);
 	}
 	final var dec = KeyStoreManager.getPasswordFromKeyStore(password, keyData);
 	if (isNull(dec)) {
-	    clear(password);
 	    return CharsetUtil.toChars(bytes);
 	}
 	final var decChar = CharsetUtil.toChars(dec);
-	clear(password);
 	clear(bytes);
+	clear(dec);
 	return decChar;
     }
 
@@ -246,8 +369,9 @@ public abstract class Action implements CryptoConstants, PrimitiveConstants, Str
 	file.getItem(3).setEnabled(isFileOpen);
 	file.getItem(5).setEnabled(isKeyReady && !isModified && isUnlocked && isWriteable);
 	file.getItem(7).setEnabled(isFileOpen && !isModified && isDefaultHeader);
-	file.getItem(9).setEnabled(itemCount == 0 && isUnlocked && isWriteable);
+	file.getItem(9).setEnabled(isUnlocked && isWriteable);
 	file.getItem(10).setEnabled(itemCount > 0);
+	file.getItem(11).setEnabled(isKeyReady && isFileOpen && isUnlocked && isWriteable && isDefaultHeader);
 
 	edit.getItem(0).setEnabled(isKeyReady && isUnlocked && isWriteable && isDefaultHeader);
 	edit.getItem(1).setEnabled(selectionCount == 1 && isDefaultHeader && isKeyReady);
@@ -293,25 +417,67 @@ public abstract class Action implements CryptoConstants, PrimitiveConstants, Str
 	    return password;
 	}
 	final var key = CharsetUtil.toChars(getPassword());
+	try {
+	    return encryptPassword(key, password);
+	} finally {
+	    clear(key);
+	}
+    }
+
+    private static char[] encryptPassword(final char[] key, final char[] password) {
 	final var bytes = CharsetUtil.toBytes(password);
 	final var kst = KeyStoreManager.putPasswordInKeyStore(key, bytes);
-	clear(key);
 	clear(bytes);
 	return CharsetUtil.toChars(getBase64Encode(kst));
     }
 
-    private String escapeSpecialChar(final char[] chars) {
-	if (!containsSpecialChar(chars)) {
-	    return new String(CharsetUtil.replaceSequence(chars, lineBrk.toCharArray(), space.toCharArray()));
+    /**
+     * Writes the rows as plain table data to the stream. The passwords are
+     * decrypted in parallel, a window of rows at a time, and each window is
+     * written and cleared before the next one, so only one window is held in
+     * plain text. The master password is read once.
+     *
+     * @param rows      the rows, cleared afterwards
+     * @param out       the stream
+     * @param progress  receives the number of rows written
+     * @param cancelled stops the export if true
+     * @return false if cancelled
+     * @throws IOException if the stream cannot be written
+     */
+    public boolean exportData(final char[][][] rows, final OutputStream out, final IntConsumer progress,
+	    final BooleanSupplier cancelled) throws IOException {
+	final var column = getPasswordColumn();
+	final var key = column < 0 ? null : CharsetUtil.toChars(getPassword());
+	final var window = CELL_CHUNK * Runtime.getRuntime().availableProcessors();
+	final var config = CSVConfiguration.builder().delimiter(cData.getDivider()).build();
+	final var writer = new CSVWriter(config, out);
+	try {
+	    writer.writeRaw(cData.getHeader()).endRecord();
+	    for (var start = 0; start < rows.length; start += window) {
+		final var part = Arrays.copyOfRange(rows, start, Math.min(start + window, rows.length));
+		if (nonNull(key) && !PasswordBatch.run(part, column, cell -> decryptPassword(key, cell), null, cancelled)) {
+		    return false;
+		}
+		for (final var row : part) {
+		    for (final var field : row) {
+			writer.writeField(field);
+			clear(field);
+		    }
+		    writer.endRecord();
+		}
+		progress.accept(start + part.length);
+	    }
+	    writer.flush();
+	    return true;
+	} finally {
+	    writer.clear();
+	    clear(key);
+	    for (final var row : rows) {
+		for (final var field : row) {
+		    clear(field);
+		}
+	    }
 	}
-	final var quoteChar1 = quote.toCharArray();
-	final var quoteChar2 = (quote + quote).toCharArray();
-	final var specialCha = CharsetUtil.replaceSequence(chars, quoteChar1, quoteChar2);
-	final var result = new char[specialCha.length + quoteChar2.length];
-	System.arraycopy(quoteChar1, 0, result, 0, quoteChar1.length);
-	System.arraycopy(specialCha, 0, result, quoteChar1.length, specialCha.length);
-	System.arraycopy(quoteChar1, 0, result, quoteChar1.length + specialCha.length, quoteChar1.length);
-	return new String(result);
     }
 
     /**
@@ -321,34 +487,11 @@ public abstract class Action implements CryptoConstants, PrimitiveConstants, Str
      * @return the byte array
      */
     public byte[] extractData(final boolean decrypt) {
-	final var csvDivider = String.valueOf(cData.getDivider());
-	final var isImport = cData.isImport();
-	final var pwdIndex = cData.isCustomHeader() ? -1 : cData.getColumnMap().get(csvHeader[5]).intValue();
-	final var sb = new StringBuilder(table.getItemCount() * BUFFER_MIN); // preallocate size
-	sb.append(cData.getHeader()).append(newLine);
-
-	for (final var item : table.getItems()) {
-	    final var itemText = new String[table.getColumnCount()];
-	    for (var i = 0; i < itemText.length; i++) {
-		var text = item.getText(i).toCharArray();
-		if (decrypt && i == pwdIndex) {
-		    text = decryptPassword(text);
-		} else if (!decrypt && isImport && i == pwdIndex) {
-		    text = encryptPassword(text);
-		}
-		itemText[i] = escapeSpecialChar(text);
-		clear(text);
-	    }
-	    final var line = new StringBuilder();
-	    for (var j = 0; j < itemText.length; j++) {
-		if (j > 0) {
-		    line.append(csvDivider);
-		}
-		line.append(itemText[j]);
-	    }
-	    sb.append(line).append(newLine);
+	final var rows = getTableRows();
+	if (decrypt || cData.isImport()) {
+	    protectPasswords(rows, decrypt, null, null);
 	}
-	return CharsetUtil.toBytes(sb);
+	return writeData(rows);
     }
 
     /**
@@ -359,18 +502,30 @@ public abstract class Action implements CryptoConstants, PrimitiveConstants, Str
 	if (!list.isVisible() || cData.isCustomHeader()) {
 	    return;
 	}
-	final HashSet<String> set = HashSet.newHashSet(table.getItemCount());
-	final var index = cData.getColumnMap().get(csvHeader[1]).intValue();
-
-	for (final var item : table.getItems()) {
-	    set.add(item.getText(index));
+	final var segments = cData.getSensitiveData().getSegments();
+	final Set<String> set = HashSet.newHashSet(store.size());
+	if (nonNull(segments)) {
+	    try {
+		set.addAll(segments.groups().keySet());
+	    } catch (final IOException | GeneralSecurityException e) {
+		LOG.error(ERROR, e);
+	    }
+	}
+	if (set.isEmpty()) {
+	    final var index = cData.getColumnMap().get(csvHeader[1]).intValue();
+	    store.rows().forEach(row -> set.add(row[index]));
 	}
 	list.setRedraw(false);
 	list.removeAll();
 	list.add(listFirs);
 	set.stream().filter((final var text) -> !isBlank(text)).forEach(list::add);
-	list.setSelection(0);
+	// the table may show a single group, the list keeps it selected
+	final var index = isNull(group) ? 0 : list.indexOf(group);
+	list.setSelection(Math.max(0, index));
 	list.setRedraw(true);
+	if (index < 0) {
+	    setGroupSelection();
+	}
     }
 
     /**
@@ -380,29 +535,59 @@ public abstract class Action implements CryptoConstants, PrimitiveConstants, Str
      * @param tableData  the data
      */
     public void fillTable(final boolean withHeader, final byte[] tableData) {
+	fillTable(withHeader, tableData, null);
+    }
+
+    /**
+     * Fills the table with data that may be in another CSV dialect, like an
+     * import. The data is parsed once in its dialect and kept in the configured
+     * one.
+     *
+     * @param withHeader true if filled with header
+     * @param tableData  the data
+     * @param dialect    the dialect of the data, null for the configured one
+     */
+    public void fillTable(final boolean withHeader, final byte[] tableData, final CSVSniffer.Dialect dialect) {
+	if (withHeader) {
+	    group = null;
+	}
 	final var bufferLength = cData.getBufferLength();
 	final var devider = cData.getDivider();
-	final var config = CSVConfiguration.builder().initialBufferSize(bufferLength).delimiter(devider).build();
-	final var options = CSVParsingOptions.builder().build();
+	final var foreign = nonNull(dialect) && (dialect.delimiter() != devider || dialect.quote() != QUOTE_CHAR
+		|| nonNull(dialect.lineEndings()));
+	final var config = (foreign ? dialect.configuration() : CSVConfiguration.builder().delimiter(devider))
+		.initialBufferSize(bufferLength).build();
+	final var options = (foreign ? dialect.options() : CSVParsingOptions.builder()).parallel(true).build();
 	final var parser = new CSVParser(config, options);
-	java.util.List<CSVRecord> record = null;
+	final var writer = foreign && withHeader
+		? new CSVWriter(CSVConfiguration.builder().delimiter(devider).build(), tableData.length)
+		: null;
+	final UnaryOperator<String[]> store = nonNull(writer) ? fields -> store(writer, fields) : UnaryOperator.identity();
+	java.util.List<CSVRecord> records = null;
 
+	if (foreign) {
+	    LOG.info(DIALECT_DETECTED, Character.valueOf(dialect.delimiter()), Character.valueOf(dialect.quote()));
+	}
 	table.setRedraw(false);
 	resetTable();
 
 	try {
-	    record = parser.parseByteArray(tableData.clone());
-	    fillTable(withHeader, record.iterator());
+	    // the data is in memory already, large imports are parsed in parallel
+	    records = parser.parseByteArray(tableData.clone());
+	    fillTable(withHeader, records.stream().map(CSVRecord::getFields).map(store).iterator());
 	    if (withHeader) {
-		storeTableData(tableData);
+		storeTableData(nonNull(writer) ? writer.toByteArray() : tableData);
 	    }
-	} catch (final CSVParseException e) {
+	} catch (final CSVParseException | IllegalArgumentException | UncheckedIOException e) {
 	    LOG.error(ERROR, e);
 	    msg(shell, SWT.ICON_ERROR | SWT.OK, titleErr, errorSev);
 	} finally {
 	    clear(tableData);
-	    if (nonNull(record)) {
-		record.clear();
+	    if (nonNull(records)) {
+		records.forEach(CSVRecord::clear);
+	    }
+	    if (nonNull(writer)) {
+		writer.clear();
 	    }
 	}
 
@@ -412,41 +597,186 @@ public abstract class Action implements CryptoConstants, PrimitiveConstants, Str
 	table.redraw();
     }
 
-    private void fillTable(final boolean withHeader, final Iterator<CSVRecord> iterator) {
-	if (!iterator.hasNext()) {
+    /**
+     * Fills the table with the first group of a vault file in the segmented
+     * layout. The segments of all other groups stay sealed until their group is
+     * selected.
+     *
+     * @param segments the segments of the vault file
+     * @return false if the group list is hidden or there is no group to show
+     * @throws IOException              if the index is invalid
+     * @throws GeneralSecurityException if a segment was tampered with
+     */
+    public boolean fillTable(final VaultSegments segments) throws IOException, GeneralSecurityException {
+	final var list = getList();
+	final var first = segments.groups().keySet().stream().filter((final var text) -> !isBlank(text)).findFirst();
+	if (!list.isVisible() || first.isEmpty()) {
+	    return false;
+	}
+	fillTable(true, segments.open(first.get()));
+	final var sensitiveData = cData.getSensitiveData();
+	if (nonNull(sensitiveData.getSegments())) {
+	    sensitiveData.getSegments().clear();
+	}
+	sensitiveData.setSegments(segments.copy());
+	group = first.get();
+	fillGroupList();
+	return true;
+    }
+
+    private void fillTable(final boolean withHeader, final Iterator<String[]> lines) {
+	if (!lines.hasNext()) {
 	    return;
 	}
-	final var header = iterator.next().getFields();
+	final var header = lines.next();
 	if (withHeader) {
+	    // the entries may differ from the saved vault, a save compares all of them
+	    store.replaced();
 	    if (isEqual(header, csvHeader)) {
 		defaultHeader();
 	    } else {
 		customHeader(header);
 	    }
-	    fillTable(iterator, null);
+	    fillTable(lines, null);
 	} else {
 	    final var list = getList();
 	    final var listSelection = list.getItem(list.getSelectionIndex());
-	    fillTable(iterator, listSelection.equals(listFirs) ? null : listSelection);
+	    fillTable(lines, listSelection.equals(listFirs) ? null : listSelection);
 	}
     }
 
-    private void fillTable(final Iterator<CSVRecord> iterator, final String selection) {
+    private void fillTable(final Iterator<String[]> lines, final String selection) {
 	var count = 0;
 	final var groupIndex = cData.isCustomHeader() ? -1 : cData.getColumnMap().get(csvHeader[1]).intValue();
-	while (iterator.hasNext()) {
-	    final var txt = iterator.next().getFields();
+	while (lines.hasNext()) {
+	    final var txt = lines.next();
 	    if (isNull(selection) || selection.equals(txt[groupIndex])) {
 		if (count++ == MAX_TABLE_ENTRIES && !msgYesNo(cData, shell, warnMaxE)) {
 		    LOG.warn(MAX_ENTRY);
 		    break;
 		}
-		final var ti = new TableItem(table, SWT.NONE);
-		ti.setText(txt);
+		store.load(complete(txt));
 	    }
 	}
     }
 
+    /**
+     * Cancels a running import. The table is emptied again, or gets back the
+     * entries it had before a merge.
+     */
+    public void cancelImport() {
+	if (isNull(importCancel)) {
+	    return;
+	}
+	table.setRedraw(false);
+	if (nonNull(importMerge)) {
+	    importCancel.run();
+	    importCancel = null;
+	    importMerge.rollback();
+	    importMerge = null;
+	} else {
+	    resetTable();
+	    defaultHeader();
+	}
+	table.setRedraw(true);
+    }
+
+    /**
+     * Finishes an import. The table is colored and its content stored, including
+     * the changes made while the rows were still coming in. A merge leaves the
+     * file as it is and marks it modified, any other import replaces the file.
+     * Beyond the maximum of entries the import is kept only if confirmed once,
+     * and what is done with the rows that change an entry is asked once.
+     *
+     * @return false if the import was cancelled at the maximum of entries
+     */
+    public boolean finishImport() {
+	if (store.size() > MAX_TABLE_ENTRIES && !msgYesNo(cData, shell, warnMaxE)) {
+	    LOG.warn(MAX_ENTRY);
+	    cancelImport();
+	    return false;
+	}
+	final var merge = importMerge;
+	importCancel = null;
+	importMerge = null;
+	table.setRedraw(false);
+	if (nonNull(merge)) {
+	    LOG.info(IMPORT_MERGED, Integer.valueOf(merge.getAdded()), Integer.valueOf(merge.getIdentical()),
+		    Integer.valueOf(merge.getChanged()));
+	    merge.finish(merge.getChanged() > 0 ? mergeChoice() : Choice.SKIP);
+	}
+	colorTable();
+	table.setRedraw(true);
+	resizeColumns();
+	storeTableData(extractData(false));
+	if (nonNull(merge)) {
+	    cData.setModified(true);
+	} else {
+	    cData.setImport(true);
+	}
+	return true;
+    }
+
+    /**
+     * Adds a batch of imported rows to the table. During a merge every row is
+     * looked up in the index of the entries: new rows are added, the others are
+     * kept until the import finishes.
+     *
+     * @param rows the rows
+     */
+    public void importRows(final Collection<String[]> rows) {
+	table.setRedraw(false);
+	for (final var row : rows) {
+	    final var fields = complete(row);
+	    if (isNull(importMerge)) {
+		store.add(fields);
+	    } else {
+		importMerge.merge(fields);
+	    }
+	}
+	table.setRedraw(true);
+    }
+
+    private Choice mergeChoice() {
+	final var mb = new MessageBox(shell, SWT.ICON_QUESTION | SWT.YES | SWT.NO | SWT.CANCEL);
+	mb.setText(titleInf);
+	mb.setMessage(infoDupl);
+	mb.setButtonLabels(Map.of(Integer.valueOf(SWT.YES), impoUpdt, Integer.valueOf(SWT.NO), impoBoth,
+		Integer.valueOf(SWT.CANCEL), impoSkip));
+	return switch (mb.open()) {
+	case SWT.YES -> Choice.UPDATE;
+	case SWT.NO -> Choice.KEEP_BOTH;
+	default -> Choice.SKIP;
+	};
+    }
+
+    /**
+     * Starts an import. If the table has entries and the import has the same
+     * default header, the rows are merged into the entries, otherwise the table
+     * is emptied and gets the header of the import.
+     *
+     * @param header the header
+     * @param cancel stops the import if the table is reset
+     */
+    public void startImport(final String[] header, final Runnable cancel) {
+	resetGroupList();
+	table.setRedraw(false);
+	if (store.size() > 0 && !cData.isCustomHeader() && isEqual(header, csvHeader)) {
+	    importMerge = new EntryMerge(store);
+	} else {
+	    resetTable();
+	    store.replaced();
+	    if (isEqual(header, csvHeader)) {
+		defaultHeader();
+	    } else {
+		customHeader(header);
+	    }
+	}
+	importCancel = cancel;
+	table.setRedraw(true);
+	resizeColumns();
+    }
+
     /**
      * Gets the cdata.
      *
@@ -456,6 +786,75 @@ public abstract class Action implements CryptoConstants, PrimitiveConstants, Str
 	return cData;
     }
 
+    /**
+     * Gets the lines of the entries changed since the last save, as
+     * {@link #writeData} writes them. The changes are not known after an import,
+     * with a custom header or if an entry has no unique UUID.
+     *
+     * @param changes the changed entries
+     * @return the lines by UUID, null for deleted entries, or null if the changes
+     *         are not known
+     */
+    public Map<String, byte[]> getChangedLines(final EntryStore.Changes changes) {
+	final var uuids = changes.uuids();
+	if (isNull(uuids) || cData.isImport() || cData.isCustomHeader() || store.hasGeneratedKeys()) {
+	    return null;
+	}
+	final var config = CSVConfiguration.builder().delimiter(cData.getDivider()).build();
+	final var writer = new CSVWriter(config, BUFFER_MIN);
+	final Map<String, byte[]> lines = LinkedHashMap.newLinkedHashMap(uuids.size());
+	try {
+	    for (final var uuid : uuids) {
+		final var fields = store.get(uuid);
+		if (isNull(fields)) {
+		    lines.put(uuid, null);
+		} else if (uuid.equals(fields[0])) {
+		    Arrays.stream(fields).forEach(writer::writeField);
+		    lines.put(uuid, writer.toByteArray());
+		    writer.clear();
+		} else {
+		    // the entry got another UUID, only all lines tell what changed
+		    lines.values().forEach(Util::clear);
+		    return null;
+		}
+	    }
+	    return lines;
+	} finally {
+	    writer.clear();
+	}
+    }
+
+    /**
+     * Gets the groups of the rows, so only these are sealed again.
+     *
+     * @param rows the rows
+     * @return the groups, or null if the table has a custom header
+     */
+    public Set<String> getGroups(final Collection<String[]> rows) {
+	if (cData.isCustomHeader()) {
+	    return null;
+	}
+	final var column = cData.getColumnMap().get(csvHeader[1]).intValue();
+	final Set<String> groups = HashSet.newHashSet(rows.size());
+	rows.forEach(fields -> groups.add(fields[column]));
+	return groups;
+    }
+
+    /**
+     * Gets the older versions of a saved entry, the newest first.
+     *
+     * @param uuid the UUID of the entry
+     * @return the versions, empty if there are none
+     */
+    public java.util.List<History.Version> getHistory(final String uuid) {
+	try {
+	    return VaultSession.getInstance().getHistory().versions(cData.getFile(), uuid);
+	} catch (final IOException | GeneralSecurityException | CSVParseException e) {
+	    LOG.warn(WARN, e);
+	    return java.util.List.of();
+	}
+    }
+
     /**
      * Gets the list.
      *
@@ -482,6 +881,14 @@ public abstract class Action implements CryptoConstants, PrimitiveConstants, Str
 	return KeyStoreManager.getPasswordFromKeyStore(keyStorePassword, keyStoreData);
     }
 
+    private int getPasswordColumn() {
+	// passwords are only encrypted in the default header and with a key store
+	if (cData.isCustomHeader() || !isKeyStoreReady()) {
+	    return -1;
+	}
+	return cData.getColumnMap().get(csvHeader[5]).intValue();
+    }
+
     /**
      * Gets the shell.
      *
@@ -500,6 +907,28 @@ public abstract class Action implements CryptoConstants, PrimitiveConstants, Str
 	return table;
     }
 
+    /**
+     * Gets the store of the entries shown in the table.
+     *
+     * @return the store
+     */
+    public EntryStore getStore() {
+	return store;
+    }
+
+    /**
+     * Gets the fields of all entries in the table. The rows are read from the
+     * store, so this works off the UI thread too, and can be protected and
+     * written without the table.
+     *
+     * @return the rows
+     */
+    public char[][][] getTableRows() {
+	return store.rows().stream()
+		.map(row -> Arrays.stream(row).map(String::toCharArray).toArray(char[][]::new))
+		.toArray(char[][][]::new);
+    }
+
     /**
      * Gets the toolbar.
      *
@@ -564,19 +993,74 @@ public abstract class Action implements CryptoConstants, PrimitiveConstants, Str
     }
 
     /**
-     * Resets the group list.
+     * Compares and encrypts the passwords of a merge in one parallel pass. Runs
+     * off the UI thread, after the table took the last batch and before the
+     * import finishes.
+     *
+     * @param cancelled stops the passwords if true
+     * @return false if it was cancelled
      */
-    public void resetGroupList() {
+    public boolean protectImport(final BooleanSupplier cancelled) {
+	final var merge = importMerge;
+	if (isNull(merge)) {
+	    return true;
+	}
+	// the passwords of an import that is not saved yet are encrypted when saving
+	if (cData.isImport()) {
+	    return merge.protect(_ -> true, _ -> true);
+	}
+	return merge.protect(rows -> protectPasswords(rows, true, null, cancelled),
+		rows -> protectPasswords(rows, false, null, cancelled));
+    }
+
+    /**
+     * Encrypts or decrypts the password of every row in parallel. The master
+     * password is read from the key store once for all rows.
+     *
+     * @param rows      the rows
+     * @param decrypt   true if the passwords should be decrypted
+     * @param progress  receives the number of rows done, may be null
+     * @param cancelled stops the rows if true, may be null
+     * @return false if cancelled
+     */
+    public boolean protectPasswords(final char[][][] rows, final boolean decrypt, final IntConsumer progress,
+	    final BooleanSupplier cancelled) {
+	final var column = getPasswordColumn();
+	if (column < 0 || rows.length == 0) {
+	    return true;
+	}
+	final var key = CharsetUtil.toChars(getPassword());
+	try {
+	    return PasswordBatch.run(rows, column,
+		    decrypt ? cell -> decryptPassword(key, cell) : cell -> encryptPassword(key, cell), progress,
+		    cancelled);
+	} finally {
+	    clear(key);
+	}
+    }
+
+    /**
+     * Resets the group list. If a group was selected, the table is filled with
+     * all groups again and entries with a blank or repeated UUID get new keys.
+     *
+     * @return true if the table was filled again
+     */
+    public boolean resetGroupList() {
 	final var list = getList();
 	if (!list.isVisible() || list.getSelectionIndex() < 1) {
-	    return;
+	    return false;
 	}
 	list.setSelection(0);
 	setGroupSelection();
+	return true;
     }
 
     void resetTable() {
-	table.removeAll();
+	if (nonNull(importCancel)) {
+	    importCancel.run();
+	    importCancel = null;
+	}
+	store.clear();
 	table.setSortColumn(null);
     }
 
@@ -613,25 +1097,22 @@ public abstract class Action implements CryptoConstants, PrimitiveConstants, Str
     }
 
     /**
-     * Fills the table with the selected group.
+     * Fills the table with the selected group. Only the segment of the group is
+     * decrypted.
      */
     public void setGroupSelection() {
-	final var index = getList().getSelectionIndex();
+	final var list = getList();
+	final var index = list.getSelectionIndex();
 	if (index < 0) {
 	    return;
 	}
-	final var sensitiveData = cData.getSensitiveData();
-	final var sealedData = sensitiveData.getSealedData();
-	final var dataKey = sensitiveData.getDataKey();
+	group = index == 0 ? null : list.getItem(index);
+	final var segments = cData.getSensitiveData().getSegments();
 	byte[] bytes = null;
-	if (nonNull(sealedData) && nonNull(dataKey)) {
+	if (nonNull(segments)) {
 	    try {
-		final var obj = SerializationUtils.deserialize(sealedData.clone());
-		final var so = SealedObject.class.cast(obj);
-		final var key = Crypto.getSecretKey(dataKey, keyAES);
-		bytes = ((ByteContainer) so.getObject(key)).getData();
-	    } catch (ClassCastException | ClassNotFoundException | InvalidKeyException | IOException
-		    | NoSuchAlgorithmException e) {
+		bytes = segments.open(group);
+	    } catch (final IOException | GeneralSecurityException e) {
 		LOG.error(ERROR, e);
 		msg(shell, SWT.ICON_ERROR | SWT.OK, titleErr, errorSev);
 	    }
@@ -668,7 +1149,7 @@ public abstract class Action implements CryptoConstants, PrimitiveConstants, Str
     }
 
     private void sortTable(final SelectionEvent e) {
-	if (table.getItemCount() < 2) {
+	if (store.size() < 2) {
 	    return;
 	}
 	final var startTime = System.currentTimeMillis();
@@ -680,28 +1161,12 @@ public abstract class Action implements CryptoConstants, PrimitiveConstants, Str
 	    table.setSortColumn(selectedColumn);
 	    dir = SWT.UP;
 	}
-	final var finalDir = dir;
 	final var index = Arrays.asList(table.getColumns()).indexOf(selectedColumn);
 	final var collator = Collator.getInstance();
-	final var items = table.getItems();
-
-	Arrays.sort(items, (item1, item2) -> {
-	    final var value1 = item1.getText(index);
-	    final var value2 = item2.getText(index);
-	    return finalDir == SWT.UP ? collator.compare(value1, value2) : collator.compare(value2, value1);
-	});
+	final Comparator<String[]> comparator = (row1, row2) -> collator.compare(row1[index], row2[index]);
 
 	table.setRedraw(false);
-	final var values = new String[table.getColumnCount()];
-	for (var i = 0; i < items.length; i++) {
-	    final var item = items[i];
-	    for (var j = 0; j < values.length; j++) {
-		values[j] = item.getText(j);
-	    }
-	    item.dispose();
-	    final var newItem = new TableItem(table, SWT.NONE, i);
-	    newItem.setText(values);
-	}
+	store.sort(dir == SWT.UP ? comparator : comparator.reversed());
 	table.setRedraw(true);
 
 	colorTable();
@@ -710,11 +1175,22 @@ public abstract class Action implements CryptoConstants, PrimitiveConstants, Str
     }
 
     /**
-     * Stores the table data in a sealed object.
+     * Stores the table data sealed by group.
      *
      * @param data the table data to store
      */
     public void storeTableData(final byte[] data) {
+	storeTableData(data, null);
+    }
+
+    /**
+     * Stores the table data sealed by group. Only the given groups are sealed
+     * again, the other groups keep their segments where these still fit.
+     *
+     * @param data   the table data to store
+     * @param groups the groups whose entries changed, null to seal all groups
+     */
+    public void storeTableData(final byte[] data, final Set<String> groups) {
 	if (isNull(data)) {
 	    LOG.error(DATA_NOT_NULL);
 	    return;
@@ -726,10 +1202,15 @@ public abstract class Action implements CryptoConstants, PrimitiveConstants, Str
 		key = Crypto.generateSecretKey(keyAES).getEncoded();
 		sensitiveData.setDataKey(key);
 	    }
-	    final var so = Crypto.generateSealedObject(data, key, cipherAES, keyAES);
-	    cData.getSensitiveData().setSealedData(SerializationUtils.serialize(so));
-	} catch (InvalidKeyException | IllegalBlockSizeException | NoSuchAlgorithmException | NoSuchPaddingException
-		| IOException | ClassNotFoundException e) {
+	    final var column = cData.isCustomHeader() ? -1 : cData.getColumnMap().get(csvHeader[1]).intValue();
+	    final var old = sensitiveData.getSegments();
+	    final var segments = isNull(old) || isNull(groups) ? VaultSegments.seal(key, data, cData.getDivider(), column)
+		    : old.update(key, data, cData.getDivider(), column, groups);
+	    if (nonNull(old)) {
+		old.clear();
+	    }
+	    sensitiveData.setSegments(segments);
+	} catch (final IOException | GeneralSecurityException e) {
 	    LOG.error(ERROR, e);
 	    msg(shell, SWT.ICON_ERROR | SWT.OK, titleErr, errorSev);
 	} finally {
@@ -744,4 +1225,31 @@ public abstract class Action implements CryptoConstants, PrimitiveConstants, Str
 	enableItems();
 	setText();
     }
+
+    /**
+     * Writes the rows as table data with the header. The fields are cleared.
+     *
+     * @param rows the rows
+     * @return the table data
+     */
+    public byte[] writeData(final char[][][] rows) {
+	final var config = CSVConfiguration.builder().delimiter(cData.getDivider()).build();
+	final var writer = new CSVWriter(config, rows.length * BUFFER_MIN);
+	try {
+	    writer.writeRaw(cData.getHeader()).endRecord();
+	    for (final var row : rows) {
+		for (final var field : row) {
+		    writer.writeField(field);
+		    clear(field);
+		}
+		writer.endRecord();
+	    }
+	    return writer.toByteArray();
+	} catch (final IOException e) {
+	    // a writer in memory has no stream to fail
+	    throw new UncheckedIOException(e);
+	} finally {
+	    writer.clear();
+	}
+    }
 }
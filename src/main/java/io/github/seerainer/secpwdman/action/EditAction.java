@@ -22,6 +22,7 @@ package io.github.seerainer.secpwdman.action;
 import static io.github.seerainer.secpwdman.ui.Widgets.text;
 import static io.github.seerainer.secpwdman.util.Util.clear;
 import static io.github.seerainer.secpwdman.util.Util.isBlank;
+import static java.util.Objects.nonNull;
 
 import java.util.ArrayList;
 
@@ -35,6 +36,8 @@ import org.eclipse.swt.widgets.Table;
 
 import io.github.seerainer.secpwdman.config.ConfigData;
 import io.github.seerainer.secpwdman.io.CharArrayString;
+import io.github.seerainer.secpwdman.store.EntryStore;
+import io.github.seerainer.secpwdman.ui.EntryView;
 
 /**
  * The class EditAction.
@@ -47,9 +50,10 @@ public class EditAction extends Action {
      * @param cData the cdata
      * @param shell the shell
      * @param table the table
+     * @param store the store of the table entries
      */
-    public EditAction(final ConfigData cData, final Shell shell, final Table table) {
-	super(cData, shell, table);
+    public EditAction(final ConfigData cData, final Shell shell, final Table table, final EntryStore store) {
+	super(cData, shell, table, store);
     }
 
     /**
@@ -87,23 +91,21 @@ public class EditAction extends Action {
     public void deleteLine() {
 	cData.setModified(true);
 	table.setRedraw(false);
-	if (getList().isVisible()) {
-	    final var items = table.getSelection();
-	    final var arrayList = new ArrayList<String>(items.length);
-	    for (final var item : items) {
-		arrayList.add(item.getText(0));
+	final var items = table.getSelection();
+	final var keys = new ArrayList<String>(items.length);
+	final var rows = new ArrayList<String[]>(items.length);
+	for (final var item : items) {
+	    final var key = EntryView.key(item);
+	    final var fields = store.get(key);
+	    if (nonNull(fields)) {
+		keys.add(key);
+		rows.add(fields);
 	    }
-	    resetGroupList();
-	    for (final var item : table.getItems()) {
-		if (arrayList.contains(item.getText(0))) {
-		    item.dispose();
-		}
-	    }
-	} else {
-	    table.remove(table.getSelectionIndices());
 	}
+	// showing all groups again generates new keys, so the selected rows are found again by their fields
+	(resetGroupList() ? store.find(rows) : keys).forEach(store::remove);
 	table.setRedraw(true);
-	storeTableData(extractData(false));
+	storeTableData(extractData(false), getGroups(rows));
 	fillGroupList();
 	updateUI();
     }
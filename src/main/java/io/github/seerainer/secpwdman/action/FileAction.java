@@ -21,6 +21,7 @@ package io.github.seerainer.secpwdman.action;
 
 import static io.github.seerainer.secpwdman.ui.DialogFactory.closeAllDialogs;
 import static io.github.seerainer.secpwdman.ui.DialogFactory.closeSearchDialog;
+import static io.github.seerainer.secpwdman.ui.DialogFactory.createBackupDialog;
 import static io.github.seerainer.secpwdman.ui.DialogFactory.createPasswordDialog;
 import static io.github.seerainer.secpwdman.ui.Widgets.fileDialog;
 import static io.github.seerainer.secpwdman.ui.Widgets.msg;
@@ -29,6 +30,8 @@ import static io.github.seerainer.secpwdman.util.SWTUtil.msgYesNo;
 import static io.github.seerainer.secpwdman.util.Util.clear;
 import static io.github.seerainer.secpwdman.util.Util.isBlank;
 
+import java.io.IOException;
+import java.security.GeneralSecurityException;
 import java.util.Objects;
 
 import org.eclipse.swt.SWT;
@@ -37,9 +40,14 @@ import org.eclipse.swt.widgets.Table;
 import org.slf4j.Logger;
 
 import io.github.seerainer.secpwdman.config.ConfigData;
+import io.github.seerainer.secpwdman.io.BackupStore;
 import io.github.seerainer.secpwdman.io.IO;
 import io.github.seerainer.secpwdman.io.IOUtil;
+import io.github.seerainer.secpwdman.io.SaveService;
+import io.github.seerainer.secpwdman.io.VaultSession;
+import io.github.seerainer.secpwdman.store.EntryStore;
 import io.github.seerainer.secpwdman.util.AutoLockManager;
+import io.github.seerainer.secpwdman.util.AutoSaveManager;
 import io.github.seerainer.secpwdman.util.FileShredder;
 import io.github.seerainer.secpwdman.util.LogFactory;
 
@@ -56,9 +64,28 @@ public class FileAction extends Action {
      * @param cData the cdata
      * @param shell the shell
      * @param table the table
+     * @param store the store of the table entries
      */
-    public FileAction(final ConfigData cData, final Shell shell, final Table table) {
-	super(cData, shell, table);
+    public FileAction(final ConfigData cData, final Shell shell, final Table table, final EntryStore store) {
+	super(cData, shell, table, store);
+    }
+
+    /**
+     * Opens the backup dialog with the versioned backups of the open file.
+     */
+    public void backupDialog() {
+	closeSearchDialog();
+	try {
+	    final var snapshots = VaultSession.getInstance().getBackups().list(cData.getFile());
+	    if (snapshots.isEmpty()) {
+		msg(shell, SWT.ICON_INFORMATION | SWT.OK, titleInf, infoBack);
+	    } else {
+		createBackupDialog(this, snapshots);
+	    }
+	} catch (final IOException e) {
+	    LOG.warn(WARN, e);
+	    msg(shell, SWT.ICON_ERROR, titleErr, errorBac);
+	}
     }
 
     private void clearConfidentialData() {
@@ -69,7 +96,12 @@ public class FileAction extends Action {
 	sensitiveData.setDataKey(null);
 	sensitiveData.setKeyStorePassword(null);
 	sensitiveData.setKeyStoreData(null);
-	sensitiveData.setSealedData(null);
+	if (Objects.nonNull(sensitiveData.getSegments())) {
+	    sensitiveData.getSegments().clear();
+	    sensitiveData.setSegments(null);
+	}
+	SaveService.getInstance().await();
+	VaultSession.getInstance().close();
     }
 
     /**
@@ -91,6 +123,7 @@ public class FileAction extends Action {
 	cData.setTempFile(null);
 	clearConfidentialData();
 	stopAutoLockManager();
+	stopAutoSaveManager();
 	System.gc();
 
 	fillGroupList();
@@ -157,6 +190,7 @@ public class FileAction extends Action {
 	}
 	IOUtil.saveConfig(this);
 	stopAutoLockManager();
+	stopAutoSaveManager();
 	clearClipboard();
 	clearConfidentialData();
 	disposeResources();
@@ -173,7 +207,7 @@ public class FileAction extends Action {
 	}
 	resetGroupList();
 	final var io = new IO(this);
-	io.saveFile(null, file);
+	io.exportFile(file);
     }
 
     private void handleFileError(final String file, final String errorMessage) {
@@ -187,10 +221,10 @@ public class FileAction extends Action {
 	final var txt = imexExte.substring(8);
 	if (file.endsWith(csv) || file.endsWith(txt) || msgYesNo(cData, shell, infoImpo)) {
 	    final var io = new IO(this);
-	    if (io.openFile(null, file)) {
+	    io.importFile(file, () -> {
 		fillGroupList();
-		cData.setImport(true);
-	    }
+		updateUI();
+	    });
 	}
 	cData.setTempFile(null);
     }
@@ -199,17 +233,15 @@ public class FileAction extends Action {
      * Opens the import dialog.
      */
     public void importDialog() {
-	final var file = fileDialog(shell, SWT.OPEN, imexFile, imexExte);
+	final var file = fileDialog(shell, SWT.OPEN, impoText, impoExte);
 	if (!IOUtil.isFileReady(file)) {
 	    return;
 	}
 	final var io = new IO(this);
-	if (!io.openFile(null, file)) {
-	    return;
-	}
-	cData.setImport(true);
-	fillGroupList();
-	updateUI();
+	io.importFile(file, () -> {
+	    fillGroupList();
+	    updateUI();
+	});
     }
 
     /**
@@ -345,7 +377,67 @@ public class FileAction extends Action {
 	final var io = new IO(this);
 	if (io.openFile(getPassword(), file)) {
 	    fillGroupList();
+	    watchFile();
+	}
+    }
+
+    private void reloadFile() {
+	final var file = cData.getFile();
+	if (isBlank(file) || cData.isLocked() || cData.isImport() || !isKeyStoreReady()) {
+	    return;
+	}
+	final var io = new IO(this);
+	if (cData.isModified()) {
+	    io.mergeFile(getPassword(), file);
+	} else {
+	    io.reloadFile(getPassword(), file);
+	}
+    }
+
+    /**
+     * Replaces the entries with the vault data of a versioned backup. The file
+     * stays modified until it is saved.
+     *
+     * @param snapshot the snapshot
+     */
+    public void restoreBackup(final BackupStore.Snapshot snapshot) {
+	final byte[] data;
+	try {
+	    data = VaultSession.getInstance().getBackups().restore(cData.getFile(), snapshot);
+	} catch (final IOException | GeneralSecurityException e) {
+	    LOG.warn(WARN, e);
+	    msg(shell, SWT.ICON_ERROR, titleErr, errorBac);
+	    return;
+	}
+	if (Objects.isNull(data)) {
+	    return;
+	}
+	resetGroupList();
+	fillTable(true, data);
+	fillGroupList();
+	cData.setModified(true);
+	updateUI();
+    }
+
+    /**
+     * Offers to restore the unsaved changes of the last session, if the opened
+     * file has a recovery snapshot. Declining removes the snapshot.
+     */
+    public void restoreRecovery() {
+	final var recovery = VaultSession.getInstance().getRecovery();
+	final var data = recovery.take();
+	if (Objects.isNull(data)) {
+	    return;
+	}
+	if (!msgYesNo(cData, shell, infoReco)) {
+	    clear(data);
+	    recovery.discard();
+	    return;
 	}
+	fillTable(true, data);
+	fillGroupList();
+	cData.setModified(true);
+	updateUI();
     }
 
     /**
@@ -358,10 +450,7 @@ public class FileAction extends Action {
 	if (isKeyStoreReady()) {
 	    final var io = new IO(this);
 	    final var file = cData.getFile();
-	    if (io.saveFile(getPassword(), file)) {
-		cData.setModified(false);
-		postSave();
-	    }
+	    io.saveFile(getPassword(), file, this::postSave);
 	} else {
 	    final var file = fileDialog(shell, SWT.SAVE, passFile, passExte);
 	    if (!isBlank(file)) {
@@ -393,6 +482,7 @@ public class FileAction extends Action {
 	hidePasswordColumn();
 	updateUI();
 	stopAutoLockManager();
+	stopAutoSaveManager();
 	System.gc();
 
 	final var tray = shell.getDisplay().getSystemTray();
@@ -422,4 +512,25 @@ public class FileAction extends Action {
     private void stopAutoLockManager() {
 	AutoLockManager.getInstance(shell.getDisplay(), this).stop();
     }
+
+    private void stopAutoSaveManager() {
+	AutoSaveManager.getInstance(shell.getDisplay(), this).stop();
+    }
+
+    /**
+     * Watches the open file and reloads the entries another program changed, or
+     * merges them with the unsaved changes.
+     */
+    public void watchFile() {
+	final var file = cData.getFile();
+	if (!IOUtil.isFileReady(file)) {
+	    return;
+	}
+	final var display = shell.getDisplay();
+	new IO(this).watchFile(file, () -> {
+	    if (!display.isDisposed()) {
+		display.asyncExec(this::reloadFile);
+	    }
+	});
+    }
 }
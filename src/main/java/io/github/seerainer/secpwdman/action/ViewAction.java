@@ -32,6 +32,7 @@ import org.eclipse.swt.widgets.Shell;
 import org.eclipse.swt.widgets.Table;
 
 import io.github.seerainer.secpwdman.config.ConfigData;
+import io.github.seerainer.secpwdman.store.EntryStore;
 
 /**
  * The class ViewAction.
@@ -44,9 +45,10 @@ public class ViewAction extends Action {
      * @param cData the cdata
      * @param shell the shell
      * @param table the table
+     * @param store the store of the table entries
      */
-    public ViewAction(final ConfigData cData, final Shell shell, final Table table) {
-	super(cData, shell, table);
+    public ViewAction(final ConfigData cData, final Shell shell, final Table table, final EntryStore store) {
+	super(cData, shell, table, store);
     }
 
     private static FontData[] getFontData(final Control control) {
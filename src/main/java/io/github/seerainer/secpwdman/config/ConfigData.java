@@ -31,6 +31,8 @@ import io.github.seerainer.secpwdman.crypto.CryptoConfig;
  */
 public class ConfigData implements PrimitiveConstants {
 
+    private boolean hasFileHeader = false;
+    private boolean isBackup = true;
     private boolean isClearAfterSave = false;
     private boolean isCompress = true;
     private boolean isCustomHeader = false;
@@ -41,6 +43,8 @@ public class ConfigData implements PrimitiveConstants {
     private boolean isModified = false;
     private boolean isReadOnly = false;
     private boolean isResizeCol = false;
+    private boolean isSegmented = false;
+    private boolean isTrainDictionary = false;
 
     private char divider = DELIMITER;
 
@@ -49,6 +53,7 @@ public class ConfigData implements PrimitiveConstants {
     private int columnWidth = 150;
     private int passwordMinLength = 8;
     private int bufferLength = 1024;
+    private int compression = COMPRESS_LEGACY;
 
     private Color linkColor;
     private Color textColor;
@@ -63,6 +68,8 @@ public class ConfigData implements PrimitiveConstants {
 
     private String file = null;
     private String header = null;
+    private String merkleKey = null;
+    private String merkleRoot = null;
     private String shellFont = null;
     private String tableFont = null;
     private String tempFile = null;
@@ -110,6 +117,13 @@ public class ConfigData implements PrimitiveConstants {
 	return columnWidth;
     }
 
+    /**
+     * @return the compression version of the opened file
+     */
+    public int getCompression() {
+	return compression;
+    }
+
     /**
      * @return the cryptoConfig
      */
@@ -138,6 +152,20 @@ public class ConfigData implements PrimitiveConstants {
 	return header;
     }
 
+    /**
+     * @return the wrapped key of the entry hashes of the opened file
+     */
+    public String getMerkleKey() {
+	return merkleKey;
+    }
+
+    /**
+     * @return the root of the entry hashes of the opened file
+     */
+    public String getMerkleRoot() {
+	return merkleRoot;
+    }
+
     /**
      * @return the linkColor
      */
@@ -201,6 +229,20 @@ public class ConfigData implements PrimitiveConstants {
 	return textColor;
     }
 
+    /**
+     * @return true, if the values of a vault file header were read
+     */
+    public boolean hasFileHeader() {
+	return hasFileHeader;
+    }
+
+    /**
+     * @return true, if versioned backups are kept
+     */
+    public boolean isBackup() {
+	return isBackup;
+    }
+
     /**
      * @return true, if is clear after save
      */
@@ -271,6 +313,20 @@ public class ConfigData implements PrimitiveConstants {
 	return isResizeCol;
     }
 
+    /**
+     * @return true, if the vault file is written in segments by group
+     */
+    public boolean isSegmented() {
+	return isSegmented;
+    }
+
+    /**
+     * @return the isTrainDictionary
+     */
+    public boolean isTrainDictionary() {
+	return isTrainDictionary;
+    }
+
     /**
      * @param autoLockTime the autoLockTime to set
      */
@@ -285,6 +341,13 @@ public class ConfigData implements PrimitiveConstants {
 	this.bufferLength = bufferLength;
     }
 
+    /**
+     * @param isBackup the isBackup to set
+     */
+    public void setBackup(final boolean isBackup) {
+	this.isBackup = isBackup;
+    }
+
     /**
      * @param isClearAfterSave the new clear after save
      */
@@ -320,6 +383,13 @@ public class ConfigData implements PrimitiveConstants {
 	this.isCompress = isCompress;
     }
 
+    /**
+     * @param compression the compression version to set
+     */
+    public void setCompression(final int compression) {
+	this.compression = compression;
+    }
+
     /**
      * @param isCustomHeader the new custom header
      */
@@ -348,6 +418,21 @@ public class ConfigData implements PrimitiveConstants {
 	this.file = file;
     }
 
+    /**
+     * Takes over the values of a vault file header read into another config
+     * data.
+     *
+     * @param other the config data with the file header values
+     */
+    public void setFileHeader(final ConfigData other) {
+	this.compression = other.compression;
+	this.isImport = other.isImport;
+	this.hasFileHeader = other.hasFileHeader;
+	this.merkleKey = other.merkleKey;
+	this.merkleRoot = other.merkleRoot;
+	this.cryptoConfig.setConfig(other.cryptoConfig);
+    }
+
     /**
      * @param header the new header
      */
@@ -362,6 +447,27 @@ public class ConfigData implements PrimitiveConstants {
 	this.isImport = isImport;
     }
 
+    /**
+     * @param hasFileHeader true, if the values of a vault file header were read
+     */
+    public void setHasFileHeader(final boolean hasFileHeader) {
+	this.hasFileHeader = hasFileHeader;
+    }
+
+    /**
+     * @param merkleKey the wrapped key of the entry hashes to set
+     */
+    public void setMerkleKey(final String merkleKey) {
+	this.merkleKey = merkleKey;
+    }
+
+    /**
+     * @param merkleRoot the root of the entry hashes to set
+     */
+    public void setMerkleRoot(final String merkleRoot) {
+	this.merkleRoot = merkleRoot;
+    }
+
     /**
      * @param linkColor the linkColor to set
      */
@@ -411,6 +517,13 @@ public class ConfigData implements PrimitiveConstants {
 	this.isResizeCol = isResizeCol;
     }
 
+    /**
+     * @param isSegmented the isSegmented to set
+     */
+    public void setSegmented(final boolean isSegmented) {
+	this.isSegmented = isSegmented;
+    }
+
     /**
      * @param shellFont the shellFont to set
      */
@@ -452,4 +565,11 @@ public class ConfigData implements PrimitiveConstants {
     public void setTextColor(final Color textColor) {
 	this.textColor = textColor;
     }
+
+    /**
+     * @param isTrainDictionary the isTrainDictionary to set
+     */
+    public void setTrainDictionary(final boolean isTrainDictionary) {
+	this.isTrainDictionary = isTrainDictionary;
+    }
 }
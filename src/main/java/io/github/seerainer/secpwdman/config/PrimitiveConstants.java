@@ -58,6 +58,57 @@ public interface PrimitiveConstants {
     int TEST_SIZE = 0x10000;
     int WDA_EXCLUDEFROMCAPTURE = 0x11;
 
+    // Backup
+    int ATTACHMENT_VERSION = 1;
+    int BACKUP_VERSION = 1;
+    int BACKUP_KEEP = 256;
+    int CHUNK_BITS = 13;
+    int CHUNK_MIN = 0x800;
+    int CHUNK_AVERAGE = 1 << CHUNK_BITS;
+    int CHUNK_MAX = 0x10000;
+    long CHUNK_SEED = 0x53504D4243444331L;
+
+    // History
+    int HISTORY_VERSION = 1;
+    int HISTORY_KEEP = 32;
+    int HISTORY_KEYFRAME = 8;
+
+    // CSV
+    int CSV_CHUNK = 0x40000;
+    int CSV_PARALLEL = 2 * CSV_CHUNK;
+    int CSV_WINDOW = 0x4000;
+    int CSV_SAMPLE = 0x2000;
+    int CSV_BATCH = 500;
+    int CSV_PROGRESS = 100;
+
+    // Compression
+    int COMPRESS_LEGACY = -1;
+    int COMPRESS_NONE = 0;
+    int COMPRESS_PRESET = 1;
+    int COMPRESS_TRAINED = 2;
+    int DICT_MIN_TOKEN = 4;
+    int DICT_MAX_TOKEN = 64;
+    int DICT_TRAINED_SIZE = 0x1000;
+
+    // Journal
+    int JOURNAL_VERSION = 1;
+    int JOURNAL_RATIO = 2;
+    int JOURNAL_MIN_SIZE = 0x8000;
+
+    // Merkle tree
+    int MERKLE_DEPTH = 12;
+
+    // Recovery
+    int RECOVERY_VERSION = 1;
+    int AUTOSAVE_QUIET = 5;
+    int AUTOSAVE_INTERVAL = 30;
+
+    // Password cells
+    int CELL_CHUNK = 32;
+
+    // File watcher
+    int WATCH_DEBOUNCE = 500;
+
     // Colors
     int DARK_FORE = 0xEE;
     int HEAD_BACK = 0x48;
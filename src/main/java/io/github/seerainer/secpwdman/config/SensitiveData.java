@@ -19,6 +19,8 @@
  */
 package io.github.seerainer.secpwdman.config;
 
+import io.github.seerainer.secpwdman.io.VaultSegments;
+
 /**
  * The class SensitiveData.
  */
@@ -26,8 +28,8 @@ public class SensitiveData {
 
     private transient byte[] dataKey;
     private transient byte[] keyStoreData;
-    private transient byte[] sealedData;
     private transient char[] keyStorePassword;
+    private transient VaultSegments segments;
 
     SensitiveData() {
     }
@@ -54,10 +56,10 @@ public class SensitiveData {
     }
 
     /**
-     * @return the sealedData
+     * @return the segments
      */
-    public byte[] getSealedData() {
-	return sealedData;
+    public VaultSegments getSegments() {
+	return segments;
     }
 
     /**
@@ -82,9 +84,9 @@ public class SensitiveData {
     }
 
     /**
-     * @param sealedData the sealedData to set
+     * @param segments the segments to set
      */
-    public void setSealedData(final byte[] sealedData) {
-	this.sealedData = sealedData;
+    public void setSegments(final VaultSegments segments) {
+	this.segments = segments;
     }
 }
@@ -74,6 +74,7 @@ public interface StringConstants {
     String eplAddress = "https://www.eclipse.org/legal/epl-2.0";
 
     // General strings
+    String comma = ",";
     String empty = "";
     String minus = "-";
     String quote = "\"";
@@ -86,6 +87,7 @@ public interface StringConstants {
     String lineBrk = "\\R";
     String logical = "&&";
     String replus = "\\+";
+    String pwdMask = "\u2022\u2022\u2022\u2022\u2022\u2022\u2022\u2022";
 
     // Title strings
     String titlePH = " - ";
@@ -102,19 +104,42 @@ public interface StringConstants {
     String ERROR = "Error occurred";
     String WARN = "Warning occurred";
     String AFFINITY_FAILED = "Failed to set window display affinity";
+    String ATTACHMENT_ADDED = "Attachment added: {} of {} chunks new";
+    String ATTACHMENT_REMOVED = "Attachments removed: {}, unused chunks removed: {}";
+    String BACKUP_PRUNED = "Backup snapshots removed: {}, unused chunks removed: {}";
+    String BACKUP_WRITTEN = "Backup snapshot written: {} of {} chunks new";
     String CUSTOM_HEADER = "Custom header created";
     String DATA_NOT_NULL = "Data must not be null";
+    String DIALECT_DETECTED = "CSV dialect detected, delimiter: {}, quote: {}";
+    String ENCRYPTED_EXPORT = "Encrypted exports cannot be imported";
+    String EXPORT_CANCELLED = "Export cancelled";
     String FILE_ERR = "File error: {}{}{}";
     String FILE_NOT_NULL = "File must not be null";
     String FILE_TOO_LARGE = "File too large: {}";
+    String HISTORY_WRITTEN = "Entry history written: {} entries";
+    String IMPORT_MERGED = "Import merged, new: {}, identical: {}, changed: {}";
+    String JOURNAL_COMPACTED = "Journal compacted into the vault file in {} ms";
+    String JOURNAL_REPLAYED = "Journal replayed: {} records";
+    String JOURNAL_STALE = "Journal does not belong to the vault file and was removed";
+    String JOURNAL_TORN = "Journal record at {} is incomplete and was cut off";
     String MAX_ENTRY = "Data exceeds 100.000 entries";
+    String MERKLE_MISMATCH = "Entry hashes do not match the root in the file header";
     String MISSING_RESOURCE = "Missing resource for key: {}";
     String NO_SETTINGS_FILE = "No settings file found, using default settings";
+    String PASSWORD_NOT_NULL = "Password must not be empty";
+    String RECOVERY_FOUND = "Recovery snapshot found: {} changed entries";
+    String RECOVERY_STALE = "Recovery snapshot does not belong to the saved state and was removed";
+    String RECOVERY_WRITTEN = "Recovery snapshot written: {} changed entries";
+    String SAVE_CANCELLED = "Save cancelled";
+    String SAVE_COALESCED = "Save replaced by a newer snapshot";
     String TIME_CRYPTO = "Cipher: {}, KDF: {}\nEncrypted: {} ms, Decrypted: {} ms";
     String TIME_TO_OPEN = "Time to open: {} ms";
     String TIME_TO_SAVE = "Time to save: {} ms";
     String TIME_TO_SHRED = "Time to shred file: {} ms";
     String TIME_TO_SORT = "Time to sort: {} ms";
+    String VAULT_CHANGED = "Vault file was changed by another program while there are unsaved changes";
+    String VAULT_MERGED = "Vault file was merged with the changes of another program: {} entries changed, {} conflicts";
+    String VAULT_RELOADED = "Vault file was changed by another program: {} entries reloaded";
     String START_TIME = "{} - Time to start: {} ms";
     String TOTAL_TIME = "{} - Execution time: {} seconds";
     String DESERIAL_FAILED = "Deserialization failed";
@@ -135,11 +160,18 @@ public interface StringConstants {
     String invalidParserState = "Invalid parser state";
     String invalidCharAfterQuote = "Invalid character after quoted field at position ";
     String invalidCharAfterClose = "Invalid character after closing quote at position ";
+    String unclosedQuote = "Unclosed quote at the end of the input at position ";
     String fieldIndex = "Field index ";
     String outOfBounds = " out of bounds";
     String csvField = "CSVField{value='%s', quoted=%s, empty=%s, null=%s, pos=%d-%d, col=%d}";
     String csvRecord = "CSVRecord{fields=%d, line=%d, length=%d, errors=%s}";
 
+    // Compression strings
+    String unknownDict = "Unknown compression version: ";
+    String truncatedData = "Compressed data is truncated";
+    String journalDamaged = "Journal record length is damaged at offset ";
+    String segmentsInvalid = "Vault segments do not match their index";
+
     // System information
     String securityProvider = "Security provider";
     String systemEnvi = "System environment variables";
@@ -151,6 +183,7 @@ public interface StringConstants {
     String confFile = "config.json";
     String allFExte = "*.*";
     String imexExte = "*.csv; *.txt";
+    String impoExte = "*.csv; *.txt; *.json; *.xml";
     String passExte = "*.aes; *.json";
     String safeFont = "Arial";
     String consFont = "Courier New";
@@ -161,6 +194,15 @@ public interface StringConstants {
     String macCocoa = "cocoa";
     String windows = "win32";
     String fileMode = "rws";
+    String attachmentExt = ".attachments";
+    String backupExt = ".backup";
+    String historyExt = ".history";
+    String journalExt = ".journal";
+    String manifestExt = ".manifest";
+    String recoveryExt = ".recovery";
+    String snapshotExt = ".snapshot";
+    String snapshotName = "%020d" + snapshotExt;
+    String tempExt = ".tmp";
     String trueStr = "true";
     String user32 = "user32";
     String setAffinity = "my_SetWindowDisplayAffinity";
@@ -175,22 +217,28 @@ public interface StringConstants {
     String argon2P = "argon2Para";
     String argon2T = "argon2Type";
     String autoLoc = "autoLockTime";
+    String backups = "backups";
     String buffLen = "bufferLength";
     String cipALGO = "cipherALGO";
     String clearPw = "clearPassword";
     String coWidth = "columnWidth";
+    String compres = "compression";
     String deflate = "deflate";
     String divider = "divider";
     String encData = "encryptedData";
     String hmacSHA = "HmacSHA2";
     String keyALGO = "keyALGO";
     String keyderf = "keydf";
+    String merkKey = "merkleKey";
+    String merkRoo = "merkleRoot";
     String pwdMinL = "passwordMinLength";
     String pbkdf2I = "PBKDF2Iter";
     String resizeC = "resizeColumns";
     String scryptN = "scryptN";
     String scryptP = "scryptP";
     String scryptR = "scryptR";
+    String segmntd = "segmented";
+    String segmnts = "segments";
     String shelMax = "shellMax";
     String shellFo = "shellFont";
     String shellPX = "shellPosX";
@@ -198,10 +246,12 @@ public interface StringConstants {
     String shellSX = "shellSizeX";
     String shellSY = "shellSizeY";
     String tableFo = "tableFont";
+    String trainDi = "trainDictionary";
 
     // Messages
     String allFiles = getString("File.All.Text");
     String imexFile = getString("File.ImpExp.Text");
+    String impoText = getString("File.Import.Text");
     String passFile = getString("File.Password.Text");
     String menuFile = getString("Menu.File");
     String menuClea = getString("Menu.File.Clear");
@@ -213,6 +263,7 @@ public interface StringConstants {
     String menuUnlo = getString("Menu.File.Unlock");
     String menuImpo = getString("Menu.File.Import");
     String menuExpo = getString("Menu.File.Export");
+    String menuBack = getString("Menu.File.Backup");
     String menuExit = getString("Menu.File.Exit");
     String menuEdit = getString("Menu.Edit");
     String menuNent = getString("Menu.Edit.NewEntry");
@@ -247,6 +298,9 @@ public interface StringConstants {
     String menuSysI = getString("Menu.Help.System");
     String diaCancl = getString("Dialog.Cancel");
     String diaClose = getString("Dialog.Close");
+    String impoBoth = getString("Dialog.Import.KeepBoth");
+    String impoSkip = getString("Dialog.Import.Skip");
+    String impoUpdt = getString("Dialog.Import.Update");
     String dialOkay = getString("Dialog.OK");
     String cfgTitle = getString("Dialog.Config.Title");
     String cfgEnTab = getString("Dialog.Config.EncTab");
@@ -267,6 +321,9 @@ public interface StringConstants {
     String cfgLoMin = getString("Dialog.Config.LockOnMin");
     String cfgTestB = getString("Dialog.Config.Test");
     String cfgDefla = getString("Dialog.Config.Deflate");
+    String cfgTrain = getString("Dialog.Config.TrainDictionary");
+    String cfgSegme = getString("Dialog.Config.Segmented");
+    String cfgBacku = getString("Dialog.Config.Backup");
     String entrNewe = getString("Dialog.Entry.New");
     String entrEdit = getString("Dialog.Entry.Edit");
     String entrView = getString("Dialog.Entry.View");
@@ -281,9 +338,29 @@ public interface StringConstants {
     String entrLgth = getString("Dialog.Entry.Length");
     String entrGene = getString("Dialog.Entry.Generate");
     String entrShow = getString("Dialog.Entry.ShowPass");
+    String entrHist = getString("Dialog.Entry.History");
+    String entrCurr = getString("Dialog.Entry.Current");
+    String entrRest = getString("Dialog.Entry.Restore");
+    String entrAtta = getString("Dialog.Entry.Attachments");
     String entrSpac = getString("Dialog.Entry.Space");
     String entrCust = getString("Dialog.Entry.CustomValues");
     String infoDepe = getString("Dialog.Info.Dependencies");
+    String mergTitl = getString("Dialog.Merge.Title");
+    String mergText = getString("Dialog.Merge.Text");
+    String mergFiel = getString("Dialog.Merge.Field");
+    String mergLoca = getString("Dialog.Merge.Local");
+    String mergRemo = getString("Dialog.Merge.Remote");
+    String mergDele = getString("Dialog.Merge.Deleted");
+    String attaTitl = getString("Dialog.Attachment.Title");
+    String attaName = getString("Dialog.Attachment.Name");
+    String attaSize = getString("Dialog.Attachment.Size");
+    String attaAdd = getString("Dialog.Attachment.Add");
+    String attaSave = getString("Dialog.Attachment.Save");
+    String attaRemo = getString("Dialog.Attachment.Remove");
+    String backTitl = getString("Dialog.Backup.Title");
+    String backText = getString("Dialog.Backup.Text");
+    String backTime = getString("Dialog.Backup.Time");
+    String backEntr = getString("Dialog.Backup.Entries");
     String passTitl = getString("Dialog.Password.Title");
     String passWord = getString("Dialog.Password.Password");
     String passConf = getString("Dialog.Password.Confirm");
@@ -300,6 +377,9 @@ public interface StringConstants {
     String searText = getString("Dialog.Search.Text");
     String textView = getString("Dialog.TextView");
     String textWarn = getString("Dialog.TextWarning");
+    String expoFile = getString("Dialog.Tool.ExportFile");
+    String impoFile = getString("Dialog.Tool.ImportFile");
+    String saveProg = getString("Dialog.Tool.SaveFile");
     String toolPGen = getString("Dialog.Tool.PasswordGenerator");
     String shredFil = getString("Dialog.Tool.ShredFile");
     String systInfo = getString("Dialog.SystemInfo");
@@ -311,15 +391,21 @@ public interface StringConstants {
     String errorImp = getString("MessageBox.Error.Import");
     String errorInp = getString("MessageBox.Error.Input");
     String errorLen = getString("MessageBox.Error.Length");
+    String errorAtt = getString("MessageBox.Error.Attachment");
+    String errorBac = getString("MessageBox.Error.Backup");
     String errorOut = getString("MessageBox.Error.Output");
     String errorPwd = getString("MessageBox.Error.Password");
     String errorSev = getString("MessageBox.Error.Severe");
     String errorShr = getString("MessageBox.Error.Shred");
+    String infoBack = getString("MessageBox.Info.Backup");
+    String infoDupl = getString("MessageBox.Info.Duplicate");
     String infoImpo = getString("MessageBox.Info.Import");
     String infoNewF = getString("MessageBox.Info.NewFile");
+    String infoReco = getString("MessageBox.Info.Recovery");
     String searMess = getString("MessageBox.Search.NotFound");
     String warnNewF = getString("MessageBox.Warning.Changes");
     String warnExit = getString("MessageBox.Warning.Exit");
+    String warnExtC = getString("MessageBox.Warning.External");
     String warnMaxE = getString("MessageBox.Warning.MaxEntries");
     String warnShre = getString("MessageBox.Warning.Shred");
     String warnUPeq = getString("MessageBox.Warning.UserPassEqual");
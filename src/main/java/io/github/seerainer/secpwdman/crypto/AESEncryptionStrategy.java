@@ -19,12 +19,15 @@
  */
 package io.github.seerainer.secpwdman.crypto;
 
+import static java.util.Objects.nonNull;
+
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.AlgorithmParameterSpec;
 import java.security.spec.InvalidKeySpecException;
 import java.util.Arrays;
+import java.util.function.Consumer;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
@@ -38,19 +41,22 @@ import javax.crypto.spec.GCMParameterSpec;
 record AESEncryptionStrategy(CryptoConfig cConf) implements CryptoConstants, EncryptionStrategy {
 
     @Override
-    public byte[] encrypt(final byte[] data, final byte[] password)
+    public byte[] encrypt(final byte[] data, final byte[] password, final Consumer<byte[]> fileKey)
 	    throws BadPaddingException, IllegalBlockSizeException, InvalidAlgorithmParameterException,
 	    InvalidKeyException, InvalidKeySpecException, NoSuchAlgorithmException, NoSuchPaddingException {
 	final var instance = Cipher.getInstance(cipherAES);
 	final var iv = Crypto.getRandomValue(IV_LENGTH);
 	final var salt = Crypto.getRandomValue(SALT_LENGTH);
 	final var key = Crypto.getKeyTransformation(password, salt, cConf);
+	if (nonNull(fileKey)) {
+	    fileKey.accept(key.getEncoded());
+	}
 	instance.init(Cipher.ENCRYPT_MODE, key, getParams(iv));
 	return Crypto.appendValues(iv, salt, instance.doFinal(data));
     }
 
     @Override
-    public byte[] decrypt(final byte[] data, final byte[] password)
+    public byte[] decrypt(final byte[] data, final byte[] password, final Consumer<byte[]> fileKey)
 	    throws BadPaddingException, IllegalBlockSizeException, InvalidAlgorithmParameterException,
 	    InvalidKeyException, InvalidKeySpecException, NoSuchAlgorithmException, NoSuchPaddingException {
 	final var instance = Cipher.getInstance(cipherAES);
@@ -58,7 +64,11 @@ record AESEncryptionStrategy(CryptoConfig cConf) implements CryptoConstants, Enc
 	final var salt = Arrays.copyOfRange(data, IV_LENGTH, IV_LENGTH + SALT_LENGTH);
 	final var key = Crypto.getKeyTransformation(password, salt, cConf);
 	instance.init(Cipher.DECRYPT_MODE, key, getParams(iv));
-	return instance.doFinal(data, IV_LENGTH + SALT_LENGTH, data.length - IV_LENGTH - SALT_LENGTH);
+	final var plain = instance.doFinal(data, IV_LENGTH + SALT_LENGTH, data.length - IV_LENGTH - SALT_LENGTH);
+	if (nonNull(fileKey)) {
+	    fileKey.accept(key.getEncoded());
+	}
+	return plain;
     }
 
     private static AlgorithmParameterSpec getParams(final byte[] iv) {
@@ -165,6 +165,26 @@ public class CryptoConfig implements CryptoConstants {
 	this.encALGO = cipherALGO;
     }
 
+    /**
+     * Copies all values of another crypto config.
+     *
+     * @param config the crypto config to copy
+     */
+    public void setConfig(final CryptoConfig config) {
+	this.argon2Memo = config.argon2Memo;
+	this.argon2Iter = config.argon2Iter;
+	this.argon2Para = config.argon2Para;
+	this.pbkdf2Iter = config.pbkdf2Iter;
+	this.scryptN = config.scryptN;
+	this.scryptR = config.scryptR;
+	this.scryptP = config.scryptP;
+	this.argon2Type = config.argon2Type;
+	this.hmac = config.hmac;
+	this.keyDerivation = config.keyDerivation;
+	this.encALGO = config.encALGO;
+	this.keyALGO = config.keyALGO;
+    }
+
     /**
      * @param hmac the hmac to set
      */
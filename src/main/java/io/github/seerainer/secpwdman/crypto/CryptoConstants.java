@@ -57,6 +57,18 @@ public interface CryptoConstants {
     String messageDigest = "MessageDigest";
     String pkcs12 = "PKCS12";
     String signature = "Signature";
+    String hmacSha256 = "HmacSHA256";
+    String sha256 = "SHA-256";
+
+    String subAttachment = "attachment";
+    String subBackup = "backup";
+    String subChunk = "chunk";
+    String subHistory = "history";
+    String subJournal = "journal";
+    String subManifest = "manifest";
+    String subMerkle = "merkle";
+    String subRecovery = "recovery";
+    String subSegment = "segment";
 
     String keyAES = "AES";
     String keyChaCha20 = "CHACHA20";
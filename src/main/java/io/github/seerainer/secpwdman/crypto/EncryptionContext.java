@@ -23,6 +23,7 @@ import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
+import java.util.function.Consumer;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.IllegalBlockSizeException;
@@ -49,4 +50,35 @@ public class EncryptionContext {
 	    InvalidKeyException, InvalidKeySpecException, NoSuchAlgorithmException, NoSuchPaddingException {
 	return strategy.encrypt(data, password);
     }
+
+    /**
+     * Decrypts the data and hands over the key derived from the password and the
+     * salt stored with the data, so it can be used for other keys of the file
+     * without another derivation.
+     *
+     * @param data     the encrypted data
+     * @param password the password
+     * @param fileKey  receives the derived key, which it has to clear
+     * @return the decrypted data
+     */
+    public byte[] decrypt(final byte[] data, final byte[] password, final Consumer<byte[]> fileKey)
+	    throws BadPaddingException, IllegalBlockSizeException, InvalidAlgorithmParameterException,
+	    InvalidKeyException, InvalidKeySpecException, NoSuchAlgorithmException, NoSuchPaddingException {
+	return strategy.decrypt(data, password, fileKey);
+    }
+
+    /**
+     * Encrypts the data under a new salt and hands over the key derived from the
+     * password and that salt.
+     *
+     * @param data     the data
+     * @param password the password
+     * @param fileKey  receives the derived key, which it has to clear
+     * @return the encrypted data
+     */
+    public byte[] encrypt(final byte[] data, final byte[] password, final Consumer<byte[]> fileKey)
+	    throws BadPaddingException, IllegalBlockSizeException, InvalidAlgorithmParameterException,
+	    InvalidKeyException, InvalidKeySpecException, NoSuchAlgorithmException, NoSuchPaddingException {
+	return strategy.encrypt(data, password, fileKey);
+    }
 }
@@ -23,6 +23,7 @@ import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
+import java.util.function.Consumer;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.IllegalBlockSizeException;
@@ -33,11 +34,23 @@ import javax.crypto.NoSuchPaddingException;
  */
 interface EncryptionStrategy {
 
-    byte[] decrypt(byte[] data, byte[] password)
+    default byte[] decrypt(final byte[] data, final byte[] password)
+	    throws BadPaddingException, IllegalBlockSizeException, InvalidAlgorithmParameterException,
+	    InvalidKeyException, InvalidKeySpecException, NoSuchAlgorithmException, NoSuchPaddingException {
+	return decrypt(data, password, null);
+    }
+
+    byte[] decrypt(byte[] data, byte[] password, Consumer<byte[]> fileKey)
 	    throws BadPaddingException, IllegalBlockSizeException, InvalidAlgorithmParameterException,
 	    InvalidKeyException, InvalidKeySpecException, NoSuchAlgorithmException, NoSuchPaddingException;
 
-    byte[] encrypt(byte[] data, byte[] password)
+    default byte[] encrypt(final byte[] data, final byte[] password)
+	    throws BadPaddingException, IllegalBlockSizeException, InvalidAlgorithmParameterException,
+	    InvalidKeyException, InvalidKeySpecException, NoSuchAlgorithmException, NoSuchPaddingException {
+	return encrypt(data, password, null);
+    }
+
+    byte[] encrypt(byte[] data, byte[] password, Consumer<byte[]> fileKey)
 	    throws BadPaddingException, IllegalBlockSizeException, InvalidAlgorithmParameterException,
 	    InvalidKeyException, InvalidKeySpecException, NoSuchAlgorithmException, NoSuchPaddingException;
 }
@@ -0,0 +1,87 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.crypto;
+
+import static java.util.Objects.nonNull;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+import java.util.function.UnaryOperator;
+
+import io.github.seerainer.secpwdman.config.PrimitiveConstants;
+import io.github.seerainer.secpwdman.util.Util;
+
+/**
+ * The class PasswordBatch.
+ *
+ * Encrypts or decrypts one column of many rows in parallel. Every cell is
+ * sealed in a key store of its own, which costs a key derivation each, so the
+ * rows are split into chunks for the common pool. Every worker writes only
+ * the cells of its chunk, so the order of the rows is kept.
+ */
+public class PasswordBatch implements PrimitiveConstants {
+
+    private PasswordBatch() {
+    }
+
+    /**
+     * Replaces the cells of the column with the result of the cipher. The old
+     * cells are cleared.
+     *
+     * @param rows      the rows
+     * @param column    the column
+     * @param cipher    encrypts or decrypts one cell, must be thread safe
+     * @param progress  receives the number of rows done, may be null
+     * @param cancelled stops the batch if true, may be null
+     * @return false if the batch was cancelled
+     */
+    public static boolean run(final char[][][] rows, final int column, final UnaryOperator<char[]> cipher,
+	    final IntConsumer progress, final BooleanSupplier cancelled) {
+	final var done = new AtomicInteger();
+	final var chunks = new ArrayList<Callable<Boolean>>(rows.length / CELL_CHUNK + 1);
+	for (var start = 0; start < rows.length; start += CELL_CHUNK) {
+	    final var from = start;
+	    final var to = Math.min(start + CELL_CHUNK, rows.length);
+	    chunks.add(() -> {
+		for (var i = from; i < to; i++) {
+		    if (nonNull(cancelled) && cancelled.getAsBoolean()) {
+			return Boolean.FALSE;
+		    }
+		    final var cell = rows[i][column];
+		    final var result = cipher.apply(cell);
+		    if (result != cell) {
+			Util.clear(cell);
+		    }
+		    rows[i][column] = result;
+		}
+		final var count = done.addAndGet(to - from);
+		if (nonNull(progress)) {
+		    progress.accept(count);
+		}
+		return Boolean.TRUE;
+	    });
+	}
+	return ForkJoinPool.commonPool().invokeAll(chunks).stream().allMatch(future -> future.resultNow().booleanValue());
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.crypto;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import io.github.seerainer.secpwdman.util.Util;
+
+/**
+ * The class VaultCrypto.
+ *
+ * The keys of everything written next to the vault are subkeys of the key the
+ * vault file is encrypted with or of a random key sealed under it, so no
+ * further key derivation from the master password is needed.
+ */
+public class VaultCrypto implements CryptoConstants {
+
+    private VaultCrypto() {
+    }
+
+    /**
+     * Gets the SHA-256 digest of the data.
+     *
+     * @param data the data
+     * @return the digest
+     */
+    public static byte[] digest(final byte[] data) {
+	try {
+	    return MessageDigest.getInstance(sha256).digest(data);
+	} catch (final NoSuchAlgorithmException e) {
+	    throw new IllegalStateException(e);
+	}
+    }
+
+    /**
+     * Gets a keyed hash (HMAC-SHA256) of the data.
+     *
+     * @param key  the key
+     * @param data the data
+     * @return the hash
+     */
+    public static byte[] hash(final byte[] key, final byte[] data) {
+	return mac(key).doFinal(data);
+    }
+
+    /**
+     * Gets a keyed hash (HMAC-SHA256) instance for hashing many values with the
+     * same key.
+     *
+     * @param key the key
+     * @return the initialized instance
+     */
+    public static Mac mac(final byte[] key) {
+	try {
+	    final var hmac = Mac.getInstance(hmacSha256);
+	    hmac.init(new SecretKeySpec(key, hmacSha256));
+	    return hmac;
+	} catch (final GeneralSecurityException e) {
+	    throw new IllegalStateException(e);
+	}
+    }
+
+    /**
+     * Decrypts and authenticates data sealed with {@link #seal}.
+     *
+     * @param key    the subkey
+     * @param sealed iv followed by ciphertext and tag
+     * @param aad    the additional authenticated data
+     * @return the plaintext
+     * @throws GeneralSecurityException if the data was tampered with
+     */
+    public static byte[] open(final byte[] key, final byte[] sealed, final byte[] aad)
+	    throws GeneralSecurityException {
+	final var instance = Cipher.getInstance(cipherAES);
+	instance.init(Cipher.DECRYPT_MODE, new SecretKeySpec(key, keyAES),
+		new GCMParameterSpec(TAG_LENGTH, sealed, 0, IV_LENGTH));
+	instance.updateAAD(aad);
+	return instance.doFinal(sealed, IV_LENGTH, sealed.length - IV_LENGTH);
+    }
+
+    /**
+     * Encrypts and authenticates data with AES-GCM and a random iv.
+     *
+     * @param key  the subkey
+     * @param data the plaintext, cleared afterwards
+     * @param aad  the additional authenticated data
+     * @return iv followed by ciphertext and tag
+     * @throws GeneralSecurityException if the cipher is not available
+     */
+    public static byte[] seal(final byte[] key, final byte[] data, final byte[] aad) throws GeneralSecurityException {
+	final var iv = Crypto.getRandomValue(IV_LENGTH);
+	final var instance = Cipher.getInstance(cipherAES);
+	instance.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, keyAES), new GCMParameterSpec(TAG_LENGTH, iv));
+	instance.updateAAD(aad);
+	final var sealed = new byte[IV_LENGTH + instance.getOutputSize(data.length)];
+	System.arraycopy(iv, 0, sealed, 0, IV_LENGTH);
+	instance.doFinal(data, 0, data.length, sealed, IV_LENGTH);
+	Util.clear(data);
+	return sealed;
+    }
+
+    /**
+     * Derives a subkey for one purpose from the vault key.
+     *
+     * @param vaultKey the vault key
+     * @param label    the purpose of the subkey
+     * @return the subkey
+     */
+    public static byte[] subKey(final byte[] vaultKey, final String label) {
+	return hash(vaultKey, label.getBytes(UTF_8));
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.csv;
+
+import io.github.seerainer.secpwdman.util.Util;
+
+/**
+ * The UTF-8 input of one parse. The records of the parse point into it, so
+ * it is cleared once for all of them.
+ */
+final class CSVBuffer {
+
+    private final byte[] bytes;
+
+    private boolean cleared;
+
+    CSVBuffer(final byte[] bytes) {
+	this.bytes = bytes;
+    }
+
+    byte[] bytes() {
+	return bytes;
+    }
+
+    void clear() {
+	if (!cleared) {
+	    Util.clear(bytes);
+	    cleared = true;
+	}
+    }
+}
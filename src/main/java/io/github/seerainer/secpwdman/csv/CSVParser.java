@@ -19,27 +19,139 @@
  */
 package io.github.seerainer.secpwdman.csv;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import io.github.seerainer.secpwdman.config.PrimitiveConstants;
 import io.github.seerainer.secpwdman.config.StringConstants;
-import io.github.seerainer.secpwdman.util.CharsetUtil;
+import io.github.seerainer.secpwdman.util.Util;
 
 /**
- * CSVParser is a utility class for parsing CSV data from byte arrays or
- * character arrays. It supports various configurations and options for handling
- * CSV fields, records, and line endings.
+ * CSVParser is a utility class for parsing CSV data from UTF-8 byte arrays. It
+ * supports various configurations and options for handling CSV fields,
+ * records, and line endings.
+ *
+ * The parser is a single loop over the bytes of the input with the state in
+ * local variables and no objects created per character. The input is not
+ * decoded as a whole. An ASCII byte is classified with a table, and the bytes of
+ * other characters never contain ASCII, so they are only decoded where the
+ * parser has to tell whitespace or a structural character outside of ASCII
+ * apart. A field that is a plain range of the input, with at most escaped
+ * quotes inside, is only stored as an offset and a length, and decoded when it
+ * is read. Fields the parser has to change in other ways are assembled in the
+ * field buffer and copied into the record. Plain runs are skipped with a
+ * {@link CSVScanner}, which compares whole vectors of bytes when the hardware
+ * allows it. Positions are counted in bytes. The maximum field size is counted
+ * in chars, like the length of the field as a String, and only when the bytes
+ * of a field exceed it.
+ *
+ * A field over the maximum size is cut before the first character that does not
+ * fit, so a character is never split, and every further character of the field
+ * is an error. The last field of input without a final line break is kept. A
+ * quoted field that is still open at the end of the input is kept as well, with
+ * an error.
+ *
+ * Large inputs can be parsed in parallel. The input is split after line
+ * endings and every chunk is scanned twice, once starting outside and once
+ * inside of a quoted field. The real state at the start of each chunk follows
+ * from the scan of its predecessor, so chunks that start inside of a quoted
+ * field are joined with the chunk before. The resulting segments start at a
+ * record and are parsed on the fork-join pool. A segment is only used if it
+ * ends where the scan said, otherwise the rest is parsed in order.
  */
 public class CSVParser implements StringConstants, PrimitiveConstants {
 
+    private static final int FIELD_START = 0;
+
+    private static final int IN_FIELD = 1;
+
+    private static final int IN_QUOTED_FIELD = 2;
+
+    private static final int QUOTE_IN_QUOTED_FIELD = 3;
+
+    private static final int FIELD_END = 4;
+
+    private static final int RAW = 0;
+
+    private static final int ESCAPED = 1;
+
+    private static final int BUFFERED = 2;
+
+    private static final int DELIMITER_UNIT = 1;
+
+    private static final int QUOTE_UNIT = 2;
+
+    private static final int ENDING_UNIT = 4;
+
+    private static final int SPACE_UNIT = 8;
+
     private final CSVConfiguration config;
 
     private final CSVParsingOptions options;
 
-    private char[] charBuffer;
+    private final char[] endings;
+
+    private final byte[] units = new byte[128];
+
+    private final byte[] quote;
+
+    private final byte[] nullValue;
+
+    private final CSVScanner scanner;
+
+    private final List<String> errors = new ArrayList<>();
+
+    private byte[] fieldBuffer;
+
+    private int fieldBufferPosition;
+
+    private byte[] spill = new byte[0];
 
-    private int charBufferPosition;
+    private int spillLength;
+
+    private int[] table = new int[16 * CSVRecord.SLOTS];
+
+    private byte[] fieldFlags = new byte[16];
+
+    private int fieldCount;
+
+    private int kind;
+
+    private int contentStart;
+
+    private int rawLength;
+
+    private int contentLength;
+
+    private int fieldChars;
+
+    private int countedTo;
+
+    private boolean full;
+
+    private int resume;
+
+    private CSVRecord record;
+
+    /**
+     * A part of the input that starts at a record.
+     *
+     * @param start      the start of the segment
+     * @param end        the end of the segment
+     * @param lineNumber the line number of the first record
+     * @param lines      the number of lines the scan found
+     */
+    private record Segment(int start, int end, int lineNumber, int lines) {
+    }
 
     /**
      * Constructs a CSVParser with the specified configuration and parsing options.
@@ -50,270 +162,756 @@ public class CSVParser implements StringConstants, PrimitiveConstants {
     public CSVParser(final CSVConfiguration config, final CSVParsingOptions options) {
 	this.config = config;
 	this.options = options;
-	this.charBuffer = new char[config.getInitialBufferSize()];
-	this.charBufferPosition = 0;
+	this.fieldBuffer = new byte[config.getInitialBufferSize()];
+	this.fieldBufferPosition = 0;
+	this.endings = isNull(options.getCustomLineEndings()) ? new char[] { LF, CR } : options.getCustomLineEndings();
+	this.quote = encode(config.getQuote());
+	final var nullRepresentation = options.getNullValueRepresentation();
+	this.nullValue = isNull(nullRepresentation) ? null : nullRepresentation.getBytes(UTF_8);
+	for (var b = 0; b < units.length; b++) {
+	    units[b] = (byte) classify(b);
+	}
+	final var field = new byte[endings.length + 2];
+	final var quoted = new byte[endings.length + 1];
+	field[0] = encode(config.getDelimiter())[0];
+	field[1] = quoted[0] = quote[0];
+	for (var i = 0; i < endings.length; i++) {
+	    field[i + 2] = quoted[i + 1] = encode(endings[i])[0];
+	}
+	this.scanner = CSVScanner.create(distinct(field), distinct(quoted));
+    }
+
+    private static byte[] distinct(final byte[] bytes) {
+	final var seen = new boolean[256];
+	final var out = new byte[bytes.length];
+	var count = 0;
+	for (final var b : bytes) {
+	    if (!seen[b & 0xFF]) {
+		seen[b & 0xFF] = true;
+		out[count++] = b;
+	    }
+	}
+	return Arrays.copyOf(out, count);
     }
 
-    private void addCurrentField(final List<CSVFieldInfo> fields, final boolean wasQuoted, final int startPos,
-	    final int endPos, final int columnIndex) {
-	var fieldValue = new String(charBuffer, 0, charBufferPosition);
+    private static byte[] encode(final char ch) {
+	return String.valueOf(ch).getBytes(UTF_8);
+    }
 
-	final var isEmpty = fieldValue.isEmpty();
-	var isNull = false;
+    private void addCurrentField(final byte[] bytes, final boolean wasQuoted, final int startPos,
+	    final int endPos) {
+	if (fieldCount == fieldFlags.length) {
+	    table = Arrays.copyOf(table, table.length * 2);
+	    fieldFlags = Arrays.copyOf(fieldFlags, fieldFlags.length * 2);
+	}
+	var flags = wasQuoted ? 1 << CSVRecord.QUOTED : 0;
+	final int offset;
+	final int length;
+	final boolean isNull;
+	if (kind == BUFFERED) {
+	    offset = spillLength;
+	    length = fieldBufferPosition;
+	    if (spillLength + length > spill.length) {
+		final var newSpill = Arrays.copyOf(spill, Math.max(spillLength + length, spill.length * 2));
+		Util.clear(spill);
+		spill = newSpill;
+	    }
+	    System.arraycopy(fieldBuffer, 0, spill, spillLength, length);
+	    spillLength += length;
+	    flags |= 1 << CSVRecord.SPILLED;
+	    isNull = length == 0 || isNullValue(fieldBuffer, 0, length, false);
+	} else {
+	    offset = contentStart;
+	    length = rawLength;
+	    if (kind == ESCAPED) {
+		flags |= 1 << CSVRecord.ESCAPED;
+	    }
+	    isNull = length == 0 || isNullValue(bytes, offset, length, kind == ESCAPED);
+	}
+	if (isNull) {
+	    flags |= 1 << CSVRecord.NULL;
+	}
+	final var slot = fieldCount * CSVRecord.SLOTS;
+	table[slot] = offset;
+	table[slot + 1] = length;
+	table[slot + 2] = startPos;
+	table[slot + 3] = endPos;
+	fieldFlags[fieldCount++] = (byte) flags;
+	kind = RAW;
+	rawLength = 0;
+	contentLength = 0;
+	fieldBufferPosition = 0;
+	fieldChars = 0;
+	countedTo = 0;
+	full = false;
+    }
 
-	// Handle null value representation
-	if ((options.getNullValueRepresentation() != null && options.getNullValueRepresentation().equals(fieldValue))
-		|| isEmpty) {
-	    isNull = true;
-	    fieldValue = empty;
+    private int append(final byte[] bytes, final int start, final int end) throws CSVParseException {
+	if (kind != BUFFERED) {
+	    if (start == contentStart + rawLength && contentLength + end - start <= config.getMaxFieldSize()) {
+		rawLength += end - start;
+		contentLength += end - start;
+		return end;
+	    }
+	    bufferContent(bytes);
+	}
+	final var stop = appendToBuffer(bytes, start, end);
+	if (stop < end) {
+	    // continue after the character that did not fit
+	    resume = stop + (unit(bytes, stop, end, true) >>> 8);
+	    throw overflow();
 	}
+	return end;
+    }
 
-	final var fieldInfo = new CSVFieldInfo(fieldValue, wasQuoted, isEmpty, isNull, startPos, endPos, columnIndex);
+    private void appendQuote(final byte[] bytes, final int position) throws CSVParseException {
+	if (kind != BUFFERED) {
+	    if (position - quote.length == contentStart + rawLength
+		    && contentLength + quote.length <= config.getMaxFieldSize()) {
+		kind = ESCAPED;
+		rawLength += 2 * quote.length;
+		contentLength += quote.length;
+		return;
+	    }
+	    bufferContent(bytes);
+	}
+	if (appendToBuffer(quote, 0, quote.length) < quote.length) {
+	    throw overflow();
+	}
+    }
 
-	fields.add(fieldInfo);
-	resetCharBuffer();
+    /**
+     * Appends the whole characters of a range that fit into the field. The
+     * characters are only counted once the bytes of the field could exceed the
+     * maximum size, and only from where the last count stopped.
+     *
+     * @return the end of the appended characters, before end if the field is full
+     */
+    private int appendToBuffer(final byte[] bytes, final int start, final int end) {
+	final var maxFieldSize = config.getMaxFieldSize();
+	var stop = end;
+	if (full || fieldBufferPosition + end - start > maxFieldSize) {
+	    fieldChars += chars(fieldBuffer, countedTo, fieldBufferPosition);
+	    stop = start;
+	    while (stop < end && !full) {
+		final var width = unit(bytes, stop, end, true) >>> 8;
+		final var chars = width == 4 ? 2 : 1;
+		if (fieldChars + chars > maxFieldSize) {
+		    full = true;
+		} else {
+		    fieldChars += chars;
+		    stop += width;
+		}
+	    }
+	    countedTo = fieldBufferPosition + stop - start;
+	}
+	final var length = stop - start;
+	if (fieldBufferPosition + length > fieldBuffer.length) {
+	    expandFieldBuffer(fieldBufferPosition + length);
+	}
+	System.arraycopy(bytes, start, fieldBuffer, fieldBufferPosition, length);
+	fieldBufferPosition += length;
+	return stop;
     }
 
-    private void appendToCharBuffer(final char ch) throws CSVParseException {
-	if (charBufferPosition >= config.getMaxFieldSize()) {
-	    throw new CSVParseException(fieldSizeMax + config.getMaxFieldSize(), -1, -1);
+    private void bufferContent(final byte[] bytes) {
+	fieldBufferPosition = 0;
+	fieldChars = 0;
+	countedTo = 0;
+	if (contentLength > fieldBuffer.length) {
+	    expandFieldBuffer(contentLength);
 	}
-	if (charBufferPosition >= charBuffer.length) {
-	    expandCharBuffer();
+	if (kind == ESCAPED) {
+	    for (var i = contentStart; i < contentStart + rawLength;) {
+		if (isQuote(bytes, i)) {
+		    System.arraycopy(quote, 0, fieldBuffer, fieldBufferPosition, quote.length);
+		    fieldBufferPosition += quote.length;
+		    i += 2 * quote.length;
+		} else {
+		    fieldBuffer[fieldBufferPosition++] = bytes[i++];
+		}
+	    }
+	} else {
+	    System.arraycopy(bytes, contentStart, fieldBuffer, 0, rawLength);
+	    fieldBufferPosition = rawLength;
 	}
-	charBuffer[charBufferPosition++] = ch;
+	kind = BUFFERED;
     }
 
-    private void expandCharBuffer() {
-	final var newSize = Math.min(charBuffer.length * 2, config.getMaxFieldSize());
-	final var newBuffer = new char[newSize];
-	System.arraycopy(charBuffer, 0, newBuffer, 0, charBufferPosition);
-	charBuffer = newBuffer;
+    private int chars(final byte[] bytes, final int start, final int end) {
+	var chars = 0;
+	for (var i = start; i < end;) {
+	    final var width = unit(bytes, i, end, true) >>> 8;
+	    chars += width == 4 ? 2 : 1;
+	    i += width;
+	}
+	return chars;
     }
 
-    private boolean isLineEnding(final char ch) {
-	if (options.getCustomLineEndings() == null) {
-	    return ch == LF || ch == CR;
+    private int classify(final int codePoint) {
+	var unit = 0;
+	if (codePoint == config.getDelimiter()) {
+	    unit |= DELIMITER_UNIT;
 	}
-	for (final char ending : options.getCustomLineEndings()) {
-	    if (ch == ending) {
-		return true;
+	if (codePoint == config.getQuote()) {
+	    unit |= QUOTE_UNIT;
+	}
+	for (final var ending : endings) {
+	    if (codePoint == ending) {
+		unit |= ENDING_UNIT;
+	    }
+	}
+	if (Character.isWhitespace(codePoint)) {
+	    unit |= SPACE_UNIT;
+	}
+	return unit;
+    }
+
+    /**
+     * Clears the field buffers, which hold the last fields of a parse.
+     */
+    void clearBuffers() {
+	Util.clear(fieldBuffer);
+	Util.clear(spill);
+    }
+
+    private int contentLength() {
+	return kind == BUFFERED ? fieldBufferPosition : contentLength;
+    }
+
+    private void expandFieldBuffer(final int minSize) {
+	final var newSize = Math.max(minSize, Math.min(fieldBuffer.length * 2, config.getMaxFieldSize()));
+	final var newBuffer = new byte[newSize];
+	System.arraycopy(fieldBuffer, 0, newBuffer, 0, fieldBufferPosition);
+	Util.clear(fieldBuffer);
+	fieldBuffer = newBuffer;
+    }
+
+    private int field(final byte[] bytes, final int from, final int length) {
+	// a full field takes no more characters, so there is no run to skip
+	return full ? from : scanner.field(bytes, from, length);
+    }
+
+    private boolean isNullValue(final byte[] bytes, final int offset, final int length, final boolean escaped) {
+	if (isNull(nullValue)) {
+	    return false;
+	}
+	var index = 0;
+	for (var i = offset; i < offset + length;) {
+	    final var pair = escaped && isQuote(bytes, i);
+	    final var width = pair ? quote.length : 1;
+	    for (var j = i; j < i + width; j++) {
+		if (index == nullValue.length || bytes[j] != nullValue[index++]) {
+		    return false;
+		}
+	    }
+	    i += pair ? 2 * width : 1;
+	}
+	return index == nullValue.length;
+    }
+
+    private boolean isQuote(final byte[] bytes, final int position) {
+	return bytes[position] == quote[0] && (quote.length == 1 || position + quote.length <= bytes.length
+		&& Arrays.equals(bytes, position, position + quote.length, quote, 0, quote.length));
+    }
+
+    private CSVParseException overflow() {
+	return new CSVParseException(fieldSizeMax + config.getMaxFieldSize(), -1, -1);
+    }
+
+    private long[] packFlags() {
+	final var words = CSVRecord.words(fieldCount);
+	final var flags = new long[CSVRecord.FLAGS * words];
+	for (var i = 0; i < fieldCount; i++) {
+	    for (var flag = 0; flag < CSVRecord.FLAGS; flag++) {
+		if ((fieldFlags[i] & 1 << flag) != 0) {
+		    flags[flag * words + (i >>> 6)] |= 1L << i;
+		}
 	    }
 	}
-	return false;
+	return flags;
     }
 
     /**
-     * Parses a byte array containing CSV data into a list of CSVRecord objects.
+     * Parses a byte array containing UTF-8 encoded CSV data into a list of
+     * CSVRecord objects. The records point into the array, so it must not be
+     * changed afterwards. {@link CSVRecord#clear()} clears it for all of them.
      *
      * @param data the byte array containing CSV data
      * @return a list of CSVRecord objects parsed from the byte array
      * @throws CSVParseException if there is an error during parsing
      */
     public List<CSVRecord> parseByteArray(final byte[] data) throws CSVParseException {
-	final var chars = CharsetUtil.toChars(data);
-	final List<CSVRecord> records = new ArrayList<>();
-
-	var lineNumber = 1;
-	var position = 0;
-	while (position < chars.length) {
-	    final var result = parseRecord(chars, position, lineNumber);
-
-	    // Handle different line types based on options
-	    if (result.record == null) {
-		position = result.nextPosition;
-		lineNumber = result.nextLineNumber;
-		continue;
+	final var buffer = new CSVBuffer(data);
+	try {
+	    if (options.isParallel() && data.length >= CSV_PARALLEL) {
+		return parseParallel(buffer);
 	    }
+	    final List<CSVRecord> records = new ArrayList<>();
+	    parseBytes(buffer, 0, 1, records);
+	    return records;
+	} catch (final CSVParseException e) {
+	    buffer.clear();
+	    throw e;
+	} finally {
+	    clearBuffers();
+	}
+    }
 
-	    // Add record if it meets criteria
-	    if (result.record != null) {
-		records.add(result.record);
+    private void parseBytes(final CSVBuffer buffer, final int start, final int lineNumber,
+	    final List<CSVRecord> records) throws CSVParseException {
+	final var bytes = buffer.bytes();
+	var line = lineNumber;
+	var position = start;
+	while (position < bytes.length) {
+	    position = parseRecord(buffer, bytes, position, bytes.length, true, 0, line++);
+	    if (nonNull(record)) {
+		records.add(record);
 	    }
-
-	    position = result.nextPosition;
-	    lineNumber = result.nextLineNumber;
 	}
-
-	return records;
+	record = null;
     }
 
-    private FieldParseResult parseFieldCharacter(final char currentChar, final int position, final ParseState state,
-	    final boolean wasQuoted, final int lineNumber) throws CSVParseException {
-	switch (state) {
-	case FIELD_START:
-	    if (currentChar == config.getQuote()) {
-		return new FieldParseResult(ParseState.IN_QUOTED_FIELD, true, position + 1, false, null);
-	    } else if (currentChar == config.getDelimiter()) {
-		return new FieldParseResult(ParseState.FIELD_START, false, position + 1, true, null);
-	    } else if (Character.isWhitespace(currentChar)) {
-		return new FieldParseResult(ParseState.FIELD_START, false, position + 1, false, null);
-	    } else {
-		appendToCharBuffer(currentChar);
-		return new FieldParseResult(ParseState.IN_FIELD, false, position + 1, false, null);
-	    }
-	case IN_FIELD:
-	    if (currentChar == config.getDelimiter()) {
-		return new FieldParseResult(ParseState.FIELD_START, wasQuoted, position + 1, true, null);
-	    } else if (currentChar == config.getQuote()) {
-		if (options.isAllowUnescapedQuotesInFields()) {
-		    appendToCharBuffer(currentChar);
-		    return new FieldParseResult(ParseState.IN_FIELD, wasQuoted, position + 1, false, null);
-		}
-		return new FieldParseResult(state, wasQuoted, position + 1, false, unexpectedQuote + position);
-	    } else {
-		appendToCharBuffer(currentChar);
-		return new FieldParseResult(ParseState.IN_FIELD, wasQuoted, position + 1, false, null);
-	    }
-	case IN_QUOTED_FIELD:
-	    if (currentChar == config.getQuote()) {
-		return new FieldParseResult(ParseState.QUOTE_IN_QUOTED_FIELD, wasQuoted, position + 1, false, null);
-	    }
-	    appendToCharBuffer(currentChar);
-	    return new FieldParseResult(ParseState.IN_QUOTED_FIELD, wasQuoted, position + 1, false, null);
-	case QUOTE_IN_QUOTED_FIELD:
-	    if (currentChar == config.getQuote() && config.getEscape() == config.getQuote()) {
-		// Escaped quote
-		appendToCharBuffer(currentChar);
-		return new FieldParseResult(ParseState.IN_QUOTED_FIELD, wasQuoted, position + 1, false, null);
-	    } else if (currentChar == config.getDelimiter()) {
-		return new FieldParseResult(ParseState.FIELD_START, wasQuoted, position + 1, true, null);
-	    } else if (Character.isWhitespace(currentChar)) {
-		return new FieldParseResult(ParseState.FIELD_END, wasQuoted, position + 1, false, null);
-	    } else if (options.isStrictQuoting()) {
-		return new FieldParseResult(state, wasQuoted, position + 1, false, invalidCharAfterClose + position);
-	    } else {
-		// Allow characters after quotes in non-strict mode
-		appendToCharBuffer(config.getQuote()); // Add the closing quote
-		appendToCharBuffer(currentChar);
-		return new FieldParseResult(ParseState.IN_FIELD, wasQuoted, position + 1, false, null);
+    private List<CSVRecord> parseParallel(final CSVBuffer buffer) throws CSVParseException {
+	final var bytes = buffer.bytes();
+	final var bounds = split(bytes);
+	final var records = new ArrayList<CSVRecord>();
+	if (bounds.length < 3) {
+	    parseBytes(buffer, 0, 1, records);
+	    return records;
+	}
+	final var pool = ForkJoinPool.commonPool();
+	final var scans = new ArrayList<Callable<long[]>>(bounds.length - 1);
+	for (var i = 0; i < bounds.length - 1; i++) {
+	    final var start = bounds[i];
+	    final var end = bounds[i + 1];
+	    scans.add(() -> new long[] { scan(bytes, start, end, FIELD_START), scan(bytes, start, end, IN_QUOTED_FIELD) });
+	}
+	final var results = pool.invokeAll(scans);
+
+	// resolve the real start state of every chunk from its predecessor
+	final var segments = new ArrayList<Segment>();
+	var state = FIELD_START;
+	var lineNumber = 1;
+	var segmentStart = 0;
+	var segmentLine = 1;
+	for (var i = 0; i < results.size(); i++) {
+	    if (i > 0 && state == FIELD_START) {
+		segments.add(new Segment(segmentStart, bounds[i], segmentLine, lineNumber - segmentLine));
+		segmentStart = bounds[i];
+		segmentLine = lineNumber;
 	    }
-	case FIELD_END:
-	    if (currentChar == config.getDelimiter()) {
-		return new FieldParseResult(ParseState.FIELD_START, wasQuoted, position + 1, true, null);
-	    } else if (Character.isWhitespace(currentChar)) {
-		return new FieldParseResult(ParseState.FIELD_END, wasQuoted, position + 1, false, null);
-	    } else {
-		return new FieldParseResult(state, wasQuoted, position + 1, false, invalidCharAfterQuote + position);
+	    final var scan = results.get(i).resultNow()[state == FIELD_START ? 0 : 1];
+	    lineNumber += (int) (scan >>> 32);
+	    state = (int) scan;
+	}
+	segments.add(new Segment(segmentStart, bytes.length, segmentLine, lineNumber - segmentLine));
+
+	final var parses = new ArrayList<Callable<List<CSVRecord>>>(segments.size());
+	segments.forEach(segment -> parses.add(() -> parseSegment(buffer, segment)));
+	final var futures = pool.invokeAll(parses);
+	for (var i = 0; i < futures.size(); i++) {
+	    final var future = futures.get(i);
+	    if (future.state() != Future.State.SUCCESS || isNull(future.resultNow())) {
+		futures.subList(i + 1, futures.size()).stream().filter(f -> f.state() == Future.State.SUCCESS)
+			.map(Future::resultNow).filter(Objects::nonNull)
+			.forEach(list -> list.forEach(CSVRecord::clearSpill));
+		parseBytes(buffer, segments.get(i).start(), segments.get(i).lineNumber(), records);
+		break;
 	    }
-	default:
-	    throw new CSVParseException(invalidParserState, lineNumber, position);
+	    records.addAll(future.resultNow());
 	}
+	return records;
     }
 
-    private RecordParseResult parseRecord(final char[] chars, final int startPosition, final int lineNumber)
-	    throws CSVParseException {
-	final List<CSVFieldInfo> fields = new ArrayList<>();
-	final List<String> errors = new ArrayList<>();
-
-	resetCharBuffer();
-	var state = ParseState.FIELD_START;
-	var position = startPosition;
-	var fieldStartPos = startPosition;
-	var columnIndex = 0;
+    /**
+     * Parses the record that starts at a position. The record is kept in
+     * {@link #record}, null for an empty line.
+     *
+     * @param buffer     the buffer the fields point into, null to copy the record
+     * @param bytes      the input
+     * @param start      the start of the record
+     * @param length     the end of the available input
+     * @param eof        true if no input follows the available input
+     * @param base       the position of the input in the whole stream
+     * @param lineNumber the line number of the record
+     * @return the start of the next record, or -1 if the available input ends
+     *         inside the record
+     * @throws CSVParseException if a quoted field exceeds the maximum size
+     */
+    int parseRecord(final CSVBuffer buffer, final byte[] bytes, final int start, final int length,
+	    final boolean eof, final int base, final int lineNumber) throws CSVParseException {
+	final var escapedQuote = config.getEscape() == config.getQuote();
+	final var strictQuoting = options.isStrictQuoting();
+	final var unescapedQuotes = options.isAllowUnescapedQuotesInFields();
+	final var maxFieldSize = config.getMaxFieldSize();
+	record = null;
+	var position = start;
+	var state = FIELD_START;
+	var fieldStartPos = start;
 	var wasQuoted = false;
-
-	while (position < chars.length) {
-	    final var currentChar = chars[position];
+	var lineEnded = false;
+	kind = RAW;
+	rawLength = 0;
+	contentLength = 0;
+	fieldBufferPosition = 0;
+	fieldChars = 0;
+	countedTo = 0;
+	full = false;
+	spillLength = 0;
+	fieldCount = 0;
+	errors.clear();
+
+	while (position < length) {
+	    final var unit = unit(bytes, position, length, eof);
+	    if (unit < 0) {
+		// a character continues in the next input
+		return -1;
+	    }
+	    final var width = unit >>> 8;
 
 	    // Check for line endings
-	    if (isLineEnding(currentChar)) {
-		// Handle end of record
-		if (state == ParseState.IN_QUOTED_FIELD) {
+	    if ((unit & ENDING_UNIT) != 0) {
+		if (state == IN_QUOTED_FIELD) {
 		    // Multi-line field - continue parsing
-		    appendToCharBuffer(currentChar);
-		    position++;
-		    if (currentChar == CR && position < chars.length && chars[position] == LF) {
-			appendToCharBuffer(chars[position]);
-			position++;
-		    }
+		    position = append(bytes, position, position + width);
 		    continue;
 		}
+		final var cr = bytes[position] == CR;
+		if (cr && position + 1 == length && !eof) {
+		    // the LF of a CRLF may follow in the next input
+		    return -1;
+		}
 		// End of record
-		if (state != ParseState.FIELD_START || charBufferPosition > 0) {
-		    addCurrentField(fields, wasQuoted, fieldStartPos, position, columnIndex);
+		if (state != FIELD_START || contentLength() > 0) {
+		    addCurrentField(bytes, wasQuoted, fieldStartPos, position);
 		}
 
 		// Skip line ending characters
-		position++;
-		if (currentChar == CR && position < chars.length && chars[position] == LF) {
+		position += width;
+		if (cr && position < length && bytes[position] == LF) {
 		    position++;
 		}
-
+		lineEnded = true;
 		break;
 	    }
 
+	    resume = position + width;
 	    try {
-		final var fieldResult = parseFieldCharacter(currentChar, position, state, wasQuoted, lineNumber);
-
-		state = fieldResult.newState;
-		wasQuoted = fieldResult.wasQuoted;
-		position = fieldResult.nextPosition;
-
-		if (fieldResult.fieldComplete) {
-		    addCurrentField(fields, wasQuoted, fieldStartPos, position, columnIndex);
-		    columnIndex++;
-		    fieldStartPos = position;
-		    wasQuoted = false;
-		    state = ParseState.FIELD_START;
-		}
-
-		if (fieldResult.err != null) {
-		    errors.add(fieldResult.err);
+		switch (state) {
+		case FIELD_START:
+		    if ((unit & QUOTE_UNIT) != 0) {
+			if (kind != BUFFERED) {
+			    contentStart = position + width;
+			}
+			state = IN_QUOTED_FIELD;
+			wasQuoted = true;
+			position += width;
+		    } else if ((unit & DELIMITER_UNIT) != 0) {
+			position += width;
+			addCurrentField(bytes, false, fieldStartPos, position);
+			fieldStartPos = position;
+			wasQuoted = false;
+		    } else if ((unit & SPACE_UNIT) != 0) {
+			wasQuoted = false;
+			position += width;
+		    } else {
+			if (kind != BUFFERED) {
+			    contentStart = position;
+			}
+			wasQuoted = false;
+			state = IN_FIELD;
+			position = append(bytes, position, field(bytes, position + width, length));
+		    }
+		    break;
+		case IN_FIELD:
+		    if ((unit & DELIMITER_UNIT) != 0) {
+			position += width;
+			addCurrentField(bytes, wasQuoted, fieldStartPos, position);
+			fieldStartPos = position;
+			wasQuoted = false;
+			state = FIELD_START;
+		    } else if ((unit & QUOTE_UNIT) == 0) {
+			position = append(bytes, position, field(bytes, position + width, length));
+		    } else if (unescapedQuotes) {
+			position = append(bytes, position, position + width);
+		    } else {
+			errors.add(unexpectedQuote + (base + position));
+			position += width;
+		    }
+		    break;
+		case IN_QUOTED_FIELD:
+		    if ((unit & QUOTE_UNIT) != 0) {
+			state = QUOTE_IN_QUOTED_FIELD;
+			position += width;
+		    } else {
+			position = append(bytes, position, quoted(bytes, position + width, length));
+		    }
+		    break;
+		case QUOTE_IN_QUOTED_FIELD:
+		    if ((unit & QUOTE_UNIT) != 0 && escapedQuote) {
+			// Escaped quote
+			state = IN_QUOTED_FIELD;
+			appendQuote(bytes, position);
+			position += width;
+		    } else if ((unit & DELIMITER_UNIT) != 0) {
+			position += width;
+			addCurrentField(bytes, wasQuoted, fieldStartPos, position);
+			fieldStartPos = position;
+			wasQuoted = false;
+			state = FIELD_START;
+		    } else if ((unit & SPACE_UNIT) != 0) {
+			state = FIELD_END;
+			position += width;
+		    } else if (strictQuoting) {
+			errors.add(invalidCharAfterClose + (base + position));
+			position += width;
+		    } else {
+			// Allow characters after quotes in non-strict mode, the closing quote is kept
+			state = IN_FIELD;
+			if (kind == ESCAPED || (kind == RAW && (position - quote.length != contentStart + rawLength
+				|| contentLength + quote.length + width > maxFieldSize))) {
+			    bufferContent(bytes);
+			}
+			if (kind == BUFFERED) {
+			    if (appendToBuffer(quote, 0, quote.length) < quote.length
+				    || appendToBuffer(bytes, position, position + width) < position + width) {
+				throw overflow();
+			    }
+			} else {
+			    rawLength += quote.length + width;
+			    contentLength += quote.length + width;
+			}
+			position += width;
+		    }
+		    break;
+		default:
+		    if ((unit & DELIMITER_UNIT) != 0) {
+			position += width;
+			addCurrentField(bytes, wasQuoted, fieldStartPos, position);
+			fieldStartPos = position;
+			wasQuoted = false;
+			state = FIELD_START;
+		    } else if ((unit & SPACE_UNIT) != 0) {
+			position += width;
+		    } else {
+			errors.add(invalidCharAfterQuote + (base + position));
+			position += width;
+		    }
+		    break;
 		}
-
 	    } catch (final CSVParseException e) {
 		errors.add(e.getMessage());
-		// Try to recover
-		position++;
-		state = ParseState.FIELD_START;
+		// skip the character that did not fit, the field keeps its state so the rest
+		// of the record is parsed as before
+		position = resume;
+	    }
+	}
+
+	if (!lineEnded && !eof) {
+	    return -1;
+	}
+
+	// The last line may end without a line break
+	if (!lineEnded && (state != FIELD_START || contentLength() > 0)) {
+	    if (state == IN_QUOTED_FIELD) {
+		errors.add(unclosedQuote + (base + position));
 	    }
+	    addCurrentField(bytes, wasQuoted, fieldStartPos, position);
 	}
 
 	// Create record
-	CSVRecord record = null;
-	if (!fields.isEmpty()) {
-	    record = new CSVRecord(fields.toArray(new CSVFieldInfo[0]), lineNumber, position - startPosition,
-		    !errors.isEmpty(), errors.toArray(new String[0]));
+	if (fieldCount > 0) {
+	    final var fields = Arrays.copyOf(table, fieldCount * CSVRecord.SLOTS);
+	    var recordBuffer = buffer;
+	    if (isNull(buffer)) {
+		recordBuffer = new CSVBuffer(Arrays.copyOfRange(bytes, start, position));
+		for (var i = 0; i < fieldCount; i++) {
+		    if ((fieldFlags[i] & 1 << CSVRecord.SPILLED) == 0) {
+			fields[i * CSVRecord.SLOTS] -= start;
+		    }
+		}
+	    }
+	    for (var i = 0; i < fieldCount; i++) {
+		fields[i * CSVRecord.SLOTS + 2] += base;
+		fields[i * CSVRecord.SLOTS + 3] += base;
+	    }
+	    record = new CSVRecord(recordBuffer, spillLength > 0 ? Arrays.copyOf(spill, spillLength) : null, fields,
+		    packFlags(), fieldCount, quote, lineNumber, base + start, position - start, !errors.isEmpty(),
+		    errors.isEmpty() ? null : errors.toArray(new String[0]));
 	}
+	return position;
+    }
 
-	return new RecordParseResult(record, position, lineNumber + 1);
+    private List<CSVRecord> parseSegment(final CSVBuffer buffer, final Segment segment) throws CSVParseException {
+	final var parser = new CSVParser(config, options);
+	final var bytes = buffer.bytes();
+	final var eof = segment.end() == bytes.length;
+	final var records = new ArrayList<CSVRecord>();
+	var valid = false;
+	try {
+	    var lineNumber = segment.lineNumber();
+	    var position = segment.start();
+	    while (position < segment.end()) {
+		position = parser.parseRecord(buffer, bytes, position, segment.end(), eof, 0, lineNumber++);
+		if (position < 0) {
+		    return null;
+		}
+		if (nonNull(parser.record)) {
+		    records.add(parser.record);
+		}
+	    }
+	    valid = eof || lineNumber - segment.lineNumber() == segment.lines();
+	    return valid ? records : null;
+	} finally {
+	    parser.clearBuffers();
+	    if (!valid) {
+		records.forEach(CSVRecord::clearSpill);
+	    }
+	}
     }
 
-    private void resetCharBuffer() {
-	charBufferPosition = 0;
+    private int quoted(final byte[] bytes, final int from, final int length) {
+	return full ? from : scanner.quoted(bytes, from, length);
     }
 
-    private enum ParseState {
-	FIELD_START, IN_FIELD, IN_QUOTED_FIELD, QUOTE_IN_QUOTED_FIELD, FIELD_END, RECORD_END
+    /**
+     * Gets the record of the last {@link #parseRecord} call.
+     *
+     * @return the record, null for an empty line
+     */
+    CSVRecord record() {
+	return record;
     }
 
-    private static class FieldParseResult {
-	final ParseState newState;
-	final boolean wasQuoted;
-	final int nextPosition;
-	final boolean fieldComplete;
-	final String err;
-
-	FieldParseResult(final ParseState newState, final boolean wasQuoted, final int nextPosition,
-		final boolean fieldComplete, final String error) {
-	    this.newState = newState;
-	    this.wasQuoted = wasQuoted;
-	    this.nextPosition = nextPosition;
-	    this.fieldComplete = fieldComplete;
-	    this.err = error;
+    private long scan(final byte[] bytes, final int start, final int end, final int from) {
+	final var escapedQuote = config.getEscape() == config.getQuote();
+	final var strictQuoting = options.isStrictQuoting();
+	var state = from;
+	var lines = 0L;
+	var position = start;
+	while (position < end) {
+	    // jump over the plain runs of a field
+	    if (state == IN_FIELD) {
+		position = scanner.field(bytes, position, end);
+	    } else if (state == IN_QUOTED_FIELD) {
+		position = scanner.quoted(bytes, position, end);
+	    }
+	    if (position == end) {
+		break;
+	    }
+	    final var unit = unit(bytes, position, end, true);
+	    final var cr = bytes[position] == CR;
+	    position += unit >>> 8;
+	    if ((unit & ENDING_UNIT) != 0) {
+		if (state != IN_QUOTED_FIELD) {
+		    if (cr && position < end && bytes[position] == LF) {
+			position++;
+		    }
+		    state = FIELD_START;
+		    lines++;
+		}
+		continue;
+	    }
+	    switch (state) {
+	    case FIELD_START:
+		if ((unit & QUOTE_UNIT) != 0) {
+		    state = IN_QUOTED_FIELD;
+		} else if ((unit & (DELIMITER_UNIT | SPACE_UNIT)) == 0) {
+		    state = IN_FIELD;
+		}
+		break;
+	    case IN_FIELD:
+		if ((unit & DELIMITER_UNIT) != 0) {
+		    state = FIELD_START;
+		}
+		break;
+	    case IN_QUOTED_FIELD:
+		if ((unit & QUOTE_UNIT) != 0) {
+		    state = QUOTE_IN_QUOTED_FIELD;
+		}
+		break;
+	    case QUOTE_IN_QUOTED_FIELD:
+		if ((unit & QUOTE_UNIT) != 0 && escapedQuote) {
+		    state = IN_QUOTED_FIELD;
+		} else if ((unit & DELIMITER_UNIT) != 0) {
+		    state = FIELD_START;
+		} else if ((unit & SPACE_UNIT) != 0) {
+		    state = FIELD_END;
+		} else if (!strictQuoting) {
+		    state = IN_FIELD;
+		}
+		break;
+	    default:
+		if ((unit & DELIMITER_UNIT) != 0) {
+		    state = FIELD_START;
+		}
+		break;
+	    }
 	}
+	return lines << 32 | state;
     }
 
-    private static class RecordParseResult {
-	final CSVRecord record;
-	final int nextPosition;
-	final int nextLineNumber;
+    private int[] split(final byte[] bytes) {
+	final var count = Math.min(Runtime.getRuntime().availableProcessors(), bytes.length / CSV_CHUNK);
+	final var bounds = new int[Math.max(count, 1) + 1];
+	var n = 1;
+	for (var i = 1; i < count; i++) {
+	    var position = Math.max((int) ((long) bytes.length * i / count), bounds[n - 1] + 1);
+	    // a chunk starts after a line ending, never between CR and LF
+	    while (position < bytes.length && (bytes[position - 1] < 0
+		    || (units[bytes[position - 1]] & ENDING_UNIT) == 0 || bytes[position - 1] == CR)) {
+		position++;
+	    }
+	    if (position < bytes.length) {
+		bounds[n++] = position;
+	    }
+	}
+	bounds[n++] = bytes.length;
+	return Arrays.copyOf(bounds, n);
+    }
 
-	RecordParseResult(final CSVRecord record, final int nextPosition, final int nextLineNumber) {
-	    this.record = record;
-	    this.nextPosition = nextPosition;
-	    this.nextLineNumber = nextLineNumber;
+    /**
+     * Classifies the character at a position. ASCII is looked up in a table,
+     * other characters are decoded. A malformed sequence counts as a plain
+     * character of one byte.
+     *
+     * @return the unit bits with the width of the character in bytes shifted by
+     *         eight, or -1 if the character is cut off by the end of the
+     *         available input
+     */
+    private int unit(final byte[] bytes, final int position, final int length, final boolean eof) {
+	final var lead = bytes[position];
+	if (lead >= 0) {
+	    return units[lead] | 1 << 8;
+	}
+	final int width;
+	var codePoint = 0;
+	if ((lead & 0xE0) == 0xC0) {
+	    width = 2;
+	    codePoint = lead & 0x1F;
+	} else if ((lead & 0xF0) == 0xE0) {
+	    width = 3;
+	    codePoint = lead & 0x0F;
+	} else if ((lead & 0xF8) == 0xF0) {
+	    width = 4;
+	    codePoint = lead & 0x07;
+	} else {
+	    return 1 << 8;
+	}
+	if (position + width > length) {
+	    return eof ? 1 << 8 : -1;
+	}
+	for (var i = position + 1; i < position + width; i++) {
+	    if ((bytes[i] & 0xC0) != 0x80) {
+		return 1 << 8;
+	    }
+	    codePoint = codePoint << 6 | bytes[i] & 0x3F;
+	}
+	if (codePoint < (width == 2 ? 0x80 : width == 3 ? 0x800 : 0x10000) || codePoint > Character.MAX_CODE_POINT
+		|| Character.isSurrogate((char) codePoint) && codePoint <= Character.MAX_VALUE) {
+	    return 1 << 8;
 	}
+	return classify(codePoint) | width << 8;
     }
 }
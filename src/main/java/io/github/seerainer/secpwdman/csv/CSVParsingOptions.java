@@ -32,6 +32,7 @@ public class CSVParsingOptions {
     private final boolean strictQuoting;
     private final boolean allowUnescapedQuotesInFields;
     private final char[] customLineEndings;
+    private final boolean parallel;
 
     private CSVParsingOptions(final Builder builder) {
 	this.skipEmptyLines = builder.skipEmptyLines;
@@ -40,6 +41,7 @@ public class CSVParsingOptions {
 	this.strictQuoting = builder.strictQuoting;
 	this.allowUnescapedQuotesInFields = builder.allowUnescapedQuotesInFields;
 	this.customLineEndings = builder.customLineEndings;
+	this.parallel = builder.parallel;
     }
 
     public static Builder builder() {
@@ -58,6 +60,10 @@ public class CSVParsingOptions {
 	return allowUnescapedQuotesInFields;
     }
 
+    boolean isParallel() {
+	return parallel;
+    }
+
     boolean isSkipBlankLines() {
 	return skipBlankLines;
     }
@@ -77,6 +83,7 @@ public class CSVParsingOptions {
 	private boolean strictQuoting = true;
 	private boolean allowUnescapedQuotesInFields = false;
 	private char[] customLineEndings = null;
+	private boolean parallel = false;
 
 	/**
 	 * Allow unescaped quotes within fields (less strict parsing)
@@ -106,6 +113,14 @@ public class CSVParsingOptions {
 	    return this;
 	}
 
+	/**
+	 * Parse large inputs in chunks on the fork-join pool
+	 */
+	public Builder parallel(final boolean parallel) {
+	    this.parallel = parallel;
+	    return this;
+	}
+
 	/**
 	 * Skip lines that contain only whitespace
 	 */
@@ -0,0 +1,191 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.csv;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import io.github.seerainer.secpwdman.config.PrimitiveConstants;
+import io.github.seerainer.secpwdman.util.Util;
+
+/**
+ * CSVReader reads the records of a CSV stream one at a time. Only a window of
+ * the input is kept in memory. A record that does not fit into the rest of the
+ * window, like a quoted field over several lines, stays in the window and is
+ * parsed again from its start once more input is read, so the window only
+ * grows for records larger than the window. The window holds the UTF-8 bytes
+ * of the input as they are read, a character cut off at its end is parsed
+ * with the next input. Every record gets its own copy of its bytes.
+ */
+public class CSVReader implements AutoCloseable, Iterator<CSVRecord>, PrimitiveConstants {
+
+    private final CSVParser parser;
+
+    private final InputStream input;
+
+    private byte[] window = new byte[CSV_WINDOW];
+
+    private int start;
+
+    private int limit;
+
+    private int offset;
+
+    private int lineNumber = 1;
+
+    private boolean eof;
+
+    private CSVRecord next;
+
+    /**
+     * Creates a reader over a stream of UTF-8 bytes.
+     *
+     * @param parser the parser
+     * @param input  the byte stream
+     */
+    public CSVReader(final CSVParser parser, final InputStream input) {
+	this.parser = parser;
+	this.input = input;
+    }
+
+    /**
+     * Creates a reader over a channel of UTF-8 bytes.
+     *
+     * @param parser  the parser
+     * @param channel the channel
+     */
+    public CSVReader(final CSVParser parser, final ReadableByteChannel channel) {
+	this(parser, Channels.newInputStream(channel));
+    }
+
+    /**
+     * Closes the stream and clears the window.
+     *
+     * @throws IOException if the stream cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+	Util.clear(window);
+	parser.clearBuffers();
+	input.close();
+    }
+
+    private void fill() throws IOException {
+	if (start > 0) {
+	    System.arraycopy(window, start, window, 0, limit - start);
+	    offset += start;
+	    limit -= start;
+	    start = 0;
+	}
+	if (limit == window.length) {
+	    final var larger = Arrays.copyOf(window, window.length * 2);
+	    Util.clear(window);
+	    window = larger;
+	}
+	final var count = input.read(window, limit, window.length - limit);
+	if (count < 0) {
+	    eof = true;
+	} else {
+	    limit += count;
+	}
+    }
+
+    /**
+     * Tests if another record follows. Read and parse errors are thrown
+     * unchecked, {@link #read()} throws them checked.
+     *
+     * @return true if another record follows
+     */
+    @Override
+    public boolean hasNext() {
+	if (isNull(next)) {
+	    try {
+		next = read();
+	    } catch (final IOException e) {
+		throw new UncheckedIOException(e);
+	    } catch (final CSVParseException e) {
+		throw new IllegalArgumentException(e);
+	    }
+	}
+	return nonNull(next);
+    }
+
+    @Override
+    public CSVRecord next() {
+	if (!hasNext()) {
+	    throw new NoSuchElementException();
+	}
+	final var record = next;
+	next = null;
+	return record;
+    }
+
+    /**
+     * Reads the next record. Empty lines are skipped.
+     *
+     * @return the record, or null at the end of the stream
+     * @throws IOException       if the stream cannot be read
+     * @throws CSVParseException if a quoted field exceeds the maximum size
+     */
+    public CSVRecord read() throws IOException, CSVParseException {
+	if (nonNull(next)) {
+	    final var record = next;
+	    next = null;
+	    return record;
+	}
+	while (start < limit || !eof) {
+	    final var end = start < limit ? parser.parseRecord(null, window, start, limit, eof, offset, lineNumber) : -1;
+	    if (end < 0) {
+		fill();
+		continue;
+	    }
+	    start = end;
+	    lineNumber++;
+	    final var record = parser.record();
+	    if (nonNull(record)) {
+		return record;
+	    }
+	}
+	return null;
+    }
+
+    /**
+     * Gets the remaining records as a sequential stream.
+     *
+     * @return the stream
+     */
+    public Stream<CSVRecord> stream() {
+	return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.NONNULL | Spliterator.ORDERED),
+		false);
+    }
+}
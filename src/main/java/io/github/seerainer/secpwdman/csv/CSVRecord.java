@@ -19,57 +19,175 @@
  */
 package io.github.seerainer.secpwdman.csv;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.nonNull;
+
 import java.util.Arrays;
 
 import io.github.seerainer.secpwdman.config.StringConstants;
+import io.github.seerainer.secpwdman.util.Util;
 
 /**
  * CSVRecord represents a single record in a CSV file, containing an array of
  * fields and the line number where the record is located.
+ *
+ * The fields are not copied out of the parsed input. Every field is an offset
+ * and a length into the shared buffer, and the flags of all fields are packed
+ * into bitsets. A string is only decoded from the UTF-8 bytes, and escaped
+ * quotes only removed, when a field is read.
  */
 public class CSVRecord implements StringConstants {
 
-    private final CSVFieldInfo[] fields;
+    static final int QUOTED = 0;
+
+    static final int NULL = 1;
+
+    static final int ESCAPED = 2;
+
+    static final int SPILLED = 3;
+
+    static final int FLAGS = 4;
+
+    static final int SLOTS = 4;
+
+    private static final String[] NO_ERRORS = {};
+
+    private final CSVBuffer buffer;
+    private final byte[] spill;
+    private final int[] table;
+    private final long[] flags;
+    private final int fieldCount;
+    private final byte[] quote;
     private final int lineNumber;
+    private final int recordOffset;
     private final int recordLength;
     private final boolean hadErrors;
     private final String[] errors;
 
-    CSVRecord(final CSVFieldInfo[] fields, final int lineNumber, final int recordLength, final boolean hadErrors,
-	    final String[] errors) {
-	this.fields = Arrays.copyOf(fields, fields.length);
+    /**
+     * Creates a record.
+     *
+     * @param buffer       the parsed input
+     * @param spill        the fields that are not a range of the input, or null
+     * @param table        offset, length, start and end position per field
+     * @param flags        the flags, one bitset of the field count per flag
+     * @param fieldCount   the number of fields
+     * @param quote        the UTF-8 bytes of the quote character
+     * @param lineNumber   the line number
+     * @param recordOffset the position of the record in the input
+     * @param recordLength the length of the record in the input
+     * @param hadErrors    true if the record had errors
+     * @param errors       the errors, or null
+     */
+    CSVRecord(final CSVBuffer buffer, final byte[] spill, final int[] table, final long[] flags,
+	    final int fieldCount, final byte[] quote, final int lineNumber, final int recordOffset,
+	    final int recordLength, final boolean hadErrors, final String[] errors) {
+	this.buffer = buffer;
+	this.spill = spill;
+	this.table = table;
+	this.flags = flags;
+	this.fieldCount = fieldCount;
+	this.quote = quote;
 	this.lineNumber = lineNumber;
+	this.recordOffset = recordOffset;
 	this.recordLength = recordLength;
 	this.hadErrors = hadErrors;
-	this.errors = errors != null ? Arrays.copyOf(errors, errors.length) : new String[0];
+	this.errors = errors != null ? errors : NO_ERRORS;
+    }
+
+    static int words(final int fieldCount) {
+	return fieldCount + 63 >>> 6;
+    }
+
+    /**
+     * Clears the parsed input of this record and of all other records of the
+     * same parse. The fields cannot be read afterwards.
+     */
+    public void clear() {
+	buffer.clear();
+	clearSpill();
+    }
+
+    /**
+     * Clears the fields this record holds outside of the shared buffer.
+     */
+    void clearSpill() {
+	if (nonNull(spill)) {
+	    Util.clear(spill);
+	}
+    }
+
+    private int count(final int flag) {
+	final var words = words(fieldCount);
+	var count = 0;
+	for (var i = 0; i < words; i++) {
+	    count += Long.bitCount(flags[flag * words + i]);
+	}
+	return count;
     }
 
     int getEmptyFieldCount() {
-	return (int) Arrays.stream(fields).filter(CSVFieldInfo::isEmpty).count();
+	var count = 0;
+	for (var i = 0; i < fieldCount; i++) {
+	    if (isEmpty(i)) {
+		count++;
+	    }
+	}
+	return count;
     }
 
     String[] getErrors() {
 	return Arrays.copyOf(errors, errors.length);
     }
 
-    String getField(final int index) {
-	return getFieldInfo(index).getValue();
+    /**
+     * Gets a field.
+     *
+     * @param index the index of the field
+     * @return the value of the field
+     */
+    public String getField(final int index) {
+	if (index < 0 || index >= fieldCount) {
+	    throw new IndexOutOfBoundsException(
+		    new StringBuilder().append(fieldIndex).append(index).append(outOfBounds).toString());
+	}
+	if (is(NULL, index)) {
+	    return empty;
+	}
+	final var offset = table[index * SLOTS];
+	final var length = table[index * SLOTS + 1];
+	if (is(SPILLED, index)) {
+	    return new String(spill, offset, length, UTF_8);
+	}
+	final var bytes = buffer.bytes();
+	return is(ESCAPED, index) ? unescape(bytes, offset, length) : new String(bytes, offset, length, UTF_8);
     }
 
-    int getFieldCount() {
-	return fields.length;
+    public int getFieldCount() {
+	return fieldCount;
     }
 
     CSVFieldInfo getFieldInfo(final int index) {
-	if (index < 0 || index >= fields.length) {
-	    throw new IndexOutOfBoundsException(
-		    new StringBuilder().append(fieldIndex).append(index).append(outOfBounds).toString());
-	}
-	return fields[index];
+	final var value = getField(index);
+	return new CSVFieldInfo(value, is(QUOTED, index), isEmpty(index), is(NULL, index), table[index * SLOTS + 2],
+		table[index * SLOTS + 3], index);
     }
 
     public String[] getFields() {
-	return Arrays.stream(fields).map(CSVFieldInfo::getValue).toArray(String[]::new);
+	final var fields = new String[fieldCount];
+	for (var i = 0; i < fieldCount; i++) {
+	    fields[i] = getField(i);
+	}
+	return fields;
+    }
+
+    /**
+     * Gets the length of the record in the input, with its line ending.
+     *
+     * @return the length
+     */
+    public int getLength() {
+	return recordLength;
     }
 
     int getLineNumber() {
@@ -80,16 +198,50 @@ public class CSVRecord implements StringConstants {
      * Get count of null fields in this record
      */
     int getNullFieldCount() {
-	return (int) Arrays.stream(fields).filter(CSVFieldInfo::isNull).count();
+	return count(NULL);
+    }
+
+    /**
+     * Gets the position of the record in the input.
+     *
+     * @return the offset
+     */
+    public int getOffset() {
+	return recordOffset;
     }
 
     boolean hadErrors() {
 	return hadErrors;
     }
 
+    private boolean is(final int flag, final int index) {
+	return (flags[flag * words(fieldCount) + (index >>> 6)] & 1L << index) != 0;
+    }
+
+    private boolean isEmpty(final int index) {
+	return table[index * SLOTS + 1] == 0;
+    }
+
     @Override
     public String toString() {
-	return csvRecord.formatted(Integer.valueOf(fields.length), Integer.valueOf(lineNumber),
+	return csvRecord.formatted(Integer.valueOf(fieldCount), Integer.valueOf(lineNumber),
 		Integer.valueOf(recordLength), Boolean.valueOf(hadErrors));
     }
+
+    private String unescape(final byte[] bytes, final int offset, final int length) {
+	final var out = new byte[length];
+	var count = 0;
+	for (var i = offset; i < offset + length;) {
+	    if (Arrays.equals(bytes, i, Math.min(i + quote.length, offset + length), quote, 0, quote.length)) {
+		System.arraycopy(quote, 0, out, count, quote.length);
+		count += quote.length;
+		i += 2 * quote.length;
+	    } else {
+		out[count++] = bytes[i++];
+	    }
+	}
+	final var value = new String(out, 0, count, UTF_8);
+	Util.clear(out);
+	return value;
+    }
 }
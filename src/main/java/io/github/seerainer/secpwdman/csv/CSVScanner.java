@@ -0,0 +1,108 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.csv;
+
+/**
+ * CSVScanner finds the next byte of the input that may start a structural
+ * character, a delimiter, a quote or a line ending, so the parser can jump
+ * over the plain runs between them. For a structural character outside of
+ * ASCII this is the first byte of its UTF-8 sequence, the parser decides if the
+ * whole sequence matches. This class tests one byte at a time. It is the
+ * fallback for the {@link VectorScanner}, which is only used when the
+ * incubating vector module is available.
+ */
+class CSVScanner {
+
+    private static final boolean VECTOR = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private final boolean[] fieldStops = new boolean[256];
+
+    private final boolean[] quotedStops = new boolean[256];
+
+    /**
+     * Creates a scanner that tests one byte at a time.
+     *
+     * @param field  the bytes that stop the scan of a field
+     * @param quoted the bytes that stop the scan of a quoted field
+     */
+    CSVScanner(final byte[] field, final byte[] quoted) {
+	for (final var b : field) {
+	    fieldStops[b & 0xFF] = true;
+	}
+	for (final var b : quoted) {
+	    quotedStops[b & 0xFF] = true;
+	}
+    }
+
+    /**
+     * Creates the fastest scanner this runtime supports.
+     *
+     * @param field  the bytes that stop the scan of a field
+     * @param quoted the bytes that stop the scan of a quoted field
+     * @return the scanner
+     */
+    static CSVScanner create(final byte[] field, final byte[] quoted) {
+	if (VECTOR && field.length <= VectorScanner.STOPS && quoted.length <= VectorScanner.STOPS) {
+	    try {
+		if (VectorScanner.isSupported()) {
+		    return new VectorScanner(field, quoted);
+		}
+	    } catch (final LinkageError e) {
+		// the module is resolved but cannot be used, test one by one
+	    }
+	}
+	return new CSVScanner(field, quoted);
+    }
+
+    /**
+     * Finds the next byte that may start a delimiter, a quote or a line ending.
+     *
+     * @param bytes the input
+     * @param start the first position to test
+     * @param end   the end of the range
+     * @return the position of the byte, or the end of the range
+     */
+    int field(final byte[] bytes, final int start, final int end) {
+	for (var position = start; position < end; position++) {
+	    if (fieldStops[bytes[position] & 0xFF]) {
+		return position;
+	    }
+	}
+	return end;
+    }
+
+    /**
+     * Finds the next byte that may start a quote or a line ending inside of a
+     * quoted field.
+     *
+     * @param bytes the input
+     * @param start the first position to test
+     * @param end   the end of the range
+     * @return the position of the byte, or the end of the range
+     */
+    int quoted(final byte[] bytes, final int start, final int end) {
+	for (var position = start; position < end; position++) {
+	    if (quotedStops[bytes[position] & 0xFF]) {
+		return position;
+	    }
+	}
+	return end;
+    }
+}
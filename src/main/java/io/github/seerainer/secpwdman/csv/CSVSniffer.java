@@ -0,0 +1,161 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.csv;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import io.github.seerainer.secpwdman.config.PrimitiveConstants;
+
+/**
+ * CSVSniffer guesses the dialect of CSV data from another program. Only a
+ * sample from the start of the data is parsed, once for every combination of
+ * the candidate delimiters, quotes and line endings. A dialect scores by the
+ * share of records that have the most common number of fields and parse
+ * without errors. Ties go to more fields, then to the earlier candidate, so
+ * the preferred delimiter wins whenever it fits as well as any other.
+ */
+public final class CSVSniffer implements PrimitiveConstants {
+
+    private static final char[] DELIMITERS = { ',', ';', '\t', '|' };
+
+    private static final char[] QUOTES = { QUOTE_CHAR, '\'' };
+
+    private static final char[][] LINE_ENDINGS = { null, { LF } };
+
+    /**
+     * A CSV dialect.
+     *
+     * @param delimiter   the delimiter
+     * @param quote       the quote, which also escapes itself
+     * @param lineEndings the line endings, or null for LF, CR and CRLF
+     */
+    public record Dialect(char delimiter, char quote, char[] lineEndings) {
+
+	/**
+	 * Gets a configuration builder with the delimiter and the quote.
+	 *
+	 * @return the builder
+	 */
+	public CSVConfiguration.Builder configuration() {
+	    return CSVConfiguration.builder().delimiter(delimiter).quote(quote).escape(quote);
+	}
+
+	/**
+	 * Gets an options builder with the line endings.
+	 *
+	 * @return the builder
+	 */
+	public CSVParsingOptions.Builder options() {
+	    return CSVParsingOptions.builder().customLineEndings(lineEndings);
+	}
+    }
+
+    private CSVSniffer() {
+    }
+
+    private static long score(final List<CSVRecord> records) {
+	final var counts = new HashMap<Integer, Integer>();
+	var errors = 0;
+	for (final var record : records) {
+	    counts.merge(Integer.valueOf(record.getFieldCount()), Integer.valueOf(1), Integer::sum);
+	    if (record.hadErrors()) {
+		errors++;
+	    }
+	}
+	var fields = 0;
+	var frequency = 0;
+	for (final var count : counts.entrySet()) {
+	    final var value = count.getValue().intValue();
+	    if (value > frequency || value == frequency && count.getKey().intValue() > fields) {
+		fields = count.getKey().intValue();
+		frequency = value;
+	    }
+	}
+	if (fields < 2) {
+	    return 0L;
+	}
+	// consistency in thousandths, then the number of fields
+	final var consistency = Math.max(0, frequency - errors) * 1000L / records.size();
+	return consistency << 32 | fields;
+    }
+
+    /**
+     * Guesses the dialect of CSV data.
+     *
+     * @param data      the UTF-8 data, not changed
+     * @param preferred the delimiter to prefer, if it fits as well as another
+     * @return the dialect, the preferred delimiter with the default quote if no
+     *         candidate splits the data into fields
+     */
+    public static Dialect sniff(final byte[] data, final char preferred) {
+	var length = data.length;
+	final var truncated = length > CSV_SAMPLE;
+	if (truncated) {
+	    // end the sample after a line, the last record is dropped anyway
+	    length = CSV_SAMPLE;
+	    while (length > 0 && data[length - 1] != LF) {
+		length--;
+	    }
+	    if (length == 0) {
+		length = CSV_SAMPLE;
+	    }
+	}
+	final var delimiters = new char[DELIMITERS.length + 1];
+	delimiters[0] = preferred;
+	System.arraycopy(DELIMITERS, 0, delimiters, 1, DELIMITERS.length);
+
+	var best = new Dialect(preferred, QUOTE_CHAR, null);
+	var bestScore = 0L;
+	for (var i = 0; i < delimiters.length; i++) {
+	    final var delimiter = delimiters[i];
+	    if (i == 0 || delimiter != preferred) {
+		for (final var quote : QUOTES) {
+		    for (final var lineEndings : LINE_ENDINGS) {
+			final var dialect = new Dialect(delimiter, quote, lineEndings);
+			final var score = score(dialect, Arrays.copyOf(data, length), truncated);
+			if (score > bestScore) {
+			    best = dialect;
+			    bestScore = score;
+			}
+		    }
+		}
+	    }
+	}
+	return best;
+    }
+
+    private static long score(final Dialect dialect, final byte[] sample, final boolean truncated) {
+	final var parser = new CSVParser(dialect.configuration().build(), dialect.options().build());
+	final List<CSVRecord> records;
+	try {
+	    records = parser.parseByteArray(sample);
+	} catch (final CSVParseException e) {
+	    return 0L;
+	}
+	try {
+	    final var complete = truncated && records.size() > 1 ? records.subList(0, records.size() - 1) : records;
+	    return complete.isEmpty() ? 0L : score(complete);
+	} finally {
+	    records.forEach(CSVRecord::clear);
+	}
+    }
+}
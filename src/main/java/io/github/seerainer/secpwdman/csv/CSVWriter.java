@@ -0,0 +1,281 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.csv;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.nonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import io.github.seerainer.secpwdman.config.PrimitiveConstants;
+import io.github.seerainer.secpwdman.util.Util;
+
+/**
+ * CSVWriter writes records with the delimiter and the quote of a
+ * {@link CSVConfiguration}. Every field is scanned once while it is encoded as
+ * UTF-8 into a byte buffer. A field with a quote, a delimiter, whitespace or a
+ * character outside of ASCII is quoted and its quotes are doubled, all other
+ * fields are written as they are. The buffer either grows until the data is
+ * taken with {@link #toByteArray()}, or is written to a stream after every
+ * record that fills the window. Its bytes are cleared whenever they are not
+ * needed any more.
+ */
+public class CSVWriter implements AutoCloseable, PrimitiveConstants {
+
+    private final char delimiter;
+
+    private final char quote;
+
+    private final byte[] delimiterBytes;
+
+    private final byte[] quoteBytes;
+
+    private final OutputStream out;
+
+    private byte[] buffer;
+
+    private int length;
+
+    private int fieldCount;
+
+    /**
+     * Creates a writer that keeps the data in memory.
+     *
+     * @param config   the CSV configuration
+     * @param capacity the initial capacity in bytes
+     */
+    public CSVWriter(final CSVConfiguration config, final int capacity) {
+	this(config, null, capacity);
+    }
+
+    /**
+     * Creates a writer that writes the data to a stream.
+     *
+     * @param config the CSV configuration
+     * @param out    the stream
+     */
+    public CSVWriter(final CSVConfiguration config, final OutputStream out) {
+	this(config, out, CSV_WINDOW);
+    }
+
+    private CSVWriter(final CSVConfiguration config, final OutputStream out, final int capacity) {
+	this.delimiter = config.getDelimiter();
+	this.quote = config.getQuote();
+	this.delimiterBytes = String.valueOf(delimiter).getBytes(UTF_8);
+	this.quoteBytes = String.valueOf(quote).getBytes(UTF_8);
+	this.out = out;
+	this.buffer = new byte[Math.max(capacity, BUFFER_MIN)];
+    }
+
+    /**
+     * Clears the buffer. The data that was not taken or written is lost.
+     */
+    public void clear() {
+	Util.clear(buffer);
+	length = 0;
+	fieldCount = 0;
+    }
+
+    /**
+     * Writes the rest of the data to the stream, clears the buffer and closes the
+     * stream.
+     *
+     * @throws IOException if the stream cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+	try {
+	    flush();
+	} finally {
+	    clear();
+	    if (nonNull(out)) {
+		out.close();
+	    }
+	}
+    }
+
+    /**
+     * Ends the current record with a line feed. The buffer is written to the
+     * stream once it holds a window of data.
+     *
+     * @return this writer
+     * @throws IOException if the stream cannot be written
+     */
+    public CSVWriter endRecord() throws IOException {
+	ensure(1);
+	buffer[length++] = LF;
+	fieldCount = 0;
+	if (nonNull(out) && length >= CSV_WINDOW) {
+	    flush();
+	}
+	return this;
+    }
+
+    private void ensure(final int count) {
+	if (length + count > buffer.length) {
+	    final var larger = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + count));
+	    Util.clear(buffer);
+	    buffer = larger;
+	}
+    }
+
+    /**
+     * Writes the buffer to the stream and clears it. Does nothing for a writer in
+     * memory.
+     *
+     * @throws IOException if the stream cannot be written
+     */
+    public void flush() throws IOException {
+	if (nonNull(out)) {
+	    out.write(buffer, 0, length);
+	    Arrays.fill(buffer, 0, length, (byte) 0);
+	    length = 0;
+	    out.flush();
+	}
+    }
+
+    /**
+     * Encodes the character at an index, with the low surrogate that follows a
+     * high one.
+     *
+     * @return the number of characters encoded
+     */
+    private int put(final char[] chars, final int index) {
+	ensure(4);
+	final var c = chars[index];
+	if (c < 0x80) {
+	    buffer[length++] = (byte) c;
+	} else if (c < 0x800) {
+	    buffer[length++] = (byte) (0xC0 | c >> 6);
+	    buffer[length++] = (byte) (0x80 | c & 0x3F);
+	} else if (Character.isHighSurrogate(c) && index + 1 < chars.length
+		&& Character.isLowSurrogate(chars[index + 1])) {
+	    final var codePoint = Character.toCodePoint(c, chars[index + 1]);
+	    buffer[length++] = (byte) (0xF0 | codePoint >> 18);
+	    buffer[length++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+	    buffer[length++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+	    buffer[length++] = (byte) (0x80 | codePoint & 0x3F);
+	    return 2;
+	} else if (Character.isSurrogate(c)) {
+	    // a lone surrogate cannot be encoded, like String.getBytes
+	    buffer[length++] = '?';
+	} else {
+	    buffer[length++] = (byte) (0xE0 | c >> 12);
+	    buffer[length++] = (byte) (0x80 | c >> 6 & 0x3F);
+	    buffer[length++] = (byte) (0x80 | c & 0x3F);
+	}
+	return 1;
+    }
+
+    private void put(final byte[] bytes) {
+	ensure(bytes.length);
+	System.arraycopy(bytes, 0, buffer, length, bytes.length);
+	length += bytes.length;
+    }
+
+    /**
+     * Copies the data written so far.
+     *
+     * @return the UTF-8 bytes of the records
+     */
+    public byte[] toByteArray() {
+	return Arrays.copyOf(buffer, length);
+    }
+
+    /**
+     * Writes a field of the current record, quoted if it has to be.
+     *
+     * @param chars the field, not changed
+     * @return this writer
+     */
+    public CSVWriter writeField(final char[] chars) {
+	if (fieldCount++ > 0) {
+	    put(delimiterBytes);
+	}
+	// keep room for the opening quote, which is only known at the end
+	final var mark = length;
+	ensure(quoteBytes.length);
+	length += quoteBytes.length;
+	var quoted = false;
+	for (var i = 0; i < chars.length;) {
+	    final var c = chars[i];
+	    if (c == quote) {
+		put(quoteBytes);
+		quoted = true;
+	    } else if (c > ASCII_LENGTH || c == delimiter || Character.isWhitespace(c)) {
+		quoted = true;
+	    }
+	    i += put(chars, i);
+	}
+	if (quoted) {
+	    System.arraycopy(quoteBytes, 0, buffer, mark, quoteBytes.length);
+	    put(quoteBytes);
+	} else {
+	    System.arraycopy(buffer, mark + quoteBytes.length, buffer, mark, length - mark - quoteBytes.length);
+	    length -= quoteBytes.length;
+	    Arrays.fill(buffer, length, length + quoteBytes.length, (byte) 0);
+	}
+	return this;
+    }
+
+    /**
+     * Writes a field of the current record, quoted if it has to be.
+     *
+     * @param field the field
+     * @return this writer
+     */
+    public CSVWriter writeField(final String field) {
+	final var chars = field.toCharArray();
+	writeField(chars);
+	Util.clear(chars);
+	return this;
+    }
+
+    /**
+     * Writes text as it is, like a header that is already joined.
+     *
+     * @param text the text
+     * @return this writer
+     */
+    public CSVWriter writeRaw(final String text) {
+	final var chars = text.toCharArray();
+	for (var i = 0; i < chars.length;) {
+	    i += put(chars, i);
+	}
+	Util.clear(chars);
+	return this;
+    }
+
+    /**
+     * Writes all fields of a record and ends it.
+     *
+     * @param fields the fields
+     * @return this writer
+     * @throws IOException if the stream cannot be written
+     */
+    public CSVWriter writeRecord(final String... fields) throws IOException {
+	for (final var field : fields) {
+	    writeField(field);
+	}
+	return endRecord();
+    }
+}
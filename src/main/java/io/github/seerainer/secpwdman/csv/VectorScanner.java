@@ -0,0 +1,94 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.csv;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * VectorScanner compares a whole vector of bytes with the bytes that stop a
+ * scan at once, 16 to 64 bytes depending on the hardware. The lowest set lane
+ * of the combined mask is the next stop. The rest of a range that does not
+ * fill a vector is tested one byte at a time by {@link CSVScanner}, so both
+ * return the same positions.
+ */
+final class VectorScanner extends CSVScanner {
+
+    /**
+     * The number of different bytes a scan can stop at.
+     */
+    static final int STOPS = 4;
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    private final byte[] field = new byte[STOPS];
+
+    private final byte[] quoted = new byte[STOPS];
+
+    /**
+     * Creates a scanner for up to {@link #STOPS} bytes per scan.
+     *
+     * @param field  the bytes that stop the scan of a field
+     * @param quoted the bytes that stop the scan of a quoted field
+     */
+    VectorScanner(final byte[] field, final byte[] quoted) {
+	super(field, quoted);
+	// repeat the first byte, so every scan compares with all four
+	for (var i = 0; i < STOPS; i++) {
+	    this.field[i] = field[i < field.length ? i : 0];
+	    this.quoted[i] = quoted[i < quoted.length ? i : 0];
+	}
+    }
+
+    /**
+     * Tests if the hardware has vectors of at least 128 bits, smaller ones are
+     * emulated and slower than the plain loop.
+     *
+     * @return true if the vectors are supported
+     */
+    static boolean isSupported() {
+	return SPECIES.vectorBitSize() >= 128;
+    }
+
+    private static int find(final byte[] bytes, final int start, final int end, final byte[] stops) {
+	var position = start;
+	for (final var bound = end - SPECIES.length(); position <= bound; position += SPECIES.length()) {
+	    final var vector = ByteVector.fromArray(SPECIES, bytes, position);
+	    final var mask = vector.eq(stops[0]).or(vector.eq(stops[1])).or(vector.eq(stops[2]))
+		    .or(vector.eq(stops[3]));
+	    if (mask.anyTrue()) {
+		return position + mask.firstTrue();
+	    }
+	}
+	return -position - 1;
+    }
+
+    @Override
+    int field(final byte[] bytes, final int start, final int end) {
+	final var position = find(bytes, start, end, field);
+	return position >= 0 ? position : super.field(bytes, -position - 1, end);
+    }
+
+    @Override
+    int quoted(final byte[] bytes, final int start, final int end) {
+	final var position = find(bytes, start, end, quoted);
+	return position >= 0 ? position : super.quoted(bytes, -position - 1, end);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static io.github.seerainer.secpwdman.util.Util.clear;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+
+import io.github.seerainer.secpwdman.config.StringConstants;
+import io.github.seerainer.secpwdman.crypto.CryptoConstants;
+import io.github.seerainer.secpwdman.util.LogFactory;
+
+/**
+ * The class AttachmentService.
+ *
+ * Keeps the attachments of the entries of the open vault file in its
+ * {@link AttachmentStore}, sealed with a key derived from the entry key. The
+ * attachments of deleted entries are removed on save.
+ */
+public class AttachmentService implements CryptoConstants, StringConstants {
+
+    private static final Logger LOG = LogFactory.getLog();
+
+    private final VaultSession session;
+
+    AttachmentService(final VaultSession session) {
+	this.session = session;
+    }
+
+    /**
+     * Attaches a file to an entry.
+     *
+     * @param filePath the vault file
+     * @param uuid     the UUID of the entry
+     * @param source   the file
+     * @return the attachment, or null if the session does not belong to the file
+     * @throws IOException              if the file cannot be read or stored
+     * @throws GeneralSecurityException if the file cannot be sealed
+     */
+    public AttachmentStore.Attachment add(final String filePath, final String uuid, final Path source)
+	    throws IOException, GeneralSecurityException {
+	final var secret = session.secret(filePath, subAttachment);
+	if (isNull(secret)) {
+	    return null;
+	}
+	try {
+	    return AttachmentStore.add(AttachmentStore.getPath(filePath), secret, uuid, source);
+	} finally {
+	    clear(secret);
+	}
+    }
+
+    /**
+     * Writes an attachment to a file.
+     *
+     * @param filePath   the vault file
+     * @param attachment the attachment
+     * @param target     the file
+     * @throws IOException              if the attachment cannot be read or the
+     *                                  file cannot be written
+     * @throws GeneralSecurityException if the attachment was tampered with
+     */
+    public void export(final String filePath, final AttachmentStore.Attachment attachment, final Path target)
+	    throws IOException, GeneralSecurityException {
+	final var secret = session.secret(filePath, subAttachment);
+	if (nonNull(secret)) {
+	    try {
+		AttachmentStore.export(AttachmentStore.getPath(filePath), secret, attachment, target);
+	    } finally {
+		clear(secret);
+	    }
+	}
+    }
+
+    /**
+     * Lists the attachments of an entry.
+     *
+     * @param filePath the vault file
+     * @param uuid     the UUID of the entry
+     * @return the attachments, empty if the session does not belong to the file
+     * @throws IOException if the attachments cannot be read
+     */
+    public List<AttachmentStore.Attachment> list(final String filePath, final String uuid) throws IOException {
+	final var secret = session.secret(filePath, subAttachment);
+	if (isNull(secret)) {
+	    return List.of();
+	}
+	try {
+	    return AttachmentStore.list(AttachmentStore.getPath(filePath), secret, uuid);
+	} finally {
+	    clear(secret);
+	}
+    }
+
+    /**
+     * Removes an attachment.
+     *
+     * @param filePath   the vault file
+     * @param attachment the attachment
+     * @throws IOException              if the store cannot be written
+     * @throws GeneralSecurityException if a manifest was tampered with
+     */
+    public void remove(final String filePath, final AttachmentStore.Attachment attachment)
+	    throws IOException, GeneralSecurityException {
+	final var secret = session.secret(filePath, subAttachment);
+	if (nonNull(secret)) {
+	    try {
+		AttachmentStore.remove(AttachmentStore.getPath(filePath), secret, attachment);
+	    } finally {
+		clear(secret);
+	    }
+	}
+    }
+
+    /**
+     * Removes the attachments of the entries the saved state no longer has. The
+     * caller holds the lock and has checked that the vault file is open.
+     */
+    void retain() {
+	final var secret = session.subKey(subAttachment);
+	try {
+	    AttachmentStore.retain(AttachmentStore.getPath(session.getFile()), secret,
+		    session.getHashes().get().uuids().collect(Collectors.toSet()));
+	} catch (final IOException | GeneralSecurityException e) {
+	    LOG.warn(WARN, e);
+	} finally {
+	    clear(secret);
+	}
+    }
+}
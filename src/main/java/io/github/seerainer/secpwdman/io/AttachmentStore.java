@@ -0,0 +1,316 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static io.github.seerainer.secpwdman.util.Util.clear;
+import static java.util.Objects.nonNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+
+import io.github.seerainer.secpwdman.config.PrimitiveConstants;
+import io.github.seerainer.secpwdman.config.StringConstants;
+import io.github.seerainer.secpwdman.crypto.Crypto;
+import io.github.seerainer.secpwdman.crypto.CryptoConstants;
+import io.github.seerainer.secpwdman.crypto.VaultCrypto;
+import io.github.seerainer.secpwdman.util.LogFactory;
+
+/**
+ * The class AttachmentStore.
+ *
+ * Files attached to entries, kept in a directory next to the vault. A file is
+ * read as a stream and split into content-defined chunks with the
+ * {@link Chunker}, so only a few chunks are in memory at any time. The chunks
+ * go into a {@link ChunkStore}, which stores equal content only once. Every
+ * attachment has a sealed manifest with its random ID, the UUID of its entry,
+ * the file name and the list of its chunks. Nothing is decrypted before an
+ * attachment is listed or saved.
+ */
+public class AttachmentStore implements CryptoConstants, PrimitiveConstants, StringConstants {
+
+    /**
+     * An attachment in the store.
+     *
+     * @param path  the manifest path
+     * @param entry the UUID of the entry
+     * @param name  the file name
+     * @param size  the file size
+     * @param time  the time the file was attached
+     */
+    public record Attachment(Path path, String entry, String name, long size, long time) {
+    }
+
+    private static final Logger LOG = LogFactory.getLog();
+
+    private static final byte[] MAGIC = { 'S', 'P', 'M', 'A' };
+
+    private static final int ID_LENGTH = 16;
+
+    private static final int HEADER_LENGTH = MAGIC.length + 1 + ID_LENGTH;
+
+    private AttachmentStore() {
+    }
+
+    /**
+     * Adds a file to the store.
+     *
+     * @param dir    the attachment directory
+     * @param secret the attachment secret
+     * @param entry  the UUID of the entry
+     * @param source the file
+     * @return the attachment
+     * @throws IOException              if the file cannot be read or the store
+     *                                  cannot be written
+     * @throws GeneralSecurityException if a chunk cannot be sealed
+     */
+    static Attachment add(final Path dir, final byte[] secret, final String entry, final Path source)
+	    throws IOException, GeneralSecurityException {
+	Files.createDirectories(dir);
+	final var mac = ChunkStore.hash(secret);
+	final var hashes = new ByteArrayOutputStream();
+	final var buffer = new byte[2 * CHUNK_MAX];
+	var size = 0L;
+	var count = 0;
+	var written = 0;
+	try (final var in = Files.newInputStream(source)) {
+	    var eof = false;
+	    var start = 0;
+	    var length = 0;
+	    while (true) {
+		if (!eof && length - start < CHUNK_MAX) {
+		    System.arraycopy(buffer, start, buffer, 0, length - start);
+		    length -= start;
+		    start = 0;
+		    final var read = in.readNBytes(buffer, length, buffer.length - length);
+		    eof = read < buffer.length - length;
+		    length += read;
+		}
+		if (start == length) {
+		    break;
+		}
+		final var end = Chunker.next(buffer, start, length);
+		final var chunk = Arrays.copyOfRange(buffer, start, end);
+		final var hash = mac.doFinal(chunk);
+		if (ChunkStore.write(dir, secret, hash, chunk)) {
+		    written++;
+		}
+		clear(chunk);
+		hashes.writeBytes(hash);
+		size += end - start;
+		count++;
+		start = end;
+	    }
+	} finally {
+	    clear(buffer);
+	}
+	final var time = System.currentTimeMillis();
+	final var name = source.getFileName().toString();
+	final var out = new ByteArrayOutputStream(hashes.size() + BUFFER_MIN);
+	final var data = new DataOutputStream(out);
+	data.writeUTF(entry);
+	data.writeUTF(name);
+	data.writeLong(time);
+	data.writeLong(size);
+	hashes.writeTo(data);
+	final var id = Crypto.getRandomValue(ID_LENGTH);
+	final var header = ByteBuffer.allocate(HEADER_LENGTH).put(MAGIC).put((byte) ATTACHMENT_VERSION).put(id).array();
+	final var key = VaultCrypto.subKey(secret, subManifest);
+	try {
+	    final var sealed = VaultCrypto.seal(key, out.toByteArray(), header);
+	    final var path = dir.resolve(ChunkStore.name(id) + manifestExt);
+	    IO.save(path.toString(), ByteBuffer.allocate(HEADER_LENGTH + sealed.length).put(header).put(sealed).array());
+	    LOG.info(ATTACHMENT_ADDED, Integer.valueOf(written), Integer.valueOf(count));
+	    return new Attachment(path, entry, name, size, time);
+	} finally {
+	    clear(key);
+	}
+    }
+
+    /**
+     * Writes an attachment to a file, one chunk at a time.
+     *
+     * @param dir        the attachment directory
+     * @param secret     the attachment secret
+     * @param attachment the attachment
+     * @param target     the file
+     * @throws IOException              if a chunk is missing or the file cannot be
+     *                                  written
+     * @throws GeneralSecurityException if the attachment was tampered with
+     */
+    static void export(final Path dir, final byte[] secret, final Attachment attachment, final Path target)
+	    throws IOException, GeneralSecurityException {
+	final var key = VaultCrypto.subKey(secret, subManifest);
+	final DataInputStream in;
+	try {
+	    in = openManifest(attachment.path(), key);
+	} finally {
+	    clear(key);
+	}
+	in.readUTF();
+	in.readUTF();
+	in.skipNBytes(2L * Long.BYTES);
+	try (final var out = Files.newOutputStream(target)) {
+	    final var hash = new byte[OUT_LENGTH];
+	    while (in.available() > 0) {
+		in.readFully(hash);
+		final var chunk = ChunkStore.read(dir, secret, hash);
+		out.write(chunk);
+		clear(chunk);
+	    }
+	}
+    }
+
+    /**
+     * Gets the attachment directory of a vault file.
+     *
+     * @param file the vault file
+     * @return the attachment directory
+     */
+    static Path getPath(final String file) {
+	return IOUtil.getPath(file + attachmentExt);
+    }
+
+    /**
+     * Lists the attachments of an entry in the order they were added.
+     *
+     * @param dir    the attachment directory
+     * @param secret the attachment secret
+     * @param entry  the UUID of the entry
+     * @return the attachments
+     * @throws IOException if the directory cannot be read
+     */
+    static List<Attachment> list(final Path dir, final byte[] secret, final String entry) throws IOException {
+	final var attachments = new ArrayList<Attachment>();
+	final var key = VaultCrypto.subKey(secret, subManifest);
+	try {
+	    for (final var path : manifests(dir)) {
+		try {
+		    final var in = openManifest(path, key);
+		    if (entry.equals(in.readUTF())) {
+			final var name = in.readUTF();
+			final var time = in.readLong();
+			attachments.add(new Attachment(path, entry, name, in.readLong(), time));
+		    }
+		} catch (final GeneralSecurityException e) {
+		    LOG.warn(WARN, e);
+		}
+	    }
+	} finally {
+	    clear(key);
+	}
+	attachments.sort(Comparator.comparingLong(Attachment::time));
+	return attachments;
+    }
+
+    private static List<Path> manifests(final Path dir) throws IOException {
+	if (!Files.isDirectory(dir)) {
+	    return List.of();
+	}
+	try (final var stream = Files.list(dir)) {
+	    return stream.filter(path -> path.getFileName().toString().endsWith(manifestExt)).toList();
+	}
+    }
+
+    private static DataInputStream openManifest(final Path path, final byte[] key)
+	    throws IOException, GeneralSecurityException {
+	final var bytes = Files.readAllBytes(path);
+	if (bytes.length < HEADER_LENGTH || !Arrays.equals(bytes, 0, MAGIC.length, MAGIC, 0, MAGIC.length)) {
+	    throw new GeneralSecurityException(path.toString());
+	}
+	final var header = Arrays.copyOf(bytes, HEADER_LENGTH);
+	final var payload = VaultCrypto.open(key, Arrays.copyOfRange(bytes, HEADER_LENGTH, bytes.length), header);
+	return new DataInputStream(new ByteArrayInputStream(payload));
+    }
+
+    /**
+     * Removes an attachment, together with the chunks no other attachment uses.
+     *
+     * @param dir        the attachment directory
+     * @param secret     the attachment secret
+     * @param attachment the attachment
+     * @throws IOException              if the store cannot be written
+     * @throws GeneralSecurityException if a manifest was tampered with
+     */
+    static void remove(final Path dir, final byte[] secret, final Attachment attachment)
+	    throws IOException, GeneralSecurityException {
+	Files.delete(attachment.path());
+	sweep(dir, secret, null, 1);
+    }
+
+    /**
+     * Removes the attachments of all entries but some, together with the chunks
+     * no other attachment uses.
+     *
+     * @param dir     the attachment directory
+     * @param secret  the attachment secret
+     * @param entries the UUIDs of the entries to keep
+     * @throws IOException              if the store cannot be written
+     * @throws GeneralSecurityException if a manifest was tampered with
+     */
+    static void retain(final Path dir, final byte[] secret, final Set<String> entries)
+	    throws IOException, GeneralSecurityException {
+	sweep(dir, secret, entries, 0);
+    }
+
+    private static void sweep(final Path dir, final byte[] secret, final Set<String> entries, final int removed)
+	    throws IOException, GeneralSecurityException {
+	final var key = VaultCrypto.subKey(secret, subManifest);
+	try {
+	    final var used = new HashSet<String>();
+	    var count = removed;
+	    for (final var path : manifests(dir)) {
+		final var in = openManifest(path, key);
+		final var entry = in.readUTF();
+		if (nonNull(entries) && !entries.contains(entry)) {
+		    Files.delete(path);
+		    count++;
+		    continue;
+		}
+		in.readUTF();
+		in.skipNBytes(2L * Long.BYTES);
+		final var hash = new byte[OUT_LENGTH];
+		while (in.available() > 0) {
+		    in.readFully(hash);
+		    used.add(ChunkStore.name(hash));
+		}
+	    }
+	    if (count > 0) {
+		LOG.info(ATTACHMENT_REMOVED, Integer.valueOf(count), Integer.valueOf(ChunkStore.sweep(dir, used)));
+	    }
+	} finally {
+	    clear(key);
+	}
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static io.github.seerainer.secpwdman.util.Util.clear;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.List;
+
+import org.slf4j.Logger;
+
+import io.github.seerainer.secpwdman.config.StringConstants;
+import io.github.seerainer.secpwdman.crypto.CryptoConstants;
+import io.github.seerainer.secpwdman.util.LogFactory;
+
+/**
+ * The class BackupService.
+ *
+ * Keeps the versioned backups of the open vault file in its
+ * {@link BackupStore}, sealed with a key derived from the entry key.
+ */
+public class BackupService implements CryptoConstants, StringConstants {
+
+    private static final Logger LOG = LogFactory.getLog();
+
+    private final VaultSession session;
+
+    BackupService(final VaultSession session) {
+	this.session = session;
+    }
+
+    /**
+     * Adds a backup of the saved vault data. The caller holds the lock and has
+     * checked that the vault file is open.
+     *
+     * @param data the vault data
+     */
+    void add(final byte[] data) {
+	final var secret = session.subKey(subBackup);
+	try {
+	    final var entries = (int) session.getHashes().get().uuids().count();
+	    BackupStore.write(BackupStore.getPath(session.getFile()), secret, data, entries);
+	} catch (final IOException | GeneralSecurityException e) {
+	    LOG.warn(WARN, e);
+	} finally {
+	    clear(secret);
+	}
+    }
+
+    /**
+     * Lists the versioned backups of the vault file, the newest first.
+     *
+     * @param filePath the vault file
+     * @return the snapshots, empty if the session does not belong to the file
+     * @throws IOException if the backup directory cannot be read
+     */
+    public List<BackupStore.Snapshot> list(final String filePath) throws IOException {
+	final var lock = session.getLock();
+	lock.lock();
+	try {
+	    if (!session.isOpen(filePath)) {
+		return List.of();
+	    }
+	    final var secret = session.subKey(subBackup);
+	    try {
+		return BackupStore.list(BackupStore.getPath(filePath), secret);
+	    } finally {
+		clear(secret);
+	    }
+	} finally {
+	    lock.unlock();
+	}
+    }
+
+    /**
+     * Reads the vault data of a versioned backup.
+     *
+     * @param filePath the vault file
+     * @param snapshot the snapshot
+     * @return the vault data, or null if the session does not belong to the file
+     * @throws IOException              if a chunk is missing
+     * @throws GeneralSecurityException if the backup was tampered with
+     */
+    public byte[] restore(final String filePath, final BackupStore.Snapshot snapshot)
+	    throws IOException, GeneralSecurityException {
+	final var lock = session.getLock();
+	lock.lock();
+	try {
+	    if (!session.isOpen(filePath)) {
+		return null;
+	    }
+	    final var secret = session.subKey(subBackup);
+	    try {
+		return BackupStore.read(BackupStore.getPath(filePath), secret, snapshot);
+	    } finally {
+		clear(secret);
+	    }
+	} finally {
+	    lock.unlock();
+	}
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static io.github.seerainer.secpwdman.util.Util.clear;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+
+import org.slf4j.Logger;
+
+import io.github.seerainer.secpwdman.config.PrimitiveConstants;
+import io.github.seerainer.secpwdman.config.StringConstants;
+import io.github.seerainer.secpwdman.crypto.CryptoConstants;
+import io.github.seerainer.secpwdman.crypto.VaultCrypto;
+import io.github.seerainer.secpwdman.util.LogFactory;
+
+/**
+ * The class BackupStore.
+ *
+ * A versioned backup directory next to the vault. Every save splits the vault
+ * data into content-defined chunks with the {@link Chunker} and keeps them in
+ * a {@link ChunkStore}, so unchanged chunks of later saves are not written
+ * again. A snapshot is a sealed manifest with the list of its chunks. Only the
+ * oldest snapshots beyond the retention are removed, together with the chunks
+ * no other snapshot uses.
+ */
+public class BackupStore implements CryptoConstants, PrimitiveConstants, StringConstants {
+
+    /**
+     * A snapshot in the store.
+     *
+     * @param path    the manifest path
+     * @param time    the time of the save
+     * @param entries the number of entries
+     */
+    public record Snapshot(Path path, long time, int entries) {
+    }
+
+    private static final Logger LOG = LogFactory.getLog();
+
+    private static final byte[] MAGIC = { 'S', 'P', 'M', 'B' };
+
+    private static final int HEADER_LENGTH = MAGIC.length + 1 + Long.BYTES;
+
+    private BackupStore() {
+    }
+
+    /**
+     * Gets the backup directory of a vault file.
+     *
+     * @param file the vault file
+     * @return the backup directory
+     */
+    static Path getPath(final String file) {
+	return IOUtil.getPath(file + backupExt);
+    }
+
+    private static byte[] header(final long time) {
+	return ByteBuffer.allocate(HEADER_LENGTH).put(MAGIC).put((byte) BACKUP_VERSION).putLong(time).array();
+    }
+
+    /**
+     * Lists the snapshots, the newest first.
+     *
+     * @param dir    the backup directory
+     * @param secret the backup secret
+     * @return the snapshots
+     * @throws IOException if the directory cannot be read
+     */
+    static List<Snapshot> list(final Path dir, final byte[] secret) throws IOException {
+	final var snapshots = new ArrayList<Snapshot>();
+	final var key = VaultCrypto.subKey(secret, subManifest);
+	try {
+	    for (final var path : manifests(dir)) {
+		try {
+		    final var payload = ByteBuffer.wrap(openManifest(path, key));
+		    snapshots.add(new Snapshot(path, payload.getLong(), payload.getInt()));
+		} catch (final GeneralSecurityException e) {
+		    LOG.warn(WARN, e);
+		}
+	    }
+	} finally {
+	    clear(key);
+	}
+	snapshots.sort(Comparator.comparingLong(Snapshot::time).reversed());
+	return snapshots;
+    }
+
+    private static List<Path> manifests(final Path dir) throws IOException {
+	if (!Files.isDirectory(dir)) {
+	    return List.of();
+	}
+	try (final var stream = Files.list(dir)) {
+	    return stream.filter(path -> path.getFileName().toString().endsWith(snapshotExt)).sorted().toList();
+	}
+    }
+
+    private static byte[] openManifest(final Path path, final byte[] key) throws IOException, GeneralSecurityException {
+	final var bytes = Files.readAllBytes(path);
+	if (bytes.length < HEADER_LENGTH || !Arrays.equals(bytes, 0, MAGIC.length, MAGIC, 0, MAGIC.length)) {
+	    throw new GeneralSecurityException(path.toString());
+	}
+	final var header = Arrays.copyOf(bytes, HEADER_LENGTH);
+	return VaultCrypto.open(key, Arrays.copyOfRange(bytes, HEADER_LENGTH, bytes.length), header);
+    }
+
+    private static void prune(final Path dir, final byte[] key) throws IOException, GeneralSecurityException {
+	final var manifests = manifests(dir);
+	if (manifests.size() <= BACKUP_KEEP) {
+	    return;
+	}
+	for (final var path : manifests.subList(0, manifests.size() - BACKUP_KEEP)) {
+	    Files.delete(path);
+	}
+	final var used = new HashSet<String>();
+	for (final var path : manifests.subList(manifests.size() - BACKUP_KEEP, manifests.size())) {
+	    final var payload = ByteBuffer.wrap(openManifest(path, key));
+	    payload.position(Long.BYTES + Integer.BYTES + Long.BYTES);
+	    final var hash = new byte[OUT_LENGTH];
+	    while (payload.hasRemaining()) {
+		payload.get(hash);
+		used.add(ChunkStore.name(hash));
+	    }
+	}
+	final var removed = ChunkStore.sweep(dir, used);
+	LOG.info(BACKUP_PRUNED, Integer.valueOf(manifests.size() - BACKUP_KEEP), Integer.valueOf(removed));
+    }
+
+    /**
+     * Reads the vault data of a snapshot.
+     *
+     * @param dir      the backup directory
+     * @param secret   the backup secret
+     * @param snapshot the snapshot
+     * @return the vault data
+     * @throws IOException              if a chunk is missing
+     * @throws GeneralSecurityException if a chunk was tampered with
+     */
+    static byte[] read(final Path dir, final byte[] secret, final Snapshot snapshot)
+	    throws IOException, GeneralSecurityException {
+	final var key = VaultCrypto.subKey(secret, subManifest);
+	final var payload = ByteBuffer.wrap(openManifest(snapshot.path(), key));
+	clear(key);
+	payload.position(Long.BYTES + Integer.BYTES);
+	final var out = new ByteArrayOutputStream((int) payload.getLong());
+	final var hash = new byte[OUT_LENGTH];
+	while (payload.hasRemaining()) {
+	    payload.get(hash);
+	    final var chunk = ChunkStore.read(dir, secret, hash);
+	    out.writeBytes(chunk);
+	    clear(chunk);
+	}
+	return out.toByteArray();
+    }
+
+    /**
+     * Writes a snapshot of the vault data. Only chunks that are not in the store
+     * yet are written.
+     *
+     * @param dir     the backup directory
+     * @param secret  the backup secret
+     * @param data    the vault data
+     * @param entries the number of entries
+     * @throws IOException              if the store cannot be written
+     * @throws GeneralSecurityException if a chunk cannot be sealed
+     */
+    static void write(final Path dir, final byte[] secret, final byte[] data, final int entries)
+	    throws IOException, GeneralSecurityException {
+	Files.createDirectories(dir);
+	final var mac = ChunkStore.hash(secret);
+	final var hashes = new ByteArrayOutputStream(data.length / CHUNK_AVERAGE * OUT_LENGTH + OUT_LENGTH);
+	var count = 0;
+	var written = 0;
+	for (var start = 0; start < data.length; count++) {
+	    final var end = Chunker.next(data, start, data.length);
+	    final var chunk = Arrays.copyOfRange(data, start, end);
+	    final var hash = mac.doFinal(chunk);
+	    if (ChunkStore.write(dir, secret, hash, chunk)) {
+		written++;
+	    }
+	    clear(chunk);
+	    hashes.writeBytes(hash);
+	    start = end;
+	}
+	final var time = System.currentTimeMillis();
+	final var payload = ByteBuffer.allocate(Long.BYTES + Integer.BYTES + Long.BYTES + hashes.size()).putLong(time)
+		.putInt(entries).putLong(data.length).put(hashes.toByteArray()).array();
+	final var header = header(time);
+	final var key = VaultCrypto.subKey(secret, subManifest);
+	try {
+	    final var sealed = VaultCrypto.seal(key, payload, header);
+	    final var bytes = ByteBuffer.allocate(HEADER_LENGTH + sealed.length).put(header).put(sealed).array();
+	    IO.save(dir.resolve(String.format(snapshotName, Long.valueOf(time))).toString(), bytes);
+	    LOG.info(BACKUP_WRITTEN, Integer.valueOf(written), Integer.valueOf(count));
+	    prune(dir, key);
+	} finally {
+	    clear(key);
+	}
+    }
+}
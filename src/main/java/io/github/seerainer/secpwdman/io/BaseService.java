@@ -0,0 +1,201 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+
+import io.github.seerainer.secpwdman.config.StringConstants;
+import io.github.seerainer.secpwdman.crypto.Crypto;
+import io.github.seerainer.secpwdman.crypto.CryptoConstants;
+import io.github.seerainer.secpwdman.crypto.VaultCrypto;
+import io.github.seerainer.secpwdman.util.LogFactory;
+import io.github.seerainer.secpwdman.util.Util;
+
+/**
+ * The class BaseService.
+ *
+ * Keeps the lines of the last saved state of the open vault file sealed under a
+ * random key, as the base of a {@link VaultMerge} and of the history. Of a
+ * vault file in the segmented layout the sealed {@link VaultSegments} are the
+ * base until the lines are needed. An append does not seal the base again, its
+ * change set is sealed next to it and folded in, with the history of the
+ * changed entries, once the lines are needed.
+ */
+class BaseService implements CryptoConstants, StringConstants {
+
+    private record Pending(long time, byte[] changes) {
+    }
+
+    private static final Logger LOG = LogFactory.getLog();
+
+    private final VaultSession session;
+
+    private final List<Pending> pending = new ArrayList<>();
+
+    private byte[] base;
+    private byte[] baseKey;
+    private VaultSegments source;
+
+    BaseService(final VaultSession session) {
+	this.session = session;
+    }
+
+    /**
+     * Seals the change set of an append, it is folded into the base once the
+     * lines are needed.
+     *
+     * @param changes the changed lines by UUID, null for deleted entries
+     * @throws IOException              if the changes cannot be encoded
+     * @throws GeneralSecurityException if the changes cannot be sealed
+     */
+    void add(final Map<String, byte[]> changes) throws IOException, GeneralSecurityException {
+	if (isNull(baseKey)) {
+	    // the base is still the sealed segments of the vault file
+	    baseKey = Crypto.getRandomValue(OUT_LENGTH);
+	}
+	final var sealed = VaultCrypto.seal(baseKey, Journal.encode(changes), aad());
+	pending.add(new Pending(System.currentTimeMillis(), sealed));
+    }
+
+    private byte[] aad() {
+	return session.getFile().getBytes(UTF_8);
+    }
+
+    void clear() {
+	pending.clear();
+	Util.clear(base);
+	Util.clear(baseKey);
+	base = null;
+	baseKey = null;
+	clearSource();
+    }
+
+    private void clearSource() {
+	if (nonNull(source)) {
+	    source.clear();
+	    source = null;
+	}
+    }
+
+    /**
+     * Folds the pending change sets into the base. The history of the changed
+     * entries is written before, with the time of each append.
+     */
+    void flush() {
+	if (pending.isEmpty()) {
+	    return;
+	}
+	try {
+	    final var rows = get(session.getDivider());
+	    if (nonNull(rows)) {
+		rows.clear();
+	    }
+	} catch (final GeneralSecurityException e) {
+	    LOG.warn(WARN, e);
+	}
+	pending.clear();
+    }
+
+    private void fold(final VaultRows rows) throws GeneralSecurityException {
+	final var saves = new ArrayList<HistoryService.Save>(pending.size());
+	for (final var change : pending) {
+	    try {
+		saves.add(new HistoryService.Save(change.time(),
+			Journal.decode(VaultCrypto.open(baseKey, change.changes(), aad()))));
+	    } catch (final IOException e) {
+		throw new GeneralSecurityException(e);
+	    }
+	}
+	session.getHistory().record(rows, saves);
+	pending.clear();
+	set(rows);
+    }
+
+    /**
+     * Opens the lines of the last saved state.
+     *
+     * @param divider the divider of the lines
+     * @return the lines, or null if there is no base
+     * @throws GeneralSecurityException if the base cannot be opened
+     */
+    VaultRows get(final char divider) throws GeneralSecurityException {
+	final byte[] data;
+	if (nonNull(base)) {
+	    data = VaultCrypto.open(baseKey, base, aad());
+	} else if (nonNull(source)) {
+	    try {
+		data = source.open(null);
+	    } catch (final IOException e) {
+		throw new GeneralSecurityException(e);
+	    }
+	} else {
+	    return null;
+	}
+	final var rows = VaultRows.parse(data, divider);
+	Util.clear(data);
+	if (nonNull(rows) && !pending.isEmpty()) {
+	    fold(rows);
+	}
+	return rows;
+    }
+
+    /**
+     * Tests if the lines of the saved state are sealed, and not only the segments
+     * of the vault file.
+     *
+     * @return true if the lines are sealed
+     */
+    boolean hasLines() {
+	return nonNull(base);
+    }
+
+    /**
+     * Seals the lines as the new base.
+     *
+     * @param rows the lines of the saved state
+     * @throws GeneralSecurityException if the lines cannot be sealed
+     */
+    void set(final VaultRows rows) throws GeneralSecurityException {
+	clearSource();
+	Util.clear(baseKey);
+	baseKey = Crypto.getRandomValue(OUT_LENGTH);
+	base = VaultCrypto.seal(baseKey, rows.toBytes(), aad());
+    }
+
+    /**
+     * Keeps the segments of the vault file as the base until the lines are
+     * needed.
+     *
+     * @param segments a copy of the segments
+     */
+    void setSource(final VaultSegments segments) {
+	source = segments;
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static java.util.Objects.isNull;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import com.grack.nanojson.JsonParserException;
+import com.grack.nanojson.JsonReader;
+
+import io.github.seerainer.secpwdman.config.StringConstants;
+import io.github.seerainer.secpwdman.util.Util;
+
+/**
+ * The class BitwardenReader.
+ *
+ * Streams the entries of an unencrypted Bitwarden JSON export with the pull
+ * parser of nanojson. Only one entry is held in memory at a time, the folders,
+ * which come before the entries in an export, are kept by their id to fill the
+ * group.
+ */
+class BitwardenReader implements ImportReader, StringConstants {
+
+    static final String EXTENSION = ".json";
+
+    private final FileChannel channel;
+    private final Map<String, String> folders = new HashMap<>();
+    private JsonReader json;
+    private boolean done;
+    private boolean header = true;
+    private boolean items;
+
+    BitwardenReader(final FileChannel channel) {
+	this.channel = channel;
+    }
+
+    @Override
+    public void close() throws IOException {
+	channel.close();
+    }
+
+    @Override
+    public int progress(final int maximum) throws IOException {
+	// the parser may close the channel at the end of the document
+	if (!channel.isOpen() || channel.size() == 0) {
+	    return maximum;
+	}
+	return (int) (channel.position() * maximum / channel.size());
+    }
+
+    @Override
+    public String[] read() throws IOException {
+	if (header) {
+	    header = false;
+	    return csvHeader.clone();
+	}
+	try {
+	    if (isNull(json)) {
+		json = JsonReader.from(Channels.newInputStream(channel));
+		json.object();
+	    }
+	    if (!done && (items || seekItems()) && json.next()) {
+		return item();
+	    }
+	    done = true;
+	    return null;
+	} catch (final JsonParserException e) {
+	    throw new IllegalArgumentException(e);
+	}
+    }
+
+    private String[] item() throws JsonParserException {
+	final var row = new String[csvHeader.length];
+	Arrays.fill(row, empty);
+	String folder = null;
+	json.object();
+	while (json.next()) {
+	    // the columns of the default header: uuid, group, title, url, user, password, notes
+	    switch (json.key()) {
+	    case "id" -> row[0] = text().toUpperCase(Locale.ROOT);
+	    case "folderId" -> folder = text();
+	    case "name" -> row[2] = text();
+	    case "notes" -> row[6] = text();
+	    case "login" -> login(row);
+	    default -> skip();
+	    }
+	}
+	row[1] = folders.getOrDefault(folder, empty);
+	if (row[0].isEmpty()) {
+	    row[0] = Util.getUUID();
+	}
+	return row;
+    }
+
+    private void login(final String[] row) throws JsonParserException {
+	if (nul()) {
+	    return;
+	}
+	json.object();
+	while (json.next()) {
+	    switch (json.key()) {
+	    case "uris" -> uri(row);
+	    case "username" -> row[4] = text();
+	    case "password" -> row[5] = text();
+	    default -> skip();
+	    }
+	}
+    }
+
+    private boolean nul() throws JsonParserException {
+	if (json.current() != JsonReader.Type.NULL) {
+	    return false;
+	}
+	json.nul();
+	return true;
+    }
+
+    private boolean seekItems() throws JsonParserException {
+	while (json.next()) {
+	    switch (json.key()) {
+	    case "encrypted" -> {
+		if (json.bool()) {
+		    throw new IllegalArgumentException(ENCRYPTED_EXPORT);
+		}
+	    }
+	    case "folders" -> {
+		json.array();
+		while (json.next()) {
+		    String id = null;
+		    var name = empty;
+		    json.object();
+		    while (json.next()) {
+			switch (json.key()) {
+			case "id" -> id = text();
+			case "name" -> name = text();
+			default -> skip();
+			}
+		    }
+		    folders.put(id, name);
+		}
+	    }
+	    case "items" -> {
+		json.array();
+		items = true;
+		return true;
+	    }
+	    default -> skip();
+	    }
+	}
+	return false;
+    }
+
+    private void skip() throws JsonParserException {
+	switch (json.current()) {
+	case OBJECT -> {
+	    json.object();
+	    while (json.next()) {
+		json.key();
+		skip();
+	    }
+	}
+	case ARRAY -> {
+	    json.array();
+	    while (json.next()) {
+		skip();
+	    }
+	}
+	case NULL -> json.nul();
+	default -> json.value();
+	}
+    }
+
+    private String text() throws JsonParserException {
+	if (nul()) {
+	    return empty;
+	}
+	return json.current() == JsonReader.Type.STRING ? json.string() : String.valueOf(json.value());
+    }
+
+    private void uri(final String[] row) throws JsonParserException {
+	if (nul()) {
+	    return;
+	}
+	json.array();
+	while (json.next()) {
+	    if (nul()) {
+		continue;
+	    }
+	    json.object();
+	    while (json.next()) {
+		if ("uri".equals(json.key()) && row[3].isEmpty()) {
+		    row[3] = text();
+		} else {
+		    skip();
+		}
+	    }
+	}
+    }
+}
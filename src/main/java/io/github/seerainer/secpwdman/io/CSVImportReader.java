@@ -0,0 +1,91 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static io.github.seerainer.secpwdman.util.Util.clear;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+
+import io.github.seerainer.secpwdman.config.ConfigData;
+import io.github.seerainer.secpwdman.config.StringConstants;
+import io.github.seerainer.secpwdman.csv.CSVParseException;
+import io.github.seerainer.secpwdman.csv.CSVParser;
+import io.github.seerainer.secpwdman.csv.CSVReader;
+import io.github.seerainer.secpwdman.csv.CSVSniffer;
+import io.github.seerainer.secpwdman.util.LogFactory;
+
+/**
+ * The class CSVImportReader.
+ *
+ * Reads a CSV file in the dialect detected from a sample of its content. The
+ * content is cleared when the reader is closed.
+ */
+class CSVImportReader implements ImportReader, StringConstants {
+
+    private static final Logger LOG = LogFactory.getLog();
+
+    private final byte[] bytes;
+    private final ByteArrayInputStream input;
+    private final CSVReader reader;
+
+    CSVImportReader(final byte[] bytes, final ConfigData cData) {
+	this.bytes = bytes;
+	// an import may come from another program with another dialect
+	final var dialect = CSVSniffer.sniff(bytes, cData.getDivider());
+	LOG.info(DIALECT_DETECTED, Character.valueOf(dialect.delimiter()), Character.valueOf(dialect.quote()));
+	final var parser = new CSVParser(dialect.configuration().initialBufferSize(cData.getBufferLength()).build(),
+		dialect.options().build());
+	input = new ByteArrayInputStream(bytes);
+	reader = new CSVReader(parser, input);
+    }
+
+    @Override
+    public void close() throws IOException {
+	try {
+	    reader.close();
+	} finally {
+	    clear(bytes);
+	}
+    }
+
+    @Override
+    public int progress(final int maximum) {
+	return bytes.length == 0 ? maximum : (int) ((bytes.length - input.available()) * (long) maximum / bytes.length);
+    }
+
+    @Override
+    public String[] read() throws IOException {
+	try {
+	    final var record = reader.read();
+	    if (Objects.isNull(record)) {
+		return null;
+	    }
+	    final var fields = record.getFields();
+	    record.clear();
+	    return fields;
+	} catch (final CSVParseException e) {
+	    throw new IllegalArgumentException(e);
+	}
+    }
+}
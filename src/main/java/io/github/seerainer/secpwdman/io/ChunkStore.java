@@ -0,0 +1,153 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static io.github.seerainer.secpwdman.util.Util.clear;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+
+import javax.crypto.Mac;
+
+import io.github.seerainer.secpwdman.crypto.CryptoConstants;
+import io.github.seerainer.secpwdman.crypto.VaultCrypto;
+
+/**
+ * The class ChunkStore.
+ *
+ * Content-addressed chunks below a store directory. A chunk is stored once
+ * under the keyed hash of its content and sealed under a key derived from that
+ * hash and the store secret, with the hash as additional authenticated data.
+ * Chunks with the same content are therefore written only once, and a chunk
+ * cannot be moved to another hash unnoticed.
+ */
+class ChunkStore implements CryptoConstants {
+
+    private static final String CHUNKS = "chunks";
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private ChunkStore() {
+    }
+
+    /**
+     * Creates the keyed hash for the chunks of a store.
+     *
+     * @param secret the store secret
+     * @return the hash
+     */
+    static Mac hash(final byte[] secret) {
+	final var key = VaultCrypto.subKey(secret, subChunk);
+	final var mac = VaultCrypto.mac(key);
+	clear(key);
+	return mac;
+    }
+
+    /**
+     * Gets the name of a chunk.
+     *
+     * @param hash the hash of the chunk
+     * @return the name
+     */
+    static String name(final byte[] hash) {
+	return HEX.formatHex(hash);
+    }
+
+    private static Path path(final Path dir, final byte[] hash) {
+	final var name = name(hash);
+	return dir.resolve(CHUNKS).resolve(name.substring(0, 2)).resolve(name);
+    }
+
+    /**
+     * Reads a chunk.
+     *
+     * @param dir    the store directory
+     * @param secret the store secret
+     * @param hash   the hash of the chunk
+     * @return the chunk
+     * @throws IOException              if the chunk is missing
+     * @throws GeneralSecurityException if the chunk was tampered with
+     */
+    static byte[] read(final Path dir, final byte[] secret, final byte[] hash)
+	    throws IOException, GeneralSecurityException {
+	final var key = VaultCrypto.hash(secret, hash);
+	try {
+	    return VaultCrypto.open(key, Files.readAllBytes(path(dir, hash)), hash);
+	} finally {
+	    clear(key);
+	}
+    }
+
+    /**
+     * Removes the chunks that are not used any more.
+     *
+     * @param dir  the store directory
+     * @param used the names of the used chunks
+     * @return the number of removed chunks
+     * @throws IOException if a chunk cannot be removed
+     */
+    static int sweep(final Path dir, final Set<String> used) throws IOException {
+	final var chunks = dir.resolve(CHUNKS);
+	if (!Files.isDirectory(chunks)) {
+	    return 0;
+	}
+	final List<Path> unused;
+	try (final var stream = Files.walk(chunks, 2)) {
+	    unused = stream.filter(Files::isRegularFile)
+		    .filter(path -> !used.contains(path.getFileName().toString())).toList();
+	}
+	for (final var path : unused) {
+	    Files.delete(path);
+	}
+	return unused.size();
+    }
+
+    /**
+     * Writes a chunk unless the store has it already.
+     *
+     * @param dir    the store directory
+     * @param secret the store secret
+     * @param hash   the hash of the chunk
+     * @param chunk  the chunk
+     * @return true if the chunk was new
+     * @throws IOException              if the chunk cannot be written
+     * @throws GeneralSecurityException if the chunk cannot be sealed
+     */
+    static boolean write(final Path dir, final byte[] secret, final byte[] hash, final byte[] chunk)
+	    throws IOException, GeneralSecurityException {
+	final var path = path(dir, hash);
+	if (Files.exists(path)) {
+	    return false;
+	}
+	final var key = VaultCrypto.hash(secret, hash);
+	try {
+	    Files.createDirectories(path.getParent());
+	    IO.save(path.toString(), VaultCrypto.seal(key, chunk, hash));
+	} finally {
+	    clear(key);
+	}
+	return true;
+    }
+}
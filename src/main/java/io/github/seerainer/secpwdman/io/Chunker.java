@@ -0,0 +1,84 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import java.util.SplittableRandom;
+
+import io.github.seerainer.secpwdman.config.PrimitiveConstants;
+
+/**
+ * The class Chunker.
+ *
+ * Content-defined chunking with a gear rolling hash. A chunk ends where the
+ * hash of the last bytes matches a mask, so an insert only moves the
+ * boundaries next to it and all other chunks stay the same. Below the average
+ * size a stricter mask is used and above it a looser one, which keeps the
+ * chunk sizes close to the average.
+ */
+class Chunker implements PrimitiveConstants {
+
+    private static final long[] GEAR = new long[256];
+
+    private static final long MASK_STRICT = (1L << CHUNK_BITS + 2) - 1 << 64 - CHUNK_BITS - 2;
+
+    private static final long MASK_LOOSE = (1L << CHUNK_BITS - 2) - 1 << 64 - CHUNK_BITS + 2;
+
+    static {
+	final var random = new SplittableRandom(CHUNK_SEED);
+	for (var i = 0; i < GEAR.length; i++) {
+	    GEAR[i] = random.nextLong();
+	}
+    }
+
+    private Chunker() {
+    }
+
+    /**
+     * Finds the end of the chunk that starts at an offset.
+     *
+     * @param data  the data
+     * @param start the start of the chunk
+     * @param end   the end of the data
+     * @return the end of the chunk, exclusive
+     */
+    static int next(final byte[] data, final int start, final int end) {
+	final var length = end - start;
+	if (length <= CHUNK_MIN) {
+	    return end;
+	}
+	final var average = start + Math.min(length, CHUNK_AVERAGE);
+	final var limit = start + Math.min(length, CHUNK_MAX);
+	var hash = 0L;
+	var i = start + CHUNK_MIN;
+	for (; i < average; i++) {
+	    hash = (hash << 1) + GEAR[data[i] & 0xFF];
+	    if ((hash & MASK_STRICT) == 0) {
+		return i + 1;
+	    }
+	}
+	for (; i < limit; i++) {
+	    hash = (hash << 1) + GEAR[data[i] & 0xFF];
+	    if ((hash & MASK_LOOSE) == 0) {
+		return i + 1;
+	    }
+	}
+	return limit;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.github.seerainer.secpwdman.config.PrimitiveConstants;
+import io.github.seerainer.secpwdman.config.StringConstants;
+
+/**
+ * The class DeflateDictionary.
+ *
+ * Preset dictionaries for the deflate compression of the vault data. The
+ * content of a released preset version must never change, otherwise existing
+ * files can no longer be inflated. Add a new version instead.
+ */
+class DeflateDictionary implements PrimitiveConstants, StringConstants {
+
+    //@formatter:off
+    private static final String[] PRESET_V1 = {
+	    // common free text
+	    "password", "Password", "account", "Account", "login", "Login", "admin", "email", "Email", "mail",
+	    "bank", "Bank", "shop", "Shop", "work", "Work", "private", "Private", "social", "Social",
+	    "games", "Games", "server", "Server", "wifi", "WiFi", "notes", "user", "recovery code", "PIN",
+	    // hosts and mail domains
+	    ".com", ".org", ".net", ".de", ".at", ".ch", ".io", ".co.uk", "@gmail.com", "@outlook.com",
+	    "@yahoo.com", "@icloud.com", "@gmx.de", "@web.de", "http://", "https://", "https://www.",
+	    "/login", "/signin", "/account", "accounts.", "login.",
+	    // PKCS12 structure shared by every encrypted password
+	    "MIIBhQIBAzCCAS8GCSqGSIb3DQEHAaCCASAEggEcMIIBGDCCARQGCSqGSIb3DQEHAaCCAQUEggEBMIH+MIH7BgsqhkiG9w0BDAoBBaCB",
+	    "ozCBoAYLKoZIhvcNAQwKAQKggZAEgY0wgYowZgYJKoZIhvcNAQUNMFkwOAYJKoZIhvcNAQUMMCsEF",
+	    "AgInEAIBIDAMBggqhkiG9w0CCQUAMB0GCWCGSAFlAwQBKgQQ",
+	    "MxRjAhBgkqhkiG9w0BCRQxFB4SAHMAZQBjAHAAdwBkAG0AYQBuMCEGCSqGSIb3DQEJFTEUBBJUaW1lIDE3",
+	    "MTAxMA0GCWCGSAFlAwQCAQUABCA", "wQU", "AgInEA", "CAicQ",
+	    // vault header, placed last because it is the first thing to match
+	    "uuid,group,title,url,user,password,notes\n" };
+    //@formatter:on
+
+    private static final byte[] PRESET = join(PRESET_V1);
+
+    private DeflateDictionary() {
+    }
+
+    private static boolean isSeparator(final byte b) {
+	return switch (b) {
+	case ',', ';', '\t', '\n', '\r', '"', ' ', '/', '?', '&', '=' -> true;
+	default -> false;
+	};
+    }
+
+    private static byte[] join(final String[] parts) {
+	return String.join(empty, parts).getBytes(ISO_8859_1);
+    }
+
+    /**
+     * Gets the preset dictionary for the given version.
+     *
+     * @param version the compression version from the file header
+     * @return the dictionary
+     * @throws IllegalArgumentException if the version is unknown
+     */
+    static byte[] preset(final int version) {
+	return switch (version) {
+	case COMPRESS_PRESET, COMPRESS_TRAINED -> PRESET.clone();
+	default -> throw new IllegalArgumentException(unknownDict + version);
+	};
+    }
+
+    /**
+     * Trains a dictionary from the vault's own content. Tokens between separators
+     * that occur more than once are scored by the bytes they would save and the
+     * best ones are kept, the most valuable at the end of the dictionary where
+     * deflate finds them with the shortest distance.
+     *
+     * @param data the uncompressed vault data
+     * @return the trained dictionary, at most {@link #DICT_TRAINED_SIZE} bytes
+     */
+    static byte[] train(final byte[] data) {
+	final var counts = new HashMap<String, int[]>();
+	var start = 0;
+	for (var i = 0; i <= data.length; i++) {
+	    if (i < data.length && !isSeparator(data[i])) {
+		continue;
+	    }
+	    final var length = i - start;
+	    if (length >= DICT_MIN_TOKEN && length <= DICT_MAX_TOKEN) {
+		counts.computeIfAbsent(new String(data, start, length, ISO_8859_1), _ -> new int[1])[0]++;
+	    }
+	    start = i + 1;
+	}
+	final var tokens = new ArrayList<Map.Entry<String, int[]>>();
+	for (final var entry : counts.entrySet()) {
+	    if (entry.getValue()[0] > 1) {
+		tokens.add(entry);
+	    }
+	}
+	tokens.sort((a, b) -> Long.compare(score(b), score(a)));
+	final var selected = new ArrayList<String>();
+	var size = 0;
+	for (final var entry : tokens) {
+	    final var length = entry.getKey().length() + 1;
+	    if (size + length > DICT_TRAINED_SIZE) {
+		continue;
+	    }
+	    selected.addFirst(entry.getKey() + ',');
+	    size += length;
+	}
+	return join(selected.toArray(String[]::new));
+    }
+
+    private static long score(final Map.Entry<String, int[]> entry) {
+	return (long) entry.getKey().length() * (entry.getValue()[0] - 1);
+    }
+}
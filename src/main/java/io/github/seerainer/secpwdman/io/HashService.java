@@ -0,0 +1,120 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+
+import io.github.seerainer.secpwdman.config.StringConstants;
+import io.github.seerainer.secpwdman.util.LogFactory;
+
+/**
+ * The class HashService.
+ *
+ * Keeps a keyed hash per entry of the open vault file in a {@link MerkleTree}.
+ * The tree is built from the saved state once it is first needed and checked
+ * against the root in the file header. The hashes tell which entries a save
+ * changed.
+ */
+class HashService implements StringConstants {
+
+    private static final Logger LOG = LogFactory.getLog();
+
+    private final VaultSession session;
+
+    private byte[] expectedRoot;
+    private MerkleTree tree;
+
+    HashService(final VaultSession session) {
+	this.session = session;
+    }
+
+    /**
+     * Logs a warning if the root of the tree is not the expected one.
+     *
+     * @param tree the tree
+     * @param root the root in the file header, may be null or empty
+     */
+    static void verify(final MerkleTree tree, final byte[] root) {
+	if (nonNull(root) && root.length > 0 && !MessageDigest.isEqual(root, tree.root())) {
+	    LOG.warn(MERKLE_MISMATCH);
+	}
+    }
+
+    /**
+     * Selects the lines that differ from the saved state.
+     *
+     * @param lines the lines by UUID, null for deleted entries
+     * @return the changed lines by UUID
+     * @throws GeneralSecurityException if the saved state cannot be opened
+     */
+    LinkedHashMap<String, byte[]> changes(final Map<String, byte[]> lines) throws GeneralSecurityException {
+	final var hashes = get();
+	final var changes = new LinkedHashMap<String, byte[]>();
+	lines.forEach((uuid, line) -> {
+	    if (isNull(line) ? hashes.contains(uuid) : !hashes.contains(uuid, line)) {
+		changes.put(uuid, line);
+	    }
+	});
+	return changes;
+    }
+
+    void clear() {
+	expectedRoot = null;
+	tree = null;
+    }
+
+    /**
+     * Sets the root the tree is checked against once it is built.
+     *
+     * @param root the root in the file header
+     */
+    void expect(final byte[] root) {
+	expectedRoot = root;
+    }
+
+    /**
+     * Gets the entry hashes of the saved state, built on first use.
+     *
+     * @return the tree
+     * @throws GeneralSecurityException if the saved state cannot be opened
+     */
+    MerkleTree get() throws GeneralSecurityException {
+	if (isNull(tree)) {
+	    final var rows = session.getBase().get(session.getDivider());
+	    tree = new MerkleTree(session.getKey(), rows.rows());
+	    rows.clear();
+	    verify(tree, expectedRoot);
+	    expectedRoot = null;
+	}
+	return tree;
+    }
+
+    void set(final MerkleTree entries) {
+	tree = entries;
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+
+import org.slf4j.Logger;
+
+import io.github.seerainer.secpwdman.config.PrimitiveConstants;
+import io.github.seerainer.secpwdman.config.StringConstants;
+import io.github.seerainer.secpwdman.crypto.CryptoConstants;
+import io.github.seerainer.secpwdman.crypto.VaultCrypto;
+import io.github.seerainer.secpwdman.csv.CSVConfiguration;
+import io.github.seerainer.secpwdman.csv.CSVParseException;
+import io.github.seerainer.secpwdman.csv.CSVParser;
+import io.github.seerainer.secpwdman.csv.CSVParsingOptions;
+import io.github.seerainer.secpwdman.util.LogFactory;
+
+/**
+ * The class History.
+ *
+ * The older versions of the entries next to the vault. A save that changes an
+ * entry adds a revision with the fields the entry had before. Revisions are
+ * reverse deltas: only the fields that differ from the next newer version are
+ * kept, and every {@link PrimitiveConstants#HISTORY_KEYFRAME}th revision of an
+ * entry is a keyframe with all fields. An old version is rebuilt from the
+ * saved entry or the nearest newer keyframe, and removing the oldest revisions
+ * never touches the newer ones. The history is deflated and sealed under the
+ * history subkey and replaced as a whole on every write.
+ */
+public class History implements CryptoConstants, PrimitiveConstants, StringConstants {
+
+    /**
+     * An older version of an entry.
+     *
+     * @param time   the time the version was replaced
+     * @param fields the fields of the version
+     */
+    public record Version(long time, String[] fields) {
+
+	/**
+	 * Gets the fields of the version in the order of the default header, as the
+	 * columns of the file may be in another order.
+	 *
+	 * @param columnMap the column of every field of the default header
+	 * @return the fields, empty for a column the version does not have
+	 */
+	public String[] fields(final Map<String, Integer> columnMap) {
+	    final var mapped = new String[csvHeader.length];
+	    for (var i = 0; i < mapped.length; i++) {
+		final var column = columnMap.get(csvHeader[i]);
+		mapped[i] = nonNull(column) && column.intValue() < fields.length && nonNull(fields[column.intValue()])
+			? fields[column.intValue()]
+			: empty;
+	    }
+	    return mapped;
+	}
+    }
+
+    private record Revision(long time, boolean keyframe, String[] fields) {
+    }
+
+    private static final Logger LOG = LogFactory.getLog();
+
+    private static final byte[] MAGIC = { 'S', 'P', 'M', 'H' };
+
+    private static final int HEADER_LENGTH = MAGIC.length + 1;
+
+    private final Map<String, ArrayDeque<Revision>> entries;
+
+    private History(final Map<String, ArrayDeque<Revision>> entries) {
+	this.entries = entries;
+    }
+
+    private static History decode(final byte[] data) throws IOException {
+	final var in = new DataInputStream(new ByteArrayInputStream(data));
+	final var count = in.readInt();
+	final Map<String, ArrayDeque<Revision>> entries = LinkedHashMap.newLinkedHashMap(count);
+	for (var i = 0; i < count; i++) {
+	    final var uuid = in.readUTF();
+	    final var size = in.readUnsignedShort();
+	    final var revisions = new ArrayDeque<Revision>(size);
+	    for (var j = 0; j < size; j++) {
+		final var time = in.readLong();
+		final var keyframe = in.readBoolean();
+		final var fields = new String[in.readUnsignedByte()];
+		final var mask = in.readInt();
+		for (var k = 0; k < fields.length; k++) {
+		    if ((mask & 1 << k) != 0) {
+			fields[k] = in.readUTF();
+		    }
+		}
+		revisions.addLast(new Revision(time, keyframe, fields));
+	    }
+	    entries.put(uuid, revisions);
+	}
+	return new History(entries);
+    }
+
+    /**
+     * Gets the path of the history for a vault file.
+     *
+     * @param file the vault file
+     * @return the history path
+     */
+    static Path getPath(final String file) {
+	return IOUtil.getPath(file + historyExt);
+    }
+
+    private static byte[] header() {
+	return ByteBuffer.allocate(HEADER_LENGTH).put(MAGIC).put((byte) HISTORY_VERSION).array();
+    }
+
+    /**
+     * Reads the history. A missing history is empty, and so is a history that
+     * cannot be opened, which is then replaced on the next write.
+     *
+     * @param path the history path
+     * @param key  the history subkey
+     * @return the history
+     * @throws IOException if the history cannot be read
+     */
+    static History read(final Path path, final byte[] key) throws IOException {
+	if (Files.isRegularFile(path)) {
+	    final var bytes = Files.readAllBytes(path);
+	    final var header = header();
+	    if (bytes.length > HEADER_LENGTH && Arrays.equals(bytes, 0, HEADER_LENGTH, header, 0, HEADER_LENGTH)) {
+		try {
+		    final var plain = VaultCrypto.open(key, Arrays.copyOfRange(bytes, HEADER_LENGTH, bytes.length),
+			    header);
+		    return decode(IOUtil.inflate(plain, DeflateDictionary.preset(COMPRESS_PRESET)));
+		} catch (final GeneralSecurityException | DataFormatException e) {
+		    LOG.warn(WARN, e);
+		}
+	    }
+	}
+	return new History(new LinkedHashMap<>());
+    }
+
+    private void add(final String uuid, final String[] older, final String[] newer, final long time) {
+	final var revisions = entries.computeIfAbsent(uuid, _ -> new ArrayDeque<>());
+	var keyframe = true;
+	final var it = revisions.descendingIterator();
+	for (var i = 1; i < HISTORY_KEYFRAME && it.hasNext(); i++) {
+	    if (it.next().keyframe()) {
+		keyframe = false;
+		break;
+	    }
+	}
+	final var fields = new String[older.length];
+	for (var i = 0; i < fields.length; i++) {
+	    if (keyframe || i >= newer.length || !older[i].equals(newer[i])) {
+		fields[i] = older[i];
+	    }
+	}
+	revisions.addLast(new Revision(time, keyframe, fields));
+	while (revisions.size() > HISTORY_KEEP) {
+	    revisions.removeFirst();
+	}
+    }
+
+    private byte[] encode() throws IOException {
+	final var out = new ByteArrayOutputStream(entries.size() * BUFFER_MIN);
+	final var data = new DataOutputStream(out);
+	data.writeInt(entries.size());
+	for (final var entry : entries.entrySet()) {
+	    data.writeUTF(entry.getKey());
+	    data.writeShort(entry.getValue().size());
+	    for (final var revision : entry.getValue()) {
+		final var fields = revision.fields();
+		var mask = 0;
+		for (var i = 0; i < fields.length; i++) {
+		    if (nonNull(fields[i])) {
+			mask |= 1 << i;
+		    }
+		}
+		data.writeLong(revision.time());
+		data.writeBoolean(revision.keyframe());
+		data.writeByte(fields.length);
+		data.writeInt(mask);
+		for (final var field : fields) {
+		    if (nonNull(field)) {
+			data.writeUTF(field);
+		    }
+		}
+	    }
+	}
+	return out.toByteArray();
+    }
+
+    /**
+     * Adds a revision for every entry a save changed and drops the revisions of
+     * deleted entries. New entries have no older version.
+     *
+     * @param base    the saved lines by UUID before the save
+     * @param changes the changed lines by UUID, null for deleted entries
+     * @param divider the CSV divider
+     * @return true if the history changed
+     * @throws CSVParseException if a line is invalid
+     */
+    boolean update(final Map<String, byte[]> base, final Map<String, byte[]> changes, final char divider)
+	    throws CSVParseException {
+	return update(base, changes, divider, System.currentTimeMillis());
+    }
+
+    /**
+     * Adds a revision for every entry a save changed, as {@link #update(Map, Map,
+     * char)} does, for a save made at another time.
+     *
+     * @param base    the saved lines by UUID before the save
+     * @param changes the changed lines by UUID, null for deleted entries
+     * @param divider the CSV divider
+     * @param time    the time of the save
+     * @return true if the history changed
+     * @throws CSVParseException if a line is invalid
+     */
+    boolean update(final Map<String, byte[]> base, final Map<String, byte[]> changes, final char divider,
+	    final long time) throws CSVParseException {
+	final var config = CSVConfiguration.builder().delimiter(divider).build();
+	final var parser = new CSVParser(config, CSVParsingOptions.builder().build());
+	var modified = false;
+	for (final var change : changes.entrySet()) {
+	    final var uuid = change.getKey();
+	    final var older = base.get(uuid);
+	    if (isNull(change.getValue())) {
+		modified |= nonNull(entries.remove(uuid));
+	    } else if (nonNull(older)) {
+		add(uuid, VaultMerge.fields(parser, older), VaultMerge.fields(parser, change.getValue()), time);
+		modified = true;
+	    }
+	}
+	return modified;
+    }
+
+    /**
+     * Gets the older versions of an entry, the newest first.
+     *
+     * @param uuid    the UUID of the entry
+     * @param current the fields of the saved entry
+     * @return the versions
+     */
+    List<Version> versions(final String uuid, final String[] current) {
+	final var revisions = entries.get(uuid);
+	if (isNull(revisions)) {
+	    return List.of();
+	}
+	final var versions = new ArrayList<Version>(revisions.size());
+	var state = current;
+	final var it = revisions.descendingIterator();
+	while (it.hasNext()) {
+	    final var revision = it.next();
+	    final var fields = revision.fields();
+	    if (revision.keyframe()) {
+		state = fields.clone();
+	    } else {
+		state = Arrays.copyOf(state, Math.max(state.length, fields.length));
+		for (var i = 0; i < fields.length; i++) {
+		    if (nonNull(fields[i])) {
+			state[i] = fields[i];
+		    }
+		}
+	    }
+	    versions.add(new Version(revision.time(), state));
+	}
+	return versions;
+    }
+
+    /**
+     * Replaces the history.
+     *
+     * @param path the history path
+     * @param key  the history subkey
+     * @throws IOException              if the history cannot be written
+     * @throws GeneralSecurityException if the history cannot be sealed
+     */
+    void write(final Path path, final byte[] key) throws IOException, GeneralSecurityException {
+	final var header = header();
+	final var sealed = VaultCrypto.seal(key, IOUtil.deflate(encode(), DeflateDictionary.preset(COMPRESS_PRESET)),
+		header);
+	final var bytes = ByteBuffer.allocate(HEADER_LENGTH + sealed.length).put(header).put(sealed).array();
+	IO.save(path.toString(), bytes);
+	LOG.info(HISTORY_WRITTEN, Integer.valueOf(entries.size()));
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static io.github.seerainer.secpwdman.util.Util.clear;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+
+import io.github.seerainer.secpwdman.config.StringConstants;
+import io.github.seerainer.secpwdman.crypto.CryptoConstants;
+import io.github.seerainer.secpwdman.csv.CSVConfiguration;
+import io.github.seerainer.secpwdman.csv.CSVParseException;
+import io.github.seerainer.secpwdman.csv.CSVParser;
+import io.github.seerainer.secpwdman.csv.CSVParsingOptions;
+import io.github.seerainer.secpwdman.util.LogFactory;
+
+/**
+ * The class HistoryService.
+ *
+ * Keeps the older versions of the entries of the open vault file in its
+ * {@link History}. A version is recorded when a save changes or deletes a
+ * saved entry, the changes of an append once they are folded into the saved
+ * state.
+ */
+public class HistoryService implements CryptoConstants, StringConstants {
+
+    /**
+     * The changes of a save.
+     *
+     * @param time    the time of the save
+     * @param changes the changed lines by UUID, null for deleted entries
+     */
+    record Save(long time, Map<String, byte[]> changes) {
+    }
+
+    private static final Logger LOG = LogFactory.getLog();
+
+    private final VaultSession session;
+
+    HistoryService(final VaultSession session) {
+	this.session = session;
+    }
+
+    /**
+     * Records the versions of the saved entries the changes replace.
+     *
+     * @param changes the changed lines by UUID, null for deleted entries
+     */
+    void record(final Map<String, byte[]> changes) {
+	final var secret = session.subKey(subHistory);
+	VaultRows baseRows = null;
+	try {
+	    baseRows = session.getBase().get(session.getDivider());
+	    if (isNull(baseRows) || changes.keySet().stream().noneMatch(baseRows.rows()::containsKey)) {
+		return;
+	    }
+	    final var path = History.getPath(session.getFile());
+	    final var history = History.read(path, secret);
+	    if (history.update(baseRows.rows(), changes, session.getDivider())) {
+		history.write(path, secret);
+	    }
+	} catch (final IOException | GeneralSecurityException | CSVParseException e) {
+	    LOG.warn(WARN, e);
+	} finally {
+	    if (nonNull(baseRows)) {
+		baseRows.clear();
+	    }
+	    clear(secret);
+	}
+    }
+
+    /**
+     * Records the versions the saves replace and applies each save to the lines
+     * of the saved state, in order.
+     *
+     * @param rows  the lines of the saved state
+     * @param saves the saves
+     */
+    void record(final VaultRows rows, final List<Save> saves) {
+	final var secret = session.subKey(subHistory);
+	final var path = History.getPath(session.getFile());
+	try {
+	    History history = null;
+	    try {
+		history = History.read(path, secret);
+	    } catch (final IOException e) {
+		LOG.warn(WARN, e);
+	    }
+	    var modified = false;
+	    for (final var save : saves) {
+		if (nonNull(history)) {
+		    try {
+			modified |= history.update(rows.rows(), save.changes(), session.getDivider(), save.time());
+		    } catch (final CSVParseException e) {
+			LOG.warn(WARN, e);
+		    }
+		}
+		rows.apply(save.changes());
+	    }
+	    if (modified) {
+		try {
+		    history.write(path, secret);
+		} catch (final IOException | GeneralSecurityException e) {
+		    LOG.warn(WARN, e);
+		}
+	    }
+	} finally {
+	    clear(secret);
+	}
+    }
+
+    /**
+     * Gets the older versions of a saved entry, the newest first.
+     *
+     * @param filePath the vault file
+     * @param uuid     the UUID of the entry
+     * @return the versions, empty if the session does not belong to the file
+     * @throws IOException              if the history cannot be read
+     * @throws GeneralSecurityException if the saved state cannot be opened
+     * @throws CSVParseException        if the saved entry is invalid
+     */
+    public List<History.Version> versions(final String filePath, final String uuid)
+	    throws IOException, GeneralSecurityException, CSVParseException {
+	final var lock = session.getLock();
+	lock.lock();
+	try {
+	    if (!session.isOpen(filePath)) {
+		return List.of();
+	    }
+	    final var divider = session.getDivider();
+	    final var baseRows = session.getBase().get(divider);
+	    if (isNull(baseRows)) {
+		return List.of();
+	    }
+	    final var line = baseRows.rows().get(uuid);
+	    if (isNull(line)) {
+		baseRows.clear();
+		return List.of();
+	    }
+	    final var config = CSVConfiguration.builder().delimiter(divider).build();
+	    final var current = VaultMerge.fields(new CSVParser(config, CSVParsingOptions.builder().build()), line);
+	    baseRows.clear();
+	    final var secret = session.subKey(subHistory);
+	    try {
+		return History.read(History.getPath(filePath), secret).versions(uuid, current);
+	    } finally {
+		clear(secret);
+	    }
+	} finally {
+	    lock.unlock();
+	}
+    }
+}
@@ -25,20 +25,40 @@ import static io.github.seerainer.secpwdman.ui.Widgets.msg;
 import static io.github.seerainer.secpwdman.util.RandomPassword.generateKeyStorePassword;
 import static io.github.seerainer.secpwdman.util.Util.clear;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.zip.DataFormatException;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
 
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
 import org.slf4j.Logger;
 
 import com.grack.nanojson.JsonParserException;
@@ -47,13 +67,59 @@ import io.github.seerainer.secpwdman.action.Action;
 import io.github.seerainer.secpwdman.config.ConfigData;
 import io.github.seerainer.secpwdman.config.PrimitiveConstants;
 import io.github.seerainer.secpwdman.config.StringConstants;
+import io.github.seerainer.secpwdman.csv.CSVParseException;
+import io.github.seerainer.secpwdman.csv.CSVSniffer;
+import io.github.seerainer.secpwdman.ui.DialogFactory;
+import io.github.seerainer.secpwdman.ui.ProgressDialog;
+import io.github.seerainer.secpwdman.util.FileWatcher;
 import io.github.seerainer.secpwdman.util.LogFactory;
+import io.github.seerainer.secpwdman.util.Util;
 
 /**
  * The class IO.
  */
 public class IO implements PrimitiveConstants, StringConstants {
 
+    /**
+     * The content of a file, written to a stream.
+     */
+    @FunctionalInterface
+    interface Content {
+
+	/**
+	 * Writes the content. The stream is closed by the caller.
+	 *
+	 * @param out the stream
+	 * @throws IOException if the content cannot be written
+	 */
+	void write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Takes the key a vault file is encrypted with, to seal other keys of the file
+     * under it.
+     */
+    @FunctionalInterface
+    interface FileKey {
+
+	/**
+	 * Takes the key. It is cleared by the caller afterwards.
+	 *
+	 * @param key the key
+	 * @throws GeneralSecurityException if a key cannot be sealed
+	 */
+	void accept(byte[] key) throws GeneralSecurityException;
+    }
+
+    /**
+     * The decrypted content of a vault file.
+     *
+     * @param data     the vault data, or null in the segmented layout
+     * @param segments the segments of a file in the segmented layout, or null
+     */
+    record Unsealed(byte[] data, VaultSegments segments) {
+    }
+
     private static final Logger LOG = LogFactory.getLog();
 
     private final Action action;
@@ -67,17 +133,229 @@ public class IO implements PrimitiveConstants, StringConstants {
 	this.action = action;
     }
 
+    static FileChannel channel(final String filePath) throws IOException {
+	return FileChannel.open(path(filePath), StandardOpenOption.READ);
+    }
+
     static InputStream open(final String filePath) throws IOException {
+	return Files.newInputStream(path(filePath));
+    }
+
+    private static Path path(final String filePath) throws IOException {
 	final var path = IOUtil.getPath(filePath);
 	if (Files.size(path) >= MAX_FILE_SIZE) {
 	    LOG.warn(WARN, FILE_TOO_LARGE);
 	    throw new IOException(errorFil.formatted(IOUtil.getFilePath(filePath)));
 	}
-	return Files.newInputStream(path);
+	return path;
     }
 
+    /**
+     * Writes the file durably. The bytes go to a temporary file in the same
+     * directory, which is flushed to the disk and then moved over the file, so
+     * the file holds either the old or the new content at any time.
+     *
+     * @param filePath  the file
+     * @param fileBytes the content
+     * @throws IOException if the file cannot be written
+     */
     static void save(final String filePath, final byte[] fileBytes) throws IOException {
-	Files.write(IOUtil.getPath(filePath), fileBytes);
+	save(filePath, out -> out.write(fileBytes));
+    }
+
+    /**
+     * Writes the file durably from a stream of content. If the content fails,
+     * the file is left as it is.
+     *
+     * @param filePath the file
+     * @param content  the content
+     * @throws IOException if the file cannot be written
+     */
+    static void save(final String filePath, final Content content) throws IOException {
+	final var path = IOUtil.getPath(filePath).toAbsolutePath();
+	final var dir = path.getParent();
+	final var temp = Files.createTempFile(dir, path.getFileName().toString(), tempExt);
+	try {
+	    try (final var channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+		content.write(Channels.newOutputStream(channel));
+		channel.force(true);
+	    }
+	    try {
+		Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+	    } catch (final AtomicMoveNotSupportedException e) {
+		LOG.warn(WARN, e);
+		Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+	    }
+	    syncDirectory(dir);
+	} finally {
+	    Files.deleteIfExists(temp);
+	}
+    }
+
+    /**
+     * Compresses and encrypts the vault data and wraps it in the file header.
+     *
+     * The key the data is encrypted with is handed over before the header is
+     * written, so values sealed under it can go into the header. In the segmented
+     * layout the encrypted data is the index of the {@link VaultSegments}, and
+     * every group is sealed as a segment of its own beside it.
+     *
+     * @param cData    the config data
+     * @param data     the vault data, cleared afterwards
+     * @param password the master password
+     * @param fileKey  takes the key of the file, or null
+     * @return the content of the vault file
+     * @throws IOException              if the vault data cannot be split
+     * @throws GeneralSecurityException if the data cannot be encrypted
+     */
+    static byte[] seal(final ConfigData cData, final byte[] data, final byte[] password, final FileKey fileKey)
+	    throws IOException, GeneralSecurityException {
+	// only the default header tells where the group column is
+	final var split = cData.isSegmented() && VaultSegments.hasDefaultHeader(data, cData.getDivider())
+		? VaultSegments.split(data, cData.getDivider(), 1, cData.isCompress())
+		: null;
+	final var key = new byte[1][];
+	try {
+	    final var compressed = IOUtil.compress(Objects.isNull(split) ? data : split.index(), cData);
+	    final var encrypted = crypto(cData.getCryptoConfig()).encrypt(compressed, password, k -> key[0] = k);
+	    clear(compressed);
+	    final var segments = Objects.isNull(split) ? null : VaultSegments.seal(key[0], split);
+	    if (Objects.nonNull(fileKey)) {
+		fileKey.accept(key[0]);
+	    }
+	    return JsonUtil.getJsonFile(cData, encrypted, segments);
+	} finally {
+	    clear(key[0]);
+	    if (Objects.nonNull(split)) {
+		split.clear();
+		clear(data);
+	    }
+	}
+    }
+
+    /**
+     * Unwraps the file header, decrypts and decompresses the vault data. The
+     * segments of a file in the segmented layout are opened and joined.
+     *
+     * @param cData     the config data, receives the values of the file header
+     * @param fileBytes the content of the vault file
+     * @param password  the master password
+     * @param fileKey   takes the key of the file once the data is decrypted, and
+     *                  has to clear it
+     * @return the vault data
+     * @throws GeneralSecurityException if the data cannot be decrypted
+     * @throws DataFormatException      if the data cannot be decompressed
+     * @throws JsonParserException      if the file header is invalid
+     */
+    static byte[] unseal(final ConfigData cData, final byte[] fileBytes, final byte[] password,
+	    final Consumer<byte[]> fileKey) throws GeneralSecurityException, DataFormatException, JsonParserException {
+	final var unsealed = unsealFile(cData, fileBytes, password, fileKey);
+	final var segments = unsealed.segments();
+	if (Objects.isNull(segments)) {
+	    return unsealed.data();
+	}
+	try {
+	    return segments.open(null);
+	} catch (final IOException e) {
+	    throw new DataFormatException(e.getMessage());
+	} finally {
+	    segments.clear();
+	}
+    }
+
+    /**
+     * Unwraps the file header, decrypts and decompresses the vault data. Of a file
+     * in the segmented layout only the index is decrypted, the segments stay
+     * sealed until they are opened.
+     *
+     * @param cData     the config data, receives the values of the file header
+     * @param fileBytes the content of the vault file
+     * @param password  the master password
+     * @param fileKey   takes the key of the file once the data is decrypted, and
+     *                  has to clear it
+     * @return the vault data or the segments
+     * @throws GeneralSecurityException if the data cannot be decrypted
+     * @throws DataFormatException      if the data cannot be decompressed
+     * @throws JsonParserException      if the file header is invalid
+     */
+    static Unsealed unsealFile(final ConfigData cData, final byte[] fileBytes, final byte[] password,
+	    final Consumer<byte[]> fileKey) throws GeneralSecurityException, DataFormatException, JsonParserException {
+	final var file = JsonUtil.setJsonFile(cData, new ByteArrayInputStream(fileBytes));
+	final var crypto = crypto(cData.getCryptoConfig());
+	if (Objects.isNull(file.segments())) {
+	    return new Unsealed(IOUtil.decompress(crypto.decrypt(file.data(), password, fileKey), cData), null);
+	}
+	final var key = new byte[1][];
+	try {
+	    final var index = IOUtil.decompress(crypto.decrypt(file.data(), password, k -> key[0] = k), cData);
+	    return new Unsealed(null, VaultSegments.load(key[0], index, file.segments()));
+	} catch (final IOException e) {
+	    throw new DataFormatException(e.getMessage());
+	} finally {
+	    fileKey.accept(key[0]);
+	}
+    }
+
+    /**
+     * Copies the config data a save reads, so the save can write the values of
+     * the file header into the copy on another thread.
+     *
+     * @param cData the config data
+     * @return the copy
+     */
+    static ConfigData copyHeader(final ConfigData cData) {
+	final var header = fileHeader(cData);
+	header.setFileHeader(cData);
+	return header;
+    }
+
+    private static ConfigData fileHeader(final ConfigData cData) {
+	// a fresh copy gets the header values only from a replaced vault file
+	final var header = new ConfigData();
+	header.setBackup(cData.isBackup());
+	header.setCompress(cData.isCompress());
+	header.setDivider(cData.getDivider());
+	header.setSegmented(cData.isSegmented());
+	header.setTrainDictionary(cData.isTrainDictionary());
+	return header;
+    }
+
+    private void importRows(final Display display, final Semaphore pending, final Shell dialog,
+	    final List<String[]> rows, final AtomicBoolean cancelled, final int progress) throws InterruptedException {
+	if (rows.isEmpty()) {
+	    return;
+	}
+	post(display, pending, () -> {
+	    if (cancelled.get()) {
+		return;
+	    }
+	    action.importRows(rows);
+	    ProgressDialog.updateProgressDialog(dialog, progress);
+	});
+    }
+
+    private static void post(final Display display, final Semaphore pending, final Runnable runnable)
+	    throws InterruptedException {
+	pending.acquire();
+	if (display.isDisposed()) {
+	    pending.release();
+	    return;
+	}
+	display.asyncExec(() -> {
+	    try {
+		runnable.run();
+	    } finally {
+		pending.release();
+	    }
+	});
+    }
+
+    private static void syncDirectory(final Path dir) {
+	try (final var channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+	    channel.force(true);
+	} catch (final IOException _) {
+	    // not every platform can open a directory, the move is done anyway
+	}
     }
 
     private static void savePassword(final byte[] password, final ConfigData cData) {
@@ -100,17 +378,38 @@ public class IO implements PrimitiveConstants, StringConstants {
 	final var startTime = System.currentTimeMillis();
 	final var cData = action.getCData();
 	byte[] bytes = null;
+	final var fileKey = new byte[1][];
+	CSVSniffer.Dialect dialect = null;
 	var exMsg = empty;
 	try (final var is = open(file)) {
 	    if (Objects.nonNull(password) && password.length > 0) {
 		savePassword(password, cData);
-		bytes = JsonUtil.setJsonFile(cData, is);
-		bytes = crypto(cData.getCryptoConfig()).decrypt(bytes, password);
-		bytes = cData.isCompress() ? IOUtil.inflate(bytes) : bytes;
+		final var fileBytes = is.readAllBytes();
+		final var unsealed = unsealFile(cData, fileBytes, password, key -> fileKey[0] = key);
+		final var segments = unsealed.segments();
+		if (Objects.isNull(segments)) {
+		    bytes = VaultSession.getInstance().open(file, fileBytes, cData, fileKey[0], unsealed.data());
+		} else {
+		    try {
+			// a vault in segments shows its first group, the others stay sealed
+			bytes = VaultSession.getInstance().open(file, fileBytes, cData, fileKey[0], segments);
+			if (Objects.isNull(bytes) && action.fillTable(segments)) {
+			    LOG.info(TIME_TO_OPEN, Long.valueOf(System.currentTimeMillis() - startTime));
+			    return true;
+			}
+			if (Objects.isNull(bytes)) {
+			    bytes = segments.open(null);
+			}
+		    } finally {
+			segments.clear();
+		    }
+		}
 	    } else {
+		// an import may come from another program with another dialect
 		bytes = is.readAllBytes();
+		dialect = CSVSniffer.sniff(bytes, cData.getDivider());
 	    }
-	    action.fillTable(true, bytes);
+	    action.fillTable(true, bytes, dialect);
 	    LOG.info(TIME_TO_OPEN, Long.valueOf(System.currentTimeMillis() - startTime));
 	    return true;
 	} catch (final BadPaddingException e) {
@@ -119,61 +418,430 @@ public class IO implements PrimitiveConstants, StringConstants {
 	} catch (final IOException e) {
 	    LOG.warn(WARN, e);
 	    exMsg = errorInp.formatted(file);
-	} catch (final ArrayIndexOutOfBoundsException | IllegalArgumentException | JsonParserException e) {
+	} catch (final ArrayIndexOutOfBoundsException | DataFormatException | IllegalArgumentException
+		| JsonParserException e) {
 	    LOG.warn(WARN, e);
 	    exMsg = errorImp.formatted(IOUtil.getFilePath(file));
 	} catch (final IllegalBlockSizeException | InvalidAlgorithmParameterException | InvalidKeyException
 		| InvalidKeySpecException | NoSuchAlgorithmException | NoSuchPaddingException | OutOfMemoryError e) {
 	    LOG.error(ERROR, e);
 	    exMsg = errorSev;
+	} catch (final GeneralSecurityException e) {
+	    LOG.warn(WARN, e);
+	    exMsg = errorImp.formatted(IOUtil.getFilePath(file));
 	} finally {
 	    clear(password);
 	    clear(bytes);
+	    clear(fileKey[0]);
 	}
 	msg(action.getShell(), SWT.ICON_ERROR | SWT.OK, titleErr, exMsg);
 	return false;
     }
 
     /**
-     * Saves the file.
+     * Imports the file in the background. The file is parsed on a virtual thread,
+     * CSV in the dialect it is written in, Bitwarden JSON and KeePass XML exports
+     * as a stream, and the rows are handed to the table in batches, so the first
+     * rows can be used while the rest is still read. The next batch waits until
+     * the table took the last one. The passwords of a merge are compared and
+     * encrypted on the same thread once all rows are in. Cancelling the progress
+     * dialog empties the table again, or gives it back the entries it had before
+     * a merge.
+     *
+     * @param file       the file
+     * @param onImported runs on the UI thread once all rows are in the table
+     */
+    public void importFile(final String file, final Runnable onImported) {
+	if (Objects.isNull(file)) {
+	    throw new IllegalArgumentException(FILE_NOT_NULL);
+	}
+	final var startTime = System.currentTimeMillis();
+	final var cData = action.getCData();
+	final var display = action.getShell().getDisplay();
+	final var cancelled = new AtomicBoolean();
+	final Runnable cancel = () -> cancelled.set(true);
+	final var dialog = DialogFactory.createProgressDialog(action, impoFile + IOUtil.getPath(file).getFileName(),
+		CSV_PROGRESS, () -> {
+		    cancel.run();
+		    action.cancelImport();
+		});
+	Thread.ofVirtual().start(() -> {
+	    final var pending = new Semaphore(1);
+	    String exMsg = null;
+	    try (final var reader = ImportReader.open(file, cData)) {
+		final var header = reader.read();
+		if (Objects.isNull(header)) {
+		    throw new IllegalArgumentException(errorImp.formatted(IOUtil.getFilePath(file)));
+		}
+		post(display, pending, () -> {
+		    if (!cancelled.get()) {
+			action.startImport(header, cancel);
+		    }
+		});
+		var batch = new ArrayList<String[]>(CSV_BATCH);
+		for (var row = reader.read(); Objects.nonNull(row) && !cancelled.get()
+			&& !display.isDisposed(); row = reader.read()) {
+		    batch.add(row);
+		    if (batch.size() == CSV_BATCH) {
+			importRows(display, pending, dialog, batch, cancelled, reader.progress(CSV_PROGRESS));
+			batch = new ArrayList<>(CSV_BATCH);
+		    }
+		}
+		importRows(display, pending, dialog, batch, cancelled, CSV_PROGRESS);
+		// the passwords of a merge are compared and encrypted here, not on the UI thread
+		pending.acquire();
+		try {
+		    if (!cancelled.get() && !action.protectImport(cancelled::get)) {
+			cancelled.set(true);
+		    }
+		} finally {
+		    pending.release();
+		}
+	    } catch (final InterruptedException e) {
+		LOG.warn(WARN, e);
+		cancelled.set(true);
+	    } catch (final IOException e) {
+		LOG.warn(WARN, e);
+		exMsg = errorInp.formatted(file);
+	    } catch (final IllegalArgumentException e) {
+		LOG.warn(WARN, e);
+		exMsg = errorImp.formatted(IOUtil.getFilePath(file));
+	    } catch (final OutOfMemoryError e) {
+		LOG.error(ERROR, e);
+		exMsg = errorSev;
+	    }
+	    final var message = exMsg;
+	    final Runnable finish = () -> {
+		// disposing does not fire the close listener that cancels the import
+		if (!dialog.isDisposed()) {
+		    dialog.dispose();
+		}
+		if (Objects.nonNull(message)) {
+		    action.cancelImport();
+		    msg(action.getShell(), SWT.ICON_ERROR | SWT.OK, titleErr, message);
+		} else if (!cancelled.get() && action.finishImport()) {
+		    LOG.info(TIME_TO_OPEN, Long.valueOf(System.currentTimeMillis() - startTime));
+		    onImported.run();
+		}
+	    };
+	    // the import finishes after the table took the last batch
+	    try {
+		post(display, pending, finish);
+	    } catch (final InterruptedException e) {
+		LOG.warn(WARN, e);
+	    }
+	});
+    }
+
+    /**
+     * Exports the table as plain CSV in the background. The passwords are
+     * decrypted in parallel and the CSV is streamed to a temporary file, which
+     * replaces the file only if the export is not cancelled.
+     *
+     * @param file the file
+     */
+    public void exportFile(final String file) {
+	if (Objects.isNull(file)) {
+	    throw new IllegalArgumentException(FILE_NOT_NULL);
+	}
+	final var startTime = System.currentTimeMillis();
+	final var display = action.getShell().getDisplay();
+	final var rows = action.getTableRows();
+	final var cancelled = new AtomicBoolean();
+	final var dialog = DialogFactory.createProgressDialog(action, expoFile + IOUtil.getPath(file).getFileName(),
+		Math.max(rows.length, 1), () -> cancelled.set(true));
+	final IntConsumer progress = count -> {
+	    if (!display.isDisposed()) {
+		display.asyncExec(() -> ProgressDialog.updateProgressDialog(dialog, count));
+	    }
+	};
+	Thread.ofVirtual().start(() -> {
+	    var exported = false;
+	    try {
+		save(file, out -> {
+		    if (!action.exportData(rows, out, progress, cancelled::get)) {
+			throw new CancellationException();
+		    }
+		});
+		exported = true;
+	    } catch (final CancellationException e) {
+		LOG.info(EXPORT_CANCELLED);
+	    } catch (final IOException e) {
+		LOG.error(ERROR, e);
+		if (!display.isDisposed()) {
+		    display.asyncExec(() -> msg(action.getShell(), SWT.ICON_ERROR | SWT.OK, titleErr,
+			    errorOut.formatted(IOUtil.getFilePath(file))));
+		}
+	    } finally {
+		Arrays.stream(rows).flatMap(Arrays::stream).forEach(Util::clear);
+	    }
+	    if (exported) {
+		LOG.info(TIME_TO_SAVE, Long.valueOf(System.currentTimeMillis() - startTime));
+	    }
+	    if (!display.isDisposed()) {
+		// disposing does not fire the close listener that cancels the export
+		display.asyncExec(() -> {
+		    if (!dialog.isDisposed()) {
+			dialog.dispose();
+		    }
+		});
+	    }
+	});
+    }
+
+    /**
+     * Saves the file in the background. The table is read right away, the
+     * encryption and writing happen on a virtual thread. Only the lines of the
+     * entries changed since the last save are handed to the session for an
+     * append, they count as saved once the file is written. The new file header
+     * is written into a copy of the config data and taken over on the UI thread,
+     * and so is the header of a vault file compacted after the save.
+     * If the file is not written, the data is marked as modified again and an
+     * error is shown.
      *
      * @param password the password
      * @param file     the file
-     * @return true, if successful
+     * @param onSaved  runs on the UI thread once the file is written
      */
-    public boolean saveFile(final byte[] password, final String file) {
+    public void saveFile(final byte[] password, final String file, final Runnable onSaved) {
 	if (Objects.isNull(file)) {
 	    throw new IllegalArgumentException(FILE_NOT_NULL);
 	}
+	if (Objects.isNull(password) || password.length == 0) {
+	    throw new IllegalArgumentException(PASSWORD_NOT_NULL);
+	}
 	final var startTime = System.currentTimeMillis();
 	final var cData = action.getCData();
-	byte[] bytes = null;
-	var exMsg = empty;
-	try {
-	    if (Objects.nonNull(password) && password.length > 0) {
-		savePassword(password, cData);
-		bytes = action.extractData(false);
-		bytes = cData.isCompress() ? IOUtil.deflate(bytes) : bytes;
-		bytes = crypto(cData.getCryptoConfig()).encrypt(bytes, password);
-		bytes = JsonUtil.getJsonFile(cData, bytes);
-	    } else {
-		bytes = action.extractData(true);
+	final var display = action.getShell().getDisplay();
+	savePassword(password, cData);
+	final var rows = action.getTableRows();
+	final var changes = action.getStore().changes();
+	final var lines = action.getChangedLines(changes);
+	final var bytes = new byte[1][];
+	final var cancelled = new AtomicBoolean();
+	final var header = copyHeader(cData);
+	final var isImport = header.isImport();
+	// the passwords of an import are encrypted one by one, which takes a while
+	final var dialog = isImport && rows.length > 0
+		? DialogFactory.createProgressDialog(action, saveProg + IOUtil.getPath(file).getFileName(), rows.length,
+			() -> cancelled.set(true))
+		: null;
+	final IntConsumer progress = count -> {
+	    if (!display.isDisposed()) {
+		display.asyncExec(() -> ProgressDialog.updateProgressDialog(dialog, count));
 	    }
-	    save(file, bytes);
-	    LOG.info(TIME_TO_SAVE, Long.valueOf(System.currentTimeMillis() - startTime));
-	    return true;
-	} catch (final IOException e) {
-	    LOG.error(ERROR, e);
-	    exMsg = errorOut.formatted(IOUtil.getFilePath(file));
-	} catch (final BadPaddingException | IllegalBlockSizeException | InvalidAlgorithmParameterException
-		| InvalidKeyException | InvalidKeySpecException | NoSuchAlgorithmException | NoSuchPaddingException e) {
-	    LOG.error(ERROR, e);
-	    exMsg = errorSev;
-	} finally {
+	};
+	cData.setModified(false);
+	SaveService.getInstance().submit(file, () -> {
+	    if (isImport && !action.protectPasswords(rows, false, progress, cancelled::get)) {
+		throw new CancellationException();
+	    }
+	    bytes[0] = action.writeData(rows);
+	    VaultSession.getInstance().save(file, header, bytes[0], lines, password, compacted -> {
+		if (!display.isDisposed()) {
+		    display.asyncExec(() -> {
+			if (file.equals(cData.getFile())) {
+			    cData.setFileHeader(compacted);
+			}
+		    });
+		}
+	    });
+	}, () -> {
 	    clear(password);
-	    clear(bytes);
+	    clear(bytes[0]);
+	    if (Objects.nonNull(lines)) {
+		lines.values().forEach(Util::clear);
+	    }
+	    Arrays.stream(rows).flatMap(Arrays::stream).forEach(Util::clear);
+	    if (Objects.nonNull(dialog) && !display.isDisposed()) {
+		// disposing does not fire the close listener that cancels the save
+		display.asyncExec(() -> {
+		    if (!dialog.isDisposed()) {
+			dialog.dispose();
+		    }
+		});
+	    }
+	}, e -> {
+	    if (Objects.isNull(e)) {
+		action.getStore().saved(changes.count());
+	    }
+	    if (display.isDisposed()) {
+		return;
+	    }
+	    display.asyncExec(() -> {
+		if (Objects.isNull(e) && file.equals(cData.getFile())) {
+		    cData.setFileHeader(header);
+		}
+		saved(file, e, startTime, onSaved);
+	    });
+	});
+    }
+
+    /**
+     * Reads the changes another program made to the vault file in the background
+     * and applies them to the table on the UI thread. Waits for pending saves
+     * first, so the own writes are not mistaken for changes. The header of a
+     * replaced vault file is read into a copy of the config data and only taken
+     * over with the changes.
+     *
+     * @param password the password
+     * @param file     the file
+     */
+    public void reloadFile(final byte[] password, final String file) {
+	if (Objects.isNull(file)) {
+	    throw new IllegalArgumentException(FILE_NOT_NULL);
 	}
-	msg(action.getShell(), SWT.ICON_ERROR | SWT.OK, titleErr, exMsg);
-	return false;
+	final var cData = action.getCData();
+	final var display = action.getShell().getDisplay();
+	final var header = fileHeader(cData);
+	Thread.ofVirtual().start(() -> {
+	    try {
+		SaveService.getInstance().await();
+		final var changes = VaultSession.getInstance().getMerge().reload(file, header, password);
+		if (Objects.isNull(changes) || changes.isEmpty() && !header.hasFileHeader() || display.isDisposed()) {
+		    return;
+		}
+		display.asyncExec(() -> {
+		    if (file.equals(cData.getFile()) && !cData.isLocked() && !cData.isModified()) {
+			action.applyChanges(changes, header);
+		    }
+		});
+	    } catch (final IOException | GeneralSecurityException | DataFormatException | JsonParserException e) {
+		LOG.warn(WARN, e);
+	    } finally {
+		clear(password);
+	    }
+	});
+    }
+
+    /**
+     * Merges the unsaved changes in the table with the changes another program
+     * made to the vault file in the background. The table shows all groups
+     * again first, so the local side of the merge has every entry. Changes
+     * without conflict are applied to the table, conflicts are left to the merge
+     * dialog.
+     *
+     * @param password the master password
+     * @param file     the vault file
+     */
+    public void mergeFile(final byte[] password, final String file) {
+	if (Objects.isNull(file)) {
+	    throw new IllegalArgumentException(FILE_NOT_NULL);
+	}
+	final var cData = action.getCData();
+	final var shell = action.getShell();
+	final var display = shell.getDisplay();
+	action.resetGroupList();
+	final var bytes = action.extractData(false);
+	final var header = fileHeader(cData);
+	Thread.ofVirtual().start(() -> {
+	    try {
+		SaveService.getInstance().await();
+		final var result = VaultSession.getInstance().getMerge().merge(file, header, password, bytes);
+		if (display.isDisposed()) {
+		    return;
+		}
+		display.asyncExec(() -> {
+		    if (!file.equals(cData.getFile()) || cData.isLocked()) {
+			return;
+		    }
+		    if (Objects.isNull(result)) {
+			LOG.warn(VAULT_CHANGED);
+			msg(shell, SWT.ICON_WARNING | SWT.OK, titleWar, warnExtC);
+			return;
+		    }
+		    action.applyChanges(result.changes(), header);
+		    if (!result.conflicts().isEmpty()) {
+			DialogFactory.createMergeDialog(action, result);
+		    }
+		});
+	    } catch (final IOException | GeneralSecurityException | DataFormatException | JsonParserException
+		    | CSVParseException e) {
+		LOG.warn(WARN, e);
+	    } finally {
+		clear(bytes);
+		clear(password);
+	    }
+	});
+    }
+
+    /**
+     * Writes the unsaved changes to the recovery snapshot in the background. The
+     * rows are read from the entry store on the save thread, and only if the
+     * session belongs to the vault file. While the table shows a single group the
+     * rows of all groups are opened from the sealed table data instead, otherwise
+     * the other groups would count as deleted. An import is skipped, it has no
+     * saved state to compare with.
+     *
+     * @param file the vault file
+     */
+    public void saveRecovery(final String file) {
+	if (Objects.isNull(file)) {
+	    throw new IllegalArgumentException(FILE_NOT_NULL);
+	}
+	final var cData = action.getCData();
+	if (cData.isImport()) {
+	    return;
+	}
+	final var bytes = new byte[1][];
+	final var segments = action.copySegments();
+	SaveService.getInstance().submit(file + recoveryExt, () -> {
+	    final var session = VaultSession.getInstance();
+	    if (!session.owns(file)) {
+		return;
+	    }
+	    bytes[0] = Objects.isNull(segments) ? action.writeData(action.getTableRows()) : segments.open(null);
+	    session.getRecovery().snapshot(file, cData, bytes[0]);
+	}, () -> {
+	    clear(bytes[0]);
+	    if (Objects.nonNull(segments)) {
+		segments.clear();
+	    }
+	}, e -> {
+	    if (Objects.nonNull(e)) {
+		LOG.warn(WARN, e);
+	    }
+	});
+    }
+
+    /**
+     * Watches the vault file and its journal for changes made by another program.
+     *
+     * @param file     the file
+     * @param listener runs on the watcher thread after a change
+     */
+    public void watchFile(final String file, final Runnable listener) {
+	if (Objects.isNull(file)) {
+	    throw new IllegalArgumentException(FILE_NOT_NULL);
+	}
+	final var watcher = FileWatcher.getInstance();
+	try {
+	    watcher.watch(IOUtil.getPath(file), listener);
+	    watcher.watch(Journal.getPath(file), listener);
+	} catch (final IOException e) {
+	    LOG.warn(WARN, e);
+	}
+    }
+
+    private void saved(final String file, final Exception e, final long startTime, final Runnable onSaved) {
+	if (Objects.isNull(e)) {
+	    LOG.info(TIME_TO_SAVE, Long.valueOf(System.currentTimeMillis() - startTime));
+	    onSaved.run();
+	    return;
+	}
+	final var shell = action.getShell();
+	if (shell.isDisposed()) {
+	    return;
+	}
+	action.getCData().setModified(true);
+	action.updateUI();
+	if (e instanceof CancellationException) {
+	    LOG.info(SAVE_CANCELLED);
+	    return;
+	}
+	LOG.error(ERROR, e);
+	final var exMsg = e instanceof GeneralSecurityException ? errorSev
+		: errorOut.formatted(IOUtil.getFilePath(file));
+	msg(shell, SWT.ICON_ERROR | SWT.OK, titleErr, exMsg);
     }
 }
@@ -25,8 +25,11 @@ import static io.github.seerainer.secpwdman.util.Util.isBlank;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Objects;
 import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
 import java.util.zip.Inflater;
@@ -37,6 +40,7 @@ import org.slf4j.Logger;
 import com.grack.nanojson.JsonParserException;
 
 import io.github.seerainer.secpwdman.action.Action;
+import io.github.seerainer.secpwdman.config.ConfigData;
 import io.github.seerainer.secpwdman.config.PrimitiveConstants;
 import io.github.seerainer.secpwdman.config.StringConstants;
 import io.github.seerainer.secpwdman.util.LogFactory;
@@ -51,13 +55,83 @@ public class IOUtil implements PrimitiveConstants, StringConstants {
     private IOUtil() {
     }
 
-    static byte[] deflate(final byte[] input) {
-	try (var deflater = new Deflater()) {
+    /**
+     * Compresses the vault data as configured and records the compression
+     * version that has to be written to the file header.
+     *
+     * @param data  the vault data, cleared afterwards
+     * @param cData the config data
+     * @return the compressed data
+     */
+    static byte[] compress(final byte[] data, final ConfigData cData) {
+	if (!cData.isCompress()) {
+	    cData.setCompression(COMPRESS_NONE);
+	    return data;
+	}
+	if (!cData.isTrainDictionary()) {
+	    cData.setCompression(COMPRESS_PRESET);
+	    return deflate(data, DeflateDictionary.preset(COMPRESS_PRESET));
+	}
+	cData.setCompression(COMPRESS_TRAINED);
+	final var dictionary = DeflateDictionary.train(data);
+	final var packedDict = deflate(dictionary.clone(), DeflateDictionary.preset(COMPRESS_TRAINED));
+	final var packedData = deflate(data, dictionary);
+	final var result = ByteBuffer.allocate(Integer.BYTES + packedDict.length + packedData.length)
+		.putInt(packedDict.length).put(packedDict).put(packedData).array();
+	clear(dictionary);
+	clear(packedData);
+	return result;
+    }
+
+    /**
+     * Decompresses the vault data according to the compression version read from
+     * the file header. Files without that header value fall back to the compress
+     * option of the configuration.
+     *
+     * @param data  the compressed data, cleared afterwards
+     * @param cData the config data
+     * @return the vault data
+     * @throws DataFormatException if the data is corrupt
+     */
+    static byte[] decompress(final byte[] data, final ConfigData cData) throws DataFormatException {
+	return switch (cData.getCompression()) {
+	case COMPRESS_LEGACY -> cData.isCompress() ? inflate(data, null) : data;
+	case COMPRESS_NONE -> data;
+	case COMPRESS_PRESET -> inflate(data, DeflateDictionary.preset(COMPRESS_PRESET));
+	case COMPRESS_TRAINED -> {
+	    final byte[] packedDict;
+	    final byte[] packedData;
+	    try {
+		final var buffer = ByteBuffer.wrap(data);
+		packedDict = new byte[buffer.getInt()];
+		buffer.get(packedDict);
+		packedData = new byte[buffer.remaining()];
+		buffer.get(packedData);
+	    } catch (final BufferUnderflowException | NegativeArraySizeException e) {
+		throw new DataFormatException(truncatedData);
+	    } finally {
+		clear(data);
+	    }
+	    final var dictionary = inflate(packedDict, DeflateDictionary.preset(COMPRESS_TRAINED));
+	    try {
+		yield inflate(packedData, dictionary);
+	    } finally {
+		clear(dictionary);
+	    }
+	}
+	default -> throw new DataFormatException(unknownDict + cData.getCompression());
+	};
+    }
+
+    static byte[] deflate(final byte[] input, final byte[] dictionary) {
+	try (var deflater = new Deflater(Deflater.BEST_COMPRESSION)) {
+	    if (Objects.nonNull(dictionary)) {
+		deflater.setDictionary(dictionary);
+	    }
 	    deflater.setInput(input);
-	    deflater.setLevel(Deflater.BEST_COMPRESSION);
 	    deflater.finish();
 
-	    final var outputStream = new ByteArrayOutputStream();
+	    final var outputStream = new ByteArrayOutputStream(Math.max(MEMORY_SIZE, input.length >> 1));
 	    final var buffer = new byte[MEMORY_SIZE];
 
 	    while (!deflater.finished()) {
@@ -106,20 +180,29 @@ public class IOUtil implements PrimitiveConstants, StringConstants {
 	};
     }
 
-    static byte[] inflate(final byte[] input) {
+    static byte[] inflate(final byte[] input, final byte[] dictionary) throws DataFormatException {
 	try (var inflater = new Inflater()) {
 	    inflater.setInput(input);
 
-	    final var outputStream = new ByteArrayOutputStream();
+	    // vault data inflates to about four times its size, capped so the
+	    // estimate cannot overflow for large inputs
+	    final var outputStream = new ByteArrayOutputStream(Math.min(input.length, Integer.MAX_VALUE >> 2) << 2);
 	    final var buffer = new byte[MEMORY_SIZE];
 	    try {
 		while (!inflater.finished()) {
-		    outputStream.write(buffer, 0, inflater.inflate(buffer));
+		    final var count = inflater.inflate(buffer);
+		    if (count > 0) {
+			outputStream.write(buffer, 0, count);
+		    } else if (inflater.needsDictionary()) {
+			if (Objects.isNull(dictionary)) {
+			    throw new DataFormatException(unknownDict + inflater.getAdler());
+			}
+			inflater.setDictionary(dictionary);
+		    } else if (inflater.needsInput()) {
+			throw new DataFormatException(truncatedData);
+		    }
 		}
 		return outputStream.toByteArray();
-	    } catch (final DataFormatException e) {
-		LOG.error(ERROR, e);
-		return input;
 	    } finally {
 		inflater.end();
 	    }
@@ -0,0 +1,75 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Locale;
+
+import io.github.seerainer.secpwdman.config.ConfigData;
+
+/**
+ * The interface ImportReader.
+ *
+ * Reads the rows of an imported file one by one. The first row is the header,
+ * the exports of other password managers are mapped to the default header.
+ */
+interface ImportReader extends Closeable {
+
+    /**
+     * Opens the reader for the format of the file, found by its extension.
+     * Bitwarden JSON and KeePass XML exports are streamed from the file, CSV is
+     * read at once to detect its dialect.
+     *
+     * @param file  the file
+     * @param cData the config data
+     * @return the reader
+     * @throws IOException if the file cannot be read
+     */
+    static ImportReader open(final String file, final ConfigData cData) throws IOException {
+	final var name = file.toLowerCase(Locale.ROOT);
+	if (name.endsWith(BitwardenReader.EXTENSION)) {
+	    return new BitwardenReader(IO.channel(file));
+	}
+	if (name.endsWith(KeePassReader.EXTENSION)) {
+	    return new KeePassReader(IO.channel(file));
+	}
+	try (final var is = IO.open(file)) {
+	    return new CSVImportReader(is.readAllBytes(), cData);
+	}
+    }
+
+    /**
+     * Gets the part of the file that is read.
+     *
+     * @param maximum the value for the whole file
+     * @return the progress between 0 and maximum
+     * @throws IOException if the position cannot be read
+     */
+    int progress(int maximum) throws IOException;
+
+    /**
+     * Reads the next row.
+     *
+     * @return the fields, or null at the end of the file
+     * @throws IOException if the file cannot be read
+     */
+    String[] read() throws IOException;
+}
@@ -0,0 +1,385 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+
+import org.slf4j.Logger;
+
+import io.github.seerainer.secpwdman.config.PrimitiveConstants;
+import io.github.seerainer.secpwdman.config.StringConstants;
+import io.github.seerainer.secpwdman.crypto.CryptoConstants;
+import io.github.seerainer.secpwdman.crypto.VaultCrypto;
+import io.github.seerainer.secpwdman.util.LogFactory;
+import io.github.seerainer.secpwdman.util.Util;
+
+/**
+ * The class Journal.
+ *
+ * An append-only file next to the vault holding the changes saved since the
+ * last full write. The header binds the journal to the SHA-256 of the vault
+ * file it belongs to. Every record is an AES-GCM sealed, deflated change set
+ * whose additional authenticated data is the tag of the record before it (the
+ * vault digest for the first one), so records can neither be altered,
+ * reordered nor moved to another vault.
+ */
+class Journal implements CryptoConstants, PrimitiveConstants, StringConstants {
+
+    /**
+     * The end of the journal after an append.
+     *
+     * @param length the length of the journal
+     * @param tag    the tag of the last record, the next record is chained to it
+     */
+    record Tail(long length, byte[] tag) {
+    }
+
+    private static final Logger LOG = LogFactory.getLog();
+
+    private static final byte[] MAGIC = { 'S', 'P', 'M', 'J' };
+
+    private static final int HEADER_LENGTH = MAGIC.length + 1 + OUT_LENGTH;
+
+    private static final int TAG_BYTES = TAG_LENGTH / Byte.SIZE;
+
+    private Journal() {
+    }
+
+    /**
+     * Appends a change set to the journal, creating it if needed.
+     *
+     * @param path    the journal path
+     * @param key     the journal subkey
+     * @param baseId  the digest of the vault file
+     * @param changes the changed lines by UUID, null for deleted entries
+     * @return the new size of the journal
+     * @throws IOException              if the journal cannot be written
+     * @throws GeneralSecurityException if the record cannot be sealed or a record
+     *                                  length is damaged
+     */
+    static long append(final Path path, final byte[] key, final byte[] baseId, final Map<String, byte[]> changes)
+	    throws IOException, GeneralSecurityException {
+	return append(path, key, baseId, null, changes).length();
+    }
+
+    /**
+     * Appends a change set to the journal, creating it if needed. If the journal
+     * still ends where the last append left it, the record is chained to that
+     * tail and written at the end without reading the journal. Otherwise the
+     * records are scanned for the last complete one.
+     *
+     * @param path    the journal path
+     * @param key     the journal subkey
+     * @param baseId  the digest of the vault file
+     * @param tail    the tail of the last append, or null if unknown
+     * @param changes the changed lines by UUID, null for deleted entries
+     * @return the new tail of the journal
+     * @throws IOException              if the journal cannot be written
+     * @throws GeneralSecurityException if the record cannot be sealed or a record
+     *                                  length is damaged
+     */
+    static Tail append(final Path path, final byte[] key, final byte[] baseId, final Tail tail,
+	    final Map<String, byte[]> changes) throws IOException, GeneralSecurityException {
+	try (final var channel = FileChannel.open(path, CREATE, READ, WRITE)) {
+	    final byte[] chain;
+	    if (nonNull(tail) && tail.length() >= HEADER_LENGTH && channel.size() == tail.length()) {
+		chain = tail.tag();
+	    } else if (channel.size() < HEADER_LENGTH) {
+		channel.truncate(0);
+		channel.write(ByteBuffer.wrap(header(baseId)));
+		chain = baseId;
+	    } else {
+		// a record torn by an earlier append is cut off, the new one is chained to
+		// the last complete record
+		final var data = readAll(channel);
+		data.position(HEADER_LENGTH);
+		while (nonNull(next(data, key))) {
+		    // skip the complete records
+		}
+		final var end = data.position();
+		if (end < data.limit()) {
+		    LOG.warn(JOURNAL_TORN, Long.valueOf(end));
+		    channel.truncate(end);
+		}
+		chain = end == HEADER_LENGTH ? baseId : Arrays.copyOfRange(data.array(), end - TAG_BYTES, end);
+	    }
+	    final var record = VaultCrypto.seal(key,
+		    IOUtil.deflate(encode(changes), DeflateDictionary.preset(COMPRESS_PRESET)), chain);
+	    final var buffer = ByteBuffer.allocate(Integer.BYTES + record.length).putInt(record.length).put(record);
+	    channel.write(buffer.flip(), channel.size());
+	    channel.force(true);
+	    return new Tail(channel.size(), Arrays.copyOfRange(record, record.length - TAG_BYTES, record.length));
+	}
+    }
+
+    /**
+     * Encodes a change set.
+     *
+     * @param changes the changed lines by UUID, null for deleted entries
+     * @return the encoded changes
+     * @throws IOException if the changes cannot be encoded
+     */
+    static byte[] encode(final Map<String, byte[]> changes) throws IOException {
+	final var bytes = new ByteArrayOutputStream(changes.size() * BUFFER_MIN);
+	try (final var out = new DataOutputStream(bytes)) {
+	    out.writeInt(changes.size());
+	    for (final var change : changes.entrySet()) {
+		final var uuid = change.getKey().getBytes(UTF_8);
+		final var line = change.getValue();
+		out.writeInt(uuid.length);
+		out.write(uuid);
+		out.writeInt(isNull(line) ? -1 : line.length);
+		if (nonNull(line)) {
+		    out.write(line);
+		}
+	    }
+	}
+	return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a change set written by {@link #encode}.
+     *
+     * @param data the encoded changes, cleared afterwards
+     * @return the changed lines by UUID, null for deleted entries
+     * @throws IOException if the data is truncated
+     */
+    static LinkedHashMap<String, byte[]> decode(final byte[] data) throws IOException {
+	try (final var in = new DataInputStream(new ByteArrayInputStream(data))) {
+	    final var count = in.readInt();
+	    final var changes = new LinkedHashMap<String, byte[]>();
+	    for (var i = 0; i < count; i++) {
+		final var uuid = new String(in.readNBytes(in.readInt()), UTF_8);
+		final var length = in.readInt();
+		changes.put(uuid, length < 0 ? null : in.readNBytes(length));
+	    }
+	    return changes;
+	} finally {
+	    Util.clear(data);
+	}
+    }
+
+    /**
+     * Deletes the journal.
+     *
+     * @param path the journal path
+     */
+    static void delete(final Path path) {
+	try {
+	    Files.deleteIfExists(path);
+	} catch (final IOException e) {
+	    LOG.warn(WARN, e);
+	}
+    }
+
+    /**
+     * Gets the path of the journal for a vault file.
+     *
+     * @param file the vault file
+     * @return the journal path
+     */
+    static Path getPath(final String file) {
+	return IOUtil.getPath(file + journalExt);
+    }
+
+    private static byte[] header(final byte[] baseId) {
+	return ByteBuffer.allocate(HEADER_LENGTH).put(MAGIC).put((byte) JOURNAL_VERSION).put(baseId).array();
+    }
+
+    /**
+     * Tests if the journal belongs to the vault file.
+     *
+     * @param path   the journal path
+     * @param baseId the digest of the vault file
+     * @return true if the journal exists and was written for this vault file
+     * @throws IOException if the journal cannot be read
+     */
+    static boolean matches(final Path path, final byte[] baseId) throws IOException {
+	if (!Files.isRegularFile(path)) {
+	    return false;
+	}
+	try (final var in = Files.newInputStream(path)) {
+	    return Arrays.equals(in.readNBytes(HEADER_LENGTH), header(baseId));
+	}
+    }
+
+    private static ByteBuffer readAll(final FileChannel channel) throws IOException {
+	final var data = ByteBuffer.allocate((int) channel.size());
+	while (data.hasRemaining() && channel.read(data) >= 0) {
+	    // read the whole journal
+	}
+	return data.flip();
+    }
+
+    /**
+     * Reads the changes of the records starting at an offset, for example the
+     * ones another program appended since the last read. An incomplete record at
+     * the end is left alone, it may still be written.
+     *
+     * @param path    the journal path
+     * @param key     the journal subkey
+     * @param baseId  the digest of the vault file
+     * @param from    the offset of the first record to read
+     * @param changes receives the changed lines by UUID, null for deleted entries
+     * @return the offset after the last complete record
+     * @throws IOException              if the journal cannot be read
+     * @throws GeneralSecurityException if a record was tampered with
+     * @throws DataFormatException      if a record is corrupt
+     */
+    static long read(final Path path, final byte[] key, final byte[] baseId, final long from,
+	    final Map<String, byte[]> changes) throws IOException, GeneralSecurityException, DataFormatException {
+	try (final var channel = FileChannel.open(path, READ)) {
+	    final var data = readAll(channel);
+	    if (data.limit() < HEADER_LENGTH
+		    || !Arrays.equals(Arrays.copyOf(data.array(), HEADER_LENGTH), header(baseId))) {
+		return from;
+	    }
+	    return scan(data, key, baseId, from, changes::putAll);
+	}
+    }
+
+    /**
+     * Replays all records of the journal onto the vault rows. A last record that
+     * was only partly written when the application stopped is cut off if the
+     * journal can be written. A damaged record before it fails the replay and the
+     * journal is left as it is.
+     *
+     * @param path   the journal path
+     * @param key    the journal subkey
+     * @param baseId the digest of the vault file
+     * @param rows   the vault rows
+     * @return the number of records
+     * @throws IOException              if the journal cannot be read
+     * @throws GeneralSecurityException if a record was tampered with
+     * @throws DataFormatException      if a record is corrupt
+     */
+    static int replay(final Path path, final byte[] key, final byte[] baseId, final VaultRows rows)
+	    throws IOException, GeneralSecurityException, DataFormatException {
+	final ByteBuffer data;
+	final long end;
+	final var count = new AtomicInteger();
+	try (final var channel = FileChannel.open(path, READ)) {
+	    data = readAll(channel);
+	    end = scan(data, key, baseId, HEADER_LENGTH, changes -> {
+		rows.apply(changes);
+		count.incrementAndGet();
+	    });
+	}
+	if (end < data.limit()) {
+	    LOG.warn(JOURNAL_TORN, Long.valueOf(end));
+	    truncate(path, end);
+	}
+	return count.get();
+    }
+
+    private static boolean hasRecordAfter(final ByteBuffer data, final byte[] key, final int start) {
+	// a record is found by its length and authenticated with the tag in front of
+	// it, which only a complete record written by the journal passes
+	final var min = IV_LENGTH + TAG_BYTES;
+	for (var pos = start + Integer.BYTES + min; pos <= data.limit() - Integer.BYTES - min; pos++) {
+	    final var length = data.getInt(pos);
+	    if (length < min || length > data.limit() - pos - Integer.BYTES) {
+		continue;
+	    }
+	    final var record = Arrays.copyOfRange(data.array(), pos + Integer.BYTES, pos + Integer.BYTES + length);
+	    final var chain = Arrays.copyOfRange(data.array(), pos - TAG_BYTES, pos);
+	    try {
+		Util.clear(VaultCrypto.open(key, record, chain));
+		return true;
+	    } catch (final GeneralSecurityException e) {
+		// not a record
+	    }
+	}
+	return false;
+    }
+
+    private static byte[] next(final ByteBuffer data, final byte[] key) throws GeneralSecurityException {
+	if (data.remaining() < Integer.BYTES) {
+	    return null;
+	}
+	final var start = data.position();
+	final var length = data.getInt();
+	if (length < IV_LENGTH + TAG_BYTES) {
+	    // no record is that short, the journal was damaged and the records behind
+	    // cannot be found anymore
+	    throw new GeneralSecurityException(journalDamaged + start);
+	}
+	if (length > data.remaining()) {
+	    // only the last record can run past the end of the file, a complete record
+	    // behind it means the length was damaged
+	    if (hasRecordAfter(data, key, start)) {
+		throw new GeneralSecurityException(journalDamaged + start);
+	    }
+	    data.position(start);
+	    return null;
+	}
+	final var record = new byte[length];
+	data.get(record);
+	return record;
+    }
+
+    private static long scan(final ByteBuffer data, final byte[] key, final byte[] baseId, final long from,
+	    final Consumer<LinkedHashMap<String, byte[]>> sink)
+	    throws IOException, GeneralSecurityException, DataFormatException {
+	data.position(HEADER_LENGTH);
+	var chain = baseId;
+	var start = data.position();
+	for (var record = next(data, key); nonNull(record); record = next(data, key)) {
+	    if (start >= from) {
+		final var plain = VaultCrypto.open(key, record, chain);
+		sink.accept(decode(IOUtil.inflate(plain, DeflateDictionary.preset(COMPRESS_PRESET))));
+	    }
+	    chain = Arrays.copyOfRange(record, record.length - TAG_BYTES, record.length);
+	    start = data.position();
+	}
+	return data.position();
+    }
+
+    private static void truncate(final Path path, final long end) {
+	// a journal on read-only media is still replayed, the torn record stays
+	try (final var channel = FileChannel.open(path, WRITE)) {
+	    channel.truncate(end);
+	} catch (final IOException e) {
+	    LOG.warn(WARN, e);
+	}
+    }
+}
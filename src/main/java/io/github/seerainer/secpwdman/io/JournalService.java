@@ -0,0 +1,226 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+
+import org.slf4j.Logger;
+
+import io.github.seerainer.secpwdman.config.ConfigData;
+import io.github.seerainer.secpwdman.config.PrimitiveConstants;
+import io.github.seerainer.secpwdman.config.StringConstants;
+import io.github.seerainer.secpwdman.crypto.CryptoConstants;
+import io.github.seerainer.secpwdman.util.LogFactory;
+import io.github.seerainer.secpwdman.util.Util;
+
+/**
+ * The class JournalService.
+ *
+ * Appends the entries a save changed to the {@link Journal} of the open vault
+ * file, replays it when the file is opened and reads the records another
+ * program appended. The tail of the journal is kept, so an append only writes
+ * at its end. The journal is folded into a new vault file in the background
+ * once it grows beyond a fraction of the vault file.
+ */
+class JournalService implements CryptoConstants, PrimitiveConstants, StringConstants {
+
+    private static final Logger LOG = LogFactory.getLog();
+
+    private final VaultSession session;
+
+    private long length;
+    private Journal.Tail tail;
+
+    JournalService(final VaultSession session) {
+	this.session = session;
+    }
+
+    /**
+     * Appends the changed entries to the journal, if the session belongs to the
+     * vault file and nothing but entries changed.
+     *
+     * @param filePath  the vault file
+     * @param cData     a copy of the config data
+     * @param data      the vault data
+     * @param lines     the lines of the changed entries by UUID, null for deleted
+     *                  entries, or null to compare all entries
+     * @param password  the master password
+     * @param compacted receives the config data with the header of the compacted
+     *                  vault file, may be null
+     * @return false if the whole vault file has to be written
+     * @throws IOException              if the journal cannot be written
+     * @throws GeneralSecurityException if the changes cannot be sealed
+     */
+    boolean append(final String filePath, final ConfigData cData, final byte[] data, final Map<String, byte[]> lines,
+	    final byte[] password, final Consumer<ConfigData> compacted) throws IOException, GeneralSecurityException {
+	if (!session.isOpen(filePath) || cData.isImport() || !session.getParams().equals(JsonUtil.getParams(cData))
+		|| !session.isBaseUnchanged() || !hasHeader(data)) {
+	    return false;
+	}
+	// without the changed lines of the caller every entry is compared
+	final var rows = isNull(lines) ? VaultRows.parse(data, cData.getDivider()) : null;
+	if (isNull(lines) && isNull(rows)) {
+	    return false;
+	}
+	final var hashes = session.getHashes();
+	final var changes = isNull(rows) ? hashes.changes(lines) : rows.diff(hashes.get());
+	if (!changes.isEmpty()) {
+	    final var subKey = session.subKey(subJournal);
+	    try {
+		tail = Journal.append(Journal.getPath(filePath), subKey, session.getBaseId(), tail, changes);
+	    } finally {
+		Util.clear(subKey);
+	    }
+	    length = tail.length();
+	    session.getBase().add(changes);
+	    session.update(changes);
+	    if (length > Math.max(JOURNAL_MIN_SIZE, session.getBaseSize() / JOURNAL_RATIO)) {
+		// the compaction writes its header into a copy of its own, which is handed to
+		// the caller once the new vault file is written
+		compact(IO.copyHeader(cData), data.clone(), password.clone(), compacted);
+	    }
+	}
+	if (nonNull(rows)) {
+	    rows.clear();
+	}
+	return true;
+    }
+
+    void clear() {
+	tail = null;
+    }
+
+    private void compact(final ConfigData cData, final byte[] data, final byte[] password,
+	    final Consumer<ConfigData> compacted) {
+	final var filePath = session.getFile();
+	final var gen = session.getGeneration();
+	final var lock = session.getLock();
+	Thread.ofVirtual().start(() -> {
+	    final var startTime = System.currentTimeMillis();
+	    lock.lock();
+	    try {
+		if (gen == session.getGeneration() && filePath.equals(session.getFile())) {
+		    session.write(filePath, cData, data, password);
+		    LOG.info(JOURNAL_COMPACTED, Long.valueOf(System.currentTimeMillis() - startTime));
+		    // still under the lock, so the header is handed over before the one of a
+		    // later save
+		    if (nonNull(compacted)) {
+			compacted.accept(cData);
+		    }
+		}
+	    } catch (final IOException | GeneralSecurityException e) {
+		LOG.error(ERROR, e);
+	    } finally {
+		Util.clear(data);
+		Util.clear(password);
+		lock.unlock();
+	    }
+	});
+    }
+
+    void delete(final String filePath) {
+	Journal.delete(Journal.getPath(filePath));
+    }
+
+    long getLength() {
+	return length;
+    }
+
+    private boolean hasHeader(final byte[] data) {
+	final var header = session.getHeader();
+	return data.length > header.length && data[header.length] == LF
+		&& Arrays.equals(data, 0, header.length, header, 0, header.length);
+    }
+
+    /**
+     * Tests if the journal belongs to the vault file. A journal of another
+     * version of the vault file is deleted.
+     *
+     * @param filePath the vault file
+     * @param digest   the digest of the vault file
+     * @return true if the journal has to be replayed
+     * @throws IOException if the journal cannot be read
+     */
+    boolean matches(final String filePath, final byte[] digest) throws IOException {
+	final var path = Journal.getPath(filePath);
+	if (Journal.matches(path, digest)) {
+	    return true;
+	}
+	if (Files.exists(path)) {
+	    LOG.warn(JOURNAL_STALE);
+	    Journal.delete(path);
+	}
+	return false;
+    }
+
+    /**
+     * Reads the records another program appended since the last read or append.
+     *
+     * @param changes receives the changed lines by UUID, null for deleted entries
+     * @throws IOException              if the journal cannot be read
+     * @throws GeneralSecurityException if the journal was tampered with
+     * @throws DataFormatException      if the journal is corrupt
+     */
+    void read(final Map<String, byte[]> changes) throws IOException, GeneralSecurityException, DataFormatException {
+	final var subKey = session.subKey(subJournal);
+	try {
+	    length = Journal.read(Journal.getPath(session.getFile()), subKey, session.getBaseId(), length, changes);
+	} finally {
+	    Util.clear(subKey);
+	}
+	tail = null;
+    }
+
+    void rebase(final String filePath) throws IOException {
+	final var path = Journal.getPath(filePath);
+	length = Files.exists(path) ? Files.size(path) : 0;
+	tail = null;
+    }
+
+    /**
+     * Replays the journal onto the lines of the vault file.
+     *
+     * @param filePath the vault file
+     * @param digest   the digest of the vault file
+     * @param rows     the lines of the vault file
+     * @throws IOException              if the journal cannot be read
+     * @throws GeneralSecurityException if the journal was tampered with
+     * @throws DataFormatException      if the journal is corrupt
+     */
+    void replay(final String filePath, final byte[] digest, final VaultRows rows)
+	    throws IOException, GeneralSecurityException, DataFormatException {
+	final var subKey = session.subKey(subJournal);
+	try {
+	    final var count = Journal.replay(Journal.getPath(filePath), subKey, digest, rows);
+	    LOG.info(JOURNAL_REPLAYED, Integer.valueOf(count));
+	} finally {
+	    Util.clear(subKey);
+	}
+    }
+}
@@ -24,6 +24,8 @@ import static java.lang.Integer.valueOf;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 import org.eclipse.swt.SWT;
@@ -53,6 +55,15 @@ import io.github.seerainer.secpwdman.util.Util;
  */
 class JsonUtil implements CryptoConstants, PrimitiveConstants, StringConstants {
 
+    /**
+     * The encrypted content of a vault file.
+     *
+     * @param data     the encrypted vault data, the index in the segmented layout
+     * @param segments the sealed segments, or null if the file is not segmented
+     */
+    record VaultFile(byte[] data, List<byte[]> segments) {
+    }
+
     private JsonUtil() {
     }
 
@@ -81,6 +92,7 @@ class JsonUtil implements CryptoConstants, PrimitiveConstants, StringConstants {
 
     	return getEncryptionValues(cData)
     			.value(autoLoc, valueOf(cData.getAutoLockTime()))
+    			.value(backups, valueOf(cData.isBackup()))
     			.value(buffLen, valueOf(cData.getBufferLength()))
     			.value(clearPw, valueOf(cData.getClearPassword()))
     			.value(coWidth, valueOf(cData.getColumnWidth()))
@@ -88,8 +100,10 @@ class JsonUtil implements CryptoConstants, PrimitiveConstants, StringConstants {
     			.value(divider, String.valueOf(cData.getDivider()))
     			.value(pwdMinL, valueOf(cData.getPasswordMinLength()))
     			.value(resizeC, valueOf(cData.isResizeCol()))
+    			.value(segmntd, valueOf(cData.isSegmented()))
     			.value(shellFo, getFontDataString(shell))
     			.value(tableFo, getFontDataString(action.getTable()))
+    			.value(trainDi, valueOf(cData.isTrainDictionary()))
     			.value(shelMax, valueOf(shell.getMaximized()))
     			.value(shellSX, valueOf(size.x))
     			.value(shellSY, valueOf(size.y))
@@ -99,9 +113,21 @@ class JsonUtil implements CryptoConstants, PrimitiveConstants, StringConstants {
     	.done().getBytes(UTF_8);
     }
 
-    static byte[] getJsonFile(final ConfigData cData, final byte[] bytes) {
+    static byte[] getJsonFile(final ConfigData cData, final byte[] bytes, final List<byte[]> segments) {
     	final var encStr = new String(Util.getBase64Encode(bytes), UTF_8);
-    	return getEncryptionValues(cData).value(encData, encStr).end().done().getBytes(UTF_8);
+    	final var jsw = getEncryptionValues(cData).value(compres, cData.getCompression());
+    	if (Objects.nonNull(cData.getMerkleRoot())) {
+    		jsw.value(merkKey, cData.getMerkleKey()).value(merkRoo, cData.getMerkleRoot());
+    	}
+    	if (Objects.nonNull(segments)) {
+    		jsw.array(segmnts);
+    		segments.forEach(segment -> jsw.value(new String(Util.getBase64Encode(segment), UTF_8)));
+    		jsw.end();
+    	}
+    	return jsw
+    			.value(encData, encStr)
+    		.end()
+    	.done().getBytes(UTF_8);
     }
 
     private static JsonObject getJsonObject(final InputStream is) throws JsonParserException {
@@ -137,6 +163,10 @@ class JsonUtil implements CryptoConstants, PrimitiveConstants, StringConstants {
     }
     //@formatter:on
 
+    static String getParams(final ConfigData cData) {
+	return getEncryptionValues(cData).end().done();
+    }
+
     static boolean hasCorrectFileFormat(final InputStream is) throws JsonParserException {
 	final var obj = getJsonObject(is);
 	final var data = obj.getString(encData);
@@ -173,6 +203,7 @@ class JsonUtil implements CryptoConstants, PrimitiveConstants, StringConstants {
 	final var preferredSizeX = SWTUtil.getPrefSize(action.getShell()).x;
 	final var fontString = new FontData(safeFont, 10, SWT.NORMAL).toString();
 	cData.setAutoLockTime(obj.getInt(autoLoc, cData.getAutoLockTime()));
+	cData.setBackup(obj.getBoolean(backups, valueOf(cData.isBackup())));
 	cData.setBufferLength(obj.getInt(buffLen, cData.getBufferLength()));
 	cData.setClearPassword(obj.getInt(clearPw, cData.getClearPassword()));
 	cData.setColumnWidth(obj.getInt(coWidth, cData.getColumnWidth()));
@@ -181,14 +212,30 @@ class JsonUtil implements CryptoConstants, PrimitiveConstants, StringConstants {
 	cData.setMaximized(obj.getBoolean(shelMax, valueOf(cData.isMaximized())));
 	cData.setPasswordMinLength(obj.getInt(pwdMinL, cData.getPasswordMinLength()));
 	cData.setResizeCol(obj.getBoolean(resizeC, valueOf(cData.isResizeCol())));
+	cData.setSegmented(obj.getBoolean(segmntd, valueOf(cData.isSegmented())));
 	cData.setShellFont(obj.getString(shellFo, fontString));
 	cData.setShellLocation(new Point(obj.getInt(shellPX, PREF_POS_XY), obj.getInt(shellPY, PREF_POS_XY)));
 	cData.setShellSize(new Point(obj.getInt(shellSX, preferredSizeX), obj.getInt(shellSY, PREF_SIZE_Y)));
 	cData.setTableFont(obj.getString(tableFo, fontString));
+	cData.setTrainDictionary(obj.getBoolean(trainDi, valueOf(cData.isTrainDictionary())));
     }
 
-    static byte[] setJsonFile(final ConfigData cData, final InputStream is) throws JsonParserException {
-	final var dataStr = Util.getBase64Decode(setEncryptionValues(cData, is).getString(encData).getBytes(UTF_8));
-	return Objects.isNull(dataStr) ? new byte[0] : dataStr;
+    static VaultFile setJsonFile(final ConfigData cData, final InputStream is) throws JsonParserException {
+	final var obj = setEncryptionValues(cData, is);
+	cData.setCompression(obj.getInt(compres, COMPRESS_LEGACY));
+	cData.setHasFileHeader(true);
+	cData.setMerkleKey(obj.getString(merkKey, null));
+	cData.setMerkleRoot(obj.getString(merkRoo, null));
+	final var dataStr = Util.getBase64Decode(obj.getString(encData).getBytes(UTF_8));
+	final var array = obj.getArray(segmnts);
+	List<byte[]> segments = null;
+	if (Objects.nonNull(array)) {
+	    segments = new ArrayList<>(array.size());
+	    for (var i = 0; i < array.size(); i++) {
+		final var segment = Util.getBase64Decode(array.getString(i, empty).getBytes(UTF_8));
+		segments.add(Objects.isNull(segment) ? new byte[0] : segment);
+	    }
+	}
+	return new VaultFile(Objects.isNull(dataStr) ? new byte[0] : dataStr, segments);
     }
 }
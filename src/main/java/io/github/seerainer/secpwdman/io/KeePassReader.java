@@ -0,0 +1,232 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.UUID;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import io.github.seerainer.secpwdman.config.StringConstants;
+import io.github.seerainer.secpwdman.util.Util;
+
+/**
+ * The class KeePassReader.
+ *
+ * Streams the entries of a KeePass 2.x XML export with a StAX reader. Only one
+ * entry is held in memory at a time, the history of an entry and the recycle
+ * bin are skipped. The group of an entry is the name of the group it is in.
+ */
+class KeePassReader implements ImportReader, StringConstants {
+
+    static final String EXTENSION = ".xml";
+
+    private static final String ENTRY = "Entry";
+    private static final String GROUP = "Group";
+    private static final String STRING = "String";
+    private static final String UUID_TAG = "UUID";
+
+    private final FileChannel channel;
+    private final Deque<String[]> groups = new ArrayDeque<>();
+    private final Deque<String> path = new ArrayDeque<>();
+    private XMLStreamReader xml;
+    private String recycleBin;
+    private boolean header = true;
+
+    KeePassReader(final FileChannel channel) {
+	this.channel = channel;
+    }
+
+    private static int column(final String key) {
+	// the columns of the default header: uuid, group, title, url, user, password, notes
+	return switch (key) {
+	case "Title" -> 2;
+	case "URL" -> 3;
+	case "UserName" -> 4;
+	case "Password" -> 5;
+	case "Notes" -> 6;
+	default -> -1;
+	};
+    }
+
+    private static String uuid(final String text) {
+	try {
+	    final var bytes = ByteBuffer.wrap(Base64.getDecoder().decode(text.strip()));
+	    if (bytes.remaining() == 16) {
+		return new UUID(bytes.getLong(), bytes.getLong()).toString().toUpperCase(Locale.ROOT);
+	    }
+	} catch (final IllegalArgumentException _) {
+	    // not a KeePass UUID, the entry gets a new one
+	}
+	return Util.getUUID();
+    }
+
+    @Override
+    public void close() throws IOException {
+	try {
+	    if (nonNull(xml)) {
+		xml.close();
+	    }
+	} catch (final XMLStreamException e) {
+	    throw new IOException(e);
+	} finally {
+	    channel.close();
+	}
+    }
+
+    private String[] entry() throws XMLStreamException {
+	final var row = new String[csvHeader.length];
+	Arrays.fill(row, empty);
+	var column = -1;
+	var inString = false;
+	for (var depth = 1; depth > 0;) {
+	    switch (xml.next()) {
+	    case XMLStreamConstants.START_ELEMENT -> {
+		final var name = xml.getLocalName();
+		if (depth == 1 && UUID_TAG.equals(name)) {
+		    row[0] = uuid(xml.getElementText());
+		} else if (inString && "Key".equals(name)) {
+		    column = column(xml.getElementText());
+		} else if (inString && "Value".equals(name)) {
+		    final var value = xml.getElementText();
+		    if (column >= 0) {
+			row[column] = value;
+		    }
+		} else if ("History".equals(name)) {
+		    skip();
+		} else {
+		    inString = STRING.equals(name);
+		    column = -1;
+		    depth++;
+		}
+	    }
+	    case XMLStreamConstants.END_ELEMENT -> {
+		inString = false;
+		depth--;
+	    }
+	    default -> {
+		// text between the elements
+	    }
+	    }
+	}
+	row[1] = nonNull(groups.peek()) ? groups.peek()[1] : empty;
+	if (row[0].isEmpty()) {
+	    row[0] = Util.getUUID();
+	}
+	return row;
+    }
+
+    private boolean isRecycled() {
+	return nonNull(recycleBin) && groups.stream().anyMatch(group -> recycleBin.equals(group[0]));
+    }
+
+    @Override
+    public int progress(final int maximum) throws IOException {
+	// the parser may close the channel at the end of the document
+	if (!channel.isOpen() || channel.size() == 0) {
+	    return maximum;
+	}
+	return (int) (channel.position() * maximum / channel.size());
+    }
+
+    @Override
+    public String[] read() throws IOException {
+	if (header) {
+	    header = false;
+	    return csvHeader.clone();
+	}
+	try {
+	    if (isNull(xml)) {
+		final var factory = XMLInputFactory.newInstance();
+		// an export has no document type, external entities are never resolved
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		xml = factory.createXMLStreamReader(Channels.newInputStream(channel));
+	    }
+	    while (xml.hasNext()) {
+		switch (xml.next()) {
+		case XMLStreamConstants.START_ELEMENT -> {
+		    final var row = start(xml.getLocalName(), path.peek());
+		    if (nonNull(row)) {
+			return row;
+		    }
+		}
+		case XMLStreamConstants.END_ELEMENT -> {
+		    if (GROUP.equals(path.pop())) {
+			groups.pop();
+		    }
+		}
+		default -> {
+		    // text between the elements
+		}
+		}
+	    }
+	    return null;
+	} catch (final XMLStreamException e) {
+	    throw new IllegalArgumentException(e);
+	}
+    }
+
+    private void skip() throws XMLStreamException {
+	for (var depth = 1; depth > 0;) {
+	    switch (xml.next()) {
+	    case XMLStreamConstants.START_ELEMENT -> depth++;
+	    case XMLStreamConstants.END_ELEMENT -> depth--;
+	    default -> {
+		// the content is not needed
+	    }
+	    }
+	}
+    }
+
+    private String[] start(final String name, final String parent) throws XMLStreamException {
+	if (GROUP.equals(parent) && ENTRY.equals(name)) {
+	    final var row = entry();
+	    return isRecycled() ? null : row;
+	}
+	if (GROUP.equals(parent) && UUID_TAG.equals(name)) {
+	    groups.element()[0] = xml.getElementText();
+	} else if (GROUP.equals(parent) && "Name".equals(name)) {
+	    groups.element()[1] = xml.getElementText();
+	} else if ("Meta".equals(parent) && "RecycleBinUUID".equals(name)) {
+	    recycleBin = xml.getElementText();
+	} else {
+	    if (GROUP.equals(name)) {
+		groups.push(new String[] { null, empty });
+	    }
+	    path.push(name);
+	}
+	return null;
+    }
+}
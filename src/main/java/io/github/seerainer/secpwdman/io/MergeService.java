@@ -0,0 +1,192 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static io.github.seerainer.secpwdman.util.Util.clear;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+
+import org.slf4j.Logger;
+
+import com.grack.nanojson.JsonParserException;
+
+import io.github.seerainer.secpwdman.config.ConfigData;
+import io.github.seerainer.secpwdman.config.StringConstants;
+import io.github.seerainer.secpwdman.crypto.VaultCrypto;
+import io.github.seerainer.secpwdman.csv.CSVParseException;
+import io.github.seerainer.secpwdman.util.LogFactory;
+
+/**
+ * The class MergeService.
+ *
+ * Reads the changes another program made to the open vault file or its
+ * journal, and merges them with the unsaved local changes in a
+ * {@link VaultMerge}. The last saved state is the base of the merge.
+ */
+class MergeService implements StringConstants {
+
+    private static final Logger LOG = LogFactory.getLog();
+
+    private final VaultSession session;
+
+    MergeService(final VaultSession session) {
+	this.session = session;
+    }
+
+    /**
+     * Merges the unsaved local changes with the changes another program made to
+     * the vault file or its journal. The session is moved to the changed file by
+     * {@link #reload}, the last saved state before it is the base of the merge.
+     *
+     * @param filePath the vault file
+     * @param cData    a copy of the config data, receives the header of a
+     *                 replaced vault file
+     * @param password the master password
+     * @param data     the local vault data
+     * @return the changes to the local data and the conflicts, or null if the
+     *         session does not belong to the vault file
+     * @throws IOException              if the files cannot be read
+     * @throws GeneralSecurityException if the files cannot be decrypted
+     * @throws DataFormatException      if the files are corrupt
+     * @throws JsonParserException      if the file header is invalid
+     * @throws CSVParseException        if a changed entry is invalid
+     */
+    VaultMerge.Result merge(final String filePath, final ConfigData cData, final byte[] password, final byte[] data)
+	    throws IOException, GeneralSecurityException, DataFormatException, JsonParserException, CSVParseException {
+	final var lock = session.getLock();
+	lock.lock();
+	try {
+	    if (!session.isOpen(filePath)) {
+		return null;
+	    }
+	    final var divider = cData.getDivider();
+	    final var local = VaultRows.parse(data, divider);
+	    final var baseRows = session.getBase().get(divider);
+	    if (isNull(local) || isNull(baseRows) || !Arrays.equals(local.header(), session.getHeader())) {
+		return null;
+	    }
+	    final var changes = reload(filePath, cData, password);
+	    if (isNull(changes)) {
+		return null;
+	    }
+	    final var remote = new LinkedHashMap<>(baseRows.rows());
+	    changes.forEach((uuid, line) -> {
+		if (isNull(line)) {
+		    remote.remove(uuid);
+		} else {
+		    remote.put(uuid, line);
+		}
+	    });
+	    final var result = VaultMerge.merge(baseRows.rows(), local.rows(), remote, divider);
+	    if (!changes.isEmpty()) {
+		LOG.info(VAULT_MERGED, Integer.valueOf(result.changes().size()),
+			Integer.valueOf(result.conflicts().size()));
+	    }
+	    baseRows.clear();
+	    local.clear();
+	    return result;
+	} finally {
+	    lock.unlock();
+	}
+    }
+
+    /**
+     * Reads the changes another program made to the vault file or its journal
+     * since the last open or save. If only the journal grew, the new records are
+     * read with the entry key. If the vault file was replaced, it is decrypted
+     * and the session is moved to it.
+     *
+     * @param filePath the vault file
+     * @param cData    a copy of the config data, receives the header of a
+     *                 replaced vault file
+     * @param password the master password
+     * @return the changed lines by UUID, null for deleted entries, or null if
+     *         the session does not belong to the vault file
+     * @throws IOException              if the files cannot be read
+     * @throws GeneralSecurityException if the files cannot be decrypted
+     * @throws DataFormatException      if the files are corrupt
+     * @throws JsonParserException      if the file header is invalid
+     */
+    Map<String, byte[]> reload(final String filePath, final ConfigData cData, final byte[] password)
+	    throws IOException, GeneralSecurityException, DataFormatException, JsonParserException {
+	final var lock = session.getLock();
+	lock.lock();
+	try {
+	    if (!session.isOpen(filePath)) {
+		return null;
+	    }
+	    final var changes = new LinkedHashMap<String, byte[]>();
+	    final var journal = session.getJournal();
+	    final var path = Journal.getPath(filePath);
+	    final var length = Files.exists(path) ? Files.size(path) : 0;
+	    if (session.isBaseUnchanged() && length == journal.getLength()) {
+		return changes;
+	    }
+	    final var fileBytes = Files.readAllBytes(IOUtil.getPath(filePath));
+	    final var digest = VaultCrypto.digest(fileBytes);
+	    final var hashes = session.getHashes();
+	    if (!Arrays.equals(digest, session.getBaseId())) {
+		final var old = hashes.get();
+		final var fileKey = new byte[1][];
+		final byte[] data;
+		try {
+		    final var plain = IO.unseal(cData, fileBytes, password, key -> fileKey[0] = key);
+		    data = session.open(filePath, fileBytes, cData, fileKey[0], plain);
+		} finally {
+		    clear(fileKey[0]);
+		}
+		final var rows = VaultRows.parse(data, cData.getDivider());
+		clear(data);
+		if (nonNull(rows)) {
+		    final var current = session.getBase().hasLines() ? hashes.get() : null;
+		    changes.putAll(nonNull(current) && old.isComparable(current) ? rows.select(old.diff(current))
+			    : rows.diff(old));
+		}
+	    } else if (length > journal.getLength()) {
+		journal.read(changes);
+		session.update(changes);
+		final var base = session.getBase();
+		final var rows = base.get(cData.getDivider());
+		if (nonNull(rows)) {
+		    final var copy = new LinkedHashMap<String, byte[]>();
+		    changes.forEach((uuid, line) -> copy.put(uuid, isNull(line) ? null : line.clone()));
+		    rows.apply(copy);
+		    base.set(rows);
+		    rows.clear();
+		}
+		session.touch();
+	    }
+	    if (!changes.isEmpty()) {
+		LOG.info(VAULT_RELOADED, Integer.valueOf(changes.size()));
+	    }
+	    return changes;
+	} finally {
+	    lock.unlock();
+	}
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static java.util.Objects.isNull;
+
+import java.io.ByteArrayOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import javax.crypto.Mac;
+
+import io.github.seerainer.secpwdman.config.PrimitiveConstants;
+import io.github.seerainer.secpwdman.crypto.CryptoConstants;
+import io.github.seerainer.secpwdman.crypto.VaultCrypto;
+
+/**
+ * The class MerkleTree.
+ *
+ * A hash tree over the entries of a vault. Every entry has a keyed hash of its
+ * line, so the root in the plain file header tells nothing about the content.
+ * The entries are spread over a fixed number of buckets by their UUID and kept
+ * sorted by UUID inside a bucket, so adding or removing an entry only changes
+ * the path of its own bucket. Two trees under the same key are compared from
+ * the root down, which takes O(log n + changes) hash comparisons.
+ */
+class MerkleTree implements CryptoConstants, PrimitiveConstants {
+
+    private static final int BUCKETS = 1 << MERKLE_DEPTH;
+
+    private final byte[] key;
+
+    private final Mac mac;
+
+    private final List<TreeMap<String, byte[]>> buckets = new ArrayList<>(BUCKETS);
+
+    private final byte[][] nodes = new byte[2 * BUCKETS][];
+
+    /**
+     * Creates a tree over the lines of a vault.
+     *
+     * @param key  the key of the entry hashes
+     * @param rows the lines by UUID
+     */
+    MerkleTree(final byte[] key, final Map<String, byte[]> rows) {
+	this.key = key.clone();
+	this.mac = VaultCrypto.mac(key);
+	for (var i = 0; i < BUCKETS; i++) {
+	    buckets.add(new TreeMap<>());
+	}
+	rows.forEach((uuid, line) -> buckets.get(bucket(uuid)).put(uuid, leaf(line)));
+	for (var i = 0; i < BUCKETS; i++) {
+	    nodes[BUCKETS + i] = hash(buckets.get(i));
+	}
+	for (var i = BUCKETS - 1; i > 0; i--) {
+	    nodes[i] = hash(nodes[2 * i], nodes[2 * i + 1]);
+	}
+    }
+
+    private static int bucket(final String uuid) {
+	final var h = uuid.hashCode();
+	return (h ^ h >>> 16) & BUCKETS - 1;
+    }
+
+    private static byte[] hash(final byte[] left, final byte[] right) {
+	final var out = new byte[left.length + right.length];
+	System.arraycopy(left, 0, out, 0, left.length);
+	System.arraycopy(right, 0, out, left.length, right.length);
+	return VaultCrypto.digest(out);
+    }
+
+    private static byte[] hash(final TreeMap<String, byte[]> bucket) {
+	final var out = new ByteArrayOutputStream(bucket.size() * OUT_LENGTH);
+	bucket.values().forEach(out::writeBytes);
+	return VaultCrypto.digest(out.toByteArray());
+    }
+
+    /**
+     * Tests if the tree contains an entry.
+     *
+     * @param uuid the UUID of the entry
+     * @return true if the entry has a hash
+     */
+    boolean contains(final String uuid) {
+	return buckets.get(bucket(uuid)).containsKey(uuid);
+    }
+
+    /**
+     * Tests if the tree contains an entry with this line.
+     *
+     * @param uuid the UUID of the entry
+     * @param line the line
+     * @return true if the entry has the same hash
+     */
+    boolean contains(final String uuid, final byte[] line) {
+	final var leaf = buckets.get(bucket(uuid)).get(uuid);
+	return MessageDigest.isEqual(leaf, leaf(line));
+    }
+
+    /**
+     * Gets the UUIDs of the entries that differ from another tree under the same
+     * key. Only the subtrees with different hashes are visited.
+     *
+     * @param other the other tree
+     * @return the UUIDs of the added, changed and removed entries
+     */
+    Set<String> diff(final MerkleTree other) {
+	final var changed = new LinkedHashSet<String>();
+	diff(other, 1, changed);
+	return changed;
+    }
+
+    private void diff(final MerkleTree other, final int node, final Set<String> changed) {
+	if (MessageDigest.isEqual(nodes[node], other.nodes[node])) {
+	    return;
+	}
+	if (node < BUCKETS) {
+	    diff(other, 2 * node, changed);
+	    diff(other, 2 * node + 1, changed);
+	    return;
+	}
+	final var mine = buckets.get(node - BUCKETS);
+	final var theirs = other.buckets.get(node - BUCKETS);
+	mine.forEach((uuid, leaf) -> {
+	    if (!MessageDigest.isEqual(leaf, theirs.get(uuid))) {
+		changed.add(uuid);
+	    }
+	});
+	theirs.keySet().stream().filter(uuid -> !mine.containsKey(uuid)).forEach(changed::add);
+    }
+
+    /**
+     * Tests if another tree uses the same key, so both can be compared.
+     *
+     * @param other the other tree
+     * @return true if the keys are equal
+     */
+    boolean isComparable(final MerkleTree other) {
+	return MessageDigest.isEqual(key, other.key);
+    }
+
+    private byte[] leaf(final byte[] line) {
+	return mac.doFinal(line);
+    }
+
+    /**
+     * Gets the root hash.
+     *
+     * @return the root
+     */
+    byte[] root() {
+	return nodes[1].clone();
+    }
+
+    /**
+     * Applies a change set and updates the paths of the changed buckets.
+     *
+     * @param changes the lines by UUID, null for deleted entries
+     */
+    void update(final Map<String, byte[]> changes) {
+	final var dirty = new BitSet(BUCKETS);
+	changes.forEach((uuid, line) -> {
+	    final var index = bucket(uuid);
+	    if (isNull(line)) {
+		buckets.get(index).remove(uuid);
+	    } else {
+		buckets.get(index).put(uuid, leaf(line));
+	    }
+	    dirty.set(index);
+	});
+	dirty.stream().forEach(index -> {
+	    var node = BUCKETS + index;
+	    nodes[node] = hash(buckets.get(index));
+	    while (node > 1) {
+		node >>= 1;
+		nodes[node] = hash(nodes[2 * node], nodes[2 * node + 1]);
+	    }
+	});
+    }
+
+    /**
+     * Gets the UUIDs of all entries.
+     *
+     * @return the UUIDs
+     */
+    Stream<String> uuids() {
+	return buckets.stream().flatMap(bucket -> bucket.keySet().stream());
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+
+import org.slf4j.Logger;
+
+import io.github.seerainer.secpwdman.config.PrimitiveConstants;
+import io.github.seerainer.secpwdman.config.StringConstants;
+import io.github.seerainer.secpwdman.crypto.CryptoConstants;
+import io.github.seerainer.secpwdman.crypto.VaultCrypto;
+import io.github.seerainer.secpwdman.util.LogFactory;
+
+/**
+ * The class Recovery.
+ *
+ * A snapshot of the unsaved changes next to the vault, written by the autosave.
+ * It holds the changed entries against the last saved state, identified by the
+ * root of the {@link MerkleTree} over all saved entries, so it stays valid when
+ * the journal is compacted. The change set is sealed under the recovery subkey with
+ * the header as additional authenticated data, and the snapshot is replaced as
+ * a whole on every write.
+ */
+class Recovery implements CryptoConstants, PrimitiveConstants, StringConstants {
+
+    private static final Logger LOG = LogFactory.getLog();
+
+    private static final byte[] MAGIC = { 'S', 'P', 'M', 'R' };
+
+    private static final int HEADER_LENGTH = MAGIC.length + 1 + OUT_LENGTH;
+
+    private Recovery() {
+    }
+
+    /**
+     * Deletes the snapshot.
+     *
+     * @param path the snapshot path
+     */
+    static void delete(final Path path) {
+	try {
+	    Files.deleteIfExists(path);
+	} catch (final IOException e) {
+	    LOG.warn(WARN, e);
+	}
+    }
+
+    /**
+     * Gets the path of the snapshot for a vault file.
+     *
+     * @param file the vault file
+     * @return the snapshot path
+     */
+    static Path getPath(final String file) {
+	return IOUtil.getPath(file + recoveryExt);
+    }
+
+    private static byte[] header(final byte[] stateId) {
+	return ByteBuffer.allocate(HEADER_LENGTH).put(MAGIC).put((byte) RECOVERY_VERSION).put(stateId).array();
+    }
+
+    /**
+     * Tests if the snapshot was written for the saved state.
+     *
+     * @param path    the snapshot path
+     * @param stateId the digest of the saved state
+     * @return true if the snapshot exists and belongs to the saved state
+     * @throws IOException if the snapshot cannot be read
+     */
+    static boolean matches(final Path path, final byte[] stateId) throws IOException {
+	if (!Files.isRegularFile(path)) {
+	    return false;
+	}
+	try (final var in = Files.newInputStream(path)) {
+	    return Arrays.equals(in.readNBytes(HEADER_LENGTH), header(stateId));
+	}
+    }
+
+    /**
+     * Reads the changes of the snapshot.
+     *
+     * @param path    the snapshot path
+     * @param key     the recovery subkey
+     * @param stateId the digest of the saved state
+     * @return the changed lines by UUID, null for deleted entries
+     * @throws IOException              if the snapshot cannot be read
+     * @throws GeneralSecurityException if the snapshot was tampered with
+     * @throws DataFormatException      if the snapshot is corrupt
+     */
+    static LinkedHashMap<String, byte[]> read(final Path path, final byte[] key, final byte[] stateId)
+	    throws IOException, GeneralSecurityException, DataFormatException {
+	final var bytes = Files.readAllBytes(path);
+	final var header = header(stateId);
+	final var sealed = Arrays.copyOfRange(bytes, HEADER_LENGTH, bytes.length);
+	final var plain = VaultCrypto.open(key, sealed, header);
+	return Journal.decode(IOUtil.inflate(plain, DeflateDictionary.preset(COMPRESS_PRESET)));
+    }
+
+    /**
+     * Replaces the snapshot.
+     *
+     * @param path    the snapshot path
+     * @param key     the recovery subkey
+     * @param stateId the digest of the saved state
+     * @param changes the changed lines by UUID, null for deleted entries
+     * @throws IOException              if the snapshot cannot be written
+     * @throws GeneralSecurityException if the snapshot cannot be sealed
+     */
+    static void write(final Path path, final byte[] key, final byte[] stateId, final Map<String, byte[]> changes)
+	    throws IOException, GeneralSecurityException {
+	final var header = header(stateId);
+	final var sealed = VaultCrypto.seal(key,
+		IOUtil.deflate(Journal.encode(changes), DeflateDictionary.preset(COMPRESS_PRESET)), header);
+	final var bytes = ByteBuffer.allocate(HEADER_LENGTH + sealed.length).put(header).put(sealed).array();
+	IO.save(path.toString(), bytes);
+    }
+}
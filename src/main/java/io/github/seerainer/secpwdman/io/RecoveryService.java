@@ -0,0 +1,177 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+
+import org.slf4j.Logger;
+
+import io.github.seerainer.secpwdman.config.ConfigData;
+import io.github.seerainer.secpwdman.config.StringConstants;
+import io.github.seerainer.secpwdman.crypto.CryptoConstants;
+import io.github.seerainer.secpwdman.util.LogFactory;
+import io.github.seerainer.secpwdman.util.Util;
+
+/**
+ * The class RecoveryService.
+ *
+ * Keeps the {@link Recovery} snapshot of the unsaved changes of the open vault
+ * file against the entry hashes of the saved state. A snapshot found when the
+ * file is opened is applied to its lines and kept until it is taken.
+ */
+public class RecoveryService implements CryptoConstants, StringConstants {
+
+    private static final Logger LOG = LogFactory.getLog();
+
+    private final VaultSession session;
+
+    private byte[] recovered;
+
+    RecoveryService(final VaultSession session) {
+	this.session = session;
+    }
+
+    void clear() {
+	Util.clear(recovered);
+	recovered = null;
+    }
+
+    void delete(final String filePath) {
+	Recovery.delete(Recovery.getPath(filePath));
+    }
+
+    /**
+     * Removes the recovery snapshot of the open vault file.
+     */
+    public void discard() {
+	final var lock = session.getLock();
+	lock.lock();
+	try {
+	    final var file = session.getFile();
+	    if (nonNull(file)) {
+		delete(file);
+	    }
+	} finally {
+	    lock.unlock();
+	}
+    }
+
+    boolean exists(final String filePath) {
+	return Files.exists(Recovery.getPath(filePath));
+    }
+
+    /**
+     * Applies the snapshot to the lines of the freshly opened vault file. A
+     * snapshot of another saved state is deleted.
+     *
+     * @param data    the vault data
+     * @param divider the divider of the lines
+     */
+    void recover(final byte[] data, final char divider) {
+	final var path = Recovery.getPath(session.getFile());
+	try {
+	    final var stateId = session.getHashes().get().root();
+	    if (!Recovery.matches(path, stateId)) {
+		LOG.warn(RECOVERY_STALE);
+		Recovery.delete(path);
+		return;
+	    }
+	    final var subKey = session.subKey(subRecovery);
+	    final var changes = Recovery.read(path, subKey, stateId);
+	    Util.clear(subKey);
+	    LOG.info(RECOVERY_FOUND, Integer.valueOf(changes.size()));
+	    final var rows = VaultRows.parse(data, divider);
+	    rows.apply(changes);
+	    recovered = rows.toBytes();
+	    rows.clear();
+	} catch (final IOException | GeneralSecurityException | DataFormatException e) {
+	    LOG.warn(WARN, e);
+	    Recovery.delete(path);
+	}
+    }
+
+    /**
+     * Writes the changes against the last saved state to the recovery snapshot.
+     * Does nothing if the session does not belong to the vault file.
+     *
+     * @param filePath the vault file
+     * @param cData    the config data
+     * @param data     the vault data
+     * @throws IOException              if the snapshot cannot be written
+     * @throws GeneralSecurityException if the snapshot cannot be sealed
+     */
+    void snapshot(final String filePath, final ConfigData cData, final byte[] data)
+	    throws IOException, GeneralSecurityException {
+	final var lock = session.getLock();
+	lock.lock();
+	try {
+	    if (!session.isOpen(filePath) || cData.isImport()) {
+		return;
+	    }
+	    final var rows = VaultRows.parse(data, cData.getDivider());
+	    if (isNull(rows)) {
+		return;
+	    }
+	    if (!Arrays.equals(rows.header(), session.getHeader())) {
+		rows.clear();
+		return;
+	    }
+	    final var tree = session.getHashes().get();
+	    final var changes = rows.diff(tree);
+	    final var path = Recovery.getPath(filePath);
+	    if (changes.isEmpty()) {
+		Recovery.delete(path);
+	    } else {
+		final var subKey = session.subKey(subRecovery);
+		Recovery.write(path, subKey, tree.root(), changes);
+		Util.clear(subKey);
+		LOG.info(RECOVERY_WRITTEN, Integer.valueOf(changes.size()));
+	    }
+	    rows.clear();
+	} finally {
+	    lock.unlock();
+	}
+    }
+
+    /**
+     * Takes the vault data with the changes of the recovery snapshot found when
+     * the vault file was opened.
+     *
+     * @return the recovered vault data, or null if there is none
+     */
+    public byte[] take() {
+	final var lock = session.getLock();
+	lock.lock();
+	try {
+	    final var data = recovered;
+	    recovered = null;
+	    return data;
+	} finally {
+	    lock.unlock();
+	}
+    }
+}
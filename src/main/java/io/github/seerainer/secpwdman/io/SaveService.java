@@ -0,0 +1,142 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.util.LinkedHashMap;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+
+import io.github.seerainer.secpwdman.config.StringConstants;
+import io.github.seerainer.secpwdman.util.LogFactory;
+
+/**
+ * The class SaveService.
+ *
+ * Runs saves one after another on a virtual thread. A save that is still
+ * waiting when a newer one for the same file is submitted is dropped, so only
+ * the latest snapshot is written.
+ */
+public class SaveService implements StringConstants {
+
+    /**
+     * A save task.
+     */
+    @FunctionalInterface
+    interface Task {
+
+	/**
+	 * Writes the snapshot.
+	 *
+	 * @throws Exception if the snapshot cannot be written
+	 */
+	void run() throws Exception;
+    }
+
+    private record Job(Task task, Runnable cleanup, Consumer<Exception> done) {
+    }
+
+    private static final Logger LOG = LogFactory.getLog();
+
+    private static SaveService instance;
+
+    private final LinkedHashMap<String, Job> pending = new LinkedHashMap<>();
+
+    private boolean running;
+
+    private SaveService() {
+    }
+
+    /**
+     * Gets the singleton instance of SaveService.
+     *
+     * @return the instance
+     */
+    public static synchronized SaveService getInstance() {
+	if (isNull(instance)) {
+	    instance = new SaveService();
+	}
+	return instance;
+    }
+
+    /**
+     * Waits until all submitted saves are written.
+     */
+    public synchronized void await() {
+	while (running) {
+	    try {
+		wait();
+	    } catch (final InterruptedException e) {
+		LOG.warn(WARN, e);
+		Thread.currentThread().interrupt();
+		return;
+	    }
+	}
+    }
+
+    private void process() {
+	for (var job = take(); nonNull(job); job = take()) {
+	    Exception error = null;
+	    try {
+		job.task().run();
+	    } catch (final Exception e) {
+		error = e;
+	    } finally {
+		job.cleanup().run();
+	    }
+	    job.done().accept(error);
+	}
+    }
+
+    /**
+     * Submits a save. The cleanup runs after the task or when the save is
+     * replaced by a newer one, the callback only if the task ran.
+     *
+     * @param file    the file to write
+     * @param task    the task writing the snapshot
+     * @param cleanup clears the snapshot
+     * @param done    called with null on success, otherwise with the error
+     */
+    synchronized void submit(final String file, final Task task, final Runnable cleanup,
+	    final Consumer<Exception> done) {
+	final var replaced = pending.remove(file);
+	if (nonNull(replaced)) {
+	    LOG.info(SAVE_COALESCED);
+	    replaced.cleanup().run();
+	}
+	pending.put(file, new Job(task, cleanup, done));
+	if (!running) {
+	    running = true;
+	    Thread.ofVirtual().start(this::process);
+	}
+    }
+
+    private synchronized Job take() {
+	if (pending.isEmpty()) {
+	    running = false;
+	    notifyAll();
+	    return null;
+	}
+	return pending.pollFirstEntry().getValue();
+    }
+}
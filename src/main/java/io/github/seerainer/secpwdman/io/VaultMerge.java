@@ -0,0 +1,199 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static java.util.Objects.isNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.github.seerainer.secpwdman.config.PrimitiveConstants;
+import io.github.seerainer.secpwdman.config.StringConstants;
+import io.github.seerainer.secpwdman.csv.CSVConfiguration;
+import io.github.seerainer.secpwdman.csv.CSVParseException;
+import io.github.seerainer.secpwdman.csv.CSVParser;
+import io.github.seerainer.secpwdman.csv.CSVRecord;
+import io.github.seerainer.secpwdman.csv.CSVParsingOptions;
+import io.github.seerainer.secpwdman.csv.CSVWriter;
+
+/**
+ * The class VaultMerge.
+ *
+ * A three-way merge of two versions of a vault that were changed independently
+ * since a common base. The raw lines of all three versions are indexed by the
+ * entry UUID, so adds, deletes and edits are found in one pass over the
+ * entries. Only entries changed on both sides are split into fields; an edit of
+ * different fields is merged, an edit of the same field or an edit against a
+ * delete is a conflict.
+ */
+public class VaultMerge implements PrimitiveConstants, StringConstants {
+
+    /**
+     * An entry that was changed differently on both sides. Both versions already
+     * contain the merged fields that did not conflict.
+     *
+     * @param uuid   the UUID of the entry
+     * @param local  the fields of the local version, null if it was deleted
+     * @param remote the fields of the remote version, null if it was deleted
+     * @param fields the indices of the conflicting fields, empty if one side
+     *               deleted the entry
+     */
+    public record Conflict(String uuid, String[] local, String[] remote, int[] fields) {
+    }
+
+    /**
+     * The result of a merge.
+     *
+     * @param changes   the lines by UUID to apply to the local version, null for
+     *                  deleted entries; conflicts keep the local version
+     * @param conflicts the conflicts
+     * @param divider   the CSV divider
+     */
+    public record Result(LinkedHashMap<String, byte[]> changes, List<Conflict> conflicts, char divider) {
+
+	/**
+	 * Gets the line of a conflict resolved to one side.
+	 *
+	 * @param conflict the conflict
+	 * @param remote   true to take the remote version
+	 * @return the line, or null if that side deleted the entry
+	 */
+	public byte[] resolve(final Conflict conflict, final boolean remote) {
+	    final var fields = remote ? conflict.remote() : conflict.local();
+	    return isNull(fields) ? null : toLine(fields, divider);
+	}
+    }
+
+    private VaultMerge() {
+    }
+
+    /**
+     * Splits a line into its fields.
+     *
+     * @param parser the CSV parser
+     * @param line   the line
+     * @return the fields, or null if the line is null
+     * @throws CSVParseException if the line is invalid
+     */
+    static String[] fields(final CSVParser parser, final byte[] line) throws CSVParseException {
+	if (isNull(line)) {
+	    return null;
+	}
+	final var data = Arrays.copyOf(line, line.length + 1);
+	data[line.length] = LF;
+	final var records = parser.parseByteArray(data);
+	final var fields = records.isEmpty() ? new String[0] : records.getFirst().getFields();
+	records.forEach(CSVRecord::clear);
+	return fields;
+    }
+
+    /**
+     * Merges the local and the remote version of a vault.
+     *
+     * @param base    the lines by UUID of the common base
+     * @param local   the lines by UUID of the local version
+     * @param remote  the lines by UUID of the remote version
+     * @param divider the CSV divider
+     * @return the changes to the local version and the conflicts
+     * @throws CSVParseException if a line changed on both sides is invalid
+     */
+    public static Result merge(final Map<String, byte[]> base, final Map<String, byte[]> local,
+	    final Map<String, byte[]> remote, final char divider) throws CSVParseException {
+	final var changes = new LinkedHashMap<String, byte[]>();
+	final var conflicts = new ArrayList<Conflict>();
+	final var config = CSVConfiguration.builder().delimiter(divider).build();
+	final var parser = new CSVParser(config, CSVParsingOptions.builder().build());
+	for (final var entry : local.entrySet()) {
+	    final var uuid = entry.getKey();
+	    merge(parser, uuid, base.get(uuid), entry.getValue(), remote.get(uuid), divider, changes, conflicts);
+	}
+	for (final var entry : remote.entrySet()) {
+	    final var uuid = entry.getKey();
+	    if (!local.containsKey(uuid)) {
+		merge(parser, uuid, base.get(uuid), null, entry.getValue(), divider, changes, conflicts);
+	    }
+	}
+	return new Result(changes, conflicts, divider);
+    }
+
+    private static void merge(final CSVParser parser, final String uuid, final byte[] base, final byte[] local,
+	    final byte[] remote, final char divider, final Map<String, byte[]> changes,
+	    final List<Conflict> conflicts) throws CSVParseException {
+	if (Arrays.equals(local, remote) || Arrays.equals(remote, base)) {
+	    return;
+	}
+	if (Arrays.equals(local, base)) {
+	    changes.put(uuid, isNull(remote) ? null : remote.clone());
+	    return;
+	}
+	final var localFields = fields(parser, local);
+	final var remoteFields = fields(parser, remote);
+	if (isNull(localFields) || isNull(remoteFields)) {
+	    conflicts.add(new Conflict(uuid, localFields, remoteFields, new int[0]));
+	    return;
+	}
+	final var baseFields = fields(parser, base);
+	final var length = Math.max(localFields.length, remoteFields.length);
+	final var merged = Arrays.copyOf(localFields, length);
+	final var other = Arrays.copyOf(remoteFields, length);
+	final var conflicting = new int[length];
+	var count = 0;
+	for (var i = 0; i < length; i++) {
+	    final var l = field(localFields, i);
+	    final var r = field(remoteFields, i);
+	    final var b = isNull(baseFields) ? null : field(baseFields, i);
+	    if (l.equals(r) || r.equals(b)) {
+		merged[i] = l;
+		other[i] = l;
+	    } else if (l.equals(b)) {
+		merged[i] = r;
+		other[i] = r;
+	    } else {
+		merged[i] = l;
+		other[i] = r;
+		conflicting[count++] = i;
+	    }
+	}
+	final var line = toLine(merged, divider);
+	if (!Arrays.equals(line, local)) {
+	    changes.put(uuid, line);
+	}
+	if (count > 0) {
+	    conflicts.add(new Conflict(uuid, merged, other, Arrays.copyOf(conflicting, count)));
+	}
+    }
+
+    private static String field(final String[] fields, final int index) {
+	return index < fields.length ? fields[index] : empty;
+    }
+
+    private static byte[] toLine(final String[] fields, final char divider) {
+	final var writer = new CSVWriter(CSVConfiguration.builder().delimiter(divider).build(), BUFFER_MIN);
+	for (final var field : fields) {
+	    writer.writeField(field);
+	}
+	final var line = writer.toByteArray();
+	writer.clear();
+	return line;
+    }
+}
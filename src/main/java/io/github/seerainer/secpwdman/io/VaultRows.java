@@ -0,0 +1,168 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import io.github.seerainer.secpwdman.config.PrimitiveConstants;
+import io.github.seerainer.secpwdman.util.Util;
+
+/**
+ * The record VaultRows.
+ *
+ * The vault data split into its raw CSV lines, keyed by the entry UUID in the
+ * first column. The lines are kept exactly as written by
+ * {@link io.github.seerainer.secpwdman.action.Action#extractData}, so they can
+ * be compared and replaced without parsing the fields.
+ *
+ * @param header the header line
+ * @param rows   the lines by UUID, in table order
+ */
+record VaultRows(byte[] header, LinkedHashMap<String, byte[]> rows) implements PrimitiveConstants {
+
+    /**
+     * Splits the vault data into lines. Line breaks inside quoted fields are
+     * respected.
+     *
+     * @param data    the vault data
+     * @param divider the CSV divider
+     * @return the rows, or null if an entry has no unique UUID
+     */
+    static VaultRows parse(final byte[] data, final char divider) {
+	final var rows = new LinkedHashMap<String, byte[]>();
+	byte[] header = null;
+	var quoted = false;
+	var start = 0;
+	for (var i = 0; i <= data.length; i++) {
+	    if (i < data.length) {
+		if (data[i] == QUOTE_CHAR) {
+		    quoted = !quoted;
+		}
+		if (quoted || data[i] != LF) {
+		    continue;
+		}
+	    }
+	    if (i == start) {
+		start = i + 1;
+		continue;
+	    }
+	    final var line = Arrays.copyOfRange(data, start, i);
+	    start = i + 1;
+	    if (isNull(header)) {
+		header = line;
+		continue;
+	    }
+	    final var uuid = uuidOf(line, divider);
+	    if (Util.isBlank(uuid) || nonNull(rows.putIfAbsent(uuid, line))) {
+		return null;
+	    }
+	}
+	return isNull(header) ? null : new VaultRows(header, rows);
+    }
+
+    private static String uuidOf(final byte[] line, final char divider) {
+	for (var i = 0; i < line.length; i++) {
+	    if (line[i] == QUOTE_CHAR) {
+		return null;
+	    }
+	    if (line[i] == divider) {
+		return new String(line, 0, i, UTF_8);
+	    }
+	}
+	return null;
+    }
+
+    /**
+     * Applies a change set. A null line deletes the entry, new entries are
+     * appended at the end.
+     *
+     * @param changes the lines by UUID
+     */
+    void apply(final Map<String, byte[]> changes) {
+	changes.forEach((uuid, line) -> {
+	    if (isNull(line)) {
+		Util.clear(rows.remove(uuid));
+	    } else {
+		rows.put(uuid, line);
+	    }
+	});
+    }
+
+    /**
+     * Clears all lines.
+     */
+    void clear() {
+	rows.values().forEach(Util::clear);
+	rows.clear();
+    }
+
+    /**
+     * Gets the changes against the entry hashes of an older version.
+     *
+     * @param tree the entry hashes of the older version
+     * @return the changed lines by UUID, null for deleted entries
+     */
+    LinkedHashMap<String, byte[]> diff(final MerkleTree tree) {
+	final var changes = new LinkedHashMap<String, byte[]>();
+	rows.forEach((uuid, line) -> {
+	    if (!tree.contains(uuid, line)) {
+		changes.put(uuid, line);
+	    }
+	});
+	tree.uuids().filter(uuid -> !rows.containsKey(uuid)).forEach(uuid -> changes.put(uuid, null));
+	return changes;
+    }
+
+    /**
+     * Gets the lines of some entries.
+     *
+     * @param uuids the UUIDs of the entries
+     * @return the lines by UUID, null for missing entries
+     */
+    LinkedHashMap<String, byte[]> select(final Set<String> uuids) {
+	final LinkedHashMap<String, byte[]> lines = LinkedHashMap.newLinkedHashMap(uuids.size());
+	uuids.forEach(uuid -> lines.put(uuid, rows.get(uuid)));
+	return lines;
+    }
+
+    /**
+     * Joins the lines to vault data again.
+     *
+     * @return the vault data
+     */
+    byte[] toBytes() {
+	final var out = new ByteArrayOutputStream(header.length + rows.size() * BUFFER_MIN);
+	out.writeBytes(header);
+	out.write(LF);
+	rows.values().forEach(line -> {
+	    out.writeBytes(line);
+	    out.write(LF);
+	});
+	return out.toByteArray();
+    }
+}
@@ -0,0 +1,488 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.zip.DataFormatException;
+
+import io.github.seerainer.secpwdman.config.PrimitiveConstants;
+import io.github.seerainer.secpwdman.config.StringConstants;
+import io.github.seerainer.secpwdman.crypto.CryptoConstants;
+import io.github.seerainer.secpwdman.crypto.VaultCrypto;
+import io.github.seerainer.secpwdman.csv.CSVConfiguration;
+import io.github.seerainer.secpwdman.csv.CSVParseException;
+import io.github.seerainer.secpwdman.csv.CSVParser;
+import io.github.seerainer.secpwdman.csv.CSVParsingOptions;
+import io.github.seerainer.secpwdman.csv.CSVRecord;
+import io.github.seerainer.secpwdman.util.Util;
+
+/**
+ * The class VaultSegments.
+ *
+ * The table data split by group. Every group is sealed as its own segment, and
+ * a small sealed index holds the header line, the groups with their number of
+ * rows and the group and length of every row in table order. Selecting a group
+ * opens only the index and the segment of that group, the entries of all other
+ * groups stay encrypted. The rows are split with the {@link CSVParser}.
+ *
+ * In the segmented layout of a vault file the index is the encrypted data of
+ * the file and the segments are stored beside it, sealed under a subkey of the
+ * key of the file. Opening such a file decrypts the index only, a segment is
+ * opened once its group is shown.
+ */
+public class VaultSegments implements CryptoConstants, PrimitiveConstants, StringConstants {
+
+    /**
+     * The table data split by group, before it is sealed.
+     *
+     * @param index    the index
+     * @param deflated true if the segments are compressed
+     * @param groups   the groups, in index order
+     * @param lines    the rows of every group, in index order
+     */
+    record Split(byte[] index, boolean deflated, List<String> groups, List<byte[]> lines) {
+
+	/**
+	 * Clears the index and the rows.
+	 */
+	void clear() {
+	    Util.clear(index);
+	    lines.forEach(Util::clear);
+	}
+    }
+
+    private record Layout(byte[] header, LinkedHashMap<String, int[]> lengths) {
+    }
+
+    private static final byte[] INDEX = {};
+
+    private final byte[] key;
+
+    private final byte[] index;
+
+    private final List<byte[]> segments;
+
+    private VaultSegments(final byte[] key, final byte[] index, final List<byte[]> segments) {
+	this.key = key;
+	this.index = index;
+	this.segments = segments;
+    }
+
+    /**
+     * Tests if the vault data starts with the default header line, only such data
+     * is written in the segmented layout.
+     *
+     * @param data    the vault data
+     * @param divider the CSV divider
+     * @return true if the group column is known
+     */
+    static boolean hasDefaultHeader(final byte[] data, final char divider) {
+	final var header = (String.join(String.valueOf(divider), csvHeader) + LF).getBytes(UTF_8);
+	return data.length >= header.length && Arrays.equals(data, 0, header.length, header, 0, header.length);
+    }
+
+    private static byte[] join(final byte[] data, final List<int[]> lines) {
+	var length = 0;
+	for (final var line : lines) {
+	    length += line[1] - line[0] + 1;
+	}
+	final var out = new byte[length];
+	var offset = 0;
+	for (final var line : lines) {
+	    System.arraycopy(data, line[0], out, offset, line[1] - line[0]);
+	    offset += line[1] - line[0];
+	    out[offset++] = LF;
+	}
+	return out;
+    }
+
+    // the header line and the lengths of the rows of every group, in index order
+    private static Layout layout(final DataInputStream in) throws IOException {
+	in.readBoolean();
+	final var header = read(in);
+	final var count = in.readInt();
+	final var names = new String[count];
+	final var lengths = new int[count][];
+	for (var i = 0; i < count; i++) {
+	    names[i] = new String(read(in), UTF_8);
+	    lengths[i] = new int[in.readInt()];
+	}
+	final var filled = new int[count];
+	final var rows = in.readInt();
+	for (var i = 0; i < rows; i++) {
+	    final var number = in.readInt();
+	    lengths[number][filled[number]++] = in.readInt();
+	}
+	final LinkedHashMap<String, int[]> groups = LinkedHashMap.newLinkedHashMap(count);
+	for (var i = 0; i < count; i++) {
+	    groups.put(names[i], lengths[i]);
+	}
+	return new Layout(header, groups);
+    }
+
+    /**
+     * Takes the segments of a vault file in the segmented layout. Only the index
+     * is sealed again, the segments are kept as they are stored.
+     *
+     * @param fileKey  the key of the vault file
+     * @param index    the decrypted index, cleared afterwards
+     * @param segments the sealed segments
+     * @return the segments
+     * @throws IOException              if the index does not match the segments
+     * @throws GeneralSecurityException if the index cannot be sealed
+     */
+    static VaultSegments load(final byte[] fileKey, final byte[] index, final List<byte[]> segments)
+	    throws IOException, GeneralSecurityException {
+	final var key = VaultCrypto.subKey(fileKey, subSegment);
+	final var loaded = new VaultSegments(key, VaultCrypto.seal(key, index, INDEX), new ArrayList<>(segments));
+	if (loaded.groups().size() != segments.size()) {
+	    loaded.clear();
+	    throw new IOException(segmentsInvalid);
+	}
+	return loaded;
+    }
+
+    private static byte[] read(final DataInputStream in) throws IOException {
+	final var bytes = new byte[in.readInt()];
+	in.readFully(bytes);
+	return bytes;
+    }
+
+    /**
+     * Seals the segments of the segmented layout of a vault file.
+     *
+     * @param fileKey the key of the vault file
+     * @param split   the split vault data, cleared afterwards
+     * @return the sealed segments, in index order
+     * @throws GeneralSecurityException if a segment cannot be sealed
+     */
+    static List<byte[]> seal(final byte[] fileKey, final Split split) throws GeneralSecurityException {
+	final var key = VaultCrypto.subKey(fileKey, subSegment);
+	try {
+	    return segments(key, split, _ -> null);
+	} finally {
+	    Util.clear(key);
+	    split.clear();
+	}
+    }
+
+    /**
+     * Splits the table data by group and seals every group.
+     *
+     * @param dataKey the data key
+     * @param data    the table data with the header line
+     * @param divider the CSV divider
+     * @param column  the group column, -1 keeps all entries in one segment
+     * @return the segments
+     * @throws IOException              if the table data cannot be parsed
+     * @throws GeneralSecurityException if a segment cannot be sealed
+     */
+    public static VaultSegments seal(final byte[] dataKey, final byte[] data, final char divider, final int column)
+	    throws IOException, GeneralSecurityException {
+	final var split = split(data, divider, column, false);
+	final var key = VaultCrypto.subKey(dataKey, subSegment);
+	try {
+	    return new VaultSegments(key, VaultCrypto.seal(key, split.index(), INDEX), segments(key, split, _ -> null));
+	} finally {
+	    split.clear();
+	}
+    }
+
+    private static List<byte[]> segments(final byte[] key, final Split split, final Function<String, byte[]> kept)
+	    throws GeneralSecurityException {
+	final var count = split.groups().size();
+	final List<byte[]> segments = new ArrayList<>(count);
+	for (var i = 0; i < count; i++) {
+	    final var group = split.groups().get(i);
+	    final var segment = kept.apply(group);
+	    if (nonNull(segment)) {
+		segments.add(segment);
+		continue;
+	    }
+	    final var lines = split.lines().get(i);
+	    segments.add(VaultCrypto.seal(key,
+		    split.deflated() ? IOUtil.deflate(lines, DeflateDictionary.preset(COMPRESS_PRESET)) : lines,
+		    group.getBytes(UTF_8)));
+	}
+	return segments;
+    }
+
+    /**
+     * Splits the table data by group. The records are found by the
+     * {@link CSVParser}, a line break in a quoted field stays in its row.
+     *
+     * @param data     the table data with the header line
+     * @param divider  the CSV divider
+     * @param column   the group column, -1 keeps all entries in one group
+     * @param deflated true if the segments are going to be compressed
+     * @return the index and the rows by group
+     * @throws IOException if the table data cannot be parsed
+     */
+    static Split split(final byte[] data, final char divider, final int column, final boolean deflated)
+	    throws IOException {
+	final var config = CSVConfiguration.builder().delimiter(divider).build();
+	final var parser = new CSVParser(config, CSVParsingOptions.builder().skipEmptyLines(true).build());
+	final var copy = data.clone();
+	final List<CSVRecord> records;
+	try {
+	    records = parser.parseByteArray(copy);
+	} catch (final CSVParseException e) {
+	    throw new IOException(e);
+	}
+	final var groups = new ArrayList<String>();
+	final Map<String, Integer> numbers = new HashMap<>();
+	final var ranges = new ArrayList<List<int[]>>();
+	final var rows = new ArrayList<int[]>();
+	byte[] header = null;
+	try {
+	    for (final var record : records) {
+		final var start = record.getOffset();
+		var end = start + record.getLength();
+		if (end > start && copy[end - 1] == LF) {
+		    end--;
+		}
+		if (end > start && copy[end - 1] == CR) {
+		    end--;
+		}
+		if (end == start) {
+		    continue;
+		}
+		if (isNull(header)) {
+		    header = Arrays.copyOfRange(copy, start, end);
+		    continue;
+		}
+		final var group = column < 0 || column >= record.getFieldCount() ? empty : record.getField(column);
+		var number = numbers.get(group);
+		if (isNull(number)) {
+		    number = Integer.valueOf(groups.size());
+		    numbers.put(group, number);
+		    groups.add(group);
+		    ranges.add(new ArrayList<>());
+		}
+		ranges.get(number.intValue()).add(new int[] { start, end });
+		rows.add(new int[] { number.intValue(), end - start });
+	    }
+	    final var out = new ByteArrayOutputStream();
+	    final var index = new DataOutputStream(out);
+	    index.writeBoolean(deflated);
+	    index.writeInt(isNull(header) ? 0 : header.length);
+	    index.write(isNull(header) ? new byte[0] : header);
+	    index.writeInt(groups.size());
+	    for (var i = 0; i < groups.size(); i++) {
+		final var name = groups.get(i).getBytes(UTF_8);
+		index.writeInt(name.length);
+		index.write(name);
+		index.writeInt(ranges.get(i).size());
+	    }
+	    index.writeInt(rows.size());
+	    for (final var row : rows) {
+		index.writeInt(row[0]);
+		index.writeInt(row[1]);
+	    }
+	    final List<byte[]> lines = new ArrayList<>(groups.size());
+	    ranges.forEach(range -> lines.add(join(copy, range)));
+	    return new Split(out.toByteArray(), deflated, groups, lines);
+	} finally {
+	    Util.clear(header);
+	    records.forEach(CSVRecord::clear);
+	    Util.clear(copy);
+	}
+    }
+
+    /**
+     * Clears the subkey, the segments cannot be opened afterwards.
+     */
+    public void clear() {
+	Util.clear(key);
+	segments.clear();
+    }
+
+    /**
+     * Copies the segments under a copy of the subkey, so the copy stays open when
+     * this one is cleared.
+     *
+     * @return the copy
+     */
+    public VaultSegments copy() {
+	return new VaultSegments(key.clone(), index, new ArrayList<>(segments));
+    }
+
+    /**
+     * Gets the groups from the index.
+     *
+     * @return the number of rows by group, in the order they first appear
+     * @throws IOException              if the index is invalid
+     * @throws GeneralSecurityException if the index was tampered with
+     */
+    public LinkedHashMap<String, Integer> groups() throws IOException, GeneralSecurityException {
+	final var in = openIndex();
+	in.readBoolean();
+	Util.clear(read(in));
+	final var count = in.readInt();
+	final LinkedHashMap<String, Integer> groups = LinkedHashMap.newLinkedHashMap(count);
+	for (var i = 0; i < count; i++) {
+	    groups.put(new String(read(in), UTF_8), Integer.valueOf(in.readInt()));
+	}
+	return groups;
+    }
+
+    /**
+     * Gets the header line from the index.
+     *
+     * @return the header line
+     * @throws IOException              if the index is invalid
+     * @throws GeneralSecurityException if the index was tampered with
+     */
+    byte[] header() throws IOException, GeneralSecurityException {
+	final var in = openIndex();
+	in.readBoolean();
+	return read(in);
+    }
+
+    /**
+     * Opens the header line and the entries of a group.
+     *
+     * @param group the group, null for all groups in table order
+     * @return the table data with the header line
+     * @throws IOException              if the index is invalid
+     * @throws GeneralSecurityException if a segment was tampered with
+     */
+    public byte[] open(final String group) throws IOException, GeneralSecurityException {
+	final var in = openIndex();
+	final var deflated = in.readBoolean();
+	final var header = read(in);
+	final var out = new ByteArrayOutputStream();
+	out.writeBytes(header);
+	out.write(LF);
+	Util.clear(header);
+	final var count = in.readInt();
+	final var groups = new ArrayList<String>(count);
+	for (var i = 0; i < count; i++) {
+	    groups.add(new String(read(in), UTF_8));
+	    in.readInt();
+	}
+	if (isNull(group)) {
+	    final var lines = new byte[count][];
+	    final var offsets = new int[count];
+	    try {
+		for (var i = 0; i < count; i++) {
+		    lines[i] = segment(i, groups.get(i), deflated);
+		}
+		final var rows = in.readInt();
+		for (var i = 0; i < rows; i++) {
+		    final var number = in.readInt();
+		    final var length = in.readInt();
+		    out.write(lines[number], offsets[number], length + 1);
+		    offsets[number] += length + 1;
+		}
+	    } finally {
+		Arrays.stream(lines).forEach(Util::clear);
+	    }
+	} else {
+	    final var number = groups.indexOf(group);
+	    if (number >= 0) {
+		final var lines = segment(number, group, deflated);
+		out.writeBytes(lines);
+		Util.clear(lines);
+	    }
+	}
+	return out.toByteArray();
+    }
+
+    private DataInputStream openIndex() throws GeneralSecurityException {
+	return new DataInputStream(new ByteArrayInputStream(VaultCrypto.open(key, index, INDEX)));
+    }
+
+    private byte[] segment(final int number, final String group, final boolean deflated)
+	    throws IOException, GeneralSecurityException {
+	final var lines = VaultCrypto.open(key, segments.get(number), group.getBytes(UTF_8));
+	if (!deflated) {
+	    return lines;
+	}
+	try {
+	    return IOUtil.inflate(lines, DeflateDictionary.preset(COMPRESS_PRESET));
+	} catch (final DataFormatException e) {
+	    throw new IOException(e);
+	}
+    }
+
+    /**
+     * Splits the table data by group like {@link #seal(byte[], byte[], char, int)},
+     * but seals only the changed groups again. Every other group keeps its
+     * segment if it is sealed under the same data key, the header line is the
+     * same and its rows have the same lengths, as the index slices the segment
+     * by them.
+     *
+     * @param dataKey the data key
+     * @param data    the table data with the header line
+     * @param divider the CSV divider
+     * @param column  the group column, -1 keeps all entries in one segment
+     * @param changed the groups whose entries changed
+     * @return the segments
+     * @throws IOException              if the table data cannot be parsed
+     * @throws GeneralSecurityException if a segment cannot be sealed
+     */
+    public VaultSegments update(final byte[] dataKey, final byte[] data, final char divider, final int column,
+	    final Set<String> changed) throws IOException, GeneralSecurityException {
+	final var split = split(data, divider, column, false);
+	final var subKey = VaultCrypto.subKey(dataKey, subSegment);
+	try {
+	    final Map<String, byte[]> kept = HashMap.newHashMap(segments.size());
+	    if (MessageDigest.isEqual(key, subKey)) {
+		final var before = layout(openIndex());
+		final var after = layout(new DataInputStream(new ByteArrayInputStream(split.index())));
+		if (Arrays.equals(before.header(), after.header())) {
+		    var number = 0;
+		    for (final var group : before.lengths().entrySet()) {
+			final var name = group.getKey();
+			if (!changed.contains(name) && Arrays.equals(group.getValue(), after.lengths().get(name))) {
+			    kept.put(name, segments.get(number));
+			}
+			number++;
+		    }
+		}
+		Util.clear(before.header());
+		Util.clear(after.header());
+	    }
+	    return new VaultSegments(subKey, VaultCrypto.seal(subKey, split.index(), INDEX),
+		    segments(subKey, split, kept::get));
+	} finally {
+	    split.clear();
+	}
+    }
+}
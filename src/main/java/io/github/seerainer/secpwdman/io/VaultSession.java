@@ -0,0 +1,584 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static io.github.seerainer.secpwdman.util.Util.clear;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.security.GeneralSecurityException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+
+import org.slf4j.Logger;
+
+import io.github.seerainer.secpwdman.config.ConfigData;
+import io.github.seerainer.secpwdman.config.StringConstants;
+import io.github.seerainer.secpwdman.crypto.Crypto;
+import io.github.seerainer.secpwdman.crypto.CryptoConstants;
+import io.github.seerainer.secpwdman.crypto.VaultCrypto;
+import io.github.seerainer.secpwdman.util.FileWatcher;
+import io.github.seerainer.secpwdman.util.LogFactory;
+import io.github.seerainer.secpwdman.util.Util;
+
+/**
+ * The class VaultSession.
+ *
+ * Keeps the key and path state of the open vault file between saves: the path,
+ * size and digest of the file on disk, the layout of its lines and the entry
+ * key. The entry key is random and kept over full saves, sealed in the file
+ * header under the key the vault file is encrypted with, so opening a file
+ * needs no key derivation besides the one of the file itself.
+ *
+ * The features of the session are services that share its lock and use keys
+ * derived from the entry key: the entry hashes ({@link HashService}), the
+ * sealed last saved state ({@link BaseService}), the {@link JournalService},
+ * the {@link RecoveryService}, the {@link HistoryService}, the
+ * {@link BackupService}, the {@link AttachmentService} and the
+ * {@link MergeService} with the changes of another program.
+ */
+public class VaultSession implements CryptoConstants, StringConstants {
+
+    private static final Logger LOG = LogFactory.getLog();
+
+    private static VaultSession instance;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final AttachmentService attachments = new AttachmentService(this);
+    private final BackupService backups = new BackupService(this);
+    private final BaseService base = new BaseService(this);
+    private final HashService hashes = new HashService(this);
+    private final HistoryService history = new HistoryService(this);
+    private final JournalService journal = new JournalService(this);
+    private final MergeService merge = new MergeService(this);
+    private final RecoveryService recovery = new RecoveryService(this);
+
+    private byte[] baseId;
+    private long baseSize;
+    private FileTime baseTime;
+    private char divider;
+    private String file;
+    private int generation;
+    private byte[] header;
+    private byte[] merkleKey;
+    private String params;
+
+    private VaultSession() {
+    }
+
+    /**
+     * Gets the singleton instance of VaultSession.
+     *
+     * @return the instance
+     */
+    public static synchronized VaultSession getInstance() {
+	if (isNull(instance)) {
+	    instance = new VaultSession();
+	}
+	return instance;
+    }
+
+    private static byte[] decode(final String value) {
+	return Util.getBase64Decode(Objects.toString(value, empty).getBytes(UTF_8));
+    }
+
+    private static String encode(final byte[] value) {
+	return new String(Util.getBase64Encode(value), UTF_8);
+    }
+
+    private static boolean isDefaultHeader(final byte[] header, final char divider) {
+	return String.join(String.valueOf(divider), csvHeader).equals(new String(header, UTF_8));
+    }
+
+    /**
+     * Closes the session and clears the vault key. Waits for a running
+     * compaction. The recovery snapshot is removed, as the changes were either
+     * saved or discarded.
+     */
+    public void close() {
+	lock.lock();
+	try {
+	    if (nonNull(file)) {
+		recovery.delete(file);
+		final var watcher = FileWatcher.getInstance();
+		watcher.unwatch(IOUtil.getPath(file));
+		watcher.unwatch(Journal.getPath(file));
+	    }
+	    reset();
+	} finally {
+	    lock.unlock();
+	}
+    }
+
+    /**
+     * Gets the attachments of the open vault file.
+     *
+     * @return the attachment service
+     */
+    public AttachmentService getAttachments() {
+	return attachments;
+    }
+
+    /**
+     * Gets the versioned backups of the open vault file.
+     *
+     * @return the backup service
+     */
+    public BackupService getBackups() {
+	return backups;
+    }
+
+    BaseService getBase() {
+	return base;
+    }
+
+    byte[] getBaseId() {
+	return baseId;
+    }
+
+    long getBaseSize() {
+	return baseSize;
+    }
+
+    char getDivider() {
+	return divider;
+    }
+
+    String getFile() {
+	return file;
+    }
+
+    int getGeneration() {
+	return generation;
+    }
+
+    HashService getHashes() {
+	return hashes;
+    }
+
+    byte[] getHeader() {
+	return header;
+    }
+
+    /**
+     * Gets the older versions of the entries of the open vault file.
+     *
+     * @return the history service
+     */
+    public HistoryService getHistory() {
+	return history;
+    }
+
+    JournalService getJournal() {
+	return journal;
+    }
+
+    /**
+     * Gets the entry key. It stays with the session and must not be changed.
+     *
+     * @return the entry key, or null if no vault file is open
+     */
+    byte[] getKey() {
+	return merkleKey;
+    }
+
+    ReentrantLock getLock() {
+	return lock;
+    }
+
+    MergeService getMerge() {
+	return merge;
+    }
+
+    String getParams() {
+	return params;
+    }
+
+    /**
+     * Gets the recovery snapshot of the open vault file.
+     *
+     * @return the recovery service
+     */
+    public RecoveryService getRecovery() {
+	return recovery;
+    }
+
+    /**
+     * Tests if the vault file is unchanged on disk since the last open or save.
+     *
+     * @return true if the size and modification time are the same
+     */
+    boolean isBaseUnchanged() {
+	try {
+	    final var path = IOUtil.getPath(file);
+	    return Files.size(path) == baseSize && Files.getLastModifiedTime(path).equals(baseTime);
+	} catch (final IOException e) {
+	    LOG.warn(WARN, e);
+	    return false;
+	}
+    }
+
+    /**
+     * Tests if the vault file is open in this session. The caller holds the lock.
+     *
+     * @param filePath the vault file
+     * @return true if the session has the entry key of the vault file
+     */
+    boolean isOpen(final String filePath) {
+	return nonNull(merkleKey) && Objects.equals(filePath, file);
+    }
+
+    /**
+     * Starts a session for a freshly decrypted vault file and replays its journal.
+     * The entry key is opened with the key the file was decrypted with. The entry
+     * hashes are checked against the root in the file header. A recovery snapshot
+     * of the saved state is kept for {@link RecoveryService#take}.
+     *
+     * @param filePath  the vault file
+     * @param fileBytes the content of the vault file
+     * @param cData     the config data with the values of the file header
+     * @param fileKey   the key the vault file was decrypted with
+     * @param data      the decrypted vault data
+     * @return the vault data with all journal records applied
+     * @throws IOException              if the journal cannot be read
+     * @throws GeneralSecurityException if the journal was tampered with
+     * @throws DataFormatException      if the journal is corrupt
+     */
+    byte[] open(final String filePath, final byte[] fileBytes, final ConfigData cData, final byte[] fileKey,
+	    final byte[] data) throws IOException, GeneralSecurityException, DataFormatException {
+	lock.lock();
+	try {
+	    reset();
+	    final var rows = VaultRows.parse(data, cData.getDivider());
+	    if (isNull(rows)) {
+		return data;
+	    }
+	    if (!isDefaultHeader(rows.header(), cData.getDivider()) || !openKey(cData, fileKey)) {
+		rows.clear();
+		return data;
+	    }
+	    final var root = decode(cData.getMerkleRoot());
+	    final var digest = VaultCrypto.digest(fileBytes);
+	    final var replay = journal.matches(filePath, digest);
+	    var result = data;
+	    if (replay) {
+		HashService.verify(new MerkleTree(merkleKey, rows.rows()), root);
+		journal.replay(filePath, digest, rows);
+		result = rows.toBytes();
+		clear(data);
+	    }
+	    rebase(filePath, digest, cData, rows);
+	    if (!replay) {
+		hashes.expect(root);
+	    }
+	    if (recovery.exists(filePath)) {
+		recovery.recover(result, cData.getDivider());
+	    }
+	    return result;
+	} finally {
+	    lock.unlock();
+	}
+    }
+
+    /**
+     * Starts a session for a vault file in the segmented layout. Without a journal
+     * to replay or a recovery snapshot the segments stay sealed, they are kept as
+     * the base and opened once the lines of the saved state are needed.
+     *
+     * @param filePath  the vault file
+     * @param fileBytes the content of the vault file
+     * @param cData     the config data with the values of the file header
+     * @param fileKey   the key the vault file was decrypted with
+     * @param segments  the segments of the vault file
+     * @return the vault data with all journal records applied, or null if the
+     *         segments stay sealed
+     * @throws IOException              if the journal cannot be read
+     * @throws GeneralSecurityException if a segment or the journal was tampered
+     *                                  with
+     * @throws DataFormatException      if the journal is corrupt
+     */
+    byte[] open(final String filePath, final byte[] fileBytes, final ConfigData cData, final byte[] fileKey,
+	    final VaultSegments segments) throws IOException, GeneralSecurityException, DataFormatException {
+	lock.lock();
+	try {
+	    final var digest = VaultCrypto.digest(fileBytes);
+	    if (journal.matches(filePath, digest) || recovery.exists(filePath)) {
+		return open(filePath, fileBytes, cData, fileKey, segments.open(null));
+	    }
+	    reset();
+	    final var rowsHeader = segments.header();
+	    if (!isDefaultHeader(rowsHeader, cData.getDivider()) || !openKey(cData, fileKey)) {
+		return null;
+	    }
+	    rebase(filePath, digest, cData, rowsHeader);
+	    base.setSource(segments.copy());
+	    hashes.expect(decode(cData.getMerkleRoot()));
+	    return null;
+	} finally {
+	    lock.unlock();
+	}
+    }
+
+    private boolean openKey(final ConfigData cData, final byte[] fileKey) {
+	final var wrapped = decode(cData.getMerkleKey());
+	if (isNull(fileKey) || isNull(wrapped) || wrapped.length == 0) {
+	    return false;
+	}
+	final var subKey = VaultCrypto.subKey(fileKey, subMerkle);
+	try {
+	    merkleKey = VaultCrypto.open(subKey, wrapped, subMerkle.getBytes(UTF_8));
+	    return true;
+	} catch (final GeneralSecurityException e) {
+	    // without the entry key neither the journal nor the history can be read, the
+	    // next save starts over with a new one
+	    LOG.warn(WARN, e);
+	    return false;
+	} finally {
+	    clear(subKey);
+	}
+    }
+
+    /**
+     * Tests if the session belongs to the vault file.
+     *
+     * @param filePath the vault file
+     * @return true if the vault file is open in this session
+     */
+    boolean owns(final String filePath) {
+	lock.lock();
+	try {
+	    return isOpen(filePath);
+	} finally {
+	    lock.unlock();
+	}
+    }
+
+    private void rebase(final String filePath, final byte[] digest, final ConfigData cData, final byte[] rowsHeader)
+	    throws IOException {
+	final var path = IOUtil.getPath(filePath);
+	file = filePath;
+	baseId = digest;
+	baseSize = Files.size(path);
+	baseTime = Files.getLastModifiedTime(path);
+	params = JsonUtil.getParams(cData);
+	header = rowsHeader;
+	divider = cData.getDivider();
+	hashes.clear();
+	journal.rebase(filePath);
+	generation++;
+    }
+
+    private void rebase(final String filePath, final byte[] digest, final ConfigData cData, final VaultRows rows)
+	    throws IOException, GeneralSecurityException {
+	rebase(filePath, digest, cData, rows.header());
+	base.set(rows);
+	rows.clear();
+    }
+
+    private void reset() {
+	// the history of the appended changes is written before the base is dropped
+	base.flush();
+	recovery.clear();
+	base.clear();
+	journal.clear();
+	clear(merkleKey);
+	merkleKey = null;
+	hashes.clear();
+	baseId = null;
+	baseTime = null;
+	file = null;
+	header = null;
+	params = null;
+	generation++;
+    }
+
+    /**
+     * Saves the vault data. If the session belongs to the same vault file and
+     * nothing but entries changed, only the changes are appended to the journal.
+     * Otherwise the whole vault file is written, with the entry key of the
+     * session sealed under the key of the new file. A versioned backup is added if
+     * enabled.
+     *
+     * @param filePath the vault file
+     * @param cData    a copy of the config data, receives the values of the new
+     *                 file header
+     * @param data     the vault data
+     * @param password the master password
+     * @throws IOException              if the file cannot be written
+     * @throws GeneralSecurityException if the data cannot be encrypted
+     */
+    void save(final String filePath, final ConfigData cData, final byte[] data, final byte[] password)
+	    throws IOException, GeneralSecurityException {
+	save(filePath, cData, data, null, password, null);
+    }
+
+    /**
+     * Saves the vault data, as {@link #save(String, ConfigData, byte[], byte[])}
+     * does. The lines of the entries changed since the last save are given, so an
+     * append only compares those with the saved state. If the append starts a
+     * compaction, the header of the new vault file is handed over once it is
+     * written.
+     *
+     * @param filePath  the vault file
+     * @param cData     a copy of the config data, receives the values of the new
+     *                  file header
+     * @param data      the vault data
+     * @param lines     the lines of the changed entries by UUID, null for deleted
+     *                  entries, or null to compare all entries
+     * @param password  the master password
+     * @param compacted receives the config data with the header of the compacted
+     *                  vault file on the compaction thread, may be null
+     * @throws IOException              if the file cannot be written
+     * @throws GeneralSecurityException if the data cannot be encrypted
+     */
+    void save(final String filePath, final ConfigData cData, final byte[] data, final Map<String, byte[]> lines,
+	    final byte[] password, final Consumer<ConfigData> compacted) throws IOException, GeneralSecurityException {
+	lock.lock();
+	try {
+	    if (!journal.append(filePath, cData, data, lines, password, compacted)) {
+		write(filePath, cData, data, password);
+	    }
+	    recovery.delete(filePath);
+	    if (cData.isBackup() && isOpen(filePath)) {
+		backups.add(data);
+	    }
+	    if (isOpen(filePath) && Files.isDirectory(AttachmentStore.getPath(file))) {
+		attachments.retain();
+	    }
+	} finally {
+	    lock.unlock();
+	}
+    }
+
+    /**
+     * Derives the key of a feature from the entry key.
+     *
+     * @param filePath the vault file
+     * @param label    the label of the feature
+     * @return the key, or null if the session does not belong to the file
+     */
+    byte[] secret(final String filePath, final String label) {
+	lock.lock();
+	try {
+	    return isOpen(filePath) ? subKey(label) : null;
+	} finally {
+	    lock.unlock();
+	}
+    }
+
+    /**
+     * Derives the key of a feature from the entry key. The caller holds the lock
+     * and has checked that a vault file is open.
+     *
+     * @param label the label of the feature
+     * @return the key
+     */
+    byte[] subKey(final String label) {
+	return VaultCrypto.subKey(merkleKey, label);
+    }
+
+    /**
+     * Takes over the modification time of the vault file after the records
+     * another program appended to the journal were read.
+     *
+     * @throws IOException if the modification time cannot be read
+     */
+    void touch() throws IOException {
+	baseTime = Files.getLastModifiedTime(IOUtil.getPath(file));
+    }
+
+    /**
+     * Updates the entry hashes with the changes of an append or of the journal.
+     *
+     * @param changes the changed lines by UUID, null for deleted entries
+     * @throws GeneralSecurityException if the saved state cannot be opened
+     */
+    void update(final Map<String, byte[]> changes) throws GeneralSecurityException {
+	hashes.get().update(changes);
+	generation++;
+    }
+
+    /**
+     * Writes the whole vault file and moves the session to it. The entry key is
+     * kept if the session belongs to the vault file.
+     *
+     * @param filePath the vault file
+     * @param cData    a copy of the config data, receives the values of the new
+     *                 file header
+     * @param data     the vault data
+     * @param password the master password
+     * @throws IOException              if the file cannot be written
+     * @throws GeneralSecurityException if the data cannot be encrypted
+     */
+    void write(final String filePath, final ConfigData cData, final byte[] data, final byte[] password)
+	    throws IOException, GeneralSecurityException {
+	final var rows = VaultRows.parse(data, cData.getDivider());
+	final var keep = nonNull(rows) && !cData.isImport() && isDefaultHeader(rows.header(), cData.getDivider());
+	final byte[] entryKey;
+	MerkleTree entries = null;
+	if (keep) {
+	    if (isOpen(filePath)) {
+		history.record(rows.diff(hashes.get()));
+		entryKey = merkleKey.clone();
+	    } else {
+		entryKey = Crypto.getRandomValue(OUT_LENGTH);
+	    }
+	    entries = new MerkleTree(entryKey, rows.rows());
+	    cData.setMerkleRoot(encode(entries.root()));
+	} else {
+	    entryKey = null;
+	    cData.setMerkleKey(null);
+	    cData.setMerkleRoot(null);
+	}
+	// sealing compresses and clears its input, the data is still needed for the backup
+	final var sealed = data.clone();
+	final byte[] fileBytes;
+	try {
+	    fileBytes = IO.seal(cData, sealed, password, keep ? fileKey -> {
+		final var subKey = VaultCrypto.subKey(fileKey, subMerkle);
+		try {
+		    cData.setMerkleKey(encode(VaultCrypto.seal(subKey, entryKey.clone(), subMerkle.getBytes(UTF_8))));
+		} finally {
+		    clear(subKey);
+		}
+	    } : null);
+	} finally {
+	    clear(sealed);
+	}
+	IO.save(filePath, fileBytes);
+	journal.delete(filePath);
+	reset();
+	if (keep) {
+	    merkleKey = entryKey;
+	    rebase(filePath, VaultCrypto.digest(fileBytes), cData, rows);
+	    hashes.set(entries);
+	} else if (nonNull(rows)) {
+	    rows.clear();
+	}
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.store;
+
+/**
+ * The interface EntryListener.
+ *
+ * Receives the changes of an {@link EntryStore}. The listeners are called on
+ * the thread that changed the store, after the change is made.
+ */
+@FunctionalInterface
+public interface EntryListener {
+
+    /**
+     * The kind of change.
+     */
+    enum Change {
+	/** An entry was added at the end. */
+	ADDED,
+	/** The fields of an entry were replaced. */
+	UPDATED,
+	/** An entry was removed. */
+	REMOVED,
+	/** The store was cleared or reordered, the key and fields are null. */
+	RESET
+    }
+
+    /**
+     * Called after the store changed.
+     *
+     * @param change the change
+     * @param key    the key of the entry
+     * @param fields the fields of the entry
+     */
+    void changed(Change change, String key, String[] fields);
+}
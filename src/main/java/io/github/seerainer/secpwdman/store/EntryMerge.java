@@ -0,0 +1,320 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.store;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SequencedSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import io.github.seerainer.secpwdman.util.EntryIndex;
+import io.github.seerainer.secpwdman.util.Util;
+
+/**
+ * The class EntryMerge.
+ *
+ * Merges imported rows with the default header into the entries of a store.
+ * Every row is looked up in an index of the entries by URL, user name and
+ * title. New rows are added at once, rows of an existing entry are collected,
+ * so the choice what to do with them is made once at the end. The merge
+ * remembers what it added, so a cancelled merge leaves the store as it was
+ * before, even if some batches of the import were already taken.
+ *
+ * The passwords of the rows stay in plain text until {@link #protect} compares
+ * and encrypts all of them in one pass, which is meant to run off the UI
+ * thread.
+ */
+public class EntryMerge {
+
+    /**
+     * What is done with rows that change an entry.
+     */
+    public enum Choice {
+	/** The entry gets the fields of the row. */
+	UPDATE,
+	/** The row is added as a new entry. */
+	KEEP_BOTH,
+	/** The row is dropped. */
+	SKIP
+    }
+
+    private record Duplicate(String key, String[] row, boolean equalFields) {
+    }
+
+    // a merge has the default header: uuid, group, title, url, user, password, notes
+    private static final int PASSWORD = 5;
+
+    private final EntryStore store;
+    private final EntryIndex<String> index;
+    private final Set<String> uuids;
+    private final SequencedSet<String> added = new LinkedHashSet<>();
+    private final List<Duplicate> duplicates = new ArrayList<>();
+    private final Map<String, String> sealed = new HashMap<>();
+    private boolean done;
+    private int identical;
+    private int newRows;
+
+    /**
+     * Instantiates a new entry merge with the entries the store has now.
+     *
+     * @param store the store
+     */
+    public EntryMerge(final EntryStore store) {
+	this.store = store;
+	final var size = store.size();
+	index = new EntryIndex<>(size);
+	uuids = HashSet.newHashSet(size);
+	store.forEach((key, fields) -> {
+	    index.add(fields[3], fields[4], fields[2], key);
+	    uuids.add(fields[0]);
+	});
+    }
+
+    /**
+     * Adds the row as a new entry. A UUID that is already used is replaced.
+     *
+     * @param row the row
+     * @return the key of the entry
+     */
+    public String add(final String[] row) {
+	if (!uuids.add(row[0])) {
+	    row[0] = Util.getUUID();
+	    uuids.add(row[0]);
+	}
+	final var key = store.add(row);
+	index.add(row[3], row[4], row[2], key);
+	added.add(key);
+	return key;
+    }
+
+    private static char[][][] cells(final List<String> passwords) {
+	final var cells = new char[passwords.size()][PASSWORD + 1][];
+	for (var i = 0; i < cells.length; i++) {
+	    cells[i][PASSWORD] = passwords.get(i).toCharArray();
+	}
+	return cells;
+    }
+
+    /**
+     * Finds the entry the row belongs to.
+     *
+     * @param row the row
+     * @return the key of the entry, or null if the row is new
+     */
+    public String find(final String[] row) {
+	final var key = index.find(row[3], row[4], row[2]);
+	return isNull(key) || isNull(store.get(key)) ? null : key;
+    }
+
+    /**
+     * Finishes the merge, the changes are kept. The added entries get their
+     * encrypted passwords and the rows that change an entry are applied as
+     * chosen.
+     *
+     * @param choice what is done with the rows that change an entry
+     */
+    public void finish(final Choice choice) {
+	if (done) {
+	    return;
+	}
+	sealed.forEach((key, password) -> {
+	    final var fields = store.get(key);
+	    if (nonNull(fields)) {
+		final var updated = fields.clone();
+		updated[PASSWORD] = password;
+		store.update(key, updated);
+	    }
+	});
+	for (final var duplicate : duplicates) {
+	    final var row = duplicate.row();
+	    switch (choice) {
+	    case UPDATE -> {
+		final var fields = store.get(duplicate.key());
+		if (nonNull(fields)) {
+		    final var updated = fields.clone();
+		    System.arraycopy(row, 1, updated, 1, Math.min(row.length, updated.length) - 1);
+		    store.update(duplicate.key(), updated);
+		}
+	    }
+	    case KEEP_BOTH -> {
+		row[0] = Util.getUUID();
+		add(row);
+	    }
+	    case SKIP -> {
+		// the entry stays as it is
+	    }
+	    }
+	}
+	done = true;
+	added.clear();
+	duplicates.clear();
+	sealed.clear();
+    }
+
+    /**
+     * Gets the number of rows added as new entries.
+     *
+     * @return the number of rows
+     */
+    public int getAdded() {
+	return newRows;
+    }
+
+    /**
+     * Gets the number of rows that change an entry.
+     *
+     * @return the number of rows
+     */
+    public int getChanged() {
+	return duplicates.size();
+    }
+
+    /**
+     * Gets the number of rows that are equal to an entry.
+     *
+     * @return the number of rows
+     */
+    public int getIdentical() {
+	return identical;
+    }
+
+    /**
+     * Merges the row. A new row is added, a row of an existing entry is kept
+     * until the merge is finished.
+     *
+     * @param row the row
+     */
+    public void merge(final String[] row) {
+	final var key = find(row);
+	if (isNull(key)) {
+	    newRows++;
+	    add(row);
+	    return;
+	}
+	final var fields = store.get(key);
+	var equal = true;
+	for (var i = 1; i < row.length && equal; i++) {
+	    equal = i == PASSWORD || row[i].equals(fields[i]);
+	}
+	duplicates.add(new Duplicate(key, row, equal));
+    }
+
+    /**
+     * Compares and encrypts the passwords of the merge in one pass. The
+     * passwords of the entries are decrypted only for rows whose other fields
+     * are all equal, and rows with the same password are dropped. Then the
+     * passwords of the added rows and of the rows that change an entry are
+     * encrypted; they are put into the store when the merge is finished. The
+     * ciphers get rows with the password in the sixth column and replace it.
+     *
+     * @param decrypt decrypts the passwords of entries, false if cancelled
+     * @param encrypt encrypts the passwords of rows, false if cancelled
+     * @return false if it was cancelled
+     */
+    public boolean protect(final Predicate<char[][][]> decrypt, final Predicate<char[][][]> encrypt) {
+	if (done) {
+	    return false;
+	}
+	// decrypting a password is slow, it is only compared if all other fields are equal
+	final var compared = new ArrayList<Duplicate>();
+	final var passwords = new ArrayList<String>();
+	final Set<Duplicate> same = new HashSet<>();
+	for (final var duplicate : duplicates) {
+	    final var fields = store.get(duplicate.key());
+	    if (!duplicate.equalFields() || isNull(fields)) {
+		continue;
+	    }
+	    if (!added.contains(duplicate.key())) {
+		compared.add(duplicate);
+		passwords.add(fields[PASSWORD]);
+	    } else if (duplicate.row()[PASSWORD].equals(fields[PASSWORD])) {
+		// an entry added by this merge still has its plain password
+		same.add(duplicate);
+	    }
+	}
+	final var plain = cells(passwords);
+	if (!decrypt.test(plain)) {
+	    return false;
+	}
+	for (var i = 0; i < plain.length; i++) {
+	    final var duplicate = compared.get(i);
+	    if (duplicate.row()[PASSWORD].equals(text(plain[i][PASSWORD]))) {
+		same.add(duplicate);
+	    }
+	}
+	duplicates.removeAll(same);
+	identical += same.size();
+	final var keys = new ArrayList<String>();
+	final var texts = new ArrayList<String>();
+	added.forEach(key -> {
+	    final var fields = store.get(key);
+	    if (nonNull(fields) && !fields[PASSWORD].isEmpty()) {
+		keys.add(key);
+		texts.add(fields[PASSWORD]);
+	    }
+	});
+	final var changed = duplicates.stream().filter(duplicate -> !duplicate.row()[PASSWORD].isEmpty())
+		.toList();
+	changed.forEach(duplicate -> texts.add(duplicate.row()[PASSWORD]));
+	final var cells = cells(texts);
+	if (!encrypt.test(cells)) {
+	    return false;
+	}
+	for (var i = 0; i < cells.length; i++) {
+	    final var password = text(cells[i][PASSWORD]);
+	    if (i < keys.size()) {
+		sealed.put(keys.get(i), password);
+	    } else {
+		changed.get(i - keys.size()).row()[PASSWORD] = password;
+	    }
+	}
+	return true;
+    }
+
+    /**
+     * Removes the added entries. The entries the rows would change are only
+     * changed when the merge is finished, so they are already as before. Does
+     * nothing once the merge is finished or rolled back.
+     */
+    public void rollback() {
+	if (done) {
+	    return;
+	}
+	done = true;
+	added.reversed().forEach(store::remove);
+	added.clear();
+	duplicates.clear();
+	sealed.clear();
+    }
+
+    private static String text(final char[] cell) {
+	final var text = String.valueOf(cell);
+	Util.clear(cell);
+	return text;
+    }
+}
@@ -0,0 +1,345 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.store;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+import io.github.seerainer.secpwdman.store.EntryListener.Change;
+
+/**
+ * The class EntryStore.
+ *
+ * Holds the entries shown in the table as plain rows, in the order of the
+ * table. Every entry is found by its key in constant time: the UUID in the
+ * first column, or a generated key if that column is blank or used twice, as
+ * in files with a custom header. The table is a view that follows the changes
+ * through an {@link EntryListener}.
+ *
+ * The rows are replaced, never changed in place, so the snapshots can be
+ * searched, sorted or written by other threads while the table is edited.
+ *
+ * The store remembers the UUIDs of the entries changed since the last save, so
+ * a save only has to look at those. Entries loaded again, as when the table
+ * shows another group, do not count as changed.
+ */
+public class EntryStore {
+
+    /**
+     * The entries changed up to a point.
+     *
+     * @param uuids the UUIDs of the changed entries, or null if all entries were
+     *              replaced
+     * @param count the number of changes so far
+     */
+    public record Changes(Set<String> uuids, long count) {
+    }
+
+    private static final char GENERATED = '#';
+
+    private final Map<String, String[]> entries = new LinkedHashMap<>();
+    private final Map<String, Long> changed = new HashMap<>();
+    private final List<EntryListener> listeners = new CopyOnWriteArrayList<>();
+    private long changes;
+    private int generated;
+    private long next;
+    private long replaced = -1;
+
+    /**
+     * Adds the entry at the end.
+     *
+     * @param fields the fields
+     * @return the key of the entry
+     */
+    public String add(final String[] fields) {
+	final String key;
+	synchronized (this) {
+	    key = put(fields);
+	    change(fields);
+	}
+	fire(Change.ADDED, key, fields);
+	return key;
+    }
+
+    /**
+     * Adds the listener.
+     *
+     * @param listener the listener
+     */
+    public void addListener(final EntryListener listener) {
+	listeners.add(listener);
+    }
+
+    private void change(final String[] fields) {
+	changes++;
+	if (fields.length > 0 && nonNull(fields[0]) && !fields[0].isBlank()) {
+	    changed.put(fields[0], Long.valueOf(changes));
+	}
+    }
+
+    /**
+     * Gets the entries changed since the last save.
+     *
+     * @return the changes
+     */
+    public synchronized Changes changes() {
+	return new Changes(replaced < 0 ? Set.copyOf(changed.keySet()) : null, changes);
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+	synchronized (this) {
+	    entries.clear();
+	    generated = 0;
+	}
+	fire(Change.RESET, null, null);
+    }
+
+    /**
+     * Finds an entry with the same fields for each of the rows. An entry loaded
+     * again, as when the table shows all groups instead of one, keeps its fields
+     * but may get another generated key, so it is found again this way. Equal
+     * rows find as many equal entries.
+     *
+     * @param rows the fields of the entries
+     * @return the keys of the entries found, in the order of the store
+     */
+    public synchronized List<String> find(final List<String[]> rows) {
+	final Map<List<String>, Integer> wanted = HashMap.newHashMap(rows.size());
+	rows.forEach(fields -> wanted.merge(Arrays.asList(fields), Integer.valueOf(1), Integer::sum));
+	final var keys = new ArrayList<String>(rows.size());
+	for (final var entry : entries.entrySet()) {
+	    if (wanted.isEmpty()) {
+		break;
+	    }
+	    final var fields = Arrays.asList(entry.getValue());
+	    final var count = wanted.get(fields);
+	    if (nonNull(count)) {
+		keys.add(entry.getKey());
+		if (count.intValue() > 1) {
+		    wanted.put(fields, Integer.valueOf(count.intValue() - 1));
+		} else {
+		    wanted.remove(fields);
+		}
+	    }
+	}
+	return keys;
+    }
+
+    private void fire(final Change change, final String key, final String[] fields) {
+	listeners.forEach(listener -> listener.changed(change, key, fields));
+    }
+
+    /**
+     * Performs the action for every entry in order.
+     *
+     * @param action receives the key and the fields
+     */
+    public synchronized void forEach(final BiConsumer<String, String[]> action) {
+	entries.forEach(action);
+    }
+
+    /**
+     * Gets the fields of the entry.
+     *
+     * @param key the key
+     * @return the fields, or null if there is no such entry
+     */
+    public synchronized String[] get(final String key) {
+	return entries.get(key);
+    }
+
+    /**
+     * Tests if an entry has a generated key, because its UUID is blank or used
+     * twice.
+     *
+     * @return true if an entry has a generated key
+     */
+    public synchronized boolean hasGeneratedKeys() {
+	return generated > 0;
+    }
+
+    /**
+     * Adds an entry at the end that is loaded again as it was, as when the table
+     * shows another group. Unlike {@link #add} it does not count as a change.
+     *
+     * @param fields the fields
+     * @return the key of the entry
+     */
+    public String load(final String[] fields) {
+	final String key;
+	synchronized (this) {
+	    key = put(fields);
+	}
+	fire(Change.ADDED, key, fields);
+	return key;
+    }
+
+    private String put(final String[] fields) {
+	final var uuid = fields.length > 0 ? fields[0] : null;
+	final String key;
+	if (isNull(uuid) || uuid.isBlank() || uuid.charAt(0) == GENERATED || entries.containsKey(uuid)) {
+	    key = GENERATED + Long.toString(next++);
+	    generated++;
+	} else {
+	    key = uuid;
+	}
+	entries.put(key, fields);
+	return key;
+    }
+
+    /**
+     * Removes the entry.
+     *
+     * @param key the key
+     * @return the fields of the removed entry, or null if there was none
+     */
+    public String[] remove(final String key) {
+	final String[] fields;
+	synchronized (this) {
+	    fields = entries.remove(key);
+	    if (nonNull(fields)) {
+		if (key.charAt(0) == GENERATED) {
+		    generated--;
+		}
+		change(fields);
+	    }
+	}
+	if (isNull(fields)) {
+	    return null;
+	}
+	fire(Change.REMOVED, key, fields);
+	return fields;
+    }
+
+    /**
+     * Removes the listener.
+     *
+     * @param listener the listener
+     */
+    public void removeListener(final EntryListener listener) {
+	listeners.remove(listener);
+    }
+
+    /**
+     * Marks all entries as changed, as they were not loaded from the saved vault,
+     * like the entries of an import or a restored backup.
+     */
+    public synchronized void replaced() {
+	changed.clear();
+	replaced = ++changes;
+    }
+
+    /**
+     * Gets a snapshot of the rows in order.
+     *
+     * @return the rows
+     */
+    public synchronized List<String[]> rows() {
+	return new ArrayList<>(entries.values());
+    }
+
+    /**
+     * Marks the changes up to a point as saved. Later changes stay.
+     *
+     * @param count the number of changes when the save started
+     */
+    public synchronized void saved(final long count) {
+	changed.values().removeIf(change -> change.longValue() <= count);
+	if (replaced <= count) {
+	    replaced = -1;
+	}
+    }
+
+    /**
+     * Finds the keys of the entries that match, in order.
+     *
+     * @param filter the filter
+     * @return the keys
+     */
+    public List<String> search(final Predicate<String[]> filter) {
+	final var keys = new ArrayList<String>();
+	forEach((key, fields) -> {
+	    if (filter.test(fields)) {
+		keys.add(key);
+	    }
+	});
+	return keys;
+    }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return the size
+     */
+    public synchronized int size() {
+	return entries.size();
+    }
+
+    /**
+     * Sorts the entries.
+     *
+     * @param comparator compares the fields of two entries
+     */
+    public void sort(final Comparator<String[]> comparator) {
+	synchronized (this) {
+	    final var sorted = entries.entrySet().stream().map(entry -> Map.entry(entry.getKey(), entry.getValue()))
+		    .sorted(Map.Entry.comparingByValue(comparator)).toList();
+	    entries.clear();
+	    sorted.forEach(entry -> entries.put(entry.getKey(), entry.getValue()));
+	}
+	fire(Change.RESET, null, null);
+    }
+
+    /**
+     * Replaces the fields of the entry. The key stays the same.
+     *
+     * @param key    the key
+     * @param fields the new fields
+     * @return true if the entry exists
+     */
+    public boolean update(final String key, final String[] fields) {
+	synchronized (this) {
+	    final var old = entries.get(key);
+	    if (isNull(old)) {
+		return false;
+	    }
+	    entries.put(key, fields);
+	    change(old);
+	    change(fields);
+	}
+	fire(Change.UPDATED, key, fields);
+	return true;
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.ui;
+
+import static io.github.seerainer.secpwdman.ui.Widgets.button;
+import static io.github.seerainer.secpwdman.ui.Widgets.fileDialog;
+import static io.github.seerainer.secpwdman.ui.Widgets.msg;
+import static io.github.seerainer.secpwdman.ui.Widgets.shell;
+import static io.github.seerainer.secpwdman.util.SWTUtil.getGridData;
+import static io.github.seerainer.secpwdman.util.SWTUtil.getImage;
+import static io.github.seerainer.secpwdman.util.SWTUtil.getLayout;
+import static io.github.seerainer.secpwdman.util.SWTUtil.setCenter;
+import static io.github.seerainer.secpwdman.util.Util.isBlank;
+import static org.eclipse.swt.events.SelectionListener.widgetSelectedAdapter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.swt.widgets.TableItem;
+import org.slf4j.Logger;
+
+import io.github.seerainer.secpwdman.action.Action;
+import io.github.seerainer.secpwdman.config.Icons;
+import io.github.seerainer.secpwdman.config.PrimitiveConstants;
+import io.github.seerainer.secpwdman.config.StringConstants;
+import io.github.seerainer.secpwdman.io.AttachmentStore;
+import io.github.seerainer.secpwdman.io.IOUtil;
+import io.github.seerainer.secpwdman.io.VaultSession;
+import io.github.seerainer.secpwdman.util.LogFactory;
+
+/**
+ * The record AttachmentDialog lists the files attached to an entry. Files are
+ * added, saved and removed on a background thread, so large files do not
+ * block the window.
+ */
+record AttachmentDialog(Action action) implements Icons, PrimitiveConstants, StringConstants {
+
+    private static final Logger LOG = LogFactory.getLog();
+
+    private interface Task {
+	void run() throws IOException, GeneralSecurityException;
+    }
+
+    private void fill(final Table tbl, final String uuid) {
+	tbl.removeAll();
+	try {
+	    final var attachments = VaultSession.getInstance().getAttachments();
+	    for (final var attachment : attachments.list(action.getCData().getFile(), uuid)) {
+		final var item = new TableItem(tbl, SWT.NONE);
+		item.setData(attachment);
+		item.setText(new String[] { attachment.name(), String.format("%,d", Long.valueOf(attachment.size())) });
+	    }
+	} catch (final IOException e) {
+	    LOG.warn(WARN, e);
+	}
+	for (final var col : tbl.getColumns()) {
+	    col.pack();
+	}
+    }
+
+    Shell open(final Shell parent, final String uuid) {
+	final var cData = action.getCData();
+	final var file = cData.getFile();
+	final var image = getImage(parent.getDisplay(), APP_ICON);
+	final var layout = getLayout(4, 10, 10, 10, 10, 10, 10);
+	final var dialog = shell(parent, SWT.SHELL_TRIM & ~SWT.MIN | SWT.APPLICATION_MODAL, image, layout, attaTitl);
+
+	final var tbl = Widgets.table(dialog, SWT.FULL_SELECTION | SWT.SINGLE);
+	tbl.setHeaderVisible(true);
+	tbl.setLayoutData(getGridData(SWT.FILL, SWT.FILL, 1, 1, 4, 1));
+	new TableColumn(tbl, SWT.LEAD).setText(attaName);
+	new TableColumn(tbl, SWT.TRAIL).setText(attaSize);
+	fill(tbl, uuid);
+
+	final var buttons = new Button[3];
+	final var attachments = VaultSession.getInstance().getAttachments();
+	buttons[0] = button(dialog, SWT.PUSH, attaAdd, widgetSelectedAdapter(_ -> {
+	    final var source = fileDialog(dialog, SWT.OPEN, allFiles, allFExte);
+	    if (!isBlank(source)) {
+		run(dialog, tbl, uuid, buttons, source, () -> attachments.add(file, uuid, IOUtil.getPath(source)));
+	    }
+	}));
+	buttons[1] = button(dialog, SWT.PUSH, attaSave, widgetSelectedAdapter(_ -> {
+	    if (tbl.getSelectionCount() == 1
+		    && tbl.getSelection()[0].getData() instanceof final AttachmentStore.Attachment attachment) {
+		final var target = fileDialog(dialog, SWT.SAVE, allFiles, allFExte, attachment.name());
+		if (!isBlank(target)) {
+		    run(dialog, tbl, uuid, buttons, target,
+			    () -> attachments.export(file, attachment, IOUtil.getPath(target)));
+		}
+	    }
+	}));
+	buttons[2] = button(dialog, SWT.PUSH, attaRemo, widgetSelectedAdapter(_ -> {
+	    if (tbl.getSelectionCount() == 1
+		    && tbl.getSelection()[0].getData() instanceof final AttachmentStore.Attachment attachment) {
+		run(dialog, tbl, uuid, buttons, attachment.name(), () -> attachments.remove(file, attachment));
+	    }
+	}));
+	final var readOnly = cData.isReadOnly();
+	buttons[0].setEnabled(!readOnly);
+	buttons[2].setEnabled(!readOnly);
+
+	final var okBtn = button(dialog, SWT.PUSH, dialOkay, widgetSelectedAdapter(_ -> dialog.close()));
+	final var gridData = getGridData(SWT.END, SWT.CENTER, 1, 0);
+	gridData.widthHint = BUTTON_WIDTH;
+	okBtn.setLayoutData(gridData);
+	dialog.setDefaultButton(okBtn);
+
+	dialog.pack();
+	setCenter(dialog);
+	image.dispose();
+	dialog.open();
+	return dialog;
+    }
+
+    private void run(final Shell dialog, final Table tbl, final String uuid, final Button[] buttons,
+	    final String name, final Task task) {
+	final var enabled = new boolean[buttons.length];
+	for (var i = 0; i < buttons.length; i++) {
+	    enabled[i] = buttons[i].getEnabled();
+	    buttons[i].setEnabled(false);
+	}
+	final var display = dialog.getDisplay();
+	Thread.ofVirtual().start(() -> {
+	    var failed = false;
+	    try {
+		task.run();
+	    } catch (final IOException | GeneralSecurityException e) {
+		LOG.warn(WARN, e);
+		failed = true;
+	    }
+	    final var error = failed;
+	    if (!display.isDisposed()) {
+		display.asyncExec(() -> {
+		    if (dialog.isDisposed()) {
+			return;
+		    }
+		    for (var i = 0; i < buttons.length; i++) {
+			buttons[i].setEnabled(enabled[i]);
+		    }
+		    fill(tbl, uuid);
+		    if (error) {
+			msg(dialog, SWT.ICON_ERROR | SWT.OK, titleErr, errorAtt.formatted(name));
+		    }
+		});
+	    }
+	});
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.ui;
+
+import static io.github.seerainer.secpwdman.ui.Widgets.button;
+import static io.github.seerainer.secpwdman.ui.Widgets.label;
+import static io.github.seerainer.secpwdman.ui.Widgets.shell;
+import static io.github.seerainer.secpwdman.util.SWTUtil.getGridData;
+import static io.github.seerainer.secpwdman.util.SWTUtil.getImage;
+import static io.github.seerainer.secpwdman.util.SWTUtil.getLayout;
+import static io.github.seerainer.secpwdman.util.SWTUtil.setCenter;
+import static org.eclipse.swt.events.SelectionListener.widgetSelectedAdapter;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.List;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.swt.widgets.TableItem;
+
+import io.github.seerainer.secpwdman.action.FileAction;
+import io.github.seerainer.secpwdman.config.Icons;
+import io.github.seerainer.secpwdman.config.PrimitiveConstants;
+import io.github.seerainer.secpwdman.config.StringConstants;
+import io.github.seerainer.secpwdman.io.BackupStore;
+
+/**
+ * The record BackupDialog lists the versioned backups of the open file. The
+ * selected version replaces the entries in the table.
+ */
+record BackupDialog(FileAction action) implements Icons, PrimitiveConstants, StringConstants {
+
+    Shell open(final List<BackupStore.Snapshot> snapshots) {
+	final var shell = action.getShell();
+	final var image = getImage(shell.getDisplay(), APP_ICON);
+	final var layout = getLayout(2, 10, 10, 10, 10, 10, 10);
+	final var dialog = shell(shell, SWT.SHELL_TRIM & ~SWT.MIN | SWT.APPLICATION_MODAL, image, layout, backTitl);
+	label(dialog, SWT.HORIZONTAL, backText).setLayoutData(getGridData(SWT.LEAD, SWT.CENTER, 1, 0, 2, 1));
+
+	final var tbl = Widgets.table(dialog, SWT.FULL_SELECTION | SWT.SINGLE);
+	tbl.setHeaderVisible(true);
+	tbl.setLayoutData(getGridData(SWT.FILL, SWT.FILL, 1, 1, 2, 1));
+	new TableColumn(tbl, SWT.LEAD).setText(backTime);
+	new TableColumn(tbl, SWT.TRAIL).setText(backEntr);
+	final var format = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM).withZone(ZoneId.systemDefault());
+	for (final var snapshot : snapshots) {
+	    final var item = new TableItem(tbl, SWT.NONE);
+	    item.setText(new String[] { format.format(Instant.ofEpochMilli(snapshot.time())),
+		    String.valueOf(snapshot.entries()) });
+	}
+	for (final var col : tbl.getColumns()) {
+	    col.pack();
+	}
+	tbl.select(0);
+
+	final var okBtn = button(dialog, SWT.PUSH, dialOkay, widgetSelectedAdapter(_ -> {
+	    final var index = tbl.getSelectionIndex();
+	    dialog.close();
+	    if (index >= 0) {
+		action.restoreBackup(snapshots.get(index));
+	    }
+	}));
+	var gridData = getGridData(SWT.END, SWT.CENTER, 1, 0);
+	gridData.widthHint = BUTTON_WIDTH;
+	okBtn.setLayoutData(gridData);
+	dialog.setDefaultButton(okBtn);
+
+	final var clBtn = button(dialog, SWT.PUSH, diaCancl, widgetSelectedAdapter(_ -> dialog.close()));
+	gridData = getGridData(SWT.LEAD, SWT.CENTER, 1, 0);
+	gridData.widthHint = BUTTON_WIDTH;
+	clBtn.setLayoutData(gridData);
+
+	dialog.pack();
+	setCenter(dialog);
+	image.dispose();
+	dialog.open();
+	return dialog;
+    }
+}
@@ -322,6 +322,11 @@ record ConfigDialog(Action action) implements CryptoConstants, Icons, PrimitiveC
 	horizontalSeparator(optGroup);
 
 	final var deflateBtn = button(optGroup, cData.isCompress(), cfgDefla);
+	final var trainBtn = button(optGroup, cData.isTrainDictionary(), cfgTrain);
+	trainBtn.setEnabled(deflateBtn.getSelection());
+	deflateBtn.addSelectionListener(widgetSelectedAdapter(_ -> trainBtn.setEnabled(deflateBtn.getSelection())));
+	final var segmentBtn = button(optGroup, cData.isSegmented(), cfgSegme);
+	final var backupBtn = button(optGroup, cData.isBackup(), cfgBacku);
 
 	optTab.setControl(optGroup);
 
@@ -342,11 +347,14 @@ record ConfigDialog(Action action) implements CryptoConstants, Icons, PrimitiveC
 	    cConf.setScryptR(spinScryptR.getSelection());
 	    cConf.setScryptP(spinScryptP.getSelection());
 	    cData.setAutoLockTime(autoLock.getSelection());
+	    cData.setBackup(backupBtn.getSelection());
 	    cData.setBufferLength(bufferLength.getSelection());
 	    cData.setClearPassword(clearPwd.getSelection());
 	    cData.setColumnWidth(columnWidth.getSelection());
 	    cData.setCompress(deflateBtn.getSelection());
 	    cData.setPasswordMinLength(minPwdLength.getSelection());
+	    cData.setSegmented(segmentBtn.getSelection());
+	    cData.setTrainDictionary(trainBtn.getSelection());
 
 	    if (csvDivider.getCharCount() > 0) {
 		final var newDivider = csvDivider.getTextChars()[0];
@@ -19,21 +19,27 @@
  */
 package io.github.seerainer.secpwdman.ui;
 
+import java.util.List;
 import java.util.Objects;
 
 import org.eclipse.swt.widgets.Shell;
 
 import io.github.seerainer.secpwdman.action.Action;
 import io.github.seerainer.secpwdman.action.FileAction;
+import io.github.seerainer.secpwdman.io.BackupStore;
+import io.github.seerainer.secpwdman.io.VaultMerge;
 
 /**
  * The class DialogFactory.
  */
 public class DialogFactory {
 
+    private static Shell attachmentDialog;
+    private static Shell backupDialog;
     private static Shell configDialog;
     private static Shell entryDialog;
     private static Shell infoDialog;
+    private static Shell mergeDialog;
     private static Shell passwordDialog;
     private static Shell passwordGeneratorDialog;
     private static Shell progressDialog;
@@ -48,9 +54,12 @@ public class DialogFactory {
      * Closes all open dialogs.
      */
     public static void closeAllDialogs() {
+	closeDialog(attachmentDialog);
+	closeDialog(backupDialog);
 	closeDialog(configDialog);
 	closeDialog(entryDialog);
 	closeDialog(infoDialog);
+	closeDialog(mergeDialog);
 	closeDialog(passwordDialog);
 	closeDialog(passwordGeneratorDialog);
 	closeDialog(progressDialog);
@@ -72,6 +81,22 @@ public class DialogFactory {
 	closeDialog(searchDialog);
     }
 
+    static void createAttachmentDialog(final Action action, final Shell parent, final String uuid) {
+	closeDialog(attachmentDialog);
+	attachmentDialog = new AttachmentDialog(action).open(parent, uuid);
+    }
+
+    /**
+     * Creates a new backup dialog.
+     *
+     * @param action    the file action
+     * @param snapshots the snapshots, the newest first
+     */
+    public static void createBackupDialog(final FileAction action, final List<BackupStore.Snapshot> snapshots) {
+	closeDialog(backupDialog);
+	backupDialog = new BackupDialog(action).open(snapshots);
+    }
+
     static void createConfigDialog(final Action action) {
 	configDialog = new ConfigDialog(action).open();
     }
@@ -84,6 +109,17 @@ public class DialogFactory {
 	infoDialog = new InfoDialog(action).open();
     }
 
+    /**
+     * Creates a new merge dialog for the conflicts of a merge.
+     *
+     * @param action the action
+     * @param result the result of the merge
+     */
+    public static void createMergeDialog(final Action action, final VaultMerge.Result result) {
+	closeDialog(mergeDialog);
+	mergeDialog = new MergeDialog(action).open(result);
+    }
+
     /**
      * Creates a new password dialog.
      *
@@ -105,6 +141,12 @@ public class DialogFactory {
 	return progressDialog;
     }
 
+    public static Shell createProgressDialog(final Action action, final String title, final int maximum,
+	    final Runnable cancel) {
+	progressDialog = new ProgressDialog(action).open(title, maximum, cancel);
+	return progressDialog;
+    }
+
     static void createSearchDialog(final Action action) {
 	if (Objects.isNull(searchDialog) || searchDialog.isDisposed()) {
 	    searchDialog = new SearchDialog(action).open();
@@ -20,6 +20,7 @@
 package io.github.seerainer.secpwdman.ui;
 
 import static io.github.seerainer.secpwdman.ui.Widgets.button;
+import static io.github.seerainer.secpwdman.ui.Widgets.combo;
 import static io.github.seerainer.secpwdman.ui.Widgets.emptyLabel;
 import static io.github.seerainer.secpwdman.ui.Widgets.group;
 import static io.github.seerainer.secpwdman.ui.Widgets.label;
@@ -39,7 +40,12 @@ import static io.github.seerainer.secpwdman.util.Util.isBlank;
 import static io.github.seerainer.secpwdman.util.Util.isEqual;
 import static org.eclipse.swt.events.SelectionListener.widgetSelectedAdapter;
 
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 
 import org.eclipse.swt.SWT;
@@ -132,27 +138,22 @@ record EntryDialog(Action action) implements Icons, PrimitiveConstants, StringCo
 	    textFields[6] = textFields[6].replaceAll(System.lineSeparator(), newLine);
 	}
 	final var table = action.getTable();
-	if (action.getList().isVisible()) {
-	    if (Objects.isNull(tableItem)) {
-		action.resetGroupList();
-		setText(password, textFields, new TableItem(table, SWT.NONE));
-	    } else {
-		final var uuid = tableItem.getText(0);
-		action.resetGroupList();
-		for (final var item : table.getItems()) {
-		    if (uuid.equals(item.getText(0))) {
-			setText(password, textFields, item);
-			break;
-		    }
-		}
-	    }
-	} else if (Objects.isNull(tableItem)) {
-	    setText(password, textFields, new TableItem(table, SWT.NONE));
+	final var store = action.getStore();
+	var key = Objects.isNull(tableItem) ? null : EntryView.key(tableItem);
+	final var fields = Objects.isNull(key) ? null : store.get(key);
+	if (action.resetGroupList() && Objects.nonNull(fields)) {
+	    // showing all groups again generates new keys, so the entry is found again by its fields
+	    key = store.find(List.of(fields)).stream().findFirst().orElse(null);
+	}
+	setText(password, textFields);
+	if (Objects.isNull(key)) {
+	    store.add(textFields);
 	} else {
-	    setText(password, textFields, table.getItem(table.getSelectionIndex()));
+	    store.update(key, textFields);
 	}
 	action.getCData().setModified(true);
-	action.storeTableData(action.extractData(false));
+	action.storeTableData(action.extractData(false),
+		action.getGroups(Objects.isNull(fields) ? List.of(textFields) : List.of(fields, textFields)));
 	action.colorTable();
 	action.fillGroupList();
 	action.resizeColumns();
@@ -226,6 +227,47 @@ record EntryDialog(Action action) implements Icons, PrimitiveConstants, StringCo
 		    _ -> pwd.setEchoChar(pwd.getEchoChar() == NULL_CHAR ? ECHO_CHAR : NULL_CHAR)));
 	}
 
+	final var texts = new Text[] { group, title, url, user, pwd, notes };
+	if (!newEntry) {
+	    final var item = action.getTable().getItem(editLine);
+	    final var index = getColumnIndexNumbers(cData);
+	    final var versions = action.getHistory(item.getText(index[0]));
+	    if (!versions.isEmpty()) {
+		final var format = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM)
+			.withZone(ZoneId.systemDefault());
+		label(dialog, SWT.HORIZONTAL, entrHist);
+		final var history = combo(dialog, SWT.DROP_DOWN | SWT.READ_ONLY);
+		history.setLayoutData(getGridData(SWT.FILL, SWT.CENTER, 1, 0, 2, 1));
+		history.add(entrCurr);
+		versions.forEach(version -> history.add(format.format(Instant.ofEpochMilli(version.time()))));
+		history.select(0);
+		history.addSelectionListener(widgetSelectedAdapter(_ -> {
+		    final var selection = history.getSelectionIndex();
+		    final var okBtn = dialog.getDefaultButton();
+		    if (selection == 0) {
+			setFields(texts, item);
+			okBtn.setText(dialOkay);
+		    } else {
+			// an older version is only shown, saving it restores it as the entry
+			setFields(texts, versions.get(selection - 1).fields(cData.getColumnMap()));
+			okBtn.setText(entrRest);
+		    }
+		    final var editable = selection == 0 && !cData.isReadOnly();
+		    Arrays.stream(texts).forEach(text -> text.setEditable(editable));
+		    genBtn.setEnabled(editable);
+		    okBtn.setEnabled(selection == 0 || !cData.isReadOnly());
+		}));
+	    }
+	    if (Objects.nonNull(cData.getFile())) {
+		emptyLabel(dialog, 1);
+		final var attachBtn = button(dialog, SWT.PUSH, entrAtta, widgetSelectedAdapter(
+			_ -> DialogFactory.createAttachmentDialog(action, dialog, uuid.getText())));
+		final var gridData = getGridData(SWT.LEAD, SWT.CENTER, 0, 0, 2, 1);
+		gridData.widthHint = BUTTON_WIDTH;
+		attachBtn.setLayoutData(gridData);
+	    }
+	}
+
 	emptyLabel(dialog, 3);
 
 	final var okBtn = button(dialog, SWT.PUSH, dialOkay, null);
@@ -254,16 +296,7 @@ record EntryDialog(Action action) implements Icons, PrimitiveConstants, StringCo
 		uuid.setText(getUUID());
 	    }
 
-	    group.setText(item.getText(index[1]));
-	    title.setText(item.getText(index[2]));
-	    url.setText(item.getText(index[3]));
-	    user.setText(item.getText(index[4]));
-	    final var cas = new CharArrayString(item.getText(index[5]));
-	    final var password = action.decryptPassword(cas.toCharArray());
-	    pwd.setTextChars(password);
-	    clear(password);
-	    cas.clear();
-	    notes.setText(item.getText(index[6]));
+	    setFields(texts, item);
 
 	    if (cData.isReadOnly()) {
 		group.setEditable(false);
@@ -294,11 +327,41 @@ record EntryDialog(Action action) implements Icons, PrimitiveConstants, StringCo
 	return dialog;
     }
 
-    private void setText(final char[] password, final String[] textFields, final TableItem item) {
+    private void setFields(final Text[] texts, final String[] fields) {
+	// the fields are in the order of the default header, with the password as
+	// it is stored
+	for (var i = 0; i < texts.length; i++) {
+	    if (i == 4) {
+		final var cas = new CharArrayString(fields[5]);
+		final var password = action.decryptPassword(cas.toCharArray());
+		texts[i].setTextChars(password);
+		clear(password);
+		cas.clear();
+	    } else {
+		texts[i].setText(fields[i + 1]);
+	    }
+	}
+    }
+
+    private void setFields(final Text[] texts, final TableItem item) {
+	final var index = getColumnIndexNumbers(action.getCData());
+	for (var i = 0; i < texts.length; i++) {
+	    if (i == 4) {
+		final var cas = new CharArrayString(item.getText(index[5]));
+		final var password = action.decryptPassword(cas.toCharArray());
+		texts[i].setTextChars(password);
+		clear(password);
+		cas.clear();
+	    } else {
+		texts[i].setText(item.getText(index[i + 1]));
+	    }
+	}
+    }
+
+    private void setText(final char[] password, final String[] textFields) {
 	final var sb = new StringBuilder();
 	final var cData = action.getCData();
 	sb.append(action.encryptPassword(password));
-	item.setText(textFields);
-	item.setText(cData.getColumnMap().get(csvHeader[5]).intValue(), sb.toString());
+	textFields[cData.getColumnMap().get(csvHeader[5]).intValue()] = sb.toString();
     }
 }
@@ -0,0 +1,87 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.ui;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableItem;
+
+import io.github.seerainer.secpwdman.store.EntryListener;
+import io.github.seerainer.secpwdman.store.EntryStore;
+
+/**
+ * The class EntryView.
+ *
+ * Shows the entries of an {@link EntryStore} in the table. Every table item
+ * carries the key of its entry and is found by it in constant time, so a
+ * changed or removed entry touches only its own item. The items are in the
+ * order of the store.
+ */
+public class EntryView implements EntryListener {
+
+    private final Map<String, TableItem> items = new HashMap<>();
+    private final EntryStore store;
+    private final Table table;
+
+    /**
+     * Instantiates a new entry view.
+     *
+     * @param store the store
+     * @param table the table
+     */
+    public EntryView(final EntryStore store, final Table table) {
+	this.store = store;
+	this.table = table;
+    }
+
+    /**
+     * Gets the key of the entry shown by the table item.
+     *
+     * @param item the table item
+     * @return the key
+     */
+    public static String key(final TableItem item) {
+	return (String) item.getData();
+    }
+
+    private void add(final String key, final String[] fields) {
+	final var item = new TableItem(table, SWT.NONE);
+	item.setData(key);
+	item.setText(fields);
+	items.put(key, item);
+    }
+
+    @Override
+    public void changed(final Change change, final String key, final String[] fields) {
+	switch (change) {
+	case ADDED -> add(key, fields);
+	case UPDATED -> items.get(key).setText(fields);
+	case REMOVED -> items.remove(key).dispose();
+	case RESET -> {
+	    table.removeAll();
+	    items.clear();
+	    store.forEach(this::add);
+	}
+	}
+    }
+}
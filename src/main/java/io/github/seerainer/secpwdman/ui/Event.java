@@ -51,6 +51,7 @@ import io.github.seerainer.secpwdman.action.FileAction;
 import io.github.seerainer.secpwdman.action.ViewAction;
 import io.github.seerainer.secpwdman.config.ConfigData;
 import io.github.seerainer.secpwdman.config.StringConstants;
+import io.github.seerainer.secpwdman.store.EntryStore;
 
 /**
  * The class Event.
@@ -98,6 +99,7 @@ class Event implements StringConstants {
     SelectionListener lockFile = widgetSelectedAdapter(_ -> fileAction.lockSwitch());
     SelectionListener impFile = widgetSelectedAdapter(_ -> fileAction.importDialog());
     SelectionListener expFile = widgetSelectedAdapter(_ -> fileAction.exportDialog());
+    SelectionListener restore = widgetSelectedAdapter(_ -> fileAction.backupDialog());
     SelectionListener quit = widgetSelectedAdapter(_ -> fileAction.getShell().close());
     SelectionListener newEntry = widgetSelectedAdapter(_ -> DialogFactory.createEntryDialog(editAction, -1));
     SelectionListener editEntry = widgetSelectedAdapter(
@@ -192,9 +194,11 @@ class Event implements StringConstants {
     }
 
     FileAction setActions(final Shell shell, final Table table) {
-	this.editAction = new EditAction(cData, shell, table);
-	this.fileAction = new FileAction(cData, shell, table);
-	this.viewAction = new ViewAction(cData, shell, table);
+	final var store = new EntryStore();
+	store.addListener(new EntryView(store, table));
+	this.editAction = new EditAction(cData, shell, table, store);
+	this.fileAction = new FileAction(cData, shell, table, store);
+	this.viewAction = new ViewAction(cData, shell, table, store);
 	return fileAction;
     }
 }
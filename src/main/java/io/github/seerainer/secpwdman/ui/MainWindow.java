@@ -142,6 +142,7 @@ public class MainWindow implements Icons, PrimitiveConstants, StringConstants {
 	menuItemSeparator(file);
 	menuItem(file, SWT.PUSH, event.impFile, menuImpo);
 	menuItem(file, SWT.PUSH, event.expFile, menuExpo);
+	menuItem(file, SWT.PUSH, event.restore, menuBack);
 	menuItemSeparator(file);
 	menuItem(file, SWT.PUSH, event.quit, SWT.ESC, menuExit, EXIT);
     }
@@ -0,0 +1,135 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.ui;
+
+import static io.github.seerainer.secpwdman.ui.Widgets.button;
+import static io.github.seerainer.secpwdman.ui.Widgets.label;
+import static io.github.seerainer.secpwdman.ui.Widgets.shell;
+import static io.github.seerainer.secpwdman.util.SWTUtil.getGridData;
+import static io.github.seerainer.secpwdman.util.SWTUtil.getImage;
+import static io.github.seerainer.secpwdman.util.SWTUtil.getLayout;
+import static io.github.seerainer.secpwdman.util.SWTUtil.setCenter;
+import static java.util.Objects.isNull;
+import static org.eclipse.swt.events.SelectionListener.widgetSelectedAdapter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.swt.widgets.TableItem;
+
+import io.github.seerainer.secpwdman.action.Action;
+import io.github.seerainer.secpwdman.config.Icons;
+import io.github.seerainer.secpwdman.config.PrimitiveConstants;
+import io.github.seerainer.secpwdman.config.StringConstants;
+import io.github.seerainer.secpwdman.io.VaultMerge;
+
+/**
+ * The record MergeDialog lists the entries that were changed differently by
+ * another program. Checked entries take the version of the other program, all
+ * others keep the local version.
+ */
+record MergeDialog(Action action) implements Icons, PrimitiveConstants, StringConstants {
+
+    private static int index(final Map<String, Integer> map, final String key, final int fallback) {
+	final var index = map.get(key);
+	return isNull(index) ? fallback : index.intValue();
+    }
+
+    private static String values(final String[] fields, final int[] indices, final int password) {
+	if (isNull(fields)) {
+	    return mergDele;
+	}
+	final var joiner = new StringJoiner(comma + space);
+	for (final var i : indices) {
+	    joiner.add(i == password ? pwdMask : fields[i]);
+	}
+	return joiner.toString();
+    }
+
+    Shell open(final VaultMerge.Result result) {
+	final var shell = action.getShell();
+	final var image = getImage(shell.getDisplay(), APP_ICON);
+	final var layout = getLayout(2, 10, 10, 10, 10, 10, 10);
+	final var dialog = shell(shell, SWT.SHELL_TRIM & ~SWT.MIN | SWT.APPLICATION_MODAL, image, layout, mergTitl);
+	label(dialog, SWT.HORIZONTAL, mergText).setLayoutData(getGridData(SWT.LEAD, SWT.CENTER, 1, 0, 2, 1));
+
+	// the fields are in the order of the file header, which may differ from the
+	// default one
+	final var map = action.getCData().getColumnMap();
+	final var title = index(map, csvHeader[2], 0);
+	final var password = index(map, csvHeader[5], -1);
+	final var columns = action.getTable().getColumns();
+
+	final var tbl = Widgets.table(dialog, SWT.CHECK | SWT.FULL_SELECTION);
+	tbl.setHeaderVisible(true);
+	tbl.setLayoutData(getGridData(SWT.FILL, SWT.FILL, 1, 1, 2, 1));
+	final var titleName = title < columns.length ? columns[title].getText() : tableHeader[2];
+	for (final var text : new String[] { titleName, mergFiel, mergLoca, mergRemo }) {
+	    new TableColumn(tbl, SWT.LEAD).setText(text);
+	}
+	for (final var conflict : result.conflicts()) {
+	    final var fields = isNull(conflict.local()) ? conflict.remote() : conflict.local();
+	    final var indices = conflict.fields().length > 0 ? conflict.fields() : new int[] { title };
+	    final var names = new StringJoiner(comma + space);
+	    for (final var i : indices) {
+		names.add(i < columns.length ? columns[i].getText() : String.valueOf(i));
+	    }
+	    final var item = new TableItem(tbl, SWT.NONE);
+	    item.setData(conflict);
+	    item.setText(new String[] { fields[title], names.toString(), values(conflict.local(), indices, password),
+		    values(conflict.remote(), indices, password) });
+	}
+	for (final var col : tbl.getColumns()) {
+	    col.pack();
+	}
+
+	final var okBtn = button(dialog, SWT.PUSH, dialOkay, widgetSelectedAdapter(_ -> {
+	    final var changes = new LinkedHashMap<String, byte[]>();
+	    for (final var item : tbl.getItems()) {
+		if (item.getChecked() && item.getData() instanceof final VaultMerge.Conflict conflict) {
+		    changes.put(conflict.uuid(), result.resolve(conflict, true));
+		}
+	    }
+	    dialog.close();
+	    if (!changes.isEmpty()) {
+		action.applyChanges(changes);
+	    }
+	}));
+	var gridData = getGridData(SWT.END, SWT.CENTER, 1, 0);
+	gridData.widthHint = BUTTON_WIDTH;
+	okBtn.setLayoutData(gridData);
+	dialog.setDefaultButton(okBtn);
+
+	final var clBtn = button(dialog, SWT.PUSH, diaCancl, widgetSelectedAdapter(_ -> dialog.close()));
+	gridData = getGridData(SWT.LEAD, SWT.CENTER, 1, 0);
+	gridData.widthHint = BUTTON_WIDTH;
+	clBtn.setLayoutData(gridData);
+
+	dialog.pack();
+	setCenter(dialog);
+	image.dispose();
+	dialog.open();
+	return dialog;
+    }
+}
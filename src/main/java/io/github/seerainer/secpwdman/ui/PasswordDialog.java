@@ -49,6 +49,7 @@ import io.github.seerainer.secpwdman.config.PrimitiveConstants;
 import io.github.seerainer.secpwdman.config.StringConstants;
 import io.github.seerainer.secpwdman.io.IO;
 import io.github.seerainer.secpwdman.util.AutoLockManager;
+import io.github.seerainer.secpwdman.util.AutoSaveManager;
 
 /**
  * The record PasswordDialog.
@@ -84,6 +85,7 @@ record PasswordDialog(FileAction action) implements PrimitiveConstants, StringCo
 
     private static void startAutoLock(final Display display, final FileAction action) {
 	AutoLockManager.getInstance(display, action);
+	AutoSaveManager.getInstance(display, action);
     }
 
     private void confirmPassword(final Shell dialog) {
@@ -108,11 +110,13 @@ record PasswordDialog(FileAction action) implements PrimitiveConstants, StringCo
 		    action.resetGroupList();
 		    action.fillTable(true, action.extractData(true));
 		    cData.setImport(true);
-		    if (io.saveFile(toBytes(pwdCharsB), file)) {
-			closeDialog(cData, dialog);
+		    io.saveFile(toBytes(pwdCharsB), file, () -> {
+			if (!dialog.isDisposed()) {
+			    closeDialog(cData, dialog);
+			}
 			action.postSave();
 			startAutoLock(display, action);
-		    }
+		    });
 		}
 	    }
 	    clear(pwdCharsA);
@@ -122,6 +126,8 @@ record PasswordDialog(FileAction action) implements PrimitiveConstants, StringCo
 		cData.setReadOnly(action.getTable().getItemCount() > 0);
 		closeDialog(cData, dialog);
 		startAutoLock(display, action);
+		action.restoreRecovery();
+		action.watchFile();
 	    } else {
 		dialog.setVisible(true);
 	    }
@@ -19,10 +19,12 @@
  */
 package io.github.seerainer.secpwdman.ui;
 
+import static io.github.seerainer.secpwdman.ui.Widgets.button;
 import static io.github.seerainer.secpwdman.ui.Widgets.shell;
 import static io.github.seerainer.secpwdman.util.SWTUtil.getGridData;
 import static io.github.seerainer.secpwdman.util.SWTUtil.getLayout;
 import static io.github.seerainer.secpwdman.util.SWTUtil.setCenter;
+import static org.eclipse.swt.events.SelectionListener.widgetSelectedAdapter;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.widgets.ProgressBar;
@@ -52,6 +54,25 @@ public record ProgressDialog(Action action) implements PrimitiveConstants, Strin
 	return dialog;
     }
 
+    Shell open(final String title, final int maximum, final Runnable cancel) {
+	final var layout = getLayout(1, 10, 10, 10, 10, 10, 10);
+	final var dialog = shell(action.getShell(), SWT.DIALOG_TRIM, layout, title);
+	final var progressBar = new ProgressBar(dialog, SWT.HORIZONTAL);
+	progressBar.setMaximum(maximum);
+	progressBar.setSelection(0);
+	progressBar.setLayoutData(getGridData(SWT.FILL, SWT.CENTER, 1, 0));
+
+	final var cancelButton = button(dialog, SWT.PUSH, diaCancl, widgetSelectedAdapter(_ -> dialog.close()));
+	cancelButton.setLayoutData(getGridData(SWT.END, SWT.CENTER, 0, 0));
+	dialog.addListener(SWT.Close, _ -> cancel.run());
+
+	dialog.setSize(400, 120);
+	setCenter(dialog);
+	dialog.open();
+
+	return dialog;
+    }
+
     /**
      * Updates the progress.
      *
@@ -60,13 +60,13 @@ public record SearchDialog(Action action) implements StringConstants {
 	final var shell = action.getShell();
 	final var table = action.getTable();
 	final var length = value.length();
-	final var itemCount = table.getItemCount();
+	final var rows = action.getStore().rows();
 	final var columnCount = table.getColumnCount();
 	final var selectionCount = table.getSelectionCount();
 	final var selectionIndex = selectionCount == 1 ? table.getSelectionIndex() + 1 : 0;
-	for (var i = selectionIndex; i < itemCount; i++) {
+	for (var i = selectionIndex; i < rows.size(); i++) {
 	    for (var j = 0; j < columnCount; j++) {
-		final var item = table.getItem(i).getText(j);
+		final var item = rows.get(i)[j];
 		for (var k = 0; k + length <= item.length(); k++) {
 		    if (!table.getColumn(j).getResizable()) {
 			break;
@@ -133,9 +133,15 @@ public class Widgets implements PrimitiveConstants {
      */
     public static String fileDialog(final Shell parent, final int style, final String filterName,
 	    final String filterExte) {
+	return fileDialog(parent, style, filterName, filterExte, null);
+    }
+
+    static String fileDialog(final Shell parent, final int style, final String filterName, final String filterExte,
+	    final String fileName) {
 	final var dialog = new FileDialog(parent, style);
 	dialog.setFilterNames(filterName);
 	dialog.setFilterExtensions(filterExte);
+	dialog.setFileName(fileName);
 	dialog.setOverwrite(true);
 	return dialog.open();
     }
@@ -315,7 +321,11 @@ public class Widgets implements PrimitiveConstants {
     }
 
     static Table table(final Composite parent) {
-	final var table = new Table(parent, SWT.FULL_SELECTION | SWT.MULTI);
+	return table(parent, SWT.FULL_SELECTION | SWT.MULTI);
+    }
+
+    static Table table(final Composite parent, final int style) {
+	final var table = new Table(parent, style);
 	table.setFocus();
 	table.setLinesVisible(true);
 	setFont(table, parent);
@@ -0,0 +1,116 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.util;
+
+import java.util.Objects;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Listener;
+
+import io.github.seerainer.secpwdman.action.FileAction;
+import io.github.seerainer.secpwdman.config.PrimitiveConstants;
+import io.github.seerainer.secpwdman.io.IO;
+
+/**
+ * The class AutoSaveManager writes a recovery snapshot of unsaved changes. Once
+ * the user has been idle for a quiet period after changing the data, the
+ * changes are written in the background, at most once per interval.
+ */
+public class AutoSaveManager implements PrimitiveConstants {
+
+    private static AutoSaveManager instance;
+
+    private boolean running = true;
+
+    private long lastActivityTime = System.currentTimeMillis();
+
+    private long lastSaveTime;
+
+    private final Display display;
+
+    private final FileAction action;
+
+    private final Listener activityListener = _ -> lastActivityTime = System.currentTimeMillis();
+
+    private final int[] events = { SWT.KeyDown, SWT.MouseDown, SWT.MouseUp };
+
+    private AutoSaveManager(final Display display, final FileAction action) {
+	this.display = display;
+	this.action = action;
+	addActivityListeners();
+	start();
+    }
+
+    /**
+     * Gets the singleton instance of AutoSaveManager. If an instance does not
+     * exist, it creates a new one with the provided display and action.
+     *
+     * @param display the SWT display to monitor for activity
+     * @param action  the FileAction of the open vault
+     */
+    public static synchronized AutoSaveManager getInstance(final Display display, final FileAction action) {
+	if (Objects.isNull(instance)) {
+	    instance = new AutoSaveManager(display, action);
+	}
+	return instance;
+    }
+
+    private void addActivityListeners() {
+	for (final int event : events) {
+	    display.addFilter(event, activityListener);
+	}
+    }
+
+    private void checkChanges() {
+	if (!running) {
+	    return;
+	}
+	final var cData = action.getCData();
+	final var now = System.currentTimeMillis();
+	if (cData.isModified() && !cData.isLocked() && !cData.isImport() && !cData.isCustomHeader()
+		&& Objects.nonNull(cData.getFile()) && lastActivityTime > lastSaveTime
+		&& now - lastActivityTime >= AUTOSAVE_QUIET * SECONDS
+		&& now - lastSaveTime >= AUTOSAVE_INTERVAL * SECONDS) {
+	    lastSaveTime = now;
+	    new IO(action).saveRecovery(cData.getFile());
+	}
+	start();
+    }
+
+    private void removeActivityListeners() {
+	for (final int event : events) {
+	    display.removeFilter(event, activityListener);
+	}
+    }
+
+    private void start() {
+	display.timerExec(SECONDS, this::checkChanges);
+    }
+
+    /**
+     * Stops the AutoSaveManager by removing all activity listeners
+     */
+    public void stop() {
+	running = false;
+	removeActivityListeners();
+	instance = null;
+    }
+}
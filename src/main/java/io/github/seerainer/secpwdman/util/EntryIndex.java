@@ -0,0 +1,82 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.util;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The class EntryIndex.
+ *
+ * A hash index over entries, keyed by the host of the URL, the user name and
+ * the title. The key is normalised, so an entry is found again even if another
+ * program wrote its URL with another scheme, path or case. Finding an entry
+ * takes constant time, so checking every row of an import stays linear.
+ *
+ * @param <T> the type of the entries
+ */
+public class EntryIndex<T> {
+
+    private final Map<String, T> entries;
+
+    /**
+     * Instantiates a new entry index.
+     *
+     * @param capacity the expected number of entries
+     */
+    public EntryIndex(final int capacity) {
+	entries = HashMap.newHashMap(capacity);
+    }
+
+    static String key(final String url, final String user, final String title) {
+	return new StringBuilder().append(URLUtil.getHost(url)).append('\n').append(normalise(user)).append('\n')
+		.append(normalise(title)).toString();
+    }
+
+    private static String normalise(final String text) {
+	return Objects.isNull(text) ? "" : text.strip().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Adds the entry. If another entry has the same key, the first one is kept.
+     *
+     * @param url   the url
+     * @param user  the user name
+     * @param title the title
+     * @param entry the entry
+     */
+    public void add(final String url, final String user, final String title, final T entry) {
+	entries.putIfAbsent(key(url, user, title), entry);
+    }
+
+    /**
+     * Finds the entry with the same key.
+     *
+     * @param url   the url
+     * @param user  the user name
+     * @param title the title
+     * @return the entry, or null if there is none
+     */
+    public T find(final String url, final String user, final String title) {
+	return entries.get(key(url, user, title));
+    }
+}
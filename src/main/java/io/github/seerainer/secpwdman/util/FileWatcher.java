@@ -0,0 +1,165 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.util;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+
+import io.github.seerainer.secpwdman.config.PrimitiveConstants;
+import io.github.seerainer.secpwdman.config.StringConstants;
+
+/**
+ * The class FileWatcher notifies listeners when a watched file is created,
+ * changed or deleted. The parent directories are registered with a
+ * {@link WatchService} on a virtual thread. Events are debounced, so a listener
+ * runs once after a burst of writes has settled.
+ */
+public class FileWatcher implements PrimitiveConstants, StringConstants {
+
+    private static final Logger LOG = LogFactory.getLog();
+
+    private static FileWatcher instance;
+
+    private final Map<Path, WatchKey> keys = new HashMap<>();
+
+    private final Map<Path, Runnable> listeners = new ConcurrentHashMap<>();
+
+    private WatchService service;
+
+    private FileWatcher() {
+    }
+
+    /**
+     * Gets the singleton instance of FileWatcher.
+     *
+     * @return the instance
+     */
+    public static synchronized FileWatcher getInstance() {
+	if (isNull(instance)) {
+	    instance = new FileWatcher();
+	}
+	return instance;
+    }
+
+    private void dispatch(final Map<Path, Long> due, final long now) {
+	due.entrySet().removeIf(entry -> {
+	    if (now - entry.getValue().longValue() < WATCH_DEBOUNCE) {
+		return false;
+	    }
+	    final var listener = listeners.get(entry.getKey());
+	    if (nonNull(listener)) {
+		listener.run();
+	    }
+	    return true;
+	});
+    }
+
+    private void process(final WatchService watchService) {
+	final var due = new HashMap<Path, Long>();
+	try {
+	    while (true) {
+		final var key = due.isEmpty() ? watchService.take()
+			: watchService.poll(WATCH_DEBOUNCE, TimeUnit.MILLISECONDS);
+		final var now = System.currentTimeMillis();
+		if (nonNull(key)) {
+		    final var dir = (Path) key.watchable();
+		    for (final var event : key.pollEvents()) {
+			if (event.kind() == OVERFLOW) {
+			    listeners.keySet().stream().filter(file -> dir.equals(file.getParent()))
+				    .forEach(file -> due.put(file, Long.valueOf(now)));
+			} else if (event.context() instanceof final Path name
+				&& listeners.containsKey(dir.resolve(name))) {
+			    due.put(dir.resolve(name), Long.valueOf(now));
+			}
+		    }
+		    key.reset();
+		}
+		dispatch(due, now);
+	    }
+	} catch (final InterruptedException e) {
+	    LOG.warn(WARN, e);
+	    Thread.currentThread().interrupt();
+	} catch (final ClosedWatchServiceException e) {
+	    // the last file was unwatched
+	}
+    }
+
+    /**
+     * Stops watching a file.
+     *
+     * @param file the file
+     */
+    public synchronized void unwatch(final Path file) {
+	final var path = file.toAbsolutePath().normalize();
+	if (isNull(listeners.remove(path))) {
+	    return;
+	}
+	final var dir = path.getParent();
+	if (listeners.keySet().stream().noneMatch(other -> dir.equals(other.getParent()))) {
+	    keys.remove(dir).cancel();
+	}
+	if (keys.isEmpty()) {
+	    try {
+		service.close();
+	    } catch (final IOException e) {
+		LOG.warn(WARN, e);
+	    }
+	    service = null;
+	}
+    }
+
+    /**
+     * Watches a file. The file does not need to exist yet, its directory does.
+     *
+     * @param file     the file
+     * @param listener runs on the watcher thread after the file was changed
+     * @throws IOException if the directory cannot be watched
+     */
+    public synchronized void watch(final Path file, final Runnable listener) throws IOException {
+	final var path = file.toAbsolutePath().normalize();
+	final var dir = path.getParent();
+	if (isNull(service)) {
+	    final var watchService = FileSystems.getDefault().newWatchService();
+	    service = watchService;
+	    Thread.ofVirtual().start(() -> process(watchService));
+	}
+	if (!keys.containsKey(dir)) {
+	    keys.put(dir, dir.register(service, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE));
+	}
+	listeners.put(path, listener);
+    }
+}
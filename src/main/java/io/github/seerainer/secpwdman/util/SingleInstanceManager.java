@@ -35,7 +35,8 @@ import java.time.format.DateTimeFormatter;
 /**
  * Utility class for ensuring only one instance of an application runs at a
  * time. Uses file locking mechanism that is automatically released when the JVM
- * exits.
+ * exits. The lock file is watched and acquired again if it gets deleted while
+ * the application runs.
  */
 public class SingleInstanceManager {
 
@@ -51,6 +52,11 @@ public class SingleInstanceManager {
 	this.lockFilePath = createLockFilePath();
     }
 
+    SingleInstanceManager(final String applicationName, final Path lockFilePath) {
+	this.applicationName = sanitizeFileName(applicationName);
+	this.lockFilePath = lockFilePath;
+    }
+
     /**
      * Acquire a lock for the given application name. If the lock is already held by
      * another instance, this method returns false.
@@ -60,7 +66,16 @@ public class SingleInstanceManager {
      */
     public static boolean acquire(final String applicationName) {
 	final var manager = new SingleInstanceManager(applicationName);
-	return manager.tryLock();
+	if (!manager.tryLock()) {
+	    return false;
+	}
+	Runtime.getRuntime().addShutdownHook(new Thread(manager::releaseLock));
+	try {
+	    FileWatcher.getInstance().watch(manager.lockFilePath, manager::checkLockFile);
+	} catch (final IOException e) {
+	    System.err.println("Error watching lock file: " + e.getMessage());
+	}
+	return true;
     }
 
     private static String getProcessId() {
@@ -77,6 +92,17 @@ public class SingleInstanceManager {
 	return name.replaceAll("[<>:\"/\\\\|?*]", "_").trim();
     }
 
+    synchronized void checkLockFile() {
+	if (!locked || Files.exists(lockFilePath)) {
+	    return;
+	}
+	closeResources();
+	locked = false;
+	if (!tryLock()) {
+	    System.err.println("Could not restore lock file: " + lockFilePath);
+	}
+    }
+
     private void closeResources() {
 	try {
 	    if (channel != null) {
@@ -126,11 +152,13 @@ public class SingleInstanceManager {
 	return Paths.get(userHome, ".local", "share", applicationName, applicationName + ".lock");
     }
 
-    private void releaseLock() {
+    synchronized void releaseLock() {
 	if (!locked) {
 	    return;
 	}
 
+	FileWatcher.getInstance().unwatch(lockFilePath);
+
 	try {
 	    if (lock != null && lock.isValid()) {
 		lock.release();
@@ -152,7 +180,7 @@ public class SingleInstanceManager {
 	locked = false;
     }
 
-    private boolean tryLock() {
+    boolean tryLock() {
 	if (locked) {
 	    return true;
 	}
@@ -170,8 +198,6 @@ public class SingleInstanceManager {
 
 	    writeApplicationInfo();
 
-	    Runtime.getRuntime().addShutdownHook(new Thread(this::releaseLock));
-
 	    locked = true;
 	    return true;
 	} catch (final OverlappingFileLockException e) {
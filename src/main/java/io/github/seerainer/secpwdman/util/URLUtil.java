@@ -19,6 +19,7 @@
  */
 package io.github.seerainer.secpwdman.util;
 
+import java.util.Locale;
 import java.util.Objects;
 import java.util.regex.Pattern;
 
@@ -38,6 +39,36 @@ public class URLUtil implements PrimitiveConstants, StringConstants {
     private URLUtil() {
     }
 
+    /**
+     * Gets the host of the url in lower case, without scheme, user info, port,
+     * path and a leading www. A text that is no url is returned trimmed.
+     *
+     * @param url the string url
+     * @return the host
+     */
+    public static String getHost(final String url) {
+	if (Objects.isNull(url)) {
+	    return "";
+	}
+	var host = url.strip().toLowerCase(Locale.ROOT);
+	final var scheme = host.indexOf("://");
+	if (scheme >= 0) {
+	    host = host.substring(scheme + 3);
+	}
+	for (final var end : new char[] { '/', '?', '#' }) {
+	    final var index = host.indexOf(end);
+	    if (index >= 0) {
+		host = host.substring(0, index);
+	    }
+	}
+	host = host.substring(host.lastIndexOf('@') + 1);
+	final var port = host.lastIndexOf(':');
+	if (port >= 0 && host.indexOf(']') < port) {
+	    host = host.substring(0, port);
+	}
+	return host.startsWith("www.") ? host.substring(4) : host;
+    }
+
     /**
      * Checks if is url.
      *
@@ -0,0 +1,101 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.crypto;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the parallel password batch.
+ */
+@Tag("unit")
+@DisplayName("PasswordBatch Unit Tests")
+class PasswordBatchTest {
+
+    private static final char[] KEY = "BatchKey123!".toCharArray();
+
+    private static char[] open(final char[] cell) {
+	return new String(KeyStoreManager.getPasswordFromKeyStore(KEY, Base64.getDecoder().decode(String.valueOf(cell))),
+		UTF_8).toCharArray();
+    }
+
+    private static char[][][] rows(final int count) {
+	final var rows = new char[count][][];
+	for (var i = 0; i < count; i++) {
+	    rows[i] = new char[][] { ("id" + i).toCharArray(), ("password" + i).toCharArray() };
+	}
+	return rows;
+    }
+
+    private static char[] seal(final char[] cell) {
+	final var sealed = KeyStoreManager.putPasswordInKeyStore(KEY, String.valueOf(cell).getBytes(UTF_8));
+	return Base64.getEncoder().encodeToString(sealed).toCharArray();
+    }
+
+    @Test
+    @DisplayName("Should seal and open every cell in the order of the rows")
+    void shouldRoundTripInOrder() {
+	final var rows = rows(100);
+	final var progress = new AtomicInteger();
+
+	assertThat(PasswordBatch.run(rows, 1, PasswordBatchTest::seal, count -> progress.accumulateAndGet(count, Math::max),
+		null)).isTrue();
+	assertThat(progress.get()).isEqualTo(rows.length);
+	assertThat(String.valueOf(rows[7][1])).doesNotContain("password");
+
+	assertThat(PasswordBatch.run(rows, 1, PasswordBatchTest::open, null, null)).isTrue();
+	for (var i = 0; i < rows.length; i++) {
+	    assertThat(rows[i][0]).isEqualTo(("id" + i).toCharArray());
+	    assertThat(rows[i][1]).isEqualTo(("password" + i).toCharArray());
+	}
+    }
+
+    @Test
+    @DisplayName("Should stop when cancelled and clear the replaced cells")
+    void shouldCancel() {
+	final var rows = rows(1000);
+	final var originals = new char[rows.length][];
+	for (var i = 0; i < rows.length; i++) {
+	    originals[i] = rows[i][1];
+	}
+	final var calls = new AtomicInteger();
+
+	final var completed = PasswordBatch.run(rows, 1, cell -> {
+	    calls.incrementAndGet();
+	    return new StringBuilder().append(cell).reverse().toString().toCharArray();
+	}, null, () -> calls.get() >= 10);
+
+	assertThat(completed).isFalse();
+	assertThat(calls.get()).isLessThan(rows.length);
+	for (var i = 0; i < rows.length; i++) {
+	    if (rows[i][1] != originals[i]) {
+		assertThat(String.valueOf(rows[i][1])).isEqualTo(new StringBuilder("password" + i).reverse().toString());
+		assertThat(originals[i]).containsOnly('\0');
+	    }
+	}
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.csv;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import io.github.seerainer.secpwdman.config.PrimitiveConstants;
+
+/**
+ * Unit tests for the parallel parse of large inputs.
+ */
+@Tag("unit")
+@DisplayName("CSVParser Parallel Unit Tests")
+class CSVParserParallelTest {
+
+    private static void assertSameRecords(final List<CSVRecord> actual, final List<CSVRecord> expected) {
+	assertThat(actual).hasSameSizeAs(expected);
+	for (var i = 0; i < actual.size(); i++) {
+	    assertThat(actual.get(i).getFields()).containsExactly(expected.get(i).getFields());
+	    assertThat(actual.get(i).getLineNumber()).isEqualTo(expected.get(i).getLineNumber());
+	    assertThat(actual.get(i).getErrors()).containsExactly(expected.get(i).getErrors());
+	}
+    }
+
+    private static byte[] data(final String row) {
+	final var sb = new StringBuilder();
+	for (var i = 0; sb.length() < PrimitiveConstants.CSV_PARALLEL * 2; i++) {
+	    sb.append(i).append(row);
+	}
+	return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<CSVRecord> parse(final CSVConfiguration config, final byte[] data, final boolean parallel)
+	    throws CSVParseException {
+	return new CSVParser(config, CSVParsingOptions.builder().parallel(parallel).build())
+		.parseByteArray(data.clone());
+    }
+
+    @Test
+    @DisplayName("Should parse quoted fields over several lines like the sequential parse")
+    void shouldMatchSequentialParse() throws CSVParseException {
+	final var config = CSVConfiguration.builder().build();
+	final var data = data(",\"multi\nline\r\n\",\"x \"\"y\"\"\",plain\r\n\n");
+
+	assertSameRecords(parse(config, data, true), parse(config, data, false));
+    }
+
+    @Test
+    @DisplayName("Should keep the sequential result when the scan of a chunk is wrong")
+    void shouldRecoverFromWrongScan() throws CSVParseException {
+	final var config = CSVConfiguration.builder().maxFieldSize(4).build();
+	final var data = data(",\"abcde,\"\n");
+
+	assertSameRecords(parse(config, data, true), parse(config, data, false));
+    }
+}
@@ -19,6 +19,12 @@
  */
 package io.github.seerainer.secpwdman.csv;
 
+import static io.github.seerainer.secpwdman.config.StringConstants.unclosedQuote;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
@@ -31,6 +37,12 @@ import org.junit.jupiter.api.Test;
 @DisplayName("CSV Parser Integration Tests")
 class CSVParserTests {
 
+    private static List<CSVRecord> parse(final String csv, final int maxFieldSize) throws CSVParseException {
+	final var config = CSVConfiguration.builder().maxFieldSize(maxFieldSize).build();
+	final var options = CSVParsingOptions.builder().allowUnescapedQuotesInFields(true).build();
+	return new CSVParser(config, options).parseByteArray(csv.getBytes(UTF_8));
+    }
+
     @SuppressWarnings("static-method")
     private void demonstrateBasicParsing() {
 	// Create configuration
@@ -297,4 +309,48 @@ class CSVParserTests {
 	demonstrateLineHandling();
 	demonstrateErrorTolerance();
     }
+
+    @Test
+    @DisplayName("Should count the maximum field size in characters")
+    void shouldCountFieldSizeInCharacters() throws CSVParseException {
+	final var records = parse("€;ää€,b\"\u2003\u2003\nc \t\uD834\uDD1E\n", 5);
+
+	assertThat(records).hasSize(2);
+	assertThat(records.get(0).getFields()).containsExactly("€;ää€", "b\"\u2003\u2003");
+	assertThat(records.get(1).getFields()).containsExactly("c \t\uD834\uDD1E");
+	assertThat(records).noneMatch(CSVRecord::hadErrors);
+    }
+
+    @Test
+    @DisplayName("Should cut a field over the maximum size before a whole character")
+    void shouldCutFieldBeforeWholeCharacter() throws CSVParseException {
+	final var records = parse("aä€€x,b\nabc\uD834\uDD1E,c\n", 4);
+
+	assertThat(records.get(0).getFields()).containsExactly("aä€€", "b");
+	assertThat(records.get(0).getErrors()).hasSize(1);
+	assertThat(records.get(1).getFields()).containsExactly("abc", "c");
+	assertThat(records.get(1).getErrors()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should continue after the character that exceeds the maximum size")
+    void shouldRecoverAfterOversizedCharacter() throws CSVParseException {
+	final var records = parse("abcdef,x\n\"abcd\",y\n", 3);
+
+	assertThat(records.get(0).getFields()).containsExactly("abc", "x");
+	assertThat(records.get(0).getErrors()).hasSize(3);
+	assertThat(records.get(1).getFields()).containsExactly("abc", "y");
+	assertThat(records.get(1).getErrors()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should report a quoted field that is open at the end of the input")
+    void shouldReportUnclosedQuote() throws CSVParseException {
+	final var records = parse("a,b\n\"\n", 16);
+
+	assertThat(records).hasSize(2);
+	assertThat(records.get(0).hadErrors()).isFalse();
+	assertThat(records.get(1).getFields()).containsExactly("\n");
+	assertThat(records.get(1).getErrors()).singleElement().asString().startsWith(unclosedQuote);
+    }
 }
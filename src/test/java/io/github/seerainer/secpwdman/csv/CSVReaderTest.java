@@ -0,0 +1,85 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.csv;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import io.github.seerainer.secpwdman.config.PrimitiveConstants;
+
+/**
+ * Unit tests for the streaming CSV reader.
+ */
+@Tag("unit")
+@DisplayName("CSVReader Unit Tests")
+class CSVReaderTest {
+
+    private static CSVParser parser() {
+	return new CSVParser(CSVConfiguration.builder().maxFieldSize(1 << 20).build(),
+		CSVParsingOptions.builder().build());
+    }
+
+    private static InputStream chunked(final String text, final int size) {
+	return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)) {
+
+	    @Override
+	    public int read(final byte[] buffer, final int off, final int len) {
+		return super.read(buffer, off, Math.min(len, size));
+	    }
+	};
+    }
+
+    @Test
+    @DisplayName("Should read the same records as the byte array parser")
+    void shouldMatchParser() throws IOException, CSVParseException {
+	final var text = "a,b,c\r\n\"multi\nline\",\"x \"\"y\"\"\",z\n\n1,,3\n\u00e4\u20ac\uD83D\uDE00,\"\u00fc\"\"\u00df\"";
+	final var expected = parser().parseByteArray(text.getBytes(StandardCharsets.UTF_8));
+
+	try (final var reader = new CSVReader(parser(), chunked(text, 3))) {
+	    final var records = reader.stream().toList();
+	    assertThat(records).hasSameSizeAs(expected);
+	    for (var i = 0; i < records.size(); i++) {
+		assertThat(records.get(i).getFields()).containsExactly(expected.get(i).getFields());
+		assertThat(records.get(i).getLineNumber()).isEqualTo(expected.get(i).getLineNumber());
+	    }
+	    assertThat(records.getLast().getFields()).containsExactly("\u00e4\u20ac\uD83D\uDE00", "\u00fc\"\u00df");
+	}
+    }
+
+    @Test
+    @DisplayName("Should grow the window for a record larger than the window")
+    void shouldGrowWindow() throws IOException, CSVParseException {
+	final var large = "x".repeat(PrimitiveConstants.CSV_WINDOW * 3);
+
+	try (final var reader = new CSVReader(parser(), chunked("a,\"" + large + "\"\nb,c\n", 1000))) {
+	    assertThat(reader.read().getFields()).containsExactly("a", large);
+	    assertThat(reader.read().getFields()).containsExactly("b", "c");
+	    assertThat(reader.read()).isNull();
+	}
+    }
+}
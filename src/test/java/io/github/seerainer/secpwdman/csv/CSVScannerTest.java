@@ -0,0 +1,62 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.csv;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the structural scanner of the CSV parser.
+ */
+@Tag("unit")
+@DisplayName("CSVScanner Unit Tests")
+class CSVScannerTest {
+
+    private static final byte[] ALPHABET = { 'a', 'b', ',', '"', '\n', '\r', (byte) 0xC2, (byte) 0xA7, (byte) 0xE2,
+	    (byte) 0x80, (byte) 0xFF, 0 };
+
+    @Test
+    @DisplayName("Should find the same positions as the scalar scanner")
+    void shouldMatchScalarScanner() {
+	final var field = new byte[] { ',', '"', '\n', '\r' };
+	final var quoted = new byte[] { '"', (byte) 0xE2 };
+	final var scalar = new CSVScanner(field, quoted);
+	final var scanner = CSVScanner.create(field, quoted);
+	final var random = new Random(42);
+
+	for (var i = 0; i < 10000; i++) {
+	    final var bytes = new byte[random.nextInt(200)];
+	    for (var j = 0; j < bytes.length; j++) {
+		bytes[j] = random.nextInt(8) == 0 ? ALPHABET[random.nextInt(ALPHABET.length)]
+			: (byte) ('a' + random.nextInt(26));
+	    }
+	    final var start = random.nextInt(bytes.length + 1);
+	    final var end = start + random.nextInt(bytes.length - start + 1);
+
+	    assertThat(scanner.field(bytes, start, end)).isEqualTo(scalar.field(bytes, start, end));
+	    assertThat(scanner.quoted(bytes, start, end)).isEqualTo(scalar.quoted(bytes, start, end));
+	}
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.csv;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import io.github.seerainer.secpwdman.config.PrimitiveConstants;
+
+/**
+ * Unit tests for the CSV dialect sniffer.
+ */
+@Tag("unit")
+@DisplayName("CSVSniffer Unit Tests")
+class CSVSnifferTest {
+
+    private static byte[] bytes(final String text) {
+	return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("Should detect the delimiter and the quote of an export")
+    void shouldDetectDialect() {
+	final var semicolon = CSVSniffer.sniff(bytes("""
+		name;url;user;password
+		Mail;https://mail.example.com;me, myself;"a;b"
+		Bank;https://bank.example.com;me;secret
+		"""), ',');
+	assertThat(semicolon.delimiter()).isEqualTo(';');
+	assertThat(semicolon.quote()).isEqualTo('"');
+
+	final var tab = CSVSniffer.sniff(bytes("name\turl\tnote\nMail\thttps://mail.example.com\tit's mine\n"), ',');
+	assertThat(tab.delimiter()).isEqualTo('\t');
+	assertThat(tab.quote()).isEqualTo('"');
+
+	final var single = CSVSniffer.sniff(bytes("name,note\n'Mail','a, b'\n'Bank','c, d'\n"), ',');
+	assertThat(single.delimiter()).isEqualTo(',');
+	assertThat(single.quote()).isEqualTo('\'');
+    }
+
+    @Test
+    @DisplayName("Should keep the preferred delimiter when it fits")
+    void shouldPreferDelimiter() {
+	final var data = bytes("a,b;c\nd,e;f\n");
+	assertThat(CSVSniffer.sniff(data, ';').delimiter()).isEqualTo(';');
+	assertThat(CSVSniffer.sniff(data, ',').delimiter()).isEqualTo(',');
+	assertThat(CSVSniffer.sniff(bytes("single\ncolumn\n"), ';').delimiter()).isEqualTo(';');
+    }
+
+    @Test
+    @DisplayName("Should only sample the start of large data")
+    void shouldSamplePrefix() {
+	final var text = new StringBuilder("title|user|password\n");
+	while (text.length() < PrimitiveConstants.CSV_SAMPLE * 4) {
+	    text.append("Entry|\"multi\nline\"|secret\n");
+	}
+	final var data = bytes(text.toString());
+	final var dialect = CSVSniffer.sniff(data, ',');
+
+	assertThat(dialect.delimiter()).isEqualTo('|');
+	assertThat(dialect.lineEndings()).isNull();
+	assertThat(data).isEqualTo(bytes(text.toString()));
+    }
+}
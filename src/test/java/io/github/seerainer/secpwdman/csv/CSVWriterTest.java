@@ -0,0 +1,88 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.csv;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the CSV writer.
+ */
+@Tag("unit")
+@DisplayName("CSVWriter Unit Tests")
+class CSVWriterTest {
+
+    private static final String[] ALPHABET = { "a", "b", ",", ";", "\"", " ", "\n", "\t", "ä", "€",
+	    "😀" };
+
+    @Test
+    @DisplayName("Should quote only the fields that need it")
+    void shouldQuoteSpecialFields() throws IOException {
+	final var writer = new CSVWriter(CSVConfiguration.builder().build(), 0);
+	writer.writeRaw("h1,h2").endRecord().writeRecord("plain", "a\"b", "a b", "ä", "x;y", "");
+	writer.writeRecord("a,b");
+
+	assertThat(new String(writer.toByteArray(), StandardCharsets.UTF_8))
+		.isEqualTo("h1,h2\nplain,\"a\"\"b\",\"a b\",\"ä\",x;y,\n\"a,b\"\n");
+	writer.clear();
+	assertThat(writer.toByteArray()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should write records the parser reads back")
+    void shouldRoundTrip() throws IOException, CSVParseException {
+	final var config = CSVConfiguration.builder().delimiter(';').maxFieldSize(1 << 20).build();
+	final var random = new Random(7);
+	final var rows = new String[500][];
+	final var memory = new CSVWriter(config, 0);
+	final var stream = new ByteArrayOutputStream();
+
+	try (final var writer = new CSVWriter(config, stream)) {
+	    for (var i = 0; i < rows.length; i++) {
+		rows[i] = new String[1 + random.nextInt(6)];
+		for (var j = 0; j < rows[i].length; j++) {
+		    final var field = new StringBuilder("f");
+		    for (var k = random.nextInt(30); k > 0; k--) {
+			field.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+		    }
+		    rows[i][j] = field.toString();
+		}
+		memory.writeRecord(rows[i]);
+		writer.writeRecord(rows[i]);
+	    }
+	}
+	assertThat(stream.toByteArray()).isEqualTo(memory.toByteArray());
+
+	final var records = new CSVParser(config, CSVParsingOptions.builder().build())
+		.parseByteArray(memory.toByteArray());
+	assertThat(records).hasSize(rows.length);
+	for (var i = 0; i < rows.length; i++) {
+	    assertThat(records.get(i).getFields()).containsExactly(rows[i]);
+	}
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.seerainer.secpwdman.crypto.Crypto;
+
+/**
+ * Integration tests for the attachment store.
+ */
+@Tag("integration")
+@DisplayName("AttachmentStore Integration Tests")
+class AttachmentStoreTest {
+
+    private static final byte[] SECRET = Crypto.getRandomValue(32);
+
+    @TempDir
+    Path tempDir;
+
+    private long chunks(final Path dir) throws IOException {
+	try (final var stream = Files.walk(dir.resolve("chunks"))) {
+	    return stream.filter(Files::isRegularFile).count();
+	}
+    }
+
+    private Path file(final String name, final int size) throws IOException {
+	final var data = new byte[size];
+	new SplittableRandom(size).nextBytes(data);
+	return Files.write(tempDir.resolve(name), data);
+    }
+
+    @Test
+    @DisplayName("Should store equal content once and save it unchanged")
+    void shouldDeduplicateAttachments() throws IOException, GeneralSecurityException {
+	final var dir = tempDir.resolve("vault.attachments");
+	final var source = file("key.bin", 300_000);
+	final var copy = Files.copy(source, tempDir.resolve("copy.bin"));
+
+	final var first = AttachmentStore.add(dir, SECRET, "a", source);
+	final var stored = chunks(dir);
+	AttachmentStore.add(dir, SECRET, "b", copy);
+
+	assertThat(stored).isGreaterThan(3);
+	assertThat(chunks(dir)).isEqualTo(stored);
+	assertThat(first.size()).isEqualTo(300_000);
+	assertThat(AttachmentStore.list(dir, SECRET, "a")).extracting(AttachmentStore.Attachment::name)
+		.containsExactly("key.bin");
+
+	final var target = tempDir.resolve("saved.bin");
+	AttachmentStore.export(dir, SECRET, first, target);
+	assertThat(Files.mismatch(source, target)).isEqualTo(-1);
+    }
+
+    @Test
+    @DisplayName("Should remove unused chunks with the last attachment using them")
+    void shouldRemoveAttachments() throws IOException, GeneralSecurityException {
+	final var dir = tempDir.resolve("vault.attachments");
+	final var first = AttachmentStore.add(dir, SECRET, "a", file("one.bin", 100_000));
+	AttachmentStore.add(dir, SECRET, "b", file("two.bin", 50_000));
+	final var both = chunks(dir);
+
+	AttachmentStore.remove(dir, SECRET, first);
+	assertThat(chunks(dir)).isLessThan(both).isPositive();
+	assertThat(AttachmentStore.list(dir, SECRET, "a")).isEmpty();
+
+	AttachmentStore.retain(dir, SECRET, Set.of("a"));
+	assertThat(AttachmentStore.list(dir, SECRET, "b")).isEmpty();
+	assertThat(chunks(dir)).isZero();
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.seerainer.secpwdman.config.ConfigData;
+import io.github.seerainer.secpwdman.crypto.Crypto;
+import io.github.seerainer.secpwdman.crypto.CryptoConfig;
+
+/**
+ * Integration tests for the deduplicating backup store.
+ */
+@Tag("integration")
+@DisplayName("BackupStore Integration Tests")
+class BackupStoreTest {
+
+    private static final byte[] SECRET = Crypto.getRandomValue(32);
+
+    @TempDir
+    Path tempDir;
+
+    private static String vault(final int count) {
+	final var sb = new StringBuilder("uuid,group,title,url,user,password,notes\n");
+	for (var i = 0; i < count; i++) {
+	    sb.append(UUID.nameUUIDFromBytes(new byte[] { (byte) i, (byte) (i >> 8) })).append(",Work,Title ")
+		    .append(i).append(",https://example.com/").append(i).append(",user").append(i).append(",secret")
+		    .append(i).append(",\n");
+	}
+	return sb.toString();
+    }
+
+    private long chunks(final Path dir) throws IOException {
+	try (final var stream = Files.walk(dir.resolve("chunks"))) {
+	    return stream.filter(Files::isRegularFile).count();
+	}
+    }
+
+    @AfterEach
+    void tearDown() {
+	VaultSession.getInstance().close();
+    }
+
+    @Test
+    @DisplayName("Should back up the saved data of a compressed vault")
+    void shouldBackUpCompressedSave() throws IOException, GeneralSecurityException {
+	final var cData = new ConfigData();
+	final var data = vault(50);
+	final var file = tempDir.resolve("vault.json").toString();
+	final var session = VaultSession.getInstance();
+	cData.setHeader(data.substring(0, data.indexOf('\n')));
+	cData.setCompress(true);
+	cData.setBackup(true);
+	cData.getCryptoConfig().setKeyDerivation(CryptoConfig.KDF.PBKDF2);
+	session.save(file, cData, data.getBytes(StandardCharsets.UTF_8),
+		"TestPassword123!".getBytes(StandardCharsets.UTF_8));
+
+	final var backups = session.getBackups();
+	final var snapshots = backups.list(file);
+	assertThat(snapshots).isNotEmpty();
+	assertThat(new String(backups.restore(file, snapshots.getFirst()), StandardCharsets.UTF_8)).isEqualTo(data);
+    }
+
+    @Test
+    @DisplayName("Should restore every snapshot and only store changed chunks")
+    void shouldDeduplicateSnapshots() throws IOException, GeneralSecurityException {
+	final var dir = tempDir.resolve("vault.backup");
+	final var first = vault(2000);
+	final var second = first.replace("Title 1000,", "Changed title,");
+	BackupStore.write(dir, SECRET, first.getBytes(StandardCharsets.UTF_8), 2000);
+	final var afterFirst = chunks(dir);
+	BackupStore.write(dir, SECRET, second.getBytes(StandardCharsets.UTF_8), 2000);
+
+	assertThat(afterFirst).isGreaterThan(4);
+	assertThat(chunks(dir) - afterFirst).isBetween(1L, 2L);
+
+	final var snapshots = BackupStore.list(dir, SECRET);
+	assertThat(snapshots).hasSize(2);
+	assertThat(snapshots.getFirst().entries()).isEqualTo(2000);
+	assertThat(new String(BackupStore.read(dir, SECRET, snapshots.getLast()), StandardCharsets.UTF_8))
+		.isEqualTo(first);
+	assertThat(new String(BackupStore.read(dir, SECRET, snapshots.getFirst()), StandardCharsets.UTF_8))
+		.isEqualTo(second);
+    }
+
+    @Test
+    @DisplayName("Should not list snapshots of another secret")
+    void shouldRejectOtherSecret() throws IOException, GeneralSecurityException {
+	final var dir = tempDir.resolve("vault.backup");
+	BackupStore.write(dir, SECRET, vault(10).getBytes(StandardCharsets.UTF_8), 10);
+
+	assertThat(BackupStore.list(dir, Crypto.getRandomValue(32))).isEmpty();
+    }
+}
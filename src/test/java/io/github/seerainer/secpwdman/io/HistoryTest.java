@@ -0,0 +1,130 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.seerainer.secpwdman.config.PrimitiveConstants;
+import io.github.seerainer.secpwdman.crypto.Crypto;
+import io.github.seerainer.secpwdman.crypto.KeyStoreManager;
+import io.github.seerainer.secpwdman.csv.CSVParseException;
+
+/**
+ * Integration tests for the entry history.
+ */
+@Tag("integration")
+@DisplayName("History Integration Tests")
+class HistoryTest {
+
+    private static final byte[] KEY = Crypto.getRandomValue(32);
+
+    @TempDir
+    Path tempDir;
+
+    private static String[] fields(final String password, final String notes) {
+	return new String[] { "a", "Work", "Title", "https://example.com", "user", password, notes };
+    }
+
+    private static byte[] line(final String[] fields) {
+	return String.join(",", fields).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("Should rebuild every kept version from deltas and keyframes")
+    void shouldRebuildVersions() throws IOException, GeneralSecurityException, CSVParseException {
+	final var path = tempDir.resolve("vault.history");
+	final var count = PrimitiveConstants.HISTORY_KEEP + 5;
+	var saved = fields("pwd0", "note");
+	for (var i = 1; i <= count; i++) {
+	    final var next = fields("pwd" + i, i % 3 == 0 ? "note" + i : saved[6]);
+	    final var history = History.read(path, KEY);
+	    assertThat(history.update(Map.of("a", line(saved)), Map.of("a", line(next)), ',')).isTrue();
+	    history.write(path, KEY);
+	    saved = next;
+	}
+
+	final var versions = History.read(path, KEY).versions("a", saved);
+
+	assertThat(versions).hasSize(PrimitiveConstants.HISTORY_KEEP);
+	for (var i = 0; i < versions.size(); i++) {
+	    final var n = count - 1 - i;
+	    assertThat(versions.get(i).fields()[5]).isEqualTo("pwd" + n);
+	    assertThat(versions.get(i).fields()[6]).isEqualTo(n < 3 ? "note" : "note" + n / 3 * 3);
+	}
+    }
+
+    @Test
+    @DisplayName("Should restore an older version with a password that decrypts")
+    void shouldRestoreEncryptedPassword() throws IOException, GeneralSecurityException, CSVParseException {
+	final var path = tempDir.resolve("vault.history");
+	final var key = "StoreKey123!".toCharArray();
+	final var sealed = Base64.getEncoder().encodeToString(
+		KeyStoreManager.putPasswordInKeyStore(key, "old".getBytes(StandardCharsets.UTF_8)));
+	// the password comes second in the file, the title last
+	final var columns = Map.of("uuid", Integer.valueOf(0), "password", Integer.valueOf(1), "group",
+		Integer.valueOf(2), "url", Integer.valueOf(3), "user", Integer.valueOf(4), "notes", Integer.valueOf(5),
+		"title", Integer.valueOf(6));
+	final var saved = new String[] { "a", sealed, "Work", "https://example.com", "user", "", "Old title" };
+	final var next = new String[] { "a", "new", "Work", "https://example.com", "user", "", "New title" };
+	final var history = History.read(path, KEY);
+	history.update(Map.of("a", line(saved)), Map.of("a", line(next)), ',');
+	history.write(path, KEY);
+
+	final var version = History.read(path, KEY).versions("a", next).getFirst().fields(columns);
+
+	assertThat(version[2]).isEqualTo("Old title");
+	assertThat(version[5]).isEqualTo(sealed);
+	final var password = KeyStoreManager.getPasswordFromKeyStore(key, Base64.getDecoder().decode(version[5]));
+	assertThat(new String(password, StandardCharsets.UTF_8)).isEqualTo("old");
+    }
+
+    @Test
+    @DisplayName("Should drop the history of deleted entries and ignore other keys")
+    void shouldDropDeletedEntries() throws IOException, GeneralSecurityException, CSVParseException {
+	final var path = tempDir.resolve("vault.history");
+	final var history = History.read(path, KEY);
+	history.update(Map.of("a", line(fields("old", ""))), Map.of("a", line(fields("new", ""))), ',');
+	history.write(path, KEY);
+
+	assertThat(Files.exists(path)).isTrue();
+	assertThat(History.read(path, Crypto.getRandomValue(32)).versions("a", fields("new", ""))).isEmpty();
+
+	final var deleted = new HashMap<String, byte[]>();
+	deleted.put("a", null);
+	final var reread = History.read(path, KEY);
+	assertThat(reread.versions("a", fields("new", ""))).hasSize(1);
+	assertThat(reread.update(Map.of("a", line(fields("new", ""))), deleted, ',')).isTrue();
+	assertThat(reread.versions("a", fields("new", ""))).isEmpty();
+    }
+}
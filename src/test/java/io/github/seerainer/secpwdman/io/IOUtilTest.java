@@ -0,0 +1,101 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.zip.DataFormatException;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import io.github.seerainer.secpwdman.config.ConfigData;
+import io.github.seerainer.secpwdman.config.PrimitiveConstants;
+
+/**
+ * Unit tests for the compression of the vault data.
+ */
+@Tag("unit")
+@DisplayName("IOUtil Compression Unit Tests")
+class IOUtilTest implements PrimitiveConstants {
+
+    private static byte[] sampleVault(final int entries) {
+	final var sb = new StringBuilder("uuid,group,title,url,user,password,notes\n");
+	for (var i = 0; i < entries; i++) {
+	    sb.append(UUID.randomUUID()).append(",Work,Account ").append(i).append(",https://www.example")
+		    .append(i % 10).append(".com/login,user").append(i).append("@gmail.com,")
+		    .append("MIIBhQIBAzCCAS8GCSqGSIb3DQEHAaCCASAEggEcMIIBGDCCARQGCSqGSIb3DQEHAaCCAQUEggEB").append(i)
+		    .append(",\n");
+	}
+	return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = { false, true })
+    @DisplayName("Should restore the vault data after compression")
+    void shouldRoundTrip(final boolean train) throws DataFormatException {
+	final var cData = new ConfigData();
+	cData.setTrainDictionary(train);
+	final var data = sampleVault(500);
+	final var packed = IOUtil.compress(data.clone(), cData);
+
+	assertThat(cData.getCompression()).isEqualTo(train ? COMPRESS_TRAINED : COMPRESS_PRESET);
+	assertThat(packed.length).isLessThan(data.length);
+	assertThat(IOUtil.decompress(packed, cData)).isEqualTo(data);
+    }
+
+    @Test
+    @DisplayName("Should compress better with the preset dictionary")
+    void shouldCompressBetterWithPreset() {
+	final var data = sampleVault(5);
+	final var plain = IOUtil.deflate(data.clone(), null);
+	final var preset = IOUtil.deflate(data.clone(), DeflateDictionary.preset(COMPRESS_PRESET));
+
+	assertThat(preset.length).isLessThan(plain.length);
+    }
+
+    @Test
+    @DisplayName("Should read files written before the compression header")
+    void shouldReadLegacyFiles() throws DataFormatException {
+	final var cData = new ConfigData();
+	final var data = sampleVault(10);
+	final var packed = IOUtil.deflate(data.clone(), null);
+
+	assertThat(IOUtil.decompress(packed, cData)).isEqualTo(data);
+    }
+
+    @Test
+    @DisplayName("Should reject truncated data")
+    void shouldRejectTruncatedData() {
+	final var cData = new ConfigData();
+	cData.setCompression(COMPRESS_PRESET);
+	final var packed = IOUtil.deflate(sampleVault(10), DeflateDictionary.preset(COMPRESS_PRESET));
+	final var truncated = new byte[packed.length / 2];
+	System.arraycopy(packed, 0, truncated, 0, truncated.length);
+
+	assertThrows(DataFormatException.class, () -> IOUtil.decompress(truncated, cData));
+    }
+}
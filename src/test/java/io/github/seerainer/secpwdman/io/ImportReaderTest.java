@@ -0,0 +1,134 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.seerainer.secpwdman.config.StringConstants;
+
+/**
+ * Integration tests for the importers of other password managers.
+ */
+@Tag("integration")
+@DisplayName("ImportReader Integration Tests")
+class ImportReaderTest {
+
+    private static final String BITWARDEN = """
+	    {"encrypted":false,
+	     "folders":[{"id":"f1","name":"Mail"}],
+	     "items":[
+	      {"id":"3f0c1a52-0e1d-4d8e-9a59-000000000001","folderId":"f1","type":1,"name":"Web Mail",
+	       "notes":"first\\nsecond","fields":[{"name":"pin","value":"1234","type":1}],
+	       "login":{"uris":[{"match":null,"uri":"https://mail.example"},{"uri":"https://other.example"}],
+	                "username":"jane","password":"p,\\"w\\"","totp":null},
+	       "passwordHistory":[{"password":"old"}],"collectionIds":null},
+	      {"id":"3f0c1a52-0e1d-4d8e-9a59-000000000002","folderId":null,"type":2,"name":"Note",
+	       "notes":null,"secureNote":{"type":0}}
+	     ]}
+	    """;
+
+    private static final String KEEPASS = """
+	    <?xml version="1.0" encoding="utf-8" standalone="yes"?>
+	    <KeePassFile>
+	     <Meta><RecycleBinUUID>AAAAAAAAAAAAAAAAAAAAAg==</RecycleBinUUID></Meta>
+	     <Root><Group><UUID>AAAAAAAAAAAAAAAAAAAAAA==</UUID><Name>Database</Name>
+	      <Entry><UUID>AAAAAAAAAAAAAAAAAAAAAQ==</UUID>
+	       <String><Key>Title</Key><Value>Bank</Value></String>
+	       <String><Key>UserName</Key><Value>jane</Value></String>
+	       <String><Key>Password</Key><Value ProtectInMemory="True">s3cr&amp;t</Value></String>
+	       <String><Key>URL</Key><Value>https://bank.example</Value></String>
+	       <String><Key>Notes</Key><Value>a
+	    b</Value></String>
+	       <CustomData><Item><Key>Password</Key><Value>custom</Value></Item></CustomData>
+	       <History><Entry><UUID>AAAAAAAAAAAAAAAAAAAAAQ==</UUID>
+	        <String><Key>Password</Key><Value>old</Value></String></Entry></History>
+	      </Entry>
+	      <Group><UUID>AAAAAAAAAAAAAAAAAAAAAw==</UUID><Name>Work</Name>
+	       <Entry><UUID>AAAAAAAAAAAAAAAAAAAABA==</UUID><String><Key>Title</Key><Value>VPN</Value></String></Entry>
+	      </Group>
+	      <Group><UUID>AAAAAAAAAAAAAAAAAAAAAg==</UUID><Name>Recycle Bin</Name>
+	       <Entry><UUID>AAAAAAAAAAAAAAAAAAAABQ==</UUID><String><Key>Title</Key><Value>Gone</Value></String></Entry>
+	      </Group>
+	      <Entry><UUID>AAAAAAAAAAAAAAAAAAAABg==</UUID><String><Key>Title</Key><Value>Last</Value></String></Entry>
+	     </Group></Root>
+	    </KeePassFile>
+	    """;
+
+    @TempDir
+    Path tempDir;
+
+    private List<String[]> read(final String name, final String content) throws IOException {
+	final var file = Files.writeString(tempDir.resolve(name), content).toString();
+	final var rows = new ArrayList<String[]>();
+	try (final var reader = ImportReader.open(file, null)) {
+	    for (var row = reader.read(); row != null; row = reader.read()) {
+		rows.add(row);
+	    }
+	    assertThat(reader.progress(100)).isEqualTo(100);
+	}
+	return rows;
+    }
+
+    @Test
+    @DisplayName("Should map a Bitwarden export to the default header")
+    void shouldReadBitwarden() throws IOException {
+	final var rows = read("bitwarden.json", BITWARDEN);
+
+	assertThat(rows).hasSize(3);
+	assertThat(rows.get(0)).containsExactly(StringConstants.csvHeader);
+	assertThat(rows.get(1)).containsExactly("3F0C1A52-0E1D-4D8E-9A59-000000000001", "Mail", "Web Mail",
+		"https://mail.example", "jane", "p,\"w\"", "first\nsecond");
+	assertThat(rows.get(2)).containsExactly("3F0C1A52-0E1D-4D8E-9A59-000000000002", "", "Note", "", "", "", "");
+    }
+
+    @Test
+    @DisplayName("Should refuse an encrypted Bitwarden export")
+    void shouldRefuseEncryptedBitwarden() {
+	assertThatThrownBy(() -> read("encrypted.json", """
+		{"encrypted":true,"passwordProtected":true,"data":"2.abc"}
+		""")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should map a KeePass export without history and recycle bin")
+    void shouldReadKeePass() throws IOException {
+	final var rows = read("keepass.xml", KEEPASS);
+
+	assertThat(rows).hasSize(4);
+	assertThat(rows.get(0)).containsExactly(StringConstants.csvHeader);
+	assertThat(rows.get(1)).containsExactly("00000000-0000-0000-0000-000000000001", "Database", "Bank",
+		"https://bank.example", "jane", "s3cr&t", "a\nb");
+	assertThat(rows.get(2)).containsExactly("00000000-0000-0000-0000-000000000004", "Work", "VPN", "", "", "", "");
+	assertThat(rows.get(3)[2]).isEqualTo("Last");
+	assertThat(rows.get(3)[1]).isEqualTo("Database");
+    }
+}
@@ -0,0 +1,393 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.seerainer.secpwdman.config.ConfigData;
+import io.github.seerainer.secpwdman.crypto.Crypto;
+import io.github.seerainer.secpwdman.crypto.CryptoConfig;
+import io.github.seerainer.secpwdman.crypto.CryptoConstants;
+import io.github.seerainer.secpwdman.crypto.VaultCrypto;
+
+/**
+ * Integration tests for saving the vault through the change journal.
+ */
+@Tag("integration")
+@DisplayName("Journal Integration Tests")
+class JournalTest {
+
+    private static final String HEADER = "uuid,group,title,url,user,password,notes\n";
+    private static final byte[] PASSWORD = "TestPassword123!".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path tempDir;
+
+    private ConfigData cData;
+    private String file;
+
+    private static String row(final String uuid, final String title) {
+	return uuid + ",Work," + title + ",https://example.com,user,secret,\"multi\nline\"\n";
+    }
+
+    private byte[] entryKey(final byte[] password) throws Exception {
+	final var header = new ConfigData();
+	final var fileKey = new byte[1][];
+	IO.unseal(header, Files.readAllBytes(Path.of(file)), password, key -> fileKey[0] = key);
+	final var subKey = VaultCrypto.subKey(fileKey[0], CryptoConstants.subMerkle);
+	return VaultCrypto.open(subKey, Base64.getDecoder().decode(header.getMerkleKey()),
+		CryptoConstants.subMerkle.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private byte[] open() throws Exception {
+	final var fileBytes = Files.readAllBytes(Path.of(file));
+	final var fileKey = new byte[1][];
+	final var bytes = IO.unseal(cData, fileBytes, PASSWORD, key -> fileKey[0] = key);
+	return VaultSession.getInstance().open(file, fileBytes, cData, fileKey[0], bytes);
+    }
+
+    private void save(final String data) throws IOException, GeneralSecurityException {
+	VaultSession.getInstance().save(file, cData, data.getBytes(StandardCharsets.UTF_8), PASSWORD.clone());
+    }
+
+    @BeforeEach
+    void setUp() {
+	cData = new ConfigData();
+	cData.setHeader(HEADER.strip());
+	cData.getCryptoConfig().setKeyDerivation(CryptoConfig.KDF.PBKDF2);
+	file = tempDir.resolve("vault.json").toString();
+    }
+
+    @AfterEach
+    void tearDown() {
+	VaultSession.getInstance().close();
+    }
+
+    @Test
+    @DisplayName("Should append changes instead of rewriting the vault file")
+    void shouldAppendChanges() throws Exception {
+	final var a = UUID.randomUUID().toString();
+	final var b = UUID.randomUUID().toString();
+	final var c = UUID.randomUUID().toString();
+	save(HEADER + row(a, "A") + row(b, "B"));
+	final var vault = Files.readAllBytes(Path.of(file));
+
+	save(HEADER + row(a, "A2") + row(c, "C"));
+
+	assertThat(Files.readAllBytes(Path.of(file))).isEqualTo(vault);
+	assertThat(Journal.getPath(file)).exists();
+
+	VaultSession.getInstance().close();
+	final var data = new String(open(), StandardCharsets.UTF_8);
+
+	assertThat(data).isEqualTo(HEADER + row(a, "A2") + row(c, "C"));
+    }
+
+    @Test
+    @DisplayName("Should append only the changed lines it is given and keep their history")
+    void shouldAppendChangedLines() throws Exception {
+	final var a = UUID.randomUUID().toString();
+	final var b = UUID.randomUUID().toString();
+	final var c = UUID.randomUUID().toString();
+	save(HEADER + row(a, "A") + row(b, "B") + row(c, "C"));
+	final var vault = Files.readAllBytes(Path.of(file));
+	final var session = VaultSession.getInstance();
+
+	// b is listed as changed, but its line is still the saved one
+	final var lines = new LinkedHashMap<String, byte[]>();
+	lines.put(a, row(a, "A2").strip().getBytes(StandardCharsets.UTF_8));
+	lines.put(b, row(b, "B").strip().getBytes(StandardCharsets.UTF_8));
+	lines.put(c, null);
+	session.save(file, cData, (HEADER + row(a, "A2") + row(b, "B")).getBytes(StandardCharsets.UTF_8), lines,
+		PASSWORD.clone(), null);
+	session.save(file, cData, (HEADER + row(a, "A3") + row(b, "B")).getBytes(StandardCharsets.UTF_8),
+		Map.of(a, row(a, "A3").strip().getBytes(StandardCharsets.UTF_8)), PASSWORD.clone(), null);
+
+	assertThat(Files.readAllBytes(Path.of(file))).isEqualTo(vault);
+	final var history = session.getHistory();
+	assertThat(history.versions(file, a)).extracting(version -> version.fields()[2]).containsExactly("A2", "A");
+	assertThat(history.versions(file, b)).isEmpty();
+
+	session.close();
+
+	assertThat(new String(open(), StandardCharsets.UTF_8)).isEqualTo(HEADER + row(a, "A3") + row(b, "B"));
+    }
+
+    @Test
+    @DisplayName("Should hand over the header of a compacted vault file")
+    void shouldHandOverCompactedHeader() throws Exception {
+	final var a = UUID.randomUUID().toString();
+	save(HEADER + row(a, "A"));
+	final var root = cData.getMerkleRoot();
+
+	// notes that do not compress well make the journal outgrow the vault file
+	final var notes = new StringBuilder();
+	for (var i = 0; i < 3000; i++) {
+	    notes.append(UUID.randomUUID());
+	}
+	final var data = HEADER + a + ",Work,A2,https://example.com,user,secret," + notes + "\n";
+	final var compacted = new CompletableFuture<ConfigData>();
+	VaultSession.getInstance().save(file, cData, data.getBytes(StandardCharsets.UTF_8), null, PASSWORD.clone(),
+		compacted::complete);
+	final var header = compacted.get(30, TimeUnit.SECONDS);
+
+	assertThat(cData.getMerkleRoot()).isEqualTo(root);
+	assertThat(header.getMerkleRoot()).isNotEqualTo(root);
+	assertThat(Journal.getPath(file)).doesNotExist();
+
+	VaultSession.getInstance().close();
+
+	assertThat(new String(open(), StandardCharsets.UTF_8)).isEqualTo(data);
+    }
+
+    @Test
+    @DisplayName("Should keep the entry key on a full save and seal it under the key of the new file")
+    void shouldKeepEntryKey() throws Exception {
+	final var a = UUID.randomUUID().toString();
+	final var path = Path.of(file);
+	final var other = "OtherPassword456!".getBytes(StandardCharsets.UTF_8);
+	save(HEADER + row(a, "A"));
+	final var wrapped = cData.getMerkleKey();
+	final var entryKey = entryKey(PASSWORD);
+
+	// a changed modification time makes the next save write the whole file
+	Files.setLastModifiedTime(path, FileTime.fromMillis(0));
+	save(HEADER + row(a, "A2"));
+	assertThat(cData.getMerkleKey()).isNotEqualTo(wrapped);
+	assertThat(entryKey(PASSWORD)).isEqualTo(entryKey);
+
+	Files.setLastModifiedTime(path, FileTime.fromMillis(0));
+	VaultSession.getInstance().save(file, cData, (HEADER + row(a, "A3")).getBytes(StandardCharsets.UTF_8),
+		other.clone());
+	assertThat(entryKey(other)).isEqualTo(entryKey);
+
+	Files.setLastModifiedTime(path, FileTime.fromMillis(0));
+	save(HEADER + row(a, "A4"));
+	VaultSession.getInstance().close();
+
+	assertThat(new String(open(), StandardCharsets.UTF_8)).isEqualTo(HEADER + row(a, "A4"));
+    }
+
+    @Test
+    @DisplayName("Should reject a modified journal record")
+    void shouldRejectModifiedRecord() throws Exception {
+	final var a = UUID.randomUUID().toString();
+	save(HEADER + row(a, "A"));
+	save(HEADER + row(a, "A2"));
+	VaultSession.getInstance().close();
+
+	final var journal = Journal.getPath(file);
+	final var bytes = Files.readAllBytes(journal);
+	bytes[bytes.length - 1] ^= 1;
+	Files.write(journal, bytes);
+
+	assertThrows(GeneralSecurityException.class, this::open);
+    }
+
+    @Test
+    @DisplayName("Should cut off a partly written record")
+    void shouldCutOffTornRecord() throws Exception {
+	final var a = UUID.randomUUID().toString();
+	save(HEADER + row(a, "A"));
+	save(HEADER + row(a, "A2"));
+	VaultSession.getInstance().close();
+
+	final var journal = Journal.getPath(file);
+	Files.write(journal, new byte[] { 0, 0, 1, 0, 42 }, StandardOpenOption.APPEND);
+
+	assertThat(new String(open(), StandardCharsets.UTF_8)).isEqualTo(HEADER + row(a, "A2"));
+    }
+
+    @Test
+    @DisplayName("Should reject a damaged record length before the last record")
+    void shouldRejectDamagedLength() throws Exception {
+	final var a = UUID.randomUUID().toString();
+	save(HEADER + row(a, "A"));
+	save(HEADER + row(a, "A2"));
+	save(HEADER + row(a, "A3"));
+	VaultSession.getInstance().close();
+
+	final var journal = Journal.getPath(file);
+	final var bytes = Files.readAllBytes(journal);
+	// the length of the first record follows the magic, version and vault digest
+	Arrays.fill(bytes, 5 + CryptoConstants.OUT_LENGTH, 9 + CryptoConstants.OUT_LENGTH, (byte) 0);
+	Files.write(journal, bytes);
+
+	assertThrows(GeneralSecurityException.class, this::open);
+	assertThat(journal).hasSize(bytes.length);
+    }
+
+    @Test
+    @DisplayName("Should reject a record length running past the records behind it")
+    void shouldRejectOversizedLength() throws Exception {
+	final var a = UUID.randomUUID().toString();
+	save(HEADER + row(a, "A"));
+	save(HEADER + row(a, "A2"));
+	save(HEADER + row(a, "A3"));
+	VaultSession.getInstance().close();
+
+	final var journal = Journal.getPath(file);
+	final var bytes = Files.readAllBytes(journal);
+	// a length beyond the end of the file would pass for a torn last record
+	bytes[5 + CryptoConstants.OUT_LENGTH] = 0x10;
+	Files.write(journal, bytes);
+
+	assertThrows(GeneralSecurityException.class, this::open);
+	assertThat(journal).hasBinaryContent(bytes);
+    }
+
+    @Test
+    @DisplayName("Should chain a new record to the last complete one after a torn append")
+    void shouldAppendAfterTornRecord() throws Exception {
+	final var a = UUID.randomUUID().toString();
+	save(HEADER + row(a, "A"));
+	save(HEADER + row(a, "A2"));
+
+	final var journal = Journal.getPath(file);
+	Files.write(journal, new byte[] { 0, 0, 1, 0, 42 }, StandardOpenOption.APPEND);
+	save(HEADER + row(a, "A3"));
+	VaultSession.getInstance().close();
+
+	assertThat(new String(open(), StandardCharsets.UTF_8)).isEqualTo(HEADER + row(a, "A3"));
+    }
+
+    @Test
+    @DisplayName("Should merge the records another program appended with unsaved changes")
+    void shouldMergeExternalRecords() throws Exception {
+	final var a = UUID.randomUUID().toString();
+	final var b = UUID.randomUUID().toString();
+	save(HEADER + row(a, "A") + row(b, "B"));
+
+	final var key = VaultCrypto.subKey(entryKey(PASSWORD), CryptoConstants.subJournal);
+	final var baseId = VaultCrypto.digest(Files.readAllBytes(Path.of(file)));
+	final var line = row(b, "B2").strip().getBytes(StandardCharsets.UTF_8);
+	Journal.append(Journal.getPath(file), key, baseId, Map.of(b, line));
+
+	final var local = HEADER + row(a, "A3") + row(b, "B");
+	final var merge = VaultSession.getInstance().getMerge();
+	final var result = merge.merge(file, cData, PASSWORD.clone(), local.getBytes(StandardCharsets.UTF_8));
+
+	assertThat(result.conflicts()).isEmpty();
+	assertThat(result.changes()).containsOnlyKeys(b);
+	assertThat(result.changes().get(b)).isEqualTo(line);
+	assertThat(merge.merge(file, cData, PASSWORD.clone(), local.getBytes(StandardCharsets.UTF_8)).changes()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should read the records another program appended")
+    void shouldReadExternalRecords() throws Exception {
+	final var a = UUID.randomUUID().toString();
+	final var b = UUID.randomUUID().toString();
+	save(HEADER + row(a, "A") + row(b, "B"));
+	save(HEADER + row(a, "A2") + row(b, "B"));
+
+	final var key = VaultCrypto.subKey(entryKey(PASSWORD), CryptoConstants.subJournal);
+	final var baseId = VaultCrypto.digest(Files.readAllBytes(Path.of(file)));
+	final var line = row(b, "B2").strip().getBytes(StandardCharsets.UTF_8);
+	Journal.append(Journal.getPath(file), key, baseId, Map.of(b, line));
+
+	final var changes = VaultSession.getInstance().getMerge().reload(file, cData, PASSWORD.clone());
+
+	assertThat(changes).containsOnlyKeys(b);
+	assertThat(changes.get(b)).isEqualTo(line);
+	assertThat(VaultSession.getInstance().getMerge().reload(file, cData, PASSWORD.clone())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should recover unsaved changes after a crash")
+    void shouldRecoverUnsavedChanges() throws Exception {
+	final var a = UUID.randomUUID().toString();
+	final var b = UUID.randomUUID().toString();
+	save(HEADER + row(a, "A") + row(b, "B"));
+	save(HEADER + row(a, "A2") + row(b, "B"));
+
+	final var data = (HEADER + row(a, "A3")).getBytes(StandardCharsets.UTF_8);
+	VaultSession.getInstance().getRecovery().snapshot(file, cData, data);
+	assertThat(Recovery.getPath(file)).exists();
+
+	assertThat(new String(open(), StandardCharsets.UTF_8)).isEqualTo(HEADER + row(a, "A2") + row(b, "B"));
+	final var recovered = VaultSession.getInstance().getRecovery().take();
+
+	assertThat(new String(recovered, StandardCharsets.UTF_8)).isEqualTo(HEADER + row(a, "A3"));
+
+	save(HEADER + row(a, "A3"));
+
+	assertThat(Recovery.getPath(file)).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Should keep the other groups in a snapshot taken while one group is shown")
+    void shouldRecoverOtherGroups() throws Exception {
+	final var a = UUID.randomUUID().toString();
+	final var b = UUID.randomUUID().toString();
+	final var home = b + ",Home,B,https://example.org,user,secret,\n";
+	save(HEADER + row(a, "A") + home);
+
+	// the table shows the group Work only, the sealed table data has all groups
+	final var changed = HEADER + row(a, "A2") + home;
+	final var segments = VaultSegments.seal(Crypto.getRandomValue(CryptoConstants.OUT_LENGTH),
+		changed.getBytes(StandardCharsets.UTF_8), ',', 1);
+	assertThat(new String(segments.open("Work"), StandardCharsets.UTF_8)).isEqualTo(HEADER + row(a, "A2"));
+	VaultSession.getInstance().getRecovery().snapshot(file, cData, segments.open(null));
+	segments.clear();
+
+	open();
+	final var recovered = VaultSession.getInstance().getRecovery().take();
+
+	assertThat(new String(recovered, StandardCharsets.UTF_8)).isEqualTo(changed);
+    }
+
+    @Test
+    @DisplayName("Should write the whole vault file after an import")
+    void shouldRewriteAfterImport() throws Exception {
+	final var a = UUID.randomUUID().toString();
+	save(HEADER + row(a, "A"));
+	final var vault = Files.readAllBytes(Path.of(file));
+
+	cData.setImport(true);
+	save(HEADER + row(a, "A2"));
+
+	assertThat(Files.readAllBytes(Path.of(file))).isNotEqualTo(vault);
+	assertThat(Journal.getPath(file)).doesNotExist();
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import io.github.seerainer.secpwdman.crypto.Crypto;
+
+/**
+ * Unit tests for the hash tree over the vault entries.
+ */
+@Tag("unit")
+@DisplayName("MerkleTree Unit Tests")
+class MerkleTreeTest {
+
+    private static final byte[] KEY = Crypto.getRandomValue(32);
+
+    private static byte[] line(final String uuid, final String title) {
+	return (uuid + ",Work," + title + ",https://example.com,user,secret,").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static LinkedHashMap<String, byte[]> rows(final int count) {
+	final var rows = new LinkedHashMap<String, byte[]>();
+	for (var i = 0; i < count; i++) {
+	    final var uuid = UUID.randomUUID().toString();
+	    rows.put(uuid, line(uuid, "Title " + i));
+	}
+	return rows;
+    }
+
+    @Test
+    @DisplayName("Should not depend on the order of the entries")
+    void shouldIgnoreOrder() {
+	final var rows = rows(1000);
+	final var reversed = new LinkedHashMap<String, byte[]>();
+	rows.sequencedKeySet().reversed().forEach(uuid -> reversed.put(uuid, rows.get(uuid)));
+
+	assertThat(new MerkleTree(KEY, reversed).root()).isEqualTo(new MerkleTree(KEY, rows).root());
+	assertThat(new MerkleTree(Crypto.getRandomValue(32), rows).root())
+		.isNotEqualTo(new MerkleTree(KEY, rows).root());
+    }
+
+    @Test
+    @DisplayName("Should find added, changed and removed entries")
+    void shouldDiffTrees() {
+	final var rows = rows(5000);
+	final var tree = new MerkleTree(KEY, rows);
+	final var uuids = rows.sequencedKeySet().stream().limit(2).toList();
+	final var added = UUID.randomUUID().toString();
+	final Map<String, byte[]> changes = new HashMap<>();
+	changes.put(uuids.get(0), line(uuids.get(0), "Changed"));
+	changes.put(uuids.get(1), null);
+	changes.put(added, line(added, "Added"));
+
+	final var other = new HashMap<>(rows);
+	other.putAll(changes);
+	other.values().removeIf(line -> line == null);
+
+	assertThat(tree.diff(new MerkleTree(KEY, other))).containsExactlyInAnyOrderElementsOf(changes.keySet());
+	assertThat(tree.diff(new MerkleTree(KEY, rows))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should update the root like a rebuilt tree")
+    void shouldUpdateRoot() {
+	final var rows = rows(2000);
+	final var tree = new MerkleTree(KEY, rows);
+	final var uuid = rows.firstEntry().getKey();
+	final var line = line(uuid, "Changed");
+
+	assertThat(tree.contains(uuid, rows.get(uuid))).isTrue();
+	tree.update(Map.of(uuid, line));
+	rows.put(uuid, line);
+
+	assertThat(tree.contains(uuid, line)).isTrue();
+	assertThat(tree.root()).isEqualTo(new MerkleTree(KEY, rows).root());
+    }
+}
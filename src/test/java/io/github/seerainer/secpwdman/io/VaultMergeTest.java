@@ -0,0 +1,105 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import io.github.seerainer.secpwdman.csv.CSVParseException;
+
+/**
+ * Unit tests for the three-way merge of vault versions.
+ */
+@Tag("unit")
+@DisplayName("VaultMerge Unit Tests")
+class VaultMergeTest {
+
+    private static byte[] line(final String uuid, final String title, final String user, final String notes) {
+	return (uuid + ",Work," + title + ",https://example.com," + user + ",secret," + notes)
+		.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, byte[]> rows(final byte[]... lines) {
+	final var rows = new LinkedHashMap<String, byte[]>();
+	for (final var line : lines) {
+	    rows.put(new String(line, StandardCharsets.UTF_8).split(",")[0], line);
+	}
+	return rows;
+    }
+
+    @Test
+    @DisplayName("Should apply changes made on one side only")
+    void shouldApplyOneSidedChanges() throws CSVParseException {
+	final var base = rows(line("a", "A", "user", "x"), line("b", "B", "user", "x"), line("c", "C", "user", "x"));
+	final var local = rows(line("a", "A2", "user", "x"), line("b", "B", "user", "x"), line("c", "C", "user", "x"));
+	final var remote = rows(line("a", "A", "user", "x"), line("c", "C3", "user", "x"), line("d", "D", "user", "x"));
+
+	final var result = VaultMerge.merge(base, local, remote, ',');
+
+	assertThat(result.conflicts()).isEmpty();
+	assertThat(result.changes()).containsOnlyKeys("b", "c", "d");
+	assertThat(result.changes().get("b")).isNull();
+	assertThat(result.changes().get("c")).isEqualTo(line("c", "C3", "user", "x"));
+	assertThat(result.changes().get("d")).isEqualTo(line("d", "D", "user", "x"));
+    }
+
+    @Test
+    @DisplayName("Should merge edits of different fields and report edits of the same field")
+    void shouldMergeFields() throws CSVParseException {
+	final var base = rows(line("a", "A", "user", "x"), line("b", "B", "user", "x"));
+	final var local = rows(line("a", "A2", "user", "x"), line("b", "B2", "user", "x"));
+	final var remote = rows(line("a", "A", "admin", "\"two words\""), line("b", "B3", "admin", "x"));
+
+	final var result = VaultMerge.merge(base, local, remote, ',');
+
+	assertThat(result.changes().get("a")).isEqualTo(line("a", "A2", "admin", "\"two words\""));
+	assertThat(result.changes().get("b")).isEqualTo(line("b", "B2", "admin", "x"));
+	assertThat(result.conflicts()).hasSize(1);
+	final var conflict = result.conflicts().getFirst();
+	assertThat(conflict.uuid()).isEqualTo("b");
+	assertThat(conflict.fields()).containsExactly(2);
+	assertThat(result.resolve(conflict, false)).isEqualTo(line("b", "B2", "admin", "x"));
+	assertThat(result.resolve(conflict, true)).isEqualTo(line("b", "B3", "admin", "x"));
+    }
+
+    @Test
+    @DisplayName("Should report an edit against a delete as a conflict")
+    void shouldReportDeletedEntries() throws CSVParseException {
+	final var base = rows(line("a", "A", "user", "x"));
+	final var local = rows(line("a", "A2", "user", "x"));
+	final var remote = rows();
+
+	final var result = VaultMerge.merge(base, local, remote, ',');
+
+	assertThat(result.changes()).isEmpty();
+	assertThat(result.conflicts()).hasSize(1);
+	final var conflict = result.conflicts().getFirst();
+	assertThat(conflict.remote()).isNull();
+	assertThat(conflict.fields()).isEmpty();
+	assertThat(result.resolve(conflict, true)).isNull();
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import io.github.seerainer.secpwdman.crypto.Crypto;
+
+/**
+ * Unit tests for the table data sealed by group.
+ */
+@Tag("unit")
+@DisplayName("VaultSegments Unit Tests")
+class VaultSegmentsTest {
+
+    private static final String HEADER = "uuid,group,title,url,user,password,notes\n";
+
+    private static final String WORK = "a,Work,A,https://example.com,user,secret,\nc,Work,C,,user,secret,\"two\nlines\"\n";
+
+    private static final String HOME = "b,\"Home, sweet\",B,,user,secret,\n";
+
+    private static final String NONE = "d,,D,,user,secret,\n";
+
+    private static byte[] data() {
+	return (HEADER + "a,Work,A,https://example.com,user,secret,\n" + HOME
+		+ "c,Work,C,,user,secret,\"two\nlines\"\n" + NONE).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Map.Entry<String, Integer> entry(final String group, final int rows) {
+	return Map.entry(group, Integer.valueOf(rows));
+    }
+
+    private static String text(final byte[] data) {
+	return new String(data, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("Should list the groups and open a single group")
+    void shouldOpenGroup() throws IOException, GeneralSecurityException {
+	final var segments = VaultSegments.seal(Crypto.getRandomValue(32), data(), ',', 1);
+
+	assertThat(segments.groups()).containsExactly(entry("Work", 2), entry("Home, sweet", 1), entry("", 1));
+	assertThat(text(segments.open("Work"))).isEqualTo(HEADER + WORK);
+	assertThat(text(segments.open("Home, sweet"))).isEqualTo(HEADER + HOME);
+	assertThat(text(segments.open("Other"))).isEqualTo(HEADER);
+	assertThat(text(segments.open(null))).isEqualTo(text(data()));
+    }
+
+    @Test
+    @DisplayName("Should open the segments of a vault file in table order")
+    void shouldLoadFileSegments() throws IOException, GeneralSecurityException {
+	final var fileKey = Crypto.getRandomValue(32);
+	assertThat(VaultSegments.hasDefaultHeader(data(), ',')).isTrue();
+	final var split = VaultSegments.split(data(), ',', 1, true);
+	final var index = split.index().clone();
+	final var swapped = split.index().clone();
+	final var sealed = VaultSegments.seal(fileKey, split);
+	final var segments = VaultSegments.load(fileKey, index, sealed);
+
+	assertThat(segments.groups()).containsExactly(entry("Work", 2), entry("Home, sweet", 1), entry("", 1));
+	assertThat(text(segments.open("Home, sweet"))).isEqualTo(HEADER + HOME);
+	assertThat(text(segments.open(null))).isEqualTo(text(data()));
+
+	final var tampered = VaultSegments.load(fileKey, swapped, List.of(sealed.get(1), sealed.get(0), sealed.get(2)));
+	assertThatThrownBy(() -> tampered.open("Work")).isInstanceOf(GeneralSecurityException.class);
+    }
+
+    @Test
+    @DisplayName("Should seal only the changed groups again")
+    void shouldUpdateChangedGroups() throws IOException, GeneralSecurityException {
+	final var dataKey = Crypto.getRandomValue(32);
+	final var segments = VaultSegments.seal(dataKey, data(), ',', 1);
+	final var work = WORK.replace("A,https", "AA,https");
+	// a row of the same length in a group that is not changed keeps the old segment
+	final var home = HOME.replace(",B,", ",X,");
+	final var updated = segments.update(dataKey,
+		(HEADER + work.substring(0, work.indexOf('\n') + 1) + home + WORK.substring(WORK.indexOf('\n') + 1)
+			+ NONE).getBytes(StandardCharsets.UTF_8),
+		',', 1, Set.of("Work"));
+
+	assertThat(text(updated.open("Work"))).isEqualTo(HEADER + work);
+	assertThat(text(updated.open("Home, sweet"))).isEqualTo(HEADER + HOME);
+	assertThat(text(updated.open(""))).isEqualTo(HEADER + NONE);
+
+	// a row of another length, or another data key, seals the group again
+	final var longer = HOME.replace(",B,", ",BB,");
+	final var data = (HEADER + longer + NONE).getBytes(StandardCharsets.UTF_8);
+	assertThat(text(updated.update(dataKey, data.clone(), ',', 1, Set.of()).open(null)))
+		.isEqualTo(HEADER + longer + NONE);
+	assertThat(text(updated.update(Crypto.getRandomValue(32), data(), ',', 1, Set.of()).open(null)))
+		.isEqualTo(text(data()));
+    }
+
+    @Test
+    @DisplayName("Should not open the segments after clearing the key")
+    void shouldClearKey() throws IOException, GeneralSecurityException {
+	final var segments = VaultSegments.seal(Crypto.getRandomValue(32), data(), ',', -1);
+
+	assertThat(segments.groups()).containsOnlyKeys("");
+	assertThat(text(segments.open(null))).isEqualTo(text(data()));
+	segments.clear();
+	assertThatThrownBy(() -> segments.open(null)).isInstanceOf(GeneralSecurityException.class);
+    }
+}
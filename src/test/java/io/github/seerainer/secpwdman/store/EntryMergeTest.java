@@ -0,0 +1,189 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import io.github.seerainer.secpwdman.store.EntryMerge.Choice;
+
+/**
+ * Unit tests for the entry merge.
+ */
+@Tag("unit")
+@DisplayName("EntryMerge Unit Tests")
+class EntryMergeTest {
+
+    private static final String DECRYPT = "";
+    private static final String ENCRYPT = "enc:";
+
+    private static boolean cipher(final char[][][] rows, final String prefix, final AtomicInteger calls) {
+	calls.incrementAndGet();
+	for (final var row : rows) {
+	    final var text = String.valueOf(row[5]);
+	    row[5] = (prefix + text.substring(text.startsWith(ENCRYPT) ? ENCRYPT.length() : 0)).toCharArray();
+	}
+	return true;
+    }
+
+    private static EntryStore store() {
+	final var store = new EntryStore();
+	store.add(row("A", "mail", "http://mail.example.com", "alice", "enc:secret"));
+	store.add(row("B", "bank", "https://bank.example.com/login", "bob", "enc:pin"));
+	return store;
+    }
+
+    private static String[] row(final String uuid, final String title, final String url, final String user,
+	    final String password) {
+	return new String[] { uuid, "group", title, url, user, password, "" };
+    }
+
+    @Test
+    @DisplayName("Should find rows by URL host, user name and title")
+    void shouldFindRows() {
+	final var merge = new EntryMerge(store());
+
+	assertThat(merge.find(row("X", "Mail", "https://mail.example.com/inbox", "Alice", "other"))).isEqualTo("A");
+	assertThat(merge.find(row("Y", "bank", "https://bank.example.com", "carol", "pin"))).isNull();
+    }
+
+    @Test
+    @DisplayName("Should give added rows a new UUID if the UUID is used")
+    void shouldReplaceUsedUuids() {
+	final var store = store();
+	final var merge = new EntryMerge(store);
+	final var key = merge.add(row("A", "shop", "https://shop.example.com", "alice", "cart"));
+
+	assertThat(key).isNotEqualTo("A");
+	assertThat(store.get(key)[0]).isEqualTo(key);
+	assertThat(merge.find(row("Z", "shop", "https://shop.example.com", "alice", ""))).isEqualTo(key);
+	assertThat(store.size()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should restore the entries if a merge is cancelled part way")
+    void shouldRollbackPartialMerge() {
+	final var store = store();
+	final var before = store.rows();
+	final var merge = new EntryMerge(store);
+	merge.merge(row("C", "shop", "https://shop.example.com", "alice", "cart"));
+	merge.merge(row("A", "mail", "http://mail.example.com", "alice", "changed"));
+	merge.merge(row("D", "news", "https://news.example.com", "dave", "paper"));
+	merge.rollback();
+	merge.finish(Choice.UPDATE);
+
+	assertThat(store.rows()).containsExactlyElementsOf(before);
+	assertThat(store.get("C")).isNull();
+    }
+
+    @Test
+    @DisplayName("Should compare plain passwords and encrypt them in one pass")
+    void shouldProtectPasswords() {
+	final var store = store();
+	final var merge = new EntryMerge(store);
+	final var calls = new AtomicInteger();
+	merge.merge(row("X", "mail", "http://mail.example.com", "alice", "secret"));
+	merge.merge(row("Y", "bank", "https://bank.example.com/login", "bob", "new"));
+	merge.merge(row("C", "shop", "https://shop.example.com", "alice", "cart"));
+	merge.merge(row("D", "shop", "https://shop.example.com", "alice", "cart"));
+
+	assertThat(store.get("C")[5]).isEqualTo("cart");
+	assertThat(merge.protect(rows -> cipher(rows, DECRYPT, calls), rows -> cipher(rows, ENCRYPT, calls))).isTrue();
+	assertThat(calls).hasValue(2);
+	assertThat(merge.getAdded()).isEqualTo(1);
+	assertThat(merge.getIdentical()).isEqualTo(2);
+	assertThat(merge.getChanged()).isEqualTo(1);
+
+	merge.finish(Choice.UPDATE);
+	assertThat(store.get("A")[5]).isEqualTo("enc:secret");
+	assertThat(store.get("B")[5]).isEqualTo("enc:new");
+	assertThat(store.get("C")[5]).isEqualTo("enc:cart");
+	assertThat(store.size()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should apply the choice to every row that changes an entry")
+    void shouldApplyChoice() {
+	final var kept = store();
+	final var both = new EntryMerge(kept);
+	both.merge(row("Y", "bank", "https://bank.example.com/login", "bob", "new"));
+	both.protect(_ -> true, _ -> true);
+	both.finish(Choice.KEEP_BOTH);
+
+	final var skipped = store();
+	final var skip = new EntryMerge(skipped);
+	skip.merge(row("Y", "bank", "https://bank.example.com/login", "bob", "new"));
+	skip.protect(_ -> true, _ -> true);
+	skip.finish(Choice.SKIP);
+
+	assertThat(kept.size()).isEqualTo(3);
+	assertThat(kept.get("B")[5]).isEqualTo("enc:pin");
+	assertThat(kept.rows().getLast()[5]).isEqualTo("new");
+	assertThat(kept.rows().getLast()[0]).isNotIn("B", "Y");
+	assertThat(skipped.rows()).hasSize(2);
+	assertThat(skipped.get("B")[5]).isEqualTo("enc:pin");
+    }
+
+    @Test
+    @DisplayName("Should keep the changes once the merge is finished")
+    void shouldIgnoreRollbackAfterFinish() {
+	final var store = store();
+	final var merge = new EntryMerge(store);
+	merge.merge(row("C", "shop", "https://shop.example.com", "alice", "cart"));
+	merge.merge(row("B", "bank", "https://bank.example.com/login", "bob", "new"));
+	merge.protect(_ -> true, _ -> true);
+	merge.finish(Choice.UPDATE);
+	merge.rollback();
+
+	assertThat(store.size()).isEqualTo(3);
+	assertThat(store.get("B")[5]).isEqualTo("new");
+    }
+
+    @Test
+    @DisplayName("Should not protect the passwords of a cancelled merge")
+    void shouldNotProtectAfterRollback() {
+	final var store = store();
+	final var merge = new EntryMerge(store);
+	merge.merge(row("C", "shop", "https://shop.example.com", "alice", "cart"));
+	merge.rollback();
+
+	assertThat(merge.protect(_ -> true, _ -> true)).isFalse();
+	assertThat(store.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should roll back only once")
+    void shouldRollbackOnce() {
+	final var store = store();
+	final var merge = new EntryMerge(store);
+	merge.add(row("C", "shop", "https://shop.example.com", "alice", "cart"));
+	merge.rollback();
+	store.add(row("C", "shop", "https://shop.example.com", "alice", "cart"));
+	merge.rollback();
+
+	assertThat(store.get("C")).isNotNull();
+	assertThat(store.size()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import io.github.seerainer.secpwdman.store.EntryListener.Change;
+
+/**
+ * Unit tests for the entry store.
+ */
+@Tag("unit")
+@DisplayName("EntryStore Unit Tests")
+class EntryStoreTest {
+
+    @Test
+    @DisplayName("Should change entries by key and tell the listeners")
+    void shouldChangeEntriesByKey() {
+	final var store = new EntryStore();
+	final var changes = new ArrayList<String>();
+	store.addListener((change, key, _) -> changes.add(change + " " + key));
+
+	final var first = store.add(new String[] { "A", "group", "first" });
+	final var second = store.add(new String[] { "B", "group", "second" });
+	assertThat(store.update(first, new String[] { "A", "group", "changed" })).isTrue();
+	assertThat(store.update("C", new String[] { "C" })).isFalse();
+	assertThat(store.remove(second)).containsExactly("B", "group", "second");
+	assertThat(store.remove(second)).isNull();
+
+	assertThat(first).isEqualTo("A");
+	assertThat(store.get(first)).containsExactly("A", "group", "changed");
+	assertThat(store.size()).isEqualTo(1);
+	assertThat(changes).containsExactly("ADDED A", "ADDED B", "UPDATED A", "REMOVED B");
+    }
+
+    @Test
+    @DisplayName("Should remember the entries changed since the last save")
+    void shouldRememberChanges() {
+	final var store = new EntryStore();
+	store.load(new String[] { "A", "group", "first" });
+	store.load(new String[] { "B", "group", "second" });
+	assertThat(store.changes().uuids()).isEmpty();
+
+	store.update("A", new String[] { "A", "group", "changed" });
+	store.add(new String[] { "C", "group", "third" });
+	final var saving = store.changes();
+	store.remove("B");
+	store.saved(saving.count());
+
+	assertThat(saving.uuids()).containsExactlyInAnyOrder("A", "C");
+	assertThat(store.changes().uuids()).containsExactly("B");
+
+	store.replaced();
+	assertThat(store.changes().uuids()).isNull();
+	store.saved(store.changes().count());
+	assertThat(store.changes().uuids()).isEmpty();
+	assertThat(store.hasGeneratedKeys()).isFalse();
+	store.add(new String[] { "A", "group", "again" });
+	assertThat(store.hasGeneratedKeys()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should delete rows with a repeated UUID selected in a group")
+    void shouldFindEntriesLoadedAgain() {
+	final var first = new String[] { "same", "one", "first" };
+	final var other = new String[] { "same", "two", "other" };
+	final var second = new String[] { "same", "one", "second" };
+	final var blank = new String[] { "", "one", "blank" };
+	final var store = new EntryStore();
+	// the table shows group one
+	store.load(first.clone());
+	final var selected = List.of(store.get(store.load(second.clone())), store.get(store.load(blank.clone())));
+
+	// deleting shows all groups first, the rows get other generated keys
+	store.clear();
+	List.of(first, other, second, blank).forEach(row -> store.load(row.clone()));
+	store.find(selected).forEach(store::remove);
+
+	assertThat(store.rows()).containsExactly(first, other);
+    }
+
+    @Test
+    @DisplayName("Should generate keys for blank and repeated first fields")
+    void shouldGenerateKeys() {
+	final var store = new EntryStore();
+	final var first = store.add(new String[] { "same", "1" });
+	final var second = store.add(new String[] { "same", "2" });
+	final var third = store.add(new String[] { "", "3" });
+	final var fourth = store.add(new String[] { second, "4" });
+
+	assertThat(first).isEqualTo("same");
+	assertThat(second).isNotEqualTo(first);
+	assertThat(third).isNotIn(first, second);
+	assertThat(fourth).isNotIn(first, second, third);
+	assertThat(store.get(second)).containsExactly("same", "2");
+	assertThat(store.get(fourth)).containsExactly(second, "4");
+    }
+
+    @Test
+    @DisplayName("Should sort and search snapshots while the store changes")
+    void shouldSortAndSearch() throws Exception {
+	final var store = new EntryStore();
+	final var resets = new ArrayList<Change>();
+	for (var i = 0; i < 1000; i++) {
+	    store.add(new String[] { "uuid" + i, Integer.toString(i % 10), "title" + (999 - i) });
+	}
+	store.addListener((change, _, _) -> resets.add(change));
+	store.sort(Comparator.comparing(row -> row[2]));
+
+	assertThat(store.rows().getFirst()[2]).isEqualTo("title0");
+	assertThat(store.rows().getLast()[2]).isEqualTo("title999");
+	assertThat(resets).containsExactly(Change.RESET);
+
+	try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+	    final var found = executor.submit(() -> store.search(row -> "7".equals(row[1])));
+	    for (var i = 0; i < 100; i++) {
+		store.update("uuid" + i, new String[] { "uuid" + i, "x", "title" });
+	    }
+	    assertThat(found.get()).hasSizeBetween(90, 100).allMatch(key -> key.startsWith("uuid"));
+	}
+	assertThat(store.search(row -> "7".equals(row[1]))).hasSize(90);
+    }
+}
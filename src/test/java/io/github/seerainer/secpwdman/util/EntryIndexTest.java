@@ -0,0 +1,75 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the entry index.
+ */
+@Tag("unit")
+@DisplayName("EntryIndex Unit Tests")
+class EntryIndexTest {
+
+    @Test
+    @DisplayName("Should find entries by the normalised host, user and title")
+    void shouldFindNormalisedEntries() {
+	final var index = new EntryIndex<String>(4);
+	index.add("https://www.Example.com/login?next=1", "jane", "Example", "first");
+	index.add("example.com", "jane", "example", "second");
+	index.add("https://example.com", "john", "Example", "third");
+
+	assertThat(index.find("http://user@example.com:8080/", " Jane ", "EXAMPLE ")).isEqualTo("first");
+	assertThat(index.find("example.com", "john", "Example")).isEqualTo("third");
+	assertThat(index.find("example.org", "jane", "Example")).isNull();
+	assertThat(index.find("example.com", "jane", "Other")).isNull();
+    }
+
+    @Test
+    @DisplayName("Should reduce a url to its host")
+    void shouldGetHost() {
+	assertThat(URLUtil.getHost("HTTPS://www.Example.com:443/a/b?c#d")).isEqualTo("example.com");
+	assertThat(URLUtil.getHost("ftp://user:pw@files.example.org")).isEqualTo("files.example.org");
+	assertThat(URLUtil.getHost("[::1]")).isEqualTo("[::1]");
+	assertThat(URLUtil.getHost(" no url ")).isEqualTo("no url");
+	assertThat(URLUtil.getHost(null)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should find entries in constant time")
+    void shouldStayLinear() {
+	final var count = 100_000;
+	final var index = new EntryIndex<Integer>(count);
+	for (var i = 0; i < count; i++) {
+	    index.add("https://host" + i + ".example/", "user" + i, "Title " + i, Integer.valueOf(i));
+	}
+	var found = 0;
+	for (var i = 0; i < count; i++) {
+	    if (index.find("host" + i + ".example", "USER" + i, "title " + i).intValue() == i) {
+		found++;
+	    }
+	}
+	assertThat(found).isEqualTo(count);
+    }
+}
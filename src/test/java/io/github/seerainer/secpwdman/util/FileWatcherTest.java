@@ -0,0 +1,72 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.seerainer.secpwdman.config.PrimitiveConstants;
+
+/**
+ * Integration tests for the file watcher.
+ */
+@Tag("integration")
+@DisplayName("FileWatcher Integration Tests")
+class FileWatcherTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should run the listener once after a burst of writes")
+    void shouldDebounceWrites() throws IOException, InterruptedException {
+	final var file = tempDir.resolve("vault.json");
+	final var calls = new AtomicInteger();
+	final var called = new CountDownLatch(1);
+	final var watcher = FileWatcher.getInstance();
+	watcher.watch(file, () -> {
+	    calls.incrementAndGet();
+	    called.countDown();
+	});
+	try {
+	    for (var i = 0; i < 10; i++) {
+		Files.writeString(file, "write " + i);
+		Thread.sleep(PrimitiveConstants.WATCH_DEBOUNCE / 10);
+	    }
+	    assertThat(called.await(10, TimeUnit.SECONDS)).isTrue();
+	    Thread.sleep(3 * PrimitiveConstants.WATCH_DEBOUNCE);
+
+	    assertThat(calls.get()).isEqualTo(1);
+	} finally {
+	    watcher.unwatch(file);
+	}
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * SecPwdMan
+ * Copyright (C) 2026  Philipp Seerainer
+ * philipp@seerainer.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package io.github.seerainer.secpwdman.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Integration tests for the single instance lock.
+ */
+@Tag("integration")
+@DisplayName("SingleInstanceManager Integration Tests")
+class SingleInstanceManagerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should take the lock again after the lock file was deleted")
+    void shouldRestoreDeletedLockFile() throws IOException, InterruptedException {
+	final var lockFile = tempDir.resolve("app.lock");
+	final var manager = new SingleInstanceManager("app", lockFile);
+	assertThat(manager.tryLock()).isTrue();
+	FileWatcher.getInstance().watch(lockFile, manager::checkLockFile);
+	try {
+	    Files.delete(lockFile);
+	    for (var i = 0; i < 100 && !Files.exists(lockFile); i++) {
+		Thread.sleep(100);
+	    }
+
+	    assertThat(lockFile).exists();
+	    assertThat(Files.readString(lockFile)).contains("Application: app");
+	    assertThat(new SingleInstanceManager("app", lockFile).tryLock()).isFalse();
+	} finally {
+	    manager.releaseLock();
+	}
+	assertThat(lockFile).doesNotExist();
+    }
+}